@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import jcrapi.request.PlayerBattlesRequest;
+import jcrapi.request.PlayerChestsRequest;
+import jcrapi.request.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of every endpoint on the bundled test fixtures. The scale replicates the elements of top level
+ * arrays and of the arrays directly below a top level object, so a scale of 10 turns a clan with 5 members into one
+ * with 50. Run with {@code java -jar target/benchmarks.jar ParseBenchmark -prof gc} to get the allocation rate.
+ *
+ * @author Michael Lieshoff
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private static final Map<String, ApiEndpoint<?, ?>> ENDPOINTS = ImmutableMap.<String, ApiEndpoint<?, ?>>builder()
+            .put("authStats", ApiEndpoint.AUTH_STATS)
+            .put("clan", ApiEndpoint.CLAN)
+            .put("clanBattles", ApiEndpoint.CLAN_BATTLES)
+            .put("clanHistory", ApiEndpoint.CLAN_HISTORY)
+            .put("clanSearch", ApiEndpoint.CLAN_SEARCH)
+            .put("clanTracking", ApiEndpoint.CLAN_TRACKING)
+            .put("clanWar", ApiEndpoint.CLAN_WAR)
+            .put("clanWarLog", ApiEndpoint.CLAN_WAR_LOG)
+            .put("endpoints", ApiEndpoint.ENDPOINTS)
+            .put("knownTournaments", ApiEndpoint.KNOWN_TOURNAMENTS)
+            .put("multiClans", ApiEndpoint.CLANS)
+            .put("multiPlayerBattles", ApiEndpoint.PLAYER_BATTLES)
+            .put("multiPlayerChests", ApiEndpoint.PLAYER_CHESTS)
+            .put("openTournaments", ApiEndpoint.OPEN_TOURNAMENTS)
+            .put("playerBattles", ApiEndpoint.PLAYER_BATTLES)
+            .put("playerChests", ApiEndpoint.PLAYER_CHESTS)
+            .put("popularClans", ApiEndpoint.POPULAR_CLANS)
+            .put("popularDecks", ApiEndpoint.POPULAR_DECKS)
+            .put("popularPlayers", ApiEndpoint.POPULAR_PLAYERS)
+            .put("popularTournaments", ApiEndpoint.POPULAR_TOURNAMENTS)
+            .put("profile", ApiEndpoint.PROFILE)
+            .put("profiles", ApiEndpoint.PROFILES)
+            .put("topClans", ApiEndpoint.TOP_CLANS)
+            .put("topPlayers", ApiEndpoint.TOP_PLAYERS)
+            .put("tournamentSearch", ApiEndpoint.TOURNAMENT_SEARCH)
+            .put("tournaments", ApiEndpoint.TOURNAMENTS)
+            .build();
+
+    @Param({"authStats", "clan", "clanBattles", "clanHistory", "clanSearch", "clanTracking", "clanWar", "clanWarLog",
+            "endpoints", "knownTournaments", "multiClans", "multiPlayerBattles", "multiPlayerChests",
+            "openTournaments", "playerBattles", "playerChests", "popularClans", "popularDecks", "popularPlayers",
+            "popularTournaments", "profile", "profiles", "topClans", "topPlayers", "tournamentSearch", "tournaments"})
+    private String fixture;
+
+    @Param({"1", "10"})
+    private int scale;
+
+    private Client client;
+    private ApiEndpoint<Request, Object> endpoint;
+    private Request request;
+    private String json;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        client = new Client("http://localhost/", "key", AuthMode.NORMAL, new CrawlerFactory());
+        endpoint = (ApiEndpoint<Request, Object>) ENDPOINTS.get(fixture);
+        request = createRequest(fixture);
+        json = scale(new JsonParser().parse(readFixture(fixture)), scale).toString();
+    }
+
+    static Request createRequest(String fixture) {
+        switch (fixture) {
+            case "playerBattles":
+                return PlayerBattlesRequest.builder(Collections.singletonList("ABC")).build();
+            case "multiPlayerBattles":
+                return PlayerBattlesRequest.builder(Arrays.asList("ABC", "DEF")).build();
+            case "playerChests":
+                return PlayerChestsRequest.builder(Collections.singletonList("ABC")).build();
+            case "multiPlayerChests":
+                return PlayerChestsRequest.builder(Arrays.asList("ABC", "DEF")).build();
+            default:
+                return null;
+        }
+    }
+
+    static String readFixture(String fixture) throws IOException {
+        try (InputStream in = ParseBenchmark.class.getResourceAsStream("/fixtures/" + fixture + ".json")) {
+            if (in == null) {
+                throw new IOException("missing fixture: " + fixture);
+            }
+            return new String(ByteStreams.toByteArray(in), "UTF-8");
+        }
+    }
+
+    static JsonElement scale(JsonElement element, int scale) {
+        if (element.isJsonArray()) {
+            return replicate(element.getAsJsonArray(), scale);
+        }
+        if (element.isJsonObject()) {
+            JsonObject object = new JsonObject();
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                JsonElement value = entry.getValue();
+                object.add(entry.getKey(), value.isJsonArray() ? replicate(value.getAsJsonArray(), scale) : value);
+            }
+            return object;
+        }
+        return element;
+    }
+
+    private static JsonArray replicate(JsonArray array, int scale) {
+        JsonArray result = new JsonArray();
+        for (int i = 0; i < scale; i++) {
+            for (JsonElement element : array) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Object parse() {
+        return client.parse(endpoint, json, request);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timestamp;
+
+import java.util.Collection;
+
+/**
+ * Java Flight Recorder implementation of {@link FlightEvents}.
+ *
+ * @author Michael Lieshoff
+ */
+class JfrEvents extends FlightEvents {
+
+    @Override
+    Object beginRequest() {
+        return begin(new RequestEvent());
+    }
+
+    @Override
+    void commitRequest(Object event, CallMetadata call, boolean failed) {
+        if (event == null) {
+            return;
+        }
+        RequestEvent requestEvent = (RequestEvent) event;
+        requestEvent.end();
+        if (requestEvent.shouldCommit()) {
+            requestEvent.endpoint = call.getEndpoint().getTemplate();
+            requestEvent.path = call.getPath();
+            requestEvent.tags = call.getEndpoint().tagCount(call.getPath());
+            requestEvent.attempt = call.getAttempt();
+            requestEvent.failed = failed;
+            requestEvent.statusCode = call.getStatusCode();
+            requestEvent.bytes = call.getResponseBytes();
+            requestEvent.rateLimitRemaining = call.getRateRemaining().or(-1);
+            requestEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginParse() {
+        return begin(new ParseEvent());
+    }
+
+    @Override
+    void commitParse(Object event, ApiEndpoint<?, ?> endpoint, Object result) {
+        if (event == null) {
+            return;
+        }
+        ParseEvent parseEvent = (ParseEvent) event;
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.endpoint = endpoint.getTemplate();
+            parseEvent.modelType = endpoint.getType().toString();
+            if (result instanceof Collection) {
+                parseEvent.elements = ((Collection<?>) result).size();
+            } else {
+                parseEvent.elements = result != null ? 1 : 0;
+            }
+            parseEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginRateLimitWait() {
+        return begin(new RateLimitWaitEvent());
+    }
+
+    @Override
+    void commitRateLimitWait(Object event, CallMetadata call) {
+        if (event == null) {
+            return;
+        }
+        RateLimitWaitEvent waitEvent = (RateLimitWaitEvent) event;
+        waitEvent.end();
+        if (waitEvent.shouldCommit()) {
+            waitEvent.endpoint = call.getEndpoint().getTemplate();
+            waitEvent.resetAt = call.getRateReset().or(0L);
+            waitEvent.commit();
+        }
+    }
+
+    private static Event begin(Event event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Name("jcrapi.Request")
+    @Label("API Request")
+    @Category("jcrapi")
+    @Description("One attempt of an api call, from sending the request to the end of the body")
+    static class RequestEvent extends Event {
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Path")
+        String path;
+
+        @Label("Tags")
+        int tags;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Failed")
+        boolean failed;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Rate Limit Remaining")
+        int rateLimitRemaining = -1;
+
+    }
+
+    @Name("jcrapi.Parse")
+    @Label("API Parse")
+    @Category("jcrapi")
+    @Description("Json to model mapping of one api response")
+    static class ParseEvent extends Event {
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Model Type")
+        String modelType;
+
+        @Label("Elements")
+        int elements;
+
+    }
+
+    @Name("jcrapi.RateLimitWait")
+    @Label("API Rate Limit Wait")
+    @Category("jcrapi")
+    @Description("Time spent waiting for the rate limit to reset before a retry")
+    static class RateLimitWaitEvent extends Event {
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Reset At")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long resetAt;
+
+    }
+
+}
@@ -16,6 +16,7 @@
  */
 package jcrapi;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import jcrapi.model.AuthStats;
 import jcrapi.model.Battle;
@@ -56,21 +57,29 @@ import jcrapi.request.PopularPlayersRequest;
 import jcrapi.request.PopularTournamentsRequest;
 import jcrapi.request.ProfileRequest;
 import jcrapi.request.ProfilesRequest;
+import jcrapi.request.Request;
 import jcrapi.request.TopClansRequest;
 import jcrapi.request.TopPlayersRequest;
 import jcrapi.request.TournamentSearchRequest;
 import jcrapi.request.TournamentsRequest;
 import org.apache.commons.collections.CollectionUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 
 /**
+ * Client of the api. An instance builds its client, crawlers and pooled connections once and is meant to be shared
+ * by all threads, {@link #close()} releases the connections.
+ *
  * @author Michael Lieshoff
  */
-public class Api {
+public class Api implements Closeable {
 
     private final ClientFactory clientFactory;
+    private final Client client;
+
+    private volatile boolean closed;
 
     private final String url;
     private final String developerKey;
@@ -91,6 +100,26 @@ public class Api {
         this.developerKey = developerKey;
         this.clientFactory = clientFactory;
         this.authMode = authMode;
+        client = clientFactory.createClient(url, developerKey, authMode);
+    }
+
+    /**
+     * Api which calls the given url and stores every response in the recording. While a circuit breaker is open
+     * the latest recorded response is served instead.
+     */
+    public static Api recording(String url, String developerKey, AuthMode authMode, Recording recording) {
+        ClientFactory clientFactory = new ClientFactory(new RecordingCrawlerFactory(recording));
+        clientFactory.getCircuitBreakers().setFallback(recording);
+        return new Api(url, developerKey, clientFactory, authMode);
+    }
+
+    /**
+     * Api which serves the responses of a recording instead of calling the url, rate limit waits follow the clock
+     * of the replay.
+     */
+    public static Api replaying(String url, String developerKey, AuthMode authMode, Replay replay) {
+        return new Api(url, developerKey, new ClientFactory(new ReplayCrawlerFactory(replay), replay.getClock()),
+                authMode);
     }
 
     private void checkString(String s, String key) {
@@ -106,8 +135,9 @@ public class Api {
         }
     }
 
-    private Client createClient() {
-        return clientFactory.createClient(url, developerKey, authMode);
+    Client createClient() {
+        Preconditions.checkState(!closed, "closed");
+        return client;
     }
 
     @Deprecated
@@ -388,8 +418,171 @@ public class Api {
         }
     }
 
+    /**
+     * Calls the endpoint and returns its result with the metadata of the answering attempt, which is what
+     * {@link #getLastResponse()} cannot tell reliably when several threads share this instance.
+     */
+    public <R extends Request, T> ApiResult<T> getResult(ApiEndpoint<R, T> endpoint, R request) {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        try {
+            return createClient().getResult(endpoint, request);
+        } catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+
+    /**
+     * @deprecated the last response of any thread, use {@link #getResult(ApiEndpoint, Request)} or a
+     * {@link RequestListener} to get the response of each call.
+     */
+    @Deprecated
     public Response getLastResponse() {
         return createClient().getLastResponse();
     }
 
-}
\ No newline at end of file
+    /**
+     * Latest rate limit announced for the developer key, shared by all threads.
+     */
+    public Optional<RateLimitSnapshot> getRateLimit() {
+        return Optional.fromNullable(createClient().getRateLimit());
+    }
+
+    /**
+     * Per-endpoint latency, size and retry metrics of all calls made through this instance.
+     */
+    public MetricsRegistry getMetrics() {
+        return clientFactory.getMetricsRegistry();
+    }
+
+    public void addRequestListener(RequestListener requestListener) {
+        Preconditions.checkNotNull(requestListener, "requestListener");
+        clientFactory.getRequestListeners().add(requestListener);
+    }
+
+    public void removeRequestListener(RequestListener requestListener) {
+        clientFactory.getRequestListeners().remove(requestListener);
+    }
+
+    /**
+     * Deadline for every call of this api, from sending the first request to reading the response, including
+     * retries and waits for the rate limit. A request with an own timeout overrides it, 0 means no deadline.
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        clientFactory.setTimeoutMillis(timeoutMillis);
+    }
+
+    public long getTimeoutMillis() {
+        return clientFactory.getTimeoutMillis();
+    }
+
+    /**
+     * Normalizes, deduplicates or rejects the tags of all requests before they are sent, so malformed tags do not
+     * cost quota. {@link TagValidation#OFF} by default.
+     */
+    public void setTagValidation(TagValidation tagValidation) {
+        clientFactory.setTagValidation(tagValidation);
+    }
+
+    public TagValidation getTagValidation() {
+        return clientFactory.getTagValidation();
+    }
+
+    /**
+     * Retry policy for all endpoints without an own policy.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        clientFactory.getRetryPolicies().setDefault(retryPolicy);
+    }
+
+    /**
+     * Retry policy for one endpoint, null falls back to the default policy.
+     */
+    public void setRetryPolicy(ApiEndpoint<?, ?> endpoint, RetryPolicy retryPolicy) {
+        clientFactory.getRetryPolicies().set(endpoint, retryPolicy);
+    }
+
+    public RetryPolicy getRetryPolicy(ApiEndpoint<?, ?> endpoint) {
+        return clientFactory.getRetryPolicies().get(endpoint);
+    }
+
+    public void setRetryBudget(RetryBudget retryBudget) {
+        clientFactory.getRetryPolicies().setBudget(retryBudget);
+    }
+
+    public RetryBudget getRetryBudget() {
+        return clientFactory.getRetryPolicies().getBudget();
+    }
+
+    /**
+     * Hedge policy for all endpoints without an own policy, hedging is disabled by default.
+     */
+    public void setHedgePolicy(HedgePolicy hedgePolicy) {
+        clientFactory.getHedging().setDefault(hedgePolicy);
+    }
+
+    /**
+     * Hedge policy for one endpoint, null falls back to the default policy.
+     */
+    public void setHedgePolicy(ApiEndpoint<?, ?> endpoint, HedgePolicy hedgePolicy) {
+        clientFactory.getHedging().set(endpoint, hedgePolicy);
+    }
+
+    public HedgePolicy getHedgePolicy(ApiEndpoint<?, ?> endpoint) {
+        return clientFactory.getHedging().get(endpoint);
+    }
+
+    /**
+     * Budget for hedged requests, by default every hedged call deposits 0.05 tokens with a reserve of 5.
+     */
+    public void setHedgeBudget(RetryBudget hedgeBudget) {
+        clientFactory.getHedging().setBudget(hedgeBudget);
+    }
+
+    public RetryBudget getHedgeBudget() {
+        return clientFactory.getHedging().getBudget();
+    }
+
+    /**
+     * Thresholds for the circuit breakers, replacing the policy resets all breakers.
+     */
+    public void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        clientFactory.getCircuitBreakers().setPolicy(circuitBreakerPolicy);
+    }
+
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return clientFactory.getCircuitBreakers().getPolicy();
+    }
+
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return clientFactory.getCircuitBreakers().getAll();
+    }
+
+    /**
+     * Recording whose latest successful responses are served while a circuit breaker is open, null for none.
+     */
+    public void setCircuitBreakerFallback(Recording recording) {
+        clientFactory.getCircuitBreakers().setFallback(recording);
+    }
+
+    /**
+     * Limiter for the requests in flight of this api, null to send requests without limit.
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        clientFactory.getCrawlerFactory().setConcurrencyLimiter(concurrencyLimiter);
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return clientFactory.getCrawlerFactory().getConcurrencyLimiter();
+    }
+
+    /**
+     * Closes the pooled connections and stops sending hedged calls, calls fail with an
+     * {@link IllegalStateException} afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        clientFactory.close();
+    }
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import jcrapi.model.AuthStats;
+import jcrapi.model.Battle;
+import jcrapi.model.ChestCycle;
+import jcrapi.model.Clan;
+import jcrapi.model.ClanHistory;
+import jcrapi.model.ClanTracking;
+import jcrapi.model.ClanWar;
+import jcrapi.model.ClanWarLog;
+import jcrapi.model.Endpoints;
+import jcrapi.model.KnownTournament;
+import jcrapi.model.OpenTournament;
+import jcrapi.model.PopularClan;
+import jcrapi.model.PopularDeck;
+import jcrapi.model.PopularPlayer;
+import jcrapi.model.PopularTournament;
+import jcrapi.model.Profile;
+import jcrapi.model.SearchedTournament;
+import jcrapi.model.TopClan;
+import jcrapi.model.TopPlayer;
+import jcrapi.model.Tournament;
+import jcrapi.request.AuthStatsRequest;
+import jcrapi.request.ClanBattlesRequest;
+import jcrapi.request.ClanHistoryRequest;
+import jcrapi.request.ClanRequest;
+import jcrapi.request.ClanSearchRequest;
+import jcrapi.request.ClanTrackingRequest;
+import jcrapi.request.ClanWarLogRequest;
+import jcrapi.request.ClanWarRequest;
+import jcrapi.request.ClansRequest;
+import jcrapi.request.KnownTournamentsRequest;
+import jcrapi.request.LocationedRequest;
+import jcrapi.request.OpenTournamentsRequest;
+import jcrapi.request.PlayerBattlesRequest;
+import jcrapi.request.PlayerChestsRequest;
+import jcrapi.request.PopularClansRequest;
+import jcrapi.request.PopularDecksRequest;
+import jcrapi.request.PopularPlayersRequest;
+import jcrapi.request.PopularTournamentsRequest;
+import jcrapi.request.ProfileRequest;
+import jcrapi.request.ProfilesRequest;
+import jcrapi.request.Request;
+import jcrapi.request.Tags;
+import jcrapi.request.TopClansRequest;
+import jcrapi.request.TopPlayersRequest;
+import jcrapi.request.TournamentSearchRequest;
+import jcrapi.request.TournamentsRequest;
+import org.apache.commons.lang.StringUtils;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Catalogue of the endpoint templates of the api. An endpoint knows how to build the path for its request type and
+ * how to parse the returned json, so fetching and parsing can be done as separate steps.
+ *
+ * @author Michael Lieshoff
+ */
+public abstract class ApiEndpoint<R extends Request, T> {
+
+    public static final ApiEndpoint<Request, String> VERSION =
+            new ApiEndpoint<Request, String>("version", String.class) {
+                @Override
+                String path(Request request, TagValidation tagValidation) {
+                    return "version";
+                }
+
+                @Override
+                String parse(Gson gson, String json, Request request) {
+                    return json;
+                }
+            };
+
+    public static final ApiEndpoint<ProfileRequest, Profile> PROFILE =
+            new ApiEndpoint<ProfileRequest, Profile>("player/{tag}", Profile.class) {
+                @Override
+                String path(ProfileRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<ProfilesRequest, List<Profile>> PROFILES =
+            new ApiEndpoint<ProfilesRequest, List<Profile>>("player/{tags}",
+                    new TypeToken<ArrayList<Profile>>(){}.getType()) {
+                @Override
+                String path(ProfilesRequest request, TagValidation tagValidation) {
+                    return expand(request.getTags(), tagValidation);
+                }
+
+                @Override
+                List<Profile> parse(Gson gson, String json, ProfilesRequest request) {
+                    if (isObject(json)) {
+                        List<Profile> profiles = new ArrayList<>();
+                        profiles.add(gson.fromJson(json, Profile.class));
+                        return profiles;
+                    }
+                    return super.parse(gson, json, request);
+                }
+            };
+
+    public static final ApiEndpoint<TopClansRequest, List<TopClan>> TOP_CLANS =
+            new ApiEndpoint<TopClansRequest, List<TopClan>>("top/clans",
+                    new TypeToken<ArrayList<TopClan>>(){}.getType()) {
+                @Override
+                String path(TopClansRequest request, TagValidation tagValidation) {
+                    return expandOptional(request.getLocationKey());
+                }
+            };
+
+    public static final ApiEndpoint<ClanRequest, Clan> CLAN =
+            new ApiEndpoint<ClanRequest, Clan>("clan/{tag}", Clan.class) {
+                @Override
+                String path(ClanRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<ClansRequest, List<Clan>> CLANS =
+            new ApiEndpoint<ClansRequest, List<Clan>>("clan/{tags}", new TypeToken<ArrayList<Clan>>(){}.getType()) {
+                @Override
+                String path(ClansRequest request, TagValidation tagValidation) {
+                    return expand(request.getTags(), tagValidation);
+                }
+
+                @Override
+                List<Clan> parse(Gson gson, String json, ClansRequest request) {
+                    if (isObject(json)) {
+                        List<Clan> clans = new ArrayList<>();
+                        clans.add(gson.fromJson(json, Clan.class));
+                        return clans;
+                    }
+                    return super.parse(gson, json, request);
+                }
+            };
+
+    public static final ApiEndpoint<ClanSearchRequest, List<Clan>> CLAN_SEARCH =
+            new ApiEndpoint<ClanSearchRequest, List<Clan>>("clan/search",
+                    new TypeToken<ArrayList<Clan>>(){}.getType()) {
+                @Override
+                String path(ClanSearchRequest request, TagValidation tagValidation) {
+                    return "clan/search";
+                }
+            };
+
+    public static final ApiEndpoint<TopPlayersRequest, List<TopPlayer>> TOP_PLAYERS =
+            new ApiEndpoint<TopPlayersRequest, List<TopPlayer>>("top/players",
+                    new TypeToken<ArrayList<TopPlayer>>(){}.getType()) {
+                @Override
+                String path(TopPlayersRequest request, TagValidation tagValidation) {
+                    return expandOptional(request.getLocationKey());
+                }
+            };
+
+    public static final ApiEndpoint<TournamentsRequest, Tournament> TOURNAMENTS =
+            new ApiEndpoint<TournamentsRequest, Tournament>("tournaments/{tag}", Tournament.class) {
+                @Override
+                String path(TournamentsRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<Request, Endpoints> ENDPOINTS =
+            new ApiEndpoint<Request, Endpoints>("endpoints", Endpoints.class) {
+                @Override
+                String path(Request request, TagValidation tagValidation) {
+                    return "endpoints";
+                }
+            };
+
+    public static final ApiEndpoint<PopularClansRequest, List<PopularClan>> POPULAR_CLANS =
+            new ApiEndpoint<PopularClansRequest, List<PopularClan>>("popular/clans",
+                    new TypeToken<ArrayList<PopularClan>>(){}.getType()) {
+                @Override
+                String path(PopularClansRequest request, TagValidation tagValidation) {
+                    return "popular/clans";
+                }
+            };
+
+    public static final ApiEndpoint<PopularPlayersRequest, List<PopularPlayer>> POPULAR_PLAYERS =
+            new ApiEndpoint<PopularPlayersRequest, List<PopularPlayer>>("popular/players",
+                    new TypeToken<ArrayList<PopularPlayer>>(){}.getType()) {
+                @Override
+                String path(PopularPlayersRequest request, TagValidation tagValidation) {
+                    return "popular/players";
+                }
+            };
+
+    public static final ApiEndpoint<PopularTournamentsRequest, List<PopularTournament>> POPULAR_TOURNAMENTS =
+            new ApiEndpoint<PopularTournamentsRequest, List<PopularTournament>>("popular/tournaments",
+                    new TypeToken<ArrayList<PopularTournament>>(){}.getType()) {
+                @Override
+                String path(PopularTournamentsRequest request, TagValidation tagValidation) {
+                    return "popular/tournaments";
+                }
+            };
+
+    public static final ApiEndpoint<ClanBattlesRequest, List<Battle>> CLAN_BATTLES =
+            new ApiEndpoint<ClanBattlesRequest, List<Battle>>("clan/{tag}/battles",
+                    new TypeToken<ArrayList<Battle>>(){}.getType()) {
+                @Override
+                String path(ClanBattlesRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<ClanHistoryRequest, ClanHistory> CLAN_HISTORY =
+            new ApiEndpoint<ClanHistoryRequest, ClanHistory>("clan/{tag}/history", ClanHistory.class) {
+                @Override
+                String path(ClanHistoryRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<OpenTournamentsRequest, List<OpenTournament>> OPEN_TOURNAMENTS =
+            new ApiEndpoint<OpenTournamentsRequest, List<OpenTournament>>("tournaments/open",
+                    new TypeToken<ArrayList<OpenTournament>>(){}.getType()) {
+                @Override
+                String path(OpenTournamentsRequest request, TagValidation tagValidation) {
+                    return "tournaments/open";
+                }
+            };
+
+    public static final ApiEndpoint<KnownTournamentsRequest, List<KnownTournament>> KNOWN_TOURNAMENTS =
+            new ApiEndpoint<KnownTournamentsRequest, List<KnownTournament>>("tournaments/known",
+                    new TypeToken<ArrayList<KnownTournament>>(){}.getType()) {
+                @Override
+                String path(KnownTournamentsRequest request, TagValidation tagValidation) {
+                    return "tournaments/known";
+                }
+            };
+
+    public static final ApiEndpoint<TournamentSearchRequest, List<SearchedTournament>> TOURNAMENT_SEARCH =
+            new ApiEndpoint<TournamentSearchRequest, List<SearchedTournament>>("tournaments/search",
+                    new TypeToken<ArrayList<SearchedTournament>>(){}.getType()) {
+                @Override
+                String path(TournamentSearchRequest request, TagValidation tagValidation) {
+                    return "tournaments/search";
+                }
+            };
+
+    public static final ApiEndpoint<PlayerBattlesRequest, List<List<Battle>>> PLAYER_BATTLES =
+            new ApiEndpoint<PlayerBattlesRequest, List<List<Battle>>>("player/{tags}/battles",
+                    new TypeToken<List<List<Battle>>>(){}.getType()) {
+                @Override
+                String path(PlayerBattlesRequest request, TagValidation tagValidation) {
+                    return expand(request.getTags(), tagValidation);
+                }
+
+                @Override
+                List<List<Battle>> parse(Gson gson, String json, PlayerBattlesRequest request) {
+                    // a list of battles and an empty list of lists look the same, the request tells them apart
+                    if (request != null ? isSingleTag(request.getTags()) : !isArrayOfArrays(json)) {
+                        List<List<Battle>> listOfBattles = new ArrayList<>();
+                        List<Battle> battles = gson.fromJson(json, new TypeToken<ArrayList<Battle>>(){}.getType());
+                        listOfBattles.add(battles);
+                        return listOfBattles;
+                    }
+                    return super.parse(gson, json, request);
+                }
+            };
+
+    public static final ApiEndpoint<PlayerChestsRequest, List<ChestCycle>> PLAYER_CHESTS =
+            new ApiEndpoint<PlayerChestsRequest, List<ChestCycle>>("player/{tags}/chests",
+                    new TypeToken<List<ChestCycle>>(){}.getType()) {
+                @Override
+                String path(PlayerChestsRequest request, TagValidation tagValidation) {
+                    return expand(request.getTags(), tagValidation);
+                }
+
+                @Override
+                List<ChestCycle> parse(Gson gson, String json, PlayerChestsRequest request) {
+                    if (isObject(json)) {
+                        List<ChestCycle> list = new ArrayList<>();
+                        list.add(gson.fromJson(json, ChestCycle.class));
+                        return list;
+                    }
+                    return super.parse(gson, json, request);
+                }
+            };
+
+    public static final ApiEndpoint<PopularDecksRequest, List<PopularDeck>> POPULAR_DECKS =
+            new ApiEndpoint<PopularDecksRequest, List<PopularDeck>>("popular/decks",
+                    new TypeToken<ArrayList<PopularDeck>>(){}.getType()) {
+                @Override
+                String path(PopularDecksRequest request, TagValidation tagValidation) {
+                    return "popular/decks";
+                }
+            };
+
+    public static final ApiEndpoint<ClanTrackingRequest, ClanTracking> CLAN_TRACKING =
+            new ApiEndpoint<ClanTrackingRequest, ClanTracking>("clan/{tag}/tracking", ClanTracking.class) {
+                @Override
+                String path(ClanTrackingRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<ClanWarLogRequest, List<ClanWarLog>> CLAN_WAR_LOG =
+            new ApiEndpoint<ClanWarLogRequest, List<ClanWarLog>>("clan/{tag}/warlog",
+                    new TypeToken<List<ClanWarLog>>(){}.getType()) {
+                @Override
+                String path(ClanWarLogRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<ClanWarRequest, ClanWar> CLAN_WAR =
+            new ApiEndpoint<ClanWarRequest, ClanWar>("clan/{tag}/war", ClanWar.class) {
+                @Override
+                String path(ClanWarRequest request, TagValidation tagValidation) {
+                    return expand(request.getTag(), tagValidation);
+                }
+            };
+
+    public static final ApiEndpoint<AuthStatsRequest, AuthStats> AUTH_STATS =
+            new ApiEndpoint<AuthStatsRequest, AuthStats>("auth/stats", AuthStats.class) {
+                @Override
+                String path(AuthStatsRequest request, TagValidation tagValidation) {
+                    return "auth/stats";
+                }
+            };
+
+    private static final List<ApiEndpoint<?, ?>> VALUES = ImmutableList.<ApiEndpoint<?, ?>>of(
+            VERSION, PROFILE, PROFILES, TOP_CLANS, CLAN, CLANS, CLAN_SEARCH, TOP_PLAYERS, TOURNAMENTS, ENDPOINTS,
+            POPULAR_CLANS, POPULAR_PLAYERS, POPULAR_TOURNAMENTS, CLAN_BATTLES, CLAN_HISTORY, OPEN_TOURNAMENTS,
+            KNOWN_TOURNAMENTS, TOURNAMENT_SEARCH, PLAYER_BATTLES, PLAYER_CHESTS, POPULAR_DECKS, CLAN_TRACKING,
+            CLAN_WAR_LOG, CLAN_WAR, AUTH_STATS);
+
+    private final String template;
+    private final PathTemplate pathTemplate;
+    private final Type type;
+    private final Class<?> requestType;
+
+    ApiEndpoint(String template, Type type) {
+        Preconditions.checkNotNull(template, "template");
+        Preconditions.checkNotNull(type, "type");
+        this.template = template;
+        this.type = type;
+        pathTemplate = PathTemplate.compile(template);
+        requestType = (Class<?>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+    }
+
+    public static List<ApiEndpoint<?, ?>> values() {
+        return VALUES;
+    }
+
+    /**
+     * Endpoint of a path built from one of the templates, null for unknown paths. A single tag selects the single
+     * tag endpoint where both exist.
+     */
+    static ApiEndpoint<?, ?> forPath(String path) {
+        Preconditions.checkNotNull(path, "path");
+        ApiEndpoint<?, ?> candidate = null;
+        for (ApiEndpoint<?, ?> endpoint : VALUES) {
+            if (endpoint.pathTemplate.matches(path,
+                    LocationedRequest.class.isAssignableFrom(endpoint.getRequestType()))) {
+                return endpoint;
+            }
+            String value = endpoint.pathTemplate.extract(path);
+            if (value != null && (candidate == null
+                    || (value.indexOf(',') >= 0) == endpoint.template.contains("{tags}"))) {
+                candidate = endpoint;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * The still encoded tags of a path built from this template, empty for templates without tags.
+     */
+    List<String> tags(String path) {
+        String value = pathTemplate.extract(path);
+        return value != null ? Arrays.asList(StringUtils.split(value, ',')) : Collections.<String>emptyList();
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    String path(R request) {
+        return path(request, TagValidation.OFF);
+    }
+
+    /**
+     * Path for the request with its tags passed through the given validation.
+     */
+    abstract String path(R request, TagValidation tagValidation);
+
+    Class<?> getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * Number of tags addressed by a path built from this template.
+     */
+    int tagCount(String path) {
+        int index = template.indexOf("{tag");
+        if (index < 0 || path == null) {
+            return 0;
+        }
+        String[] segments = StringUtils.split(path, '/');
+        int segment = StringUtils.countMatches(template.substring(0, index), "/");
+        if (segment >= segments.length) {
+            return 0;
+        }
+        return StringUtils.countMatches(segments[segment], ",") + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    T parse(Gson gson, String json, R request) {
+        return (T) gson.fromJson(json, type);
+    }
+
+    String expand(String tag, TagValidation tagValidation) {
+        return pathTemplate.expand(tagValidation.apply(tag));
+    }
+
+    String expand(Collection<String> tags, TagValidation tagValidation) {
+        return pathTemplate.expand(tagValidation.apply(tags));
+    }
+
+    String expandOptional(String locationKey) {
+        return pathTemplate.expandOptional(locationKey);
+    }
+
+    /**
+     * Multi tag endpoints answer a single tag with the bare item, which is told by the json itself because the
+     * validation may have merged duplicate tags of the request into one.
+     */
+    static boolean isObject(String json) {
+        int index = skipWhitespace(json, 0);
+        return index < json.length() && json.charAt(index) == '{';
+    }
+
+    /**
+     * True if the tags name one player or clan once the validation merged duplicates, which the api answers like a
+     * single tag request.
+     */
+    static boolean isSingleTag(Collection<String> tags) {
+        return Tags.normalize(tags).size() <= 1;
+    }
+
+    static boolean isArrayOfArrays(String json) {
+        int index = skipWhitespace(json, 0);
+        if (index >= json.length() || json.charAt(index) != '[') {
+            return false;
+        }
+        index = skipWhitespace(json, index + 1);
+        return index < json.length() && json.charAt(index) == '[';
+    }
+
+    private static int skipWhitespace(String json, int index) {
+        while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+}
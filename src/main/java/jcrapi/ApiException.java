@@ -21,22 +21,39 @@ package jcrapi;
  */
 public class ApiException extends RuntimeException {
 
-    private int code = -1;
+    private final int code;
 
     public ApiException(Throwable cause) {
         super(cause);
-        String message = cause.getMessage();
+        code = parseCode(cause.getMessage());
+    }
+
+    static int parseCode(String message) {
         if (message != null) {
             int index = message.indexOf("crapi: ");
             if (index >= 0) {
-                String value = message.substring(7);
-                code = Integer.valueOf(value);
+                return Integer.valueOf(message.substring(index + 7));
             }
         }
+        return -1;
     }
 
     public int getCode() {
         return code;
     }
 
+    /**
+     * State of the circuit breaker if the call failed fast without calling the api, otherwise null.
+     */
+    public CircuitState getCircuitState() {
+        return getCause() instanceof CircuitOpenException ? ((CircuitOpenException) getCause()).getState() : null;
+    }
+
+    /**
+     * True if the call was not answered within its deadline.
+     */
+    public boolean isDeadlineExceeded() {
+        return getCause() instanceof DeadlineExceededException;
+    }
+
 }
@@ -0,0 +1,512 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import jcrapi.request.Tags;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local http server with the url space of the api, backed by one shared {@link Api}. Services point the url of their
+ * own api at the proxy and share the rate limit, retries, circuit breakers and concurrency limiter of that api
+ * instead of competing for the developer key. Successful responses are cached for a fixed time, concurrent requests
+ * for the same path are answered by one upstream call and single profile and clan requests arriving within a short
+ * window are batched into one multi-tag call. The auth headers of incoming requests are ignored, so the proxy binds
+ * to the loopback address by default. Runs on the http server of the JDK, embedded or standalone via
+ * {@link #main(String[])}.
+ *
+ * @author Michael Lieshoff
+ */
+public class ApiProxy implements Closeable {
+
+    public static final String DEFAULT_HOST = "127.0.0.1";
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final Map<String, String> NO_HEADERS = ImmutableMap.of();
+
+    private final String host;
+    private final int port;
+    private final int threads;
+    private final long batchWindowMillis;
+    private final int maxTagsPerCall;
+    private final ProxyCache cache;
+
+    private final ConcurrentMap<String, SettableFuture<RecordedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, TagBatch> batches = new HashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong batched = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+
+    private final Client client;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private ApiProxy(Api api, String host, int port, int threads, int cacheSize, long cacheTtlMillis,
+                     long batchWindowMillis, int maxTagsPerCall, Clock clock) {
+        Preconditions.checkNotNull(api, "api");
+        Preconditions.checkNotNull(host, "host");
+        Preconditions.checkArgument(port >= 0, "port must be >= 0");
+        Preconditions.checkArgument(threads > 0, "threads must be > 0");
+        Preconditions.checkArgument(batchWindowMillis >= 0, "batchWindowMillis must be >= 0");
+        Preconditions.checkArgument(maxTagsPerCall > 0, "maxTagsPerCall must be > 0");
+        client = api.createClient();
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxTagsPerCall = maxTagsPerCall;
+        cache = new ProxyCache(cacheSize, cacheTtlMillis, clock);
+    }
+
+    public synchronized void start() throws IOException {
+        Preconditions.checkState(server == null, "started");
+        executor = Threads.newExecutor("jcrapi-proxy", threads);
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                ApiProxy.this.handle(exchange);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops the server, the backing api stays open.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public synchronized int getPort() {
+        Preconditions.checkState(server != null, "not started");
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Url to create the api of a service with.
+     */
+    public String getUrl() {
+        return "http://" + host + ":" + getPort() + "/";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Requests answered by the upstream call of a concurrent request for the same path.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Tags fetched by multi-tag calls of the batching.
+     */
+    public long getBatched() {
+        return batched.get();
+    }
+
+    public long getUpstreamCalls() {
+        return upstreamCalls.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error(405, "method not allowed"));
+                return;
+            }
+            String path = StringUtils.removeStart(exchange.getRequestURI().getRawPath(), "/");
+            ApiEndpoint<?, ?> endpoint = ApiEndpoint.forPath(path);
+            if (endpoint == null) {
+                respond(exchange, 404, error(404, "unknown endpoint"));
+                return;
+            }
+            RecordedResponse response;
+            try {
+                response = get(endpoint, path, parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException e) {
+                // a malformed percent-encoding in the tags or the query
+                response = new RecordedResponse(400, NO_HEADERS, error(400, e.getMessage()));
+            } catch (RuntimeException e) {
+                response = new RecordedResponse(500, NO_HEADERS, error(500, String.valueOf(e)));
+            }
+            respond(exchange, response.getStatusCode(), response.getBody());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    RecordedResponse get(ApiEndpoint<?, ?> endpoint, String path, Map<String, String> parameters) {
+        requests.incrementAndGet();
+        String key = Recording.createKey(path, parameters);
+        String body = cache.get(key);
+        if (body != null) {
+            cacheHits.incrementAndGet();
+            return new RecordedResponse(200, NO_HEADERS, body);
+        }
+        SettableFuture<RecordedResponse> future = SettableFuture.create();
+        SettableFuture<RecordedResponse> leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+        try {
+            RecordedResponse response = isBatched(endpoint)
+                    ? batch(endpoint, decode(endpoint.tags(path).get(0)), parameters)
+                    : fetch(endpoint, path, parameters);
+            if (response.getStatusCode() == 200) {
+                cache.put(key, response.getBody());
+            }
+            future.set(response);
+            return response;
+        } catch (RuntimeException e) {
+            future.setException(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private boolean isBatched(ApiEndpoint<?, ?> endpoint) {
+        return batchWindowMillis > 0 && maxTagsPerCall > 1
+                && (endpoint == ApiEndpoint.PROFILE || endpoint == ApiEndpoint.CLAN);
+    }
+
+    /**
+     * Adds the tag to the open batch of the endpoint and parameters. The request which opened the batch waits for
+     * the window or until the batch is full and then sends it.
+     */
+    private RecordedResponse batch(ApiEndpoint<?, ?> endpoint, String tag, Map<String, String> parameters) {
+        String batchKey = Recording.createKey(endpoint.getTemplate(), parameters);
+        TagBatch batch;
+        Future<RecordedResponse> future;
+        boolean owner = false;
+        synchronized (batches) {
+            batch = batches.get(batchKey);
+            if (batch == null || !batch.add(tag)) {
+                batch = new TagBatch(maxTagsPerCall);
+                batch.add(tag);
+                batches.put(batchKey, batch);
+                owner = true;
+            }
+            if (batch.isFull()) {
+                batches.remove(batchKey);
+            }
+            future = batch.futures.get(tag);
+        }
+        if (owner) {
+            try {
+                batch.full.await(batchWindowMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (batches) {
+                if (batches.get(batchKey) == batch) {
+                    batches.remove(batchKey);
+                }
+            }
+            flush(endpoint, parameters, batch);
+        }
+        return await(future);
+    }
+
+    private void flush(ApiEndpoint<?, ?> endpoint, Map<String, String> parameters, TagBatch batch) {
+        try {
+            List<String> tags = new ArrayList<>(batch.futures.keySet());
+            Map<String, String> bodies = new HashMap<>();
+            if (tags.size() > 1) {
+                ApiEndpoint<?, ?> multiEndpoint = endpoint == ApiEndpoint.PROFILE
+                        ? ApiEndpoint.PROFILES
+                        : ApiEndpoint.CLANS;
+                batched.addAndGet(tags.size());
+                RecordedResponse response = fetch(multiEndpoint, multiEndpoint.expand(tags, TagValidation.OFF),
+                        parameters);
+                if (response.getStatusCode() == 200) {
+                    splitByTag(response.getBody(), bodies);
+                }
+            }
+            for (String tag : tags) {
+                String body = bodies.get(Tags.normalize(tag));
+                batch.futures.get(tag).set(body != null
+                        ? new RecordedResponse(200, NO_HEADERS, body)
+                        : fetch(endpoint, endpoint.expand(tag, TagValidation.OFF), parameters));
+            }
+        } catch (RuntimeException e) {
+            for (SettableFuture<RecordedResponse> future : batch.futures.values()) {
+                future.setException(e);
+            }
+        }
+    }
+
+    /**
+     * Items of a multi-tag answer by their normalized tag, tags missing in the answer are fetched one by one.
+     */
+    private static void splitByTag(String json, Map<String, String> bodies) {
+        if (StringUtils.isBlank(json)) {
+            return;
+        }
+        try {
+            JsonElement element = new JsonParser().parse(json);
+            if (!element.isJsonArray()) {
+                return;
+            }
+            for (JsonElement item : element.getAsJsonArray()) {
+                if (item.isJsonObject() && item.getAsJsonObject().has("tag")
+                        && item.getAsJsonObject().get("tag").isJsonPrimitive()) {
+                    bodies.put(Tags.normalize(item.getAsJsonObject().get("tag").getAsString()), item.toString());
+                }
+            }
+        } catch (JsonParseException e) {
+            bodies.clear();
+        }
+    }
+
+    private RecordedResponse fetch(ApiEndpoint<?, ?> endpoint, String path, Map<String, String> parameters) {
+        upstreamCalls.incrementAndGet();
+        try {
+            Call call = client.fetchCall(endpoint, path, parameters);
+            return new RecordedResponse(call.getStatusCode() > 0 ? call.getStatusCode() : 200, NO_HEADERS,
+                    call.getBody());
+        } catch (IOException e) {
+            int code = new ApiException(e).getCode();
+            int status = code > 0 ? code : 502;
+            return new RecordedResponse(status, NO_HEADERS, error(status, e.getMessage()));
+        } catch (RuntimeException e) {
+            return new RecordedResponse(502, NO_HEADERS, error(502, String.valueOf(e)));
+        }
+    }
+
+    private static RecordedResponse await(Future<RecordedResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RecordedResponse(503, NO_HEADERS, error(503, "interrupted"));
+        } catch (ExecutionException e) {
+            return new RecordedResponse(502, NO_HEADERS, error(502, String.valueOf(e.getCause())));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body != null ? body.getBytes(Charsets.UTF_8) : new byte[0];
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String error(int status, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", true);
+        error.addProperty("status", status);
+        error.addProperty("message", message);
+        return error.toString();
+    }
+
+    static Map<String, String> parseQuery(String query) {
+        if (StringUtils.isEmpty(query)) {
+            return null;
+        }
+        Map<String, String> parameters = new LinkedHashMap<>();
+        for (String pair : StringUtils.split(query, '&')) {
+            int index = pair.indexOf('=');
+            parameters.put(decode(index < 0 ? pair : pair.substring(0, index)),
+                    index < 0 ? "" : decode(pair.substring(index + 1)));
+        }
+        return parameters;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ApiProxyBuilder builder(Api api) {
+        return new ApiProxyBuilder(api);
+    }
+
+    /**
+     * Runs a proxy for the api: <code>ApiProxy &lt;url&gt; &lt;developer key&gt; [port]</code>.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: ApiProxy <url> <developer key> [port]");
+            System.exit(1);
+        }
+        ApiProxy proxy = builder(new Api(args[0], args[1]))
+                .port(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT)
+                .build();
+        proxy.start();
+        System.out.println("proxy for " + args[0] + " running at " + proxy.getUrl());
+    }
+
+    private static class TagBatch {
+
+        private final int maxTags;
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final Map<String, SettableFuture<RecordedResponse>> futures = new LinkedHashMap<>();
+
+        private TagBatch(int maxTags) {
+            this.maxTags = maxTags;
+        }
+
+        boolean add(String tag) {
+            if (futures.containsKey(tag)) {
+                return true;
+            }
+            if (isFull()) {
+                return false;
+            }
+            futures.put(tag, SettableFuture.<RecordedResponse>create());
+            if (isFull()) {
+                full.countDown();
+            }
+            return true;
+        }
+
+        boolean isFull() {
+            return futures.size() >= maxTags;
+        }
+
+    }
+
+    public static class ApiProxyBuilder {
+
+        private final Api api;
+
+        private String host = DEFAULT_HOST;
+        private int port = DEFAULT_PORT;
+        private int threads = 16;
+        private int cacheSize = 10000;
+        private long cacheTtlMillis = 30000;
+        private long batchWindowMillis = 10;
+        private int maxTagsPerCall = QuotaPlanner.DEFAULT_MAX_TAGS_PER_CALL;
+        private Clock clock = Clock.system();
+
+        public ApiProxyBuilder(Api api) {
+            this.api = api;
+        }
+
+        public ApiProxyBuilder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Port to listen on, 0 picks a free one.
+         */
+        public ApiProxyBuilder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public ApiProxyBuilder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public ApiProxyBuilder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Time successful responses are served from the cache, 0 disables the cache.
+         */
+        public ApiProxyBuilder cacheTtlMillis(long cacheTtlMillis) {
+            this.cacheTtlMillis = cacheTtlMillis;
+            return this;
+        }
+
+        /**
+         * Time single profile and clan requests wait for others to share a multi-tag call, 0 disables batching.
+         */
+        public ApiProxyBuilder batchWindowMillis(long batchWindowMillis) {
+            this.batchWindowMillis = batchWindowMillis;
+            return this;
+        }
+
+        public ApiProxyBuilder maxTagsPerCall(int maxTagsPerCall) {
+            this.maxTagsPerCall = maxTagsPerCall;
+            return this;
+        }
+
+        ApiProxyBuilder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public ApiProxy build() {
+            return new ApiProxy(api, host, port, threads, cacheSize, cacheTtlMillis, batchWindowMillis,
+                    maxTagsPerCall, clock);
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable state of one attempt of an api call. It is filled by the {@link Crawler} and {@link Client} as the attempt
+ * passes its phases and notifies the {@link RequestListener}s with {@link CallMetadata} snapshots. An attempt is only
+ * touched by one thread at a time.
+ *
+ * @author Michael Lieshoff
+ */
+class Call {
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final long id;
+    private final ApiEndpoint<?, ?> endpoint;
+    private final String path;
+    private final String url;
+    private final int attempt;
+    private final List<RequestListener> listeners;
+    private final Clock clock;
+
+    private long deadline = Long.MAX_VALUE;
+    private long timeoutMillis;
+
+    private long startedAt;
+    private long startNanos;
+    private long connectedAtNanos;
+    private long headersAtNanos;
+
+    private int statusCode;
+    private Map<String, String> responseHeaders = Collections.emptyMap();
+    private RateLimitSnapshot rateLimit;
+    private long responseBytes;
+    private long connectNanos;
+    private long firstByteNanos;
+    private long bodyReadNanos;
+    private long parseNanos;
+    private long elapsedNanos;
+    private String body;
+
+    private volatile boolean responded;
+
+    Call(ApiEndpoint<?, ?> endpoint, String path, String url, List<RequestListener> listeners) {
+        this(endpoint, path, url, listeners, Clock.system());
+    }
+
+    Call(ApiEndpoint<?, ?> endpoint, String path, String url, List<RequestListener> listeners, Clock clock) {
+        this(IDS.incrementAndGet(), endpoint, path, url, 1, listeners, clock);
+    }
+
+    private Call(long id, ApiEndpoint<?, ?> endpoint, String path, String url, int attempt,
+                 List<RequestListener> listeners, Clock clock) {
+        Preconditions.checkNotNull(url, "url");
+        Preconditions.checkNotNull(listeners, "listeners");
+        Preconditions.checkNotNull(clock, "clock");
+        this.id = id;
+        this.endpoint = endpoint;
+        this.path = path;
+        this.url = url;
+        this.attempt = attempt;
+        this.listeners = listeners;
+        this.clock = clock;
+        startedAt = clock.currentTimeMillis();
+        startNanos = clock.nanoTime();
+    }
+
+    /**
+     * Call without endpoint and listeners for direct use of the {@link Crawler}.
+     */
+    static Call detached(String url) {
+        return new Call(null, null, url, Collections.<RequestListener>emptyList());
+    }
+
+    void start() {
+        startedAt = clock.currentTimeMillis();
+        startNanos = clock.nanoTime();
+        for (RequestListener listener : listeners) {
+            listener.onRequestStart(getMetadata());
+        }
+    }
+
+    void connectionAcquired() {
+        if (connectedAtNanos > 0) {
+            return;
+        }
+        connectedAtNanos = clock.nanoTime();
+        connectNanos = connectedAtNanos - startNanos;
+        elapsedNanos = connectNanos;
+        for (RequestListener listener : listeners) {
+            listener.onConnectionAcquired(getMetadata());
+        }
+    }
+
+    boolean isConnected() {
+        return connectedAtNanos > 0;
+    }
+
+    void headersReceived(int statusCode, Map<String, String> responseHeaders) {
+        headersAtNanos = clock.nanoTime();
+        this.statusCode = statusCode;
+        this.responseHeaders = ImmutableMap.copyOf(responseHeaders);
+        rateLimit = RateLimitSnapshot.parse(this.responseHeaders);
+        firstByteNanos = headersAtNanos - (connectNanos > 0 ? connectedAtNanos : startNanos);
+        elapsedNanos = headersAtNanos - startNanos;
+        responded = true;
+        for (RequestListener listener : listeners) {
+            listener.onHeadersReceived(getMetadata());
+        }
+    }
+
+    void bodyComplete(long responseBytes) {
+        long now = clock.nanoTime();
+        this.responseBytes = responseBytes;
+        bodyReadNanos = now - headersAtNanos;
+        elapsedNanos = now - startNanos;
+        for (RequestListener listener : listeners) {
+            listener.onBodyComplete(getMetadata());
+        }
+    }
+
+    void parseComplete(long parseNanos) {
+        this.parseNanos = parseNanos;
+        for (RequestListener listener : listeners) {
+            listener.onParseComplete(getMetadata());
+        }
+    }
+
+    void failed(Exception exception) {
+        elapsedNanos = clock.nanoTime() - startNanos;
+        for (RequestListener listener : listeners) {
+            listener.onRequestFailed(getMetadata(), exception);
+        }
+    }
+
+    void throttled() {
+        for (RequestListener listener : listeners) {
+            listener.onThrottled(getMetadata());
+        }
+    }
+
+    Call retry() {
+        for (RequestListener listener : listeners) {
+            listener.onRetry(getMetadata());
+        }
+        return withDeadline(new Call(id, endpoint, path, url, attempt + 1, listeners, clock));
+    }
+
+    private Call withDeadline(Call call) {
+        call.deadline = deadline;
+        call.timeoutMillis = timeoutMillis;
+        return call;
+    }
+
+    /**
+     * Sets the deadline of the call and all its attempts to the given milliseconds from now, 0 for none.
+     */
+    void setTimeoutMillis(long timeoutMillis) {
+        Preconditions.checkArgument(timeoutMillis >= 0, "timeoutMillis");
+        this.timeoutMillis = timeoutMillis;
+        deadline = timeoutMillis > 0 ? clock.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Deadline in epoch millis of the clock, {@link Long#MAX_VALUE} for none.
+     */
+    long getDeadline() {
+        return deadline;
+    }
+
+    boolean hasDeadline() {
+        return deadline != Long.MAX_VALUE;
+    }
+
+    /**
+     * Milliseconds left until the deadline, {@link Long#MAX_VALUE} for none.
+     */
+    long getRemainingMillis() {
+        return hasDeadline() ? deadline - clock.currentTimeMillis() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Copy of this attempt without listeners, for requests sent on its behalf like hedges.
+     */
+    Call sibling() {
+        return withDeadline(new Call(id, endpoint, path, url, attempt, Collections.<RequestListener>emptyList(),
+                clock));
+    }
+
+    /**
+     * True once the response headers arrived, may be asked from another thread.
+     */
+    boolean hasResponded() {
+        return responded;
+    }
+
+    CallMetadata getMetadata() {
+        return new CallMetadata(this);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    ApiEndpoint<?, ?> getEndpoint() {
+        return endpoint;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    int getAttempt() {
+        return attempt;
+    }
+
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     * Rate limit announced by the response, null if there is none.
+     */
+    RateLimitSnapshot getRateLimit() {
+        return rateLimit;
+    }
+
+    long getResponseBytes() {
+        return responseBytes;
+    }
+
+    long getConnectNanos() {
+        return connectNanos;
+    }
+
+    long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    long getParseNanos() {
+        return parseNanos;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    String getBody() {
+        return body;
+    }
+
+    void setBody(String body) {
+        this.body = body;
+    }
+
+}
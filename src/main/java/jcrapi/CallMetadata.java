@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Optional;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of one attempt of an api call. Timings are 0 until the phase has been reached; connect time stays
+ * 0 if the transport does not report it.
+ *
+ * @author Michael Lieshoff
+ */
+public final class CallMetadata {
+
+    private final long callId;
+    private final ApiEndpoint<?, ?> endpoint;
+    private final String path;
+    private final String url;
+    private final int attempt;
+    private final long startedAt;
+    private final int statusCode;
+    private final Map<String, String> responseHeaders;
+    private final RateLimitSnapshot rateLimit;
+    private final long responseBytes;
+    private final long connectNanos;
+    private final long firstByteNanos;
+    private final long bodyReadNanos;
+    private final long parseNanos;
+    private final long elapsedNanos;
+
+    CallMetadata(Call call) {
+        callId = call.getId();
+        endpoint = call.getEndpoint();
+        path = call.getPath();
+        url = call.getUrl();
+        attempt = call.getAttempt();
+        startedAt = call.getStartedAt();
+        statusCode = call.getStatusCode();
+        responseHeaders = call.getResponseHeaders();
+        rateLimit = call.getRateLimit();
+        responseBytes = call.getResponseBytes();
+        connectNanos = call.getConnectNanos();
+        firstByteNanos = call.getFirstByteNanos();
+        bodyReadNanos = call.getBodyReadNanos();
+        parseNanos = call.getParseNanos();
+        elapsedNanos = call.getElapsedNanos();
+    }
+
+    /**
+     * Id shared by all attempts of one call.
+     */
+    public long getCallId() {
+        return callId;
+    }
+
+    public ApiEndpoint<?, ?> getEndpoint() {
+        return endpoint;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Response headers with lower case names.
+     */
+    public Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    public long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Time from the start of the attempt to its last reached transport phase.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Rate limit announced by the response, parsed once when the headers were received.
+     */
+    public Optional<RateLimitSnapshot> getRateLimitSnapshot() {
+        return Optional.fromNullable(rateLimit);
+    }
+
+    public Optional<Integer> getRateLimit() {
+        return rateLimit != null && rateLimit.getLimit() >= 0
+                ? Optional.of(rateLimit.getLimit())
+                : Optional.<Integer>absent();
+    }
+
+    public Optional<Integer> getRateRemaining() {
+        return rateLimit != null && rateLimit.getRemaining() >= 0
+                ? Optional.of(rateLimit.getRemaining())
+                : Optional.<Integer>absent();
+    }
+
+    public Optional<Long> getRateReset() {
+        return rateLimit != null && rateLimit.getReset() > 0
+                ? Optional.of(rateLimit.getReset())
+                : Optional.<Long>absent();
+    }
+
+    @Override
+    public String toString() {
+        return "CallMetadata{" +
+                "callId=" + callId +
+                ", endpoint=" + endpoint +
+                ", path='" + path + '\'' +
+                ", attempt=" + attempt +
+                ", statusCode=" + statusCode +
+                ", responseBytes=" + responseBytes +
+                ", elapsedNanos=" + elapsedNanos +
+                '}';
+    }
+
+}
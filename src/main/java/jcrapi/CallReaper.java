@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aborts requests in flight whose call passed its deadline or whose calling thread was interrupted, so neither a
+ * hung socket nor a cancelled caller keeps a thread blocked. A daemon thread checks all registered requests every
+ * <code>intervalMillis</code>.
+ *
+ * @author Michael Lieshoff
+ */
+class CallReaper {
+
+    private static final CallReaper INSTANCE = new CallReaper(25, Clock.system());
+
+    private final long intervalMillis;
+    private final Clock clock;
+    private final Set<Registration> registrations =
+            Collections.newSetFromMap(new ConcurrentHashMap<Registration, Boolean>());
+
+    private Thread thread;
+
+    CallReaper(long intervalMillis, Clock clock) {
+        Preconditions.checkArgument(intervalMillis > 0, "intervalMillis");
+        Preconditions.checkNotNull(clock, "clock");
+        this.intervalMillis = intervalMillis;
+        this.clock = clock;
+    }
+
+    static CallReaper getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Watches the request sent by the current thread for the call until the registration is closed.
+     */
+    Registration register(Call call, HttpUriRequest request) {
+        Registration registration = new Registration(call, request, Thread.currentThread());
+        registrations.add(registration);
+        start();
+        return registration;
+    }
+
+    private synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = Threads.newThread("jcrapi-call-reaper", new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        });
+        thread.start();
+    }
+
+    private void loop() {
+        while (true) {
+            try {
+                clock.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            reap();
+        }
+    }
+
+    void reap() {
+        for (Registration registration : registrations) {
+            registration.check();
+        }
+    }
+
+    int size() {
+        return registrations.size();
+    }
+
+    class Registration implements AutoCloseable {
+
+        private final Call call;
+        private final HttpUriRequest request;
+        private final Thread caller;
+
+        private volatile boolean expired;
+        private volatile boolean cancelled;
+
+        Registration(Call call, HttpUriRequest request, Thread caller) {
+            this.call = call;
+            this.request = request;
+            this.caller = caller;
+        }
+
+        void check() {
+            if (caller.isInterrupted()) {
+                cancelled = true;
+            } else if (call.hasDeadline() && call.getRemainingMillis() <= 0) {
+                expired = true;
+            } else {
+                return;
+            }
+            registrations.remove(this);
+            request.abort();
+        }
+
+        boolean isExpired() {
+            return expired;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void close() {
+            registrations.remove(this);
+        }
+
+    }
+
+}
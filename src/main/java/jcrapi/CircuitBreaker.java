@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of one endpoint template on one host. The outcomes of the most recent calls are kept in a ring
+ * buffer; once the failure or slow call rate reaches the threshold of the {@link CircuitBreakerPolicy} the breaker
+ * opens and calls fail fast with a {@link CircuitOpenException}. After the open period a few probe calls are let
+ * through, the breaker closes when all of them succeed and opens again on the first failure.
+ *
+ * @author Michael Lieshoff
+ */
+public class CircuitBreaker {
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final Clock clock;
+    private final long slowCallNanos;
+
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int index;
+    private int size;
+    private int failureCount;
+    private int slowCallCount;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private long openUntil;
+    private int probes;
+    private int probeSuccesses;
+    private long rejected;
+    private long opened;
+
+    CircuitBreaker(String name, CircuitBreakerPolicy policy, Clock clock) {
+        Preconditions.checkNotNull(name, "name");
+        Preconditions.checkNotNull(policy, "policy");
+        Preconditions.checkNotNull(clock, "clock");
+        this.name = name;
+        this.policy = policy;
+        this.clock = clock;
+        slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallMillis());
+        failures = new boolean[policy.getWindowSize()];
+        slowCalls = new boolean[policy.getWindowSize()];
+    }
+
+    /**
+     * Asks for permission to make a call, every permitted call has to be completed with
+     * {@link #record(boolean, long)} or {@link #release()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == CircuitState.OPEN && clock.currentTimeMillis() >= openUntil) {
+            state = CircuitState.HALF_OPEN;
+            probes = 0;
+            probeSuccesses = 0;
+        }
+        if (state == CircuitState.CLOSED) {
+            return true;
+        }
+        if (state == CircuitState.HALF_OPEN && probes < policy.getHalfOpenCalls()) {
+            probes++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    synchronized void record(boolean failure, long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (state == CircuitState.HALF_OPEN) {
+            if (failure || slow) {
+                open();
+            } else if (++probeSuccesses >= policy.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        if (state == CircuitState.OPEN) {
+            return;
+        }
+        if (size == failures.length) {
+            failureCount -= failures[index] ? 1 : 0;
+            slowCallCount -= slowCalls[index] ? 1 : 0;
+        } else {
+            size++;
+        }
+        failures[index] = failure;
+        slowCalls[index] = slow;
+        failureCount += failure ? 1 : 0;
+        slowCallCount += slow ? 1 : 0;
+        index = (index + 1) % failures.length;
+        if (size >= policy.getMinimumCalls() && (getFailureRate() >= policy.getFailureRateThreshold()
+                || getSlowCallRate() >= policy.getSlowCallRateThreshold())) {
+            open();
+        }
+    }
+
+    /**
+     * Gives back a permission without an outcome, for example when the rate limit was hit.
+     */
+    synchronized void release() {
+        if (state == CircuitState.HALF_OPEN && probes > probeSuccesses) {
+            probes--;
+        }
+    }
+
+    private void open() {
+        state = CircuitState.OPEN;
+        openUntil = clock.currentTimeMillis() + policy.getOpenMillis();
+        opened++;
+    }
+
+    private void close() {
+        state = CircuitState.CLOSED;
+        index = 0;
+        size = 0;
+        failureCount = 0;
+        slowCallCount = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreakerPolicy getPolicy() {
+        return policy;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Time in epoch millis at which an open breaker lets probe calls through.
+     */
+    public synchronized long getOpenUntil() {
+        return openUntil;
+    }
+
+    public synchronized double getFailureRate() {
+        return size == 0 ? 0 : (double) failureCount / size;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return size == 0 ? 0 : (double) slowCallCount / size;
+    }
+
+    /**
+     * Number of calls failed fast.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Number of times the breaker opened.
+     */
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + getState();
+    }
+
+}
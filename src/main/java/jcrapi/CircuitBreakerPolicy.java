@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Thresholds of the {@link CircuitBreaker}s of an {@link Api}. A breaker opens once the rolling window holds at least
+ * <code>minimumCalls</code> outcomes and either the failure rate or the rate of calls slower than
+ * <code>slowCallMillis</code> reaches its threshold. Only transient failures count, a 404 is an answer.
+ *
+ * @author Michael Lieshoff
+ */
+public final class CircuitBreakerPolicy {
+
+    public static final CircuitBreakerPolicy DEFAULT = builder().build();
+
+    public static final CircuitBreakerPolicy DISABLED = builder().enabled(false).build();
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final double slowCallRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerPolicy(CircuitBreakerPolicyBuilder builder) {
+        enabled = builder.enabled;
+        windowSize = builder.windowSize;
+        minimumCalls = builder.minimumCalls;
+        failureRateThreshold = builder.failureRateThreshold;
+        slowCallMillis = builder.slowCallMillis;
+        slowCallRateThreshold = builder.slowCallRateThreshold;
+        openMillis = builder.openMillis;
+        halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    public static CircuitBreakerPolicyBuilder builder() {
+        return new CircuitBreakerPolicyBuilder();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getSlowCallMillis() {
+        return slowCallMillis;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public static class CircuitBreakerPolicyBuilder {
+
+        private boolean enabled = true;
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private long slowCallMillis = 60000;
+        private double slowCallRateThreshold = 1.0;
+        private long openMillis = 30000;
+        private int halfOpenCalls = 3;
+
+        CircuitBreakerPolicyBuilder() {
+        }
+
+        public CircuitBreakerPolicyBuilder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        /**
+         * Number of most recent calls the rates are computed from.
+         */
+        public CircuitBreakerPolicyBuilder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public CircuitBreakerPolicyBuilder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        public CircuitBreakerPolicyBuilder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public CircuitBreakerPolicyBuilder slowCallMillis(long slowCallMillis) {
+            this.slowCallMillis = slowCallMillis;
+            return this;
+        }
+
+        public CircuitBreakerPolicyBuilder slowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * Time an open breaker fails fast before letting probe calls through.
+         */
+        public CircuitBreakerPolicyBuilder openMillis(long openMillis) {
+            this.openMillis = openMillis;
+            return this;
+        }
+
+        public CircuitBreakerPolicyBuilder halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            Preconditions.checkArgument(windowSize > 0, "windowSize");
+            Preconditions.checkArgument(minimumCalls > 0 && minimumCalls <= windowSize, "minimumCalls");
+            Preconditions.checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 1,
+                    "failureRateThreshold");
+            Preconditions.checkArgument(slowCallMillis > 0, "slowCallMillis");
+            Preconditions.checkArgument(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1,
+                    "slowCallRateThreshold");
+            Preconditions.checkArgument(openMillis >= 0, "openMillis");
+            Preconditions.checkArgument(halfOpenCalls > 0, "halfOpenCalls");
+            return new CircuitBreakerPolicy(this);
+        }
+
+    }
+
+}
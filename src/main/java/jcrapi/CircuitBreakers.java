@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Circuit breakers of an {@link Api}, one per endpoint template and host, plus the optional {@link Recording} open
+ * breakers fall back to.
+ *
+ * @author Michael Lieshoff
+ */
+class CircuitBreakers {
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    private volatile CircuitBreakerPolicy policy = CircuitBreakerPolicy.DEFAULT;
+    private volatile Recording fallback;
+
+    CircuitBreakers(Clock clock) {
+        Preconditions.checkNotNull(clock, "clock");
+        this.clock = clock;
+    }
+
+    /**
+     * Breaker for the endpoint on the host of the url, null if breakers are disabled.
+     */
+    CircuitBreaker get(ApiEndpoint<?, ?> endpoint, String url) {
+        CircuitBreakerPolicy policy = this.policy;
+        if (endpoint == null || !policy.isEnabled()) {
+            return null;
+        }
+        String name = endpoint.getTemplate() + "@" + getHost(url);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(name);
+        if (circuitBreaker == null) {
+            CircuitBreaker created = new CircuitBreaker(name, policy, clock);
+            circuitBreaker = circuitBreakers.putIfAbsent(name, created);
+            if (circuitBreaker == null) {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    static String getHost(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            return url;
+        }
+    }
+
+    List<CircuitBreaker> getAll() {
+        return ImmutableList.copyOf(circuitBreakers.values());
+    }
+
+    /**
+     * Replaces the policy, breakers start over with the new thresholds.
+     */
+    void setPolicy(CircuitBreakerPolicy policy) {
+        Preconditions.checkNotNull(policy, "policy");
+        this.policy = policy;
+        circuitBreakers.clear();
+    }
+
+    CircuitBreakerPolicy getPolicy() {
+        return policy;
+    }
+
+    Recording getFallback() {
+        return fallback;
+    }
+
+    void setFallback(Recording fallback) {
+        this.fallback = fallback;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling the api while the {@link CircuitBreaker} of the endpoint is open.
+ *
+ * @author Michael Lieshoff
+ */
+public class CircuitOpenException extends IOException {
+
+    private final String circuitBreaker;
+    private final CircuitState state;
+    private final long openUntil;
+
+    CircuitOpenException(CircuitBreaker circuitBreaker) {
+        this(circuitBreaker.getName(), circuitBreaker.getState(), circuitBreaker.getOpenUntil());
+    }
+
+    CircuitOpenException(String circuitBreaker, CircuitState state, long openUntil) {
+        super("circuit breaker " + circuitBreaker + " is " + state);
+        this.circuitBreaker = circuitBreaker;
+        this.state = state;
+        this.openUntil = openUntil;
+    }
+
+    public String getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public long getOpenUntil() {
+        return openUntil;
+    }
+
+}
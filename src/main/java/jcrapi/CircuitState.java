@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * State of a {@link CircuitBreaker}.
+ *
+ * @author Michael Lieshoff
+ */
+public enum CircuitState {
+
+    /**
+     * Calls pass, outcomes are recorded in the rolling window.
+     */
+    CLOSED,
+
+    /**
+     * Calls fail fast until the open period is over.
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe calls pass to decide whether to close again.
+     */
+    HALF_OPEN
+
+}
@@ -16,10 +16,10 @@
  */
 package jcrapi;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import jcrapi.model.AuthStats;
 import jcrapi.model.Battle;
 import jcrapi.model.ChestCycle;
@@ -69,10 +69,11 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpHeaders;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Michael Lieshoff
@@ -83,16 +84,49 @@ class Client {
     private final String developerKey;
     private final AuthMode authMode;
 
-    private final CrawlerFactory crawlerFactory;
+    private final ClientSettings settings;
+    private final Map<String, String> authHeader;
+
+    private final Gson gson = new Gson();
+    private final FlightEvents flightEvents = FlightEvents.getInstance();
 
     Client(String url, String developerKey, AuthMode authMode, CrawlerFactory crawlerFactory) {
+        this(url, developerKey, authMode, ClientSettings.builder(crawlerFactory).build());
+    }
+
+    Client(String url, String developerKey, AuthMode authMode, ClientSettings settings) {
         checkString(url);
-        Preconditions.checkNotNull(crawlerFactory);
         Preconditions.checkNotNull(authMode);
+        Preconditions.checkNotNull(settings);
         this.url = url;
         this.developerKey = developerKey;
-        this.crawlerFactory = crawlerFactory;
         this.authMode = authMode;
+        this.settings = settings;
+        authHeader = createAuthHeader(developerKey);
+    }
+
+    MetricsRegistry getMetricsRegistry() {
+        return settings.getMetricsRegistry();
+    }
+
+    Clock getClock() {
+        return settings.getClock();
+    }
+
+    long getTimeoutMillis() {
+        return settings.getTimeoutMillis();
+    }
+
+    void setTimeoutMillis(long timeoutMillis) {
+        settings.setTimeoutMillis(timeoutMillis);
+    }
+
+    TagValidation getTagValidation() {
+        return settings.getTagValidation();
+    }
+
+    void setTagValidation(TagValidation tagValidation) {
+        settings.setTagValidation(tagValidation);
     }
 
     private void checkString(String url) {
@@ -101,52 +135,186 @@ class Client {
     }
 
     String getVersion() throws IOException {
-        return get(createUrl("version"), null);
+        return get(ApiEndpoint.VERSION, null);
     }
 
-    private String get(String url, Request request) throws IOException {
-        return tryGet(url, request, 1);
+    <R extends Request, T> T get(ApiEndpoint<R, T> endpoint, R request) throws IOException {
+        return parse(endpoint, fetchCall(endpoint, request), request);
     }
 
-    private String tryGet(String url, Request request, int round) throws IOException {
-        if (round > 10) {
-            throw new IOException("tried " + round + " times to access " + url + " without succeeding!");
-        }
+    <R extends Request, T> ApiResult<T> getResult(ApiEndpoint<R, T> endpoint, R request) throws IOException {
+        Call call = fetchCall(endpoint, request);
+        T value = parse(endpoint, call, request);
+        return new ApiResult<>(value, call.getMetadata());
+    }
+
+    <R extends Request, T> String fetch(ApiEndpoint<R, T> endpoint, R request) throws IOException {
+        return fetchCall(endpoint, request).getBody();
+    }
+
+    <R extends Request, T> Call fetchCall(ApiEndpoint<R, T> endpoint, R request) throws IOException {
+        String path = endpoint.path(request, settings.getTagValidation());
+        Call call = new Call(endpoint, path, createUrl(path), settings.getRequestListeners(), settings.getClock());
+        call.setTimeoutMillis(request != null && request.getTimeoutMillis() > 0
+                ? request.getTimeoutMillis()
+                : settings.getTimeoutMillis());
+        return tryGet(call, request == null ? null : request.getQueryParameters());
+    }
+
+    /**
+     * Fetches a path which was already built, like the ones an {@link ApiProxy} receives.
+     */
+    Call fetchCall(ApiEndpoint<?, ?> endpoint, String path, Map<String, String> parameters) throws IOException {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        Preconditions.checkNotNull(path, "path");
+        Call call = new Call(endpoint, path, createUrl(path), settings.getRequestListeners(), settings.getClock());
+        call.setTimeoutMillis(settings.getTimeoutMillis());
+        return tryGet(call, parameters);
+    }
+
+    <R extends Request, T> T parse(ApiEndpoint<R, T> endpoint, String json, R request) {
+        return parse(endpoint, json, request, null);
+    }
+
+    <R extends Request, T> T parse(ApiEndpoint<R, T> endpoint, Call call, R request) {
+        return parse(endpoint, call.getBody(), request, call);
+    }
+
+    private <R extends Request, T> T parse(ApiEndpoint<R, T> endpoint, String json, R request, Call call) {
+        Object event = flightEvents.beginParse();
+        Clock clock = settings.getClock();
+        long startedAt = clock.nanoTime();
+        T result = null;
         try {
-            return getIntern(url, request);
-        } catch (IOException e) {
-            if (rateLimitsReached()) {
-                handleRateLimit();
-                return tryGet(url, request, ++ round);
+            result = endpoint.parse(gson, json, request);
+            return result;
+        } finally {
+            long parseNanos = clock.nanoTime() - startedAt;
+            settings.getMetricsRegistry().getEndpoint(endpoint).recordParse(parseNanos);
+            flightEvents.commitParse(event, endpoint, result);
+            if (call != null) {
+                call.parseComplete(parseNanos);
             }
-            throw e;
         }
     }
 
-    private String getIntern(String url, Request request) throws IOException {
-        return createCrawler().get(url, createAuthHeader(developerKey), request == null ? null : request.getQueryParameters());
-    }
-
-    private void handleRateLimit() {
-        Response response = getLastResponse();
-        if (response.getRateReset().isPresent()) {
-            long limitResetAt = response.getRateReset().get();
-            for (long ms = System.currentTimeMillis(); ms < limitResetAt; ms = System.currentTimeMillis()) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.interrupted();
+    private Call tryGet(Call call, Map<String, String> parameters) throws IOException {
+        Clock clock = settings.getClock();
+        EndpointMetrics metrics = settings.getMetricsRegistry().getEndpoint(call.getEndpoint());
+        RetryPolicy retryPolicy = settings.getRetryPolicies().get(call.getEndpoint());
+        RetryBudget retryBudget = settings.getRetryPolicies().getBudget();
+        CircuitBreaker circuitBreaker = settings.getCircuitBreakers().get(call.getEndpoint(), url);
+        retryBudget.deposit();
+        long deadline = retryPolicy.getDeadlineMillis() > 0
+                ? clock.currentTimeMillis() + retryPolicy.getDeadlineMillis()
+                : Long.MAX_VALUE;
+        long delayMillis = 0;
+        while (true) {
+            if (call.getRemainingMillis() <= 0) {
+                throw new DeadlineExceededException(call.getTimeoutMillis());
+            }
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                if (fallback(call, parameters)) {
+                    return call;
+                }
+                throw new CircuitOpenException(circuitBreaker);
+            }
+            Object event = flightEvents.beginRequest();
+            call.start();
+            long startedAt = clock.nanoTime();
+            try {
+                getIntern(call, parameters);
+                recordCall(metrics, event, call, startedAt, false);
+                if (circuitBreaker != null) {
+                    circuitBreaker.record(false, clock.nanoTime() - startedAt);
+                }
+                return call;
+            } catch (IOException e) {
+                call.failed(e);
+                CallMetadata metadata = recordCall(metrics, event, call, startedAt, true);
+                FailureClass failureClass = retryPolicy.classify(metadata, e);
+                if (circuitBreaker != null) {
+                    if (failureClass == FailureClass.RATE_LIMITED) {
+                        circuitBreaker.release();
+                    } else {
+                        circuitBreaker.record(failureClass == FailureClass.RETRYABLE, clock.nanoTime() - startedAt);
+                    }
+                }
+                if (call.getAttempt() >= retryPolicy.getMaxAttempts(failureClass)) {
+                    throw e;
+                }
+                if (failureClass == FailureClass.RETRYABLE && !retryBudget.tryWithdraw()) {
+                    throw e;
+                }
+                delayMillis = retryPolicy.nextDelayMillis(delayMillis, random());
+                long retryAt = retryPolicy.retryAt(failureClass, metadata, clock.currentTimeMillis(), delayMillis);
+                if (retryAt > deadline) {
+                    throw e;
+                }
+                if (retryAt >= call.getDeadline()) {
+                    throw new DeadlineExceededException(call.getTimeoutMillis(), e);
+                }
+                if (failureClass == FailureClass.RATE_LIMITED) {
+                    call.throttled();
+                    Object waitEvent = flightEvents.beginRateLimitWait();
+                    long waitStartedAt = clock.nanoTime();
+                    boolean waited = clock.sleepUntil(retryAt);
+                    metrics.recordRateLimitWait(clock.nanoTime() - waitStartedAt);
+                    flightEvents.commitRateLimitWait(waitEvent, metadata);
+                    if (!waited) {
+                        throw e;
+                    }
+                } else if (!clock.sleepUntil(retryAt)) {
+                    throw e;
+                }
+                call = call.retry();
+                metrics.recordRetry();
+            } catch (RuntimeException e) {
+                // a fault on our side, which says nothing about the health of the endpoint
+                call.failed(e);
+                recordCall(metrics, event, call, startedAt, true);
+                if (circuitBreaker != null) {
+                    circuitBreaker.release();
                 }
+                throw e;
             }
         }
     }
 
-    private boolean rateLimitsReached() {
-        Response response = getLastResponse();
-        if (response != null) {
-            return response.getRateRemaining().isPresent() && response.getRateRemaining().get() <= 0;
+    /**
+     * Answers the call with the latest successful response of the fallback recording, if there is one.
+     */
+    private boolean fallback(Call call, Map<String, String> parameters) {
+        Recording recording = settings.getCircuitBreakers().getFallback();
+        if (recording == null || call.getPath() == null) {
+            return false;
         }
-        return false;
+        RecordedResponse recorded = recording.latest(Recording.createKey(call.getPath(), parameters));
+        if (recorded == null) {
+            return false;
+        }
+        call.headersReceived(recorded.getStatusCode(), Collections.<String, String>emptyMap());
+        call.bodyComplete(recorded.getBody() != null ? recorded.getBody().getBytes(Charsets.UTF_8).length : 0);
+        call.setBody(recorded.getBody());
+        return true;
+    }
+
+    private static Random random() {
+        return ThreadLocalRandom.current();
+    }
+
+    private CallMetadata recordCall(EndpointMetrics metrics, Object event, Call call, long startedAt,
+                                    boolean failed) {
+        metrics.recordCall(settings.getClock().nanoTime() - startedAt, failed);
+        settings.getResponseState().record(developerKey, call, failed);
+        CallMetadata metadata = call.getMetadata();
+        metrics.recordResponse(metadata);
+        flightEvents.commitRequest(event, metadata, failed);
+        return metadata;
+    }
+
+    private void getIntern(Call call, Map<String, String> parameters) throws IOException {
+        call.setBody(createCrawler().get(call.getUrl(), authHeader, parameters, call));
     }
 
     private Map<String, String> createAuthHeader(String developerKey) {
@@ -160,7 +328,7 @@ class Client {
     }
 
     private Crawler createCrawler() {
-        return crawlerFactory.createCrawler();
+        return settings.getCrawlerFactory().createCrawler();
     }
 
     private String createUrl(String part) {
@@ -174,8 +342,7 @@ class Client {
 
     Profile getProfile(ProfileRequest profileRequest) throws IOException {
         Preconditions.checkNotNull(profileRequest, "profileRequest");
-        String json = get(createUrl("player/" + profileRequest.getTag()), profileRequest);
-        return new Gson().fromJson(json, Profile.class);
+        return get(ApiEndpoint.PROFILE, profileRequest);
     }
 
     @Deprecated
@@ -185,9 +352,7 @@ class Client {
 
     List<Profile> getProfiles(ProfilesRequest profilesRequest) throws IOException {
         Preconditions.checkNotNull(profilesRequest, "profilesRequest");
-        String json = get(createUrl("player/" + StringUtils.join(profilesRequest.getTags(), ",")), profilesRequest);
-        Type listType = new TypeToken<ArrayList<Profile>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.PROFILES, profilesRequest);
     }
 
     @Deprecated
@@ -196,14 +361,7 @@ class Client {
     }
 
     List<TopClan> getTopClans(TopClansRequest topClansRequest) throws IOException {
-        String url = createUrl("top/clans");
-        String locationKey = topClansRequest.getLocationKey();
-        if (StringUtils.isNotBlank(locationKey)) {
-            url += "/" + locationKey;
-        }
-        String json = get(url, topClansRequest);
-        Type listType = new TypeToken<ArrayList<TopClan>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.TOP_CLANS, topClansRequest);
     }
 
     @Deprecated
@@ -213,8 +371,7 @@ class Client {
 
     Clan getClan(ClanRequest clanRequest) throws IOException {
         Preconditions.checkNotNull(clanRequest);
-        String json = get(createUrl("clan/" + clanRequest.getTag()), clanRequest);
-        return new Gson().fromJson(json, Clan.class);
+        return get(ApiEndpoint.CLAN, clanRequest);
     }
 
     @Deprecated
@@ -224,9 +381,7 @@ class Client {
 
     List<Clan> getClans(ClansRequest clansRequest) throws IOException {
         Preconditions.checkNotNull(clansRequest);
-        String json = get(createUrl("clan/" + StringUtils.join(clansRequest.getTags(), ",")), clansRequest);
-        Type listType = new TypeToken<ArrayList<Clan>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.CLANS, clansRequest);
     }
 
     @Deprecated
@@ -249,9 +404,7 @@ class Client {
     }
 
     List<Clan> getClanSearch(ClanSearchRequest clanSearchRequest) throws IOException {
-        String json = get(createUrl("clan/search"), clanSearchRequest);
-        Type listType = new TypeToken<ArrayList<Clan>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.CLAN_SEARCH, clanSearchRequest);
     }
 
     @Deprecated
@@ -260,14 +413,7 @@ class Client {
     }
 
     List<TopPlayer> getTopPlayers(TopPlayersRequest topPlayersRequest) throws IOException {
-        String url = createUrl("top/players");
-        String locationKey = topPlayersRequest.getLocationKey();
-        if (StringUtils.isNotBlank(locationKey)) {
-            url += "/" + locationKey;
-        }
-        String json = get(url, topPlayersRequest);
-        Type listType = new TypeToken<ArrayList<TopPlayer>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.TOP_PLAYERS, topPlayersRequest);
     }
 
     Tournament getTournaments(String tag) throws IOException {
@@ -275,13 +421,11 @@ class Client {
     }
 
     Tournament getTournaments(TournamentsRequest tournamentsRequest) throws IOException {
-        String json = get(createUrl("tournaments/" + tournamentsRequest.getTag()), tournamentsRequest);
-        return new Gson().fromJson(json, Tournament.class);
+        return get(ApiEndpoint.TOURNAMENTS, tournamentsRequest);
     }
 
     Endpoints getEndpoints() throws IOException {
-        String json = get(createUrl("endpoints"), null);
-        return new Gson().fromJson(json, Endpoints.class);
+        return get(ApiEndpoint.ENDPOINTS, null);
     }
 
     @Deprecated
@@ -290,9 +434,7 @@ class Client {
     }
 
     List<PopularClan> getPopularClans(PopularClansRequest popularClansRequest) throws IOException {
-        String json = get(createUrl("popular/clans"), popularClansRequest);
-        Type listType = new TypeToken<ArrayList<PopularClan>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.POPULAR_CLANS, popularClansRequest);
     }
 
     @Deprecated
@@ -301,9 +443,7 @@ class Client {
     }
 
     List<PopularPlayer> getPopularPlayers(PopularPlayersRequest popularPlayersRequest) throws IOException {
-        String json = get(createUrl("popular/players"),  popularPlayersRequest);
-        Type listType = new TypeToken<ArrayList<PopularPlayer>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.POPULAR_PLAYERS, popularPlayersRequest);
     }
 
     @Deprecated
@@ -312,9 +452,7 @@ class Client {
     }
 
     List<PopularTournament> getPopularTournaments(PopularTournamentsRequest popularTournamentsRequest) throws IOException {
-        String json = get(createUrl("popular/tournaments"), popularTournamentsRequest);
-        Type listType = new TypeToken<ArrayList<PopularTournament>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.POPULAR_TOURNAMENTS, popularTournamentsRequest);
     }
 
     @Deprecated
@@ -323,9 +461,7 @@ class Client {
     }
 
     List<Battle> getClanBattles(ClanBattlesRequest clanBattlesRequest) throws IOException {
-        String json = get(createUrl("clan/" + clanBattlesRequest.getTag() + "/battles"), clanBattlesRequest);
-        Type listType = new TypeToken<ArrayList<Battle>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.CLAN_BATTLES, clanBattlesRequest);
     }
 
     @Deprecated
@@ -334,85 +470,55 @@ class Client {
     }
 
     ClanHistory getClanHistory(ClanHistoryRequest clanHistoryRequest) throws IOException {
-        String json = get(createUrl("clan/" + clanHistoryRequest.getTag() + "/history"), clanHistoryRequest);
-        return new Gson().fromJson(json, ClanHistory.class);
+        return get(ApiEndpoint.CLAN_HISTORY, clanHistoryRequest);
     }
 
     List<OpenTournament> getOpenTournaments(OpenTournamentsRequest openTournamentsRequest) throws IOException {
-        String json = get(createUrl("tournaments/open"), openTournamentsRequest);
-        Type listType = new TypeToken<ArrayList<OpenTournament>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.OPEN_TOURNAMENTS, openTournamentsRequest);
     }
 
     List<KnownTournament> getKnownTournaments(KnownTournamentsRequest knownTournamentsRequest) throws IOException {
-        String json = get(createUrl("tournaments/known"), knownTournamentsRequest);
-        Type listType = new TypeToken<ArrayList<KnownTournament>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.KNOWN_TOURNAMENTS, knownTournamentsRequest);
     }
 
     List<SearchedTournament> getTournamentSearch(TournamentSearchRequest tournamentSearchRequest) throws IOException {
-        String json = get(createUrl("tournaments/search"), tournamentSearchRequest);
-        Type listType = new TypeToken<ArrayList<SearchedTournament>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.TOURNAMENT_SEARCH, tournamentSearchRequest);
     }
 
     List<List<Battle>> getPlayerBattles(PlayerBattlesRequest playerBattlesRequest) throws IOException {
-        String json = get(createUrl("player/" + StringUtils.join(playerBattlesRequest.getTags(), ",")
-                + "/battles"), playerBattlesRequest);
-        if (playerBattlesRequest.getTags().size() == 1) {
-            List<List<Battle>> listOfBattles = new ArrayList<>();
-            Type listType = new TypeToken<ArrayList<Battle>>(){}.getType();
-            List<Battle> battles = new Gson().fromJson(json, listType);
-            listOfBattles.add(battles);
-            return listOfBattles;
-        } else {
-            Type listType = new TypeToken<List<List<Battle>>>(){}.getType();
-            return new Gson().fromJson(json, listType);
-        }
+        return get(ApiEndpoint.PLAYER_BATTLES, playerBattlesRequest);
     }
 
     List<ChestCycle> getPlayerChests(PlayerChestsRequest playerChestsRequest) throws IOException {
-        String json = get(createUrl("player/" + StringUtils.join(playerChestsRequest.getTags(), ",")
-                + "/chests"), playerChestsRequest);
-        if (playerChestsRequest.getTags().size() == 1) {
-            List<ChestCycle> list = new ArrayList<>();
-            list.add(new Gson().fromJson(json, ChestCycle.class));
-            return list;
-        } else {
-            Type listType = new TypeToken<List<ChestCycle>>(){}.getType();
-            return new Gson().fromJson(json, listType);
-        }
+        return get(ApiEndpoint.PLAYER_CHESTS, playerChestsRequest);
     }
 
     List<PopularDeck> getPopularDecks(PopularDecksRequest popularDecksRequest) throws IOException {
-        String json = get(createUrl("popular/decks"), popularDecksRequest);
-        Type listType = new TypeToken<ArrayList<PopularDeck>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.POPULAR_DECKS, popularDecksRequest);
     }
 
     ClanTracking getClanTracking(ClanTrackingRequest clanTrackingRequest) throws IOException {
-        String json = get(createUrl("clan/" + clanTrackingRequest.getTag() + "/tracking"), clanTrackingRequest);
-        return new Gson().fromJson(json, ClanTracking.class);
+        return get(ApiEndpoint.CLAN_TRACKING, clanTrackingRequest);
     }
 
     List<ClanWarLog> getClanWarLog(ClanWarLogRequest clanWarLogRequest) throws IOException {
-        String json = get(createUrl("clan/" + clanWarLogRequest.getTag() + "/warlog"), clanWarLogRequest);
-        Type listType = new TypeToken<List<ClanWarLog>>(){}.getType();
-        return new Gson().fromJson(json, listType);
+        return get(ApiEndpoint.CLAN_WAR_LOG, clanWarLogRequest);
     }
 
     ClanWar getClanWar(ClanWarRequest clanWarRequest) throws IOException {
-        String json = get(createUrl("clan/" + clanWarRequest.getTag() + "/war"), clanWarRequest);
-        return new Gson().fromJson(json, ClanWar.class);
+        return get(ApiEndpoint.CLAN_WAR, clanWarRequest);
     }
 
     AuthStats getAuthStats(AuthStatsRequest authStatsRequest) throws IOException {
-        String json = get(createUrl("auth/stats"), authStatsRequest);
-        return new Gson().fromJson(json, AuthStats.class);
+        return get(ApiEndpoint.AUTH_STATS, authStatsRequest);
     }
 
     Response getLastResponse() {
-        return createCrawler().getLastResponse();
+        return settings.getResponseState().getLastResponse();
+    }
+
+    RateLimitSnapshot getRateLimit() {
+        return settings.getResponseState().getRateLimit(developerKey);
     }
 
 }
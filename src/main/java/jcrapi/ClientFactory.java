@@ -18,15 +18,102 @@ package jcrapi;
 
 import com.google.common.base.Preconditions;
 
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * @author Michael Lieshoff
  */
-class ClientFactory {
+class ClientFactory implements Closeable {
+
+    private final LimitingCrawlerFactory crawlerFactory;
+    private final HedgingCrawlerFactory hedgingCrawlerFactory;
+    private final Clock clock;
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final List<RequestListener> requestListeners = new CopyOnWriteArrayList<>();
+    private final RetryPolicies retryPolicies = new RetryPolicies();
+    private final ResponseState responseState = new ResponseState();
+    private final Hedging hedging = new Hedging(responseState);
+    private final CircuitBreakers circuitBreakers;
+    private final ClientSettings settings;
+
+    ClientFactory() {
+        this(new CrawlerFactory(new HttpClientFactory()));
+    }
+
+    ClientFactory(CrawlerFactory crawlerFactory) {
+        this(crawlerFactory, Clock.system());
+    }
+
+    ClientFactory(CrawlerFactory crawlerFactory, Clock clock) {
+        Preconditions.checkNotNull(crawlerFactory, "crawlerFactory");
+        Preconditions.checkNotNull(clock, "clock");
+        this.crawlerFactory = new LimitingCrawlerFactory(crawlerFactory, clock);
+        this.clock = clock;
+        circuitBreakers = new CircuitBreakers(clock);
+        hedgingCrawlerFactory = new HedgingCrawlerFactory(this.crawlerFactory, hedging, metricsRegistry, clock);
+        settings = ClientSettings.builder(hedgingCrawlerFactory).metricsRegistry(metricsRegistry)
+                .requestListeners(requestListeners).clock(clock).retryPolicies(retryPolicies)
+                .circuitBreakers(circuitBreakers).responseState(responseState).build();
+    }
 
     Client createClient(String url, String developerKey, AuthMode authMode) {
         Preconditions.checkNotNull(url);
         Preconditions.checkArgument(url.length() > 0, url);
-        return new Client(url, developerKey, authMode, new CrawlerFactory());
+        return new Client(url, developerKey, authMode, settings);
+    }
+
+    MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    List<RequestListener> getRequestListeners() {
+        return requestListeners;
+    }
+
+    RetryPolicies getRetryPolicies() {
+        return retryPolicies;
+    }
+
+    Hedging getHedging() {
+        return hedging;
+    }
+
+    ResponseState getResponseState() {
+        return responseState;
+    }
+
+    CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    long getTimeoutMillis() {
+        return settings.getTimeoutMillis();
+    }
+
+    void setTimeoutMillis(long timeoutMillis) {
+        settings.setTimeoutMillis(timeoutMillis);
+    }
+
+    TagValidation getTagValidation() {
+        return settings.getTagValidation();
+    }
+
+    void setTagValidation(TagValidation tagValidation) {
+        settings.setTagValidation(tagValidation);
+    }
+
+    LimitingCrawlerFactory getCrawlerFactory() {
+        return crawlerFactory;
+    }
+
+    /**
+     * Closes the crawlers of all clients created by this factory.
+     */
+    @Override
+    public void close() {
+        hedgingCrawlerFactory.close();
     }
 
 }
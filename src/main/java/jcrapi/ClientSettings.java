@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collaborators a {@link Client} shares with the other clients of its {@link ClientFactory}. The timeout and the tag
+ * validation are read on every call, so changing them applies to all clients already created.
+ *
+ * @author Michael Lieshoff
+ */
+class ClientSettings {
+
+    private final CrawlerFactory crawlerFactory;
+    private final MetricsRegistry metricsRegistry;
+    private final List<RequestListener> requestListeners;
+    private final Clock clock;
+    private final RetryPolicies retryPolicies;
+    private final CircuitBreakers circuitBreakers;
+    private final ResponseState responseState;
+
+    private volatile long timeoutMillis;
+    private volatile TagValidation tagValidation = TagValidation.OFF;
+
+    private ClientSettings(ClientSettingsBuilder builder) {
+        crawlerFactory = builder.crawlerFactory;
+        metricsRegistry = builder.metricsRegistry;
+        requestListeners = builder.requestListeners;
+        clock = builder.clock;
+        retryPolicies = builder.retryPolicies;
+        circuitBreakers = builder.circuitBreakers != null ? builder.circuitBreakers : new CircuitBreakers(clock);
+        responseState = builder.responseState;
+        timeoutMillis = builder.timeoutMillis;
+    }
+
+    static ClientSettingsBuilder builder(CrawlerFactory crawlerFactory) {
+        return new ClientSettingsBuilder(crawlerFactory);
+    }
+
+    CrawlerFactory getCrawlerFactory() {
+        return crawlerFactory;
+    }
+
+    MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    List<RequestListener> getRequestListeners() {
+        return requestListeners;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    RetryPolicies getRetryPolicies() {
+        return retryPolicies;
+    }
+
+    CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    ResponseState getResponseState() {
+        return responseState;
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    void setTimeoutMillis(long timeoutMillis) {
+        Preconditions.checkArgument(timeoutMillis >= 0, "timeoutMillis");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    TagValidation getTagValidation() {
+        return tagValidation;
+    }
+
+    void setTagValidation(TagValidation tagValidation) {
+        Preconditions.checkNotNull(tagValidation, "tagValidation");
+        this.tagValidation = tagValidation;
+    }
+
+    static class ClientSettingsBuilder {
+
+        private final CrawlerFactory crawlerFactory;
+
+        private MetricsRegistry metricsRegistry = new MetricsRegistry();
+        private List<RequestListener> requestListeners = Collections.emptyList();
+        private Clock clock = Clock.system();
+        private RetryPolicies retryPolicies = new RetryPolicies();
+        private CircuitBreakers circuitBreakers;
+        private ResponseState responseState = new ResponseState();
+        private long timeoutMillis;
+
+        ClientSettingsBuilder(CrawlerFactory crawlerFactory) {
+            this.crawlerFactory = crawlerFactory;
+        }
+
+        ClientSettingsBuilder metricsRegistry(MetricsRegistry metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
+            return this;
+        }
+
+        ClientSettingsBuilder requestListeners(List<RequestListener> requestListeners) {
+            this.requestListeners = requestListeners;
+            return this;
+        }
+
+        ClientSettingsBuilder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        ClientSettingsBuilder retryPolicies(RetryPolicies retryPolicies) {
+            this.retryPolicies = retryPolicies;
+            return this;
+        }
+
+        /**
+         * Circuit breakers of the clients, by default new ones on the clock of the settings.
+         */
+        ClientSettingsBuilder circuitBreakers(CircuitBreakers circuitBreakers) {
+            this.circuitBreakers = circuitBreakers;
+            return this;
+        }
+
+        ClientSettingsBuilder responseState(ResponseState responseState) {
+            this.responseState = responseState;
+            return this;
+        }
+
+        ClientSettingsBuilder timeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        ClientSettings build() {
+            Preconditions.checkNotNull(crawlerFactory, "crawlerFactory");
+            Preconditions.checkNotNull(metricsRegistry, "metricsRegistry");
+            Preconditions.checkNotNull(requestListeners, "requestListeners");
+            Preconditions.checkNotNull(clock, "clock");
+            Preconditions.checkNotNull(retryPolicies, "retryPolicies");
+            Preconditions.checkNotNull(responseState, "responseState");
+            Preconditions.checkArgument(timeoutMillis >= 0, "timeoutMillis");
+            return new ClientSettings(this);
+        }
+
+    }
+
+}
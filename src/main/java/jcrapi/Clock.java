@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Source of time and waiting for everything in the request path: rate limit waits, call timings and the
+ * schedulers. {@link #system()} is backed by the system clock, {@link VirtualClock} lets simulations run hours
+ * of throttled crawling in seconds.
+ *
+ * @author Michael Lieshoff
+ */
+public abstract class Clock {
+
+    private static final Clock SYSTEM = new Clock() {
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            if (millis > 0) {
+                Thread.sleep(millis);
+            }
+        }
+
+        @Override
+        public void await(Object monitor, long millis) throws InterruptedException {
+            monitor.wait(millis);
+        }
+
+    };
+
+    public static Clock system() {
+        return SYSTEM;
+    }
+
+    public abstract long currentTimeMillis();
+
+    public abstract long nanoTime();
+
+    public abstract void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Waits on the monitor like {@link Object#wait(long)}, the caller has to own the monitor and 0 waits until
+     * notified.
+     */
+    public abstract void await(Object monitor, long millis) throws InterruptedException;
+
+    /**
+     * Sleeps until the given time in millis has been reached, returns false if interrupted.
+     */
+    public boolean sleepUntil(long millis) {
+        for (long now = currentTimeMillis(); now < millis; now = currentTimeMillis()) {
+            try {
+                sleep(millis - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a {@link ConcurrencyLimiter} rejects a request instead of letting it wait for a permit.
+ *
+ * @author Michael Lieshoff
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+
+    private final int limit;
+    private final int queued;
+
+    ConcurrencyLimitExceededException(int limit, int queued) {
+        super("concurrency limit of " + limit + " reached with " + queued + " queued");
+        this.limit = limit;
+        this.queued = queued;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the requests in flight for one developer key and finds the limit on its own with additive increase and
+ * multiplicative decrease: every sample within <code>rttTolerance</code> times the baseline round trip time raises
+ * the limit by one per limit's worth of samples, a throttled, failed or slow request cuts it by
+ * <code>backoffRatio</code>. Callers above the limit queue in arrival order and a freed permit goes to the head of
+ * the queue; callers are rejected with a {@link ConcurrencyLimitExceededException} when the queue is full or they
+ * waited too long.
+ *
+ * @author Michael Lieshoff
+ */
+public class ConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Deque<Condition> waiters = new ArrayDeque<>();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    private double limit;
+    private int inFlight;
+    private long baselineRttNanos;
+    private long rejected;
+    private long decreases;
+
+    private ConcurrencyLimiter(ConcurrencyLimiterBuilder builder) {
+        limit = builder.initialLimit;
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        backoffRatio = builder.backoffRatio;
+        rttTolerance = builder.rttTolerance;
+        maxQueue = builder.maxQueue;
+        queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.queueTimeoutMillis);
+    }
+
+    public static ConcurrencyLimiterBuilder builder() {
+        return new ConcurrencyLimiterBuilder();
+    }
+
+    /**
+     * Waits for a permit, every permit has to be given back with {@link #release(long, boolean)} or
+     * {@link #release()}. Queue wait and
+     * timeout are measured with the given clock.
+     */
+    void acquire(Clock clock) throws IOException {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                queueWait.record(0);
+                return;
+            }
+            if (waiters.size() >= maxQueue) {
+                rejected++;
+                throw new ConcurrencyLimitExceededException((int) limit, waiters.size());
+            }
+            long startedAt = clock.nanoTime();
+            Condition waiter = lock.newCondition();
+            waiters.addLast(waiter);
+            try {
+                while (waiters.peekFirst() != waiter || inFlight >= (int) limit) {
+                    long nanos = startedAt + queueTimeoutNanos - clock.nanoTime();
+                    if (nanos <= 0) {
+                        rejected++;
+                        throw new ConcurrencyLimitExceededException((int) limit, waiters.size() - 1);
+                    }
+                    waiter.awaitNanos(nanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a permit");
+            } finally {
+                waiters.remove(waiter);
+                queueWait.record(clock.nanoTime() - startedAt);
+                // the next caller in line may take a permit that is still free
+                signalHead();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalHead() {
+        Condition head = waiters.peekFirst();
+        if (head != null) {
+            head.signal();
+        }
+    }
+
+    /**
+     * Gives back a permit with the round trip time of the request and whether it was throttled or failed.
+     */
+    void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int inFlightBefore = inFlight;
+            inFlight--;
+            if (!dropped && rttNanos > 0) {
+                if (baselineRttNanos == 0 || rttNanos < baselineRttNanos) {
+                    baselineRttNanos = rttNanos;
+                } else {
+                    // drift upwards slowly, so the baseline follows a permanently slower api
+                    baselineRttNanos += (rttNanos - baselineRttNanos) / 100;
+                }
+            }
+            if (dropped || rttNanos > baselineRttNanos * rttTolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                decreases++;
+            } else if (inFlightBefore >= limit / 2) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the permit of a request cancelled by its caller, which tells nothing about the api.
+     */
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of times the limit was cut.
+     */
+    public long getDecreases() {
+        lock.lock();
+        try {
+            return decreases;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getBaselineRttMillis() {
+        lock.lock();
+        try {
+            return baselineRttNanos / 1000000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time callers spent waiting for a permit, including the ones that got one right away.
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public static class ConcurrencyLimiterBuilder {
+
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double rttTolerance = 2.0;
+        private int maxQueue = 1000;
+        private long queueTimeoutMillis = 60000;
+
+        ConcurrencyLimiterBuilder() {
+        }
+
+        public ConcurrencyLimiterBuilder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public ConcurrencyLimiterBuilder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public ConcurrencyLimiterBuilder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Factor the limit is multiplied with after a throttled, failed or slow request.
+         */
+        public ConcurrencyLimiterBuilder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Multiple of the baseline round trip time above which a request counts as slow.
+         */
+        public ConcurrencyLimiterBuilder rttTolerance(double rttTolerance) {
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        /**
+         * Callers allowed to wait for a permit, 0 rejects right away when the limit is reached.
+         */
+        public ConcurrencyLimiterBuilder maxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+            return this;
+        }
+
+        public ConcurrencyLimiterBuilder queueTimeoutMillis(long queueTimeoutMillis) {
+            this.queueTimeoutMillis = queueTimeoutMillis;
+            return this;
+        }
+
+        public ConcurrencyLimiter build() {
+            Preconditions.checkArgument(minLimit > 0, "minLimit");
+            Preconditions.checkArgument(maxLimit >= minLimit, "maxLimit");
+            Preconditions.checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit, "initialLimit");
+            Preconditions.checkArgument(backoffRatio > 0 && backoffRatio < 1, "backoffRatio");
+            Preconditions.checkArgument(rttTolerance >= 1, "rttTolerance");
+            Preconditions.checkArgument(maxQueue >= 0, "maxQueue");
+            Preconditions.checkArgument(queueTimeoutMillis >= 0, "queueTimeoutMillis");
+            return new ConcurrencyLimiter(this);
+        }
+
+    }
+
+}
@@ -17,21 +17,24 @@
 package jcrapi;
 
 import com.google.common.base.Preconditions;
+import com.google.common.io.CountingInputStream;
+import jcrapi.request.QueryParameters;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ArrayUtils;
-import org.apache.commons.lang.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.util.Iterator;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -39,15 +42,15 @@ import java.util.Map;
  */
 class Crawler {
 
-    private static final ThreadLocal<Response> RESPONSE = new ThreadLocal<Response>(){
-        @Override
-        protected Response initialValue() {
-            return new Response();
-        }
-    };
-
     private final HttpClientFactory httpClientFactory;
 
+    /**
+     * For crawlers which pass the request on to another crawler or answer it without http.
+     */
+    protected Crawler() {
+        httpClientFactory = null;
+    }
+
     Crawler(HttpClientFactory httpClientFactory) {
         this.httpClientFactory = httpClientFactory;
     }
@@ -57,65 +60,93 @@ class Crawler {
     }
 
     String get(String url, Map<String, String> headers, Map<String, String> parameters) throws IOException {
-        Response apiResponse = RESPONSE.get();
+        return get(url, headers, parameters, Call.detached(url));
+    }
+
+    String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+            throws IOException {
         Preconditions.checkNotNull(url);
         Preconditions.checkArgument(url.length() > 0);
         Preconditions.checkNotNull(headers);
         Preconditions.checkArgument(headers.size() > 0);
+        Preconditions.checkNotNull(call);
         url = appendToUrl(url, parameters);
+        long remainingMillis = call.getRemainingMillis();
+        if (remainingMillis <= 0) {
+            throw new DeadlineExceededException(call.getTimeoutMillis());
+        }
         HttpClient client = httpClientFactory.create();
         HttpGet request = createRequest(url, headers);
-        HttpResponse response = client.execute(request);
+        if (call.hasDeadline()) {
+            httpClientFactory.setTimeouts(request.getParams(), remainingMillis);
+        }
+        CallReaper.Registration registration = CallReaper.getInstance().register(call, request);
+        try {
+            return execute(client, request, call);
+        } catch (IOException e) {
+            // the connection is in an unknown state, so it is not given back to the pool
+            request.abort();
+            if (registration.isExpired() || e instanceof InterruptedIOException && call.hasDeadline()
+                    && call.getRemainingMillis() <= 0) {
+                throw new DeadlineExceededException(call.getTimeoutMillis(), e);
+            }
+            if (registration.isCancelled()) {
+                throw (InterruptedIOException) new InterruptedIOException("call cancelled").initCause(e);
+            }
+            throw e;
+        } finally {
+            registration.close();
+        }
+    }
+
+    private String execute(HttpClient client, HttpGet request, Call call) throws IOException {
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(HttpClientFactory.CALL, call);
+        HttpResponse response = client.execute(request, context);
+        if (!call.isConnected()) {
+            call.connectionAcquired();
+        }
         StatusLine statusLine = response.getStatusLine();
+        call.headersReceived(statusLine.getStatusCode(), readHeaders(response));
         if (statusLine.getStatusCode() != 200) {
-            setLastResponse(apiResponse, "ERROR", response);
+            // reading the error body up gives the connection back to the pool
+            EntityUtils.consume(response.getEntity());
             throw new IOException("crapi: " + statusLine.getStatusCode());
         }
-        BufferedReader rd = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
+        CountingInputStream in = new CountingInputStream(response.getEntity().getContent());
         StringBuilder s = new StringBuilder();
-        String line;
-        while ((line = rd.readLine()) != null) {
-            s.append(line);
+        try (BufferedReader rd = new BufferedReader(new InputStreamReader(in))) {
+            String line;
+            while ((line = rd.readLine()) != null) {
+                s.append(line);
+            }
         }
         String result = s.toString();
-        setLastResponse(apiResponse, result, response);
+        call.bodyComplete(in.getCount());
         return result;
     }
 
-    private void setLastResponse(Response apiResponse, String result, HttpResponse response) {
-        apiResponse.setRaw(result);
+    private Map<String, String> readHeaders(HttpResponse response) {
+        Map<String, String> map = new HashMap<>();
         if (ArrayUtils.isNotEmpty(response.getAllHeaders())) {
-            apiResponse.getResponseHeaders().clear();
             for (Header header : response.getAllHeaders()) {
-                apiResponse.getResponseHeaders().put(header.getName().toLowerCase(), header.getValue());
+                map.put(header.getName().toLowerCase(), header.getValue());
             }
         }
+        return map;
     }
 
-    public Response getLastResponse() {
-        return RESPONSE.get();
-    }
-
-    private String appendToUrl(String url, Map<String, String> parameters) throws UnsupportedEncodingException {
-        if (MapUtils.isNotEmpty(parameters)) {
-            StringBuilder s = new StringBuilder();
-            s.append("?");
-            for (Iterator<Map.Entry<String, String>> iterator = parameters.entrySet().iterator(); iterator.hasNext(); ) {
-                Map.Entry<String, String> entry = iterator.next();
-                String name = entry.getKey();
-                String value = entry.getKey();
-                s.append(name);
-                s.append("=");
-                if (StringUtils.isNotBlank(value)) {
-                    s.append(URLEncoder.encode(entry.getValue(), "UTF-8"));
-                }
-                if (iterator.hasNext()) {
-                    s.append("&");
-                }
-            }
-            url = url + s;
+    private String appendToUrl(String url, Map<String, String> parameters) {
+        if (MapUtils.isEmpty(parameters)) {
+            return url;
+        }
+        if (parameters instanceof QueryParameters) {
+            return url + '?' + ((QueryParameters) parameters).getQueryString();
         }
-        return url;
+        StringBuilder s = new StringBuilder(url.length() + 16 * parameters.size());
+        s.append(url).append('?');
+        QueryParameters.append(s, parameters);
+        return s.toString();
     }
 
     private HttpGet createRequest(String url, Map<String, String> headers) {
@@ -18,24 +18,49 @@ package jcrapi;
 
 import com.google.common.base.Preconditions;
 
+import java.io.Closeable;
+
 /**
+ * Hands out the crawler of an {@link Api}. Crawlers keep no state between calls, so one instance is shared by all
+ * threads and the factories wrapping this one only build a new crawler when their configuration changes.
+ *
  * @author Michael Lieshoff
  */
-class CrawlerFactory {
+class CrawlerFactory implements Closeable {
 
     private final HttpClientFactory httpClientFactory;
+    private final Crawler crawler;
 
-    CrawlerFactory() {
-        this.httpClientFactory = new HttpClientFactory() ;
+    /**
+     * For factories which wrap another factory or build crawlers of their own, allocates no http client.
+     */
+    protected CrawlerFactory() {
+        httpClientFactory = null;
+        crawler = null;
     }
 
     CrawlerFactory(HttpClientFactory httpClientFactory) {
         Preconditions.checkNotNull(httpClientFactory);
         this.httpClientFactory = httpClientFactory;
+        crawler = new Crawler(httpClientFactory);
     }
 
     Crawler createCrawler() {
-        return new Crawler(httpClientFactory);
+        return crawler;
+    }
+
+    HttpClientFactory getHttpClientFactory() {
+        return httpClientFactory;
+    }
+
+    /**
+     * Closes the pooled connections of the crawlers.
+     */
+    @Override
+    public void close() {
+        if (httpClientFactory != null) {
+            httpClientFactory.close();
+        }
     }
 
 }
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown when a call is not answered within its deadline, set with {@link Api#setTimeoutMillis(long)} or the
+ * timeout of its request. The deadline covers connecting, reading, retries and waits for the rate limit.
+ *
+ * @author Michael Lieshoff
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    private final long timeoutMillis;
+
+    DeadlineExceededException(long timeoutMillis) {
+        super("deadline of " + timeoutMillis + " ms exceeded");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    DeadlineExceededException(long timeoutMillis, Throwable cause) {
+        this(timeoutMillis);
+        initCause(cause);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and phase latencies of one endpoint template. The total latency covers one attempt from sending the
+ * request to the end of parsing; connect, first byte and body read are the parts of it spent in the transport.
+ *
+ * @author Michael Lieshoff
+ */
+public class EndpointMetrics implements EndpointMetricsMXBean {
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    private final String template;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram connect = new LatencyHistogram();
+    private final LatencyHistogram firstByte = new LatencyHistogram();
+    private final LatencyHistogram bodyRead = new LatencyHistogram();
+    private final LatencyHistogram parse = new LatencyHistogram();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong rateLimitWaits = new AtomicLong();
+    private final AtomicLong rateLimitWaitNanos = new AtomicLong();
+    private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS - MIN_STATUS + 1);
+
+    EndpointMetrics(String template) {
+        Preconditions.checkNotNull(template, "template");
+        this.template = template;
+    }
+
+    void recordResponse(CallMetadata response) {
+        if (response.getStatusCode() >= MIN_STATUS && response.getStatusCode() <= MAX_STATUS) {
+            statusCodes.incrementAndGet(response.getStatusCode() - MIN_STATUS);
+        }
+        if (response.getConnectNanos() > 0) {
+            connect.record(response.getConnectNanos());
+        }
+        if (response.getFirstByteNanos() > 0) {
+            firstByte.record(response.getFirstByteNanos());
+        }
+        if (response.getBodyReadNanos() > 0) {
+            bodyRead.record(response.getBodyReadNanos());
+        }
+        responseBytes.addAndGet(Math.max(0, response.getResponseBytes()));
+    }
+
+    void recordCall(long nanos, boolean failed) {
+        calls.incrementAndGet();
+        latency.record(nanos);
+        if (failed) {
+            errors.incrementAndGet();
+        }
+    }
+
+    void recordParse(long nanos) {
+        parse.record(nanos);
+    }
+
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    void recordHedge() {
+        hedges.incrementAndGet();
+    }
+
+    void recordHedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+
+    void recordRateLimitWait(long nanos) {
+        rateLimitWaits.incrementAndGet();
+        rateLimitWaitNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.get();
+    }
+
+    @Override
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    @Override
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    @Override
+    public long getRateLimitWaits() {
+        return rateLimitWaits.get();
+    }
+
+    @Override
+    public long getRateLimitWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(rateLimitWaitNanos.get());
+    }
+
+    @Override
+    public Map<Integer, Long> getStatusCodes() {
+        Map<Integer, Long> map = new TreeMap<>();
+        for (int i = 0; i < statusCodes.length(); i++) {
+            long count = statusCodes.get(i);
+            if (count > 0) {
+                map.put(i + MIN_STATUS, count);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        return latency.getMeanMillis();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.getMaxNanos() / 1e6;
+    }
+
+    @Override
+    public double getConnectP99Millis() {
+        return connect.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getFirstByteP99Millis() {
+        return firstByte.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getBodyReadP99Millis() {
+        return bodyRead.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getParseP99Millis() {
+        return parse.getPercentileMillis(99);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public LatencyHistogram getConnect() {
+        return connect;
+    }
+
+    public LatencyHistogram getFirstByte() {
+        return firstByte;
+    }
+
+    public LatencyHistogram getBodyRead() {
+        return bodyRead;
+    }
+
+    public LatencyHistogram getParse() {
+        return parse;
+    }
+
+}
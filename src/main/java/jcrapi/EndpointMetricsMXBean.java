@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link EndpointMetrics} of one endpoint template.
+ *
+ * @author Michael Lieshoff
+ */
+public interface EndpointMetricsMXBean {
+
+    String getTemplate();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRetries();
+
+    long getHedges();
+
+    long getHedgesWon();
+
+    long getResponseBytes();
+
+    long getRateLimitWaits();
+
+    long getRateLimitWaitMillis();
+
+    Map<Integer, Long> getStatusCodes();
+
+    double getLatencyMeanMillis();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+    double getConnectP99Millis();
+
+    double getFirstByteP99Millis();
+
+    double getBodyReadP99Millis();
+
+    double getParseP99Millis();
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Hook for Java Flight Recorder events of api calls, parses and rate limit waits. This base class does nothing;
+ * {@code JfrEvents} is used instead when the jar was built with JDK 11 or later and the jdk.jfr api is present. The
+ * begin methods return null when no recording is interested, so a disabled recorder costs one virtual call.
+ *
+ * @author Michael Lieshoff
+ */
+class FlightEvents {
+
+    private static final FlightEvents INSTANCE = create();
+
+    static FlightEvents getInstance() {
+        return INSTANCE;
+    }
+
+    private static FlightEvents create() {
+        if (Boolean.getBoolean("jcrapi.jfr.disabled")) {
+            return new FlightEvents();
+        }
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (FlightEvents) Class.forName("jcrapi.JfrEvents").newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new FlightEvents();
+        }
+    }
+
+    Object beginRequest() {
+        return null;
+    }
+
+    void commitRequest(Object event, CallMetadata call, boolean failed) {
+    }
+
+    Object beginParse() {
+        return null;
+    }
+
+    void commitParse(Object event, ApiEndpoint<?, ?> endpoint, Object result) {
+    }
+
+    Object beginRateLimitWait() {
+        return null;
+    }
+
+    void commitRateLimitWait(Object event, CallMetadata call) {
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * When an {@link Api} sends a second, hedged request for a read. A hedge is sent once the first request has not
+ * received its response headers within the <code>percentile</code> of the endpoint's recent time to first byte,
+ * clamped to <code>minDelayMillis</code> and <code>maxDelayMillis</code>; the first response wins. Until
+ * <code>minSamples</code> responses were seen no hedges are sent, neither while the last known rate limit has no
+ * more than <code>minRateLimitRemaining</code> requests left.
+ *
+ * @author Michael Lieshoff
+ */
+public final class HedgePolicy {
+
+    public static final HedgePolicy DEFAULT = builder().build();
+
+    public static final HedgePolicy DISABLED = builder().enabled(false).build();
+
+    private final boolean enabled;
+    private final double percentile;
+    private final int minSamples;
+    private final int windowSize;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final int minRateLimitRemaining;
+
+    private HedgePolicy(HedgePolicyBuilder builder) {
+        enabled = builder.enabled;
+        percentile = builder.percentile;
+        minSamples = builder.minSamples;
+        windowSize = builder.windowSize;
+        minDelayMillis = builder.minDelayMillis;
+        maxDelayMillis = builder.maxDelayMillis;
+        minRateLimitRemaining = builder.minRateLimitRemaining;
+    }
+
+    public static HedgePolicyBuilder builder() {
+        return new HedgePolicyBuilder();
+    }
+
+    /**
+     * Delay before hedging for the given percentile latency, or -1 while there are too few samples.
+     */
+    long delayMillis(LatencyHistogram latency) {
+        if (latency.getCount() < minSamples) {
+            return -1;
+        }
+        long millis = (long) Math.ceil(latency.getPercentileMillis(percentile));
+        return Math.max(minDelayMillis, Math.min(maxDelayMillis, millis));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMinRateLimitRemaining() {
+        return minRateLimitRemaining;
+    }
+
+    public static class HedgePolicyBuilder {
+
+        private boolean enabled = true;
+        private double percentile = 95;
+        private int minSamples = 20;
+        private int windowSize = 1000;
+        private long minDelayMillis = 1;
+        private long maxDelayMillis = 10000;
+        private int minRateLimitRemaining = 1;
+
+        HedgePolicyBuilder() {
+        }
+
+        public HedgePolicyBuilder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public HedgePolicyBuilder percentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public HedgePolicyBuilder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Number of responses after which the latency window starts over, the previous window is used meanwhile.
+         */
+        public HedgePolicyBuilder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public HedgePolicyBuilder minDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+            return this;
+        }
+
+        public HedgePolicyBuilder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        public HedgePolicyBuilder minRateLimitRemaining(int minRateLimitRemaining) {
+            this.minRateLimitRemaining = minRateLimitRemaining;
+            return this;
+        }
+
+        public HedgePolicy build() {
+            Preconditions.checkArgument(percentile > 0 && percentile <= 100, "percentile");
+            Preconditions.checkArgument(minSamples > 0, "minSamples");
+            Preconditions.checkArgument(windowSize >= minSamples, "windowSize");
+            Preconditions.checkArgument(minDelayMillis > 0, "minDelayMillis");
+            Preconditions.checkArgument(maxDelayMillis >= minDelayMillis, "maxDelayMillis");
+            Preconditions.checkArgument(minRateLimitRemaining >= 0, "minRateLimitRemaining");
+            return new HedgePolicy(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hedge policies of an {@link Api}: a default, overrides per endpoint and the budget bounding the hedged requests.
+ * It also keeps the recent time to first byte of every endpoint, the rate limits are read from the
+ * {@link ResponseState} of the clients.
+ *
+ * @author Michael Lieshoff
+ */
+class Hedging {
+
+    private final ResponseState responseState;
+    private final Map<ApiEndpoint<?, ?>, HedgePolicy> policies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private volatile HedgePolicy defaultPolicy = HedgePolicy.DISABLED;
+    private volatile RetryBudget budget = new RetryBudget(0.05, 5);
+
+    Hedging(ResponseState responseState) {
+        Preconditions.checkNotNull(responseState, "responseState");
+        this.responseState = responseState;
+    }
+
+    HedgePolicy get(ApiEndpoint<?, ?> endpoint) {
+        HedgePolicy policy = endpoint != null ? policies.get(endpoint) : null;
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    void setDefault(HedgePolicy policy) {
+        Preconditions.checkNotNull(policy, "policy");
+        defaultPolicy = policy;
+    }
+
+    void set(ApiEndpoint<?, ?> endpoint, HedgePolicy policy) {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        if (policy != null) {
+            policies.put(endpoint, policy);
+        } else {
+            policies.remove(endpoint);
+        }
+    }
+
+    RetryBudget getBudget() {
+        return budget;
+    }
+
+    void setBudget(RetryBudget budget) {
+        Preconditions.checkNotNull(budget, "budget");
+        this.budget = budget;
+    }
+
+    /**
+     * Delay before hedging a call of the endpoint, or -1 if it is not hedged.
+     */
+    long delayMillis(ApiEndpoint<?, ?> endpoint, HedgePolicy policy) {
+        if (!policy.isEnabled() || endpoint == null) {
+            return -1;
+        }
+        LatencyWindow window = windows.get(endpoint.getTemplate());
+        return window != null ? policy.delayMillis(window.get(policy.getMinSamples())) : -1;
+    }
+
+    /**
+     * Records the time to first byte of an answered call.
+     */
+    void record(Call call, HedgePolicy policy) {
+        if (call.getStatusCode() == 0 || call.getEndpoint() == null || !policy.isEnabled()) {
+            return;
+        }
+        LatencyWindow window = windows.get(call.getEndpoint().getTemplate());
+        if (window == null) {
+            windows.putIfAbsent(call.getEndpoint().getTemplate(), new LatencyWindow());
+            window = windows.get(call.getEndpoint().getTemplate());
+        }
+        window.record(call.getConnectNanos() + call.getFirstByteNanos(), policy.getWindowSize());
+    }
+
+    /**
+     * True if the last known rate limits leave room for a hedge, a rate limit past its reset does.
+     */
+    boolean hasRateLimitRoom(HedgePolicy policy, long now) {
+        for (RateLimitSnapshot snapshot : responseState.getRateLimits()) {
+            if (snapshot.getRemaining() >= 0 && snapshot.getRemaining() <= policy.getMinRateLimitRemaining()
+                    && now < snapshot.getReset()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class LatencyWindow {
+
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous;
+
+        void record(long nanos, int windowSize) {
+            LatencyHistogram histogram = current;
+            histogram.record(nanos);
+            if (histogram.getCount() >= windowSize) {
+                synchronized (this) {
+                    if (current == histogram) {
+                        previous = histogram;
+                        current = new LatencyHistogram();
+                    }
+                }
+            }
+        }
+
+        LatencyHistogram get(int minSamples) {
+            LatencyHistogram histogram = current;
+            LatencyHistogram last = previous;
+            return histogram.getCount() < minSamples && last != null ? last : histogram;
+        }
+
+    }
+
+}
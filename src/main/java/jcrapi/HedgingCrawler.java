@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crawler which sends a second request for a call whose response headers are late, as decided by its
+ * {@link HedgePolicy}, and answers with the first response. Both requests are sent on behalf of the call by the
+ * executor of the factory and their outcome is copied into the call, so listeners see one attempt. The slower
+ * request is cancelled, a hedge is only sent if the {@link Hedging} budget and the last known rate limit allow it.
+ *
+ * @author Michael Lieshoff
+ */
+class HedgingCrawler extends Crawler {
+
+    private final Crawler crawler;
+    private final Hedging hedging;
+    private final MetricsRegistry metricsRegistry;
+    private final ExecutorService executor;
+    private final Clock clock;
+
+    HedgingCrawler(Crawler crawler, Hedging hedging, MetricsRegistry metricsRegistry, ExecutorService executor,
+                   Clock clock) {
+        Preconditions.checkNotNull(crawler, "crawler");
+        Preconditions.checkNotNull(hedging, "hedging");
+        Preconditions.checkNotNull(metricsRegistry, "metricsRegistry");
+        Preconditions.checkNotNull(executor, "executor");
+        Preconditions.checkNotNull(clock, "clock");
+        this.crawler = crawler;
+        this.hedging = hedging;
+        this.metricsRegistry = metricsRegistry;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    Crawler getCrawler() {
+        return crawler;
+    }
+
+    @Override
+    String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+            throws IOException {
+        Preconditions.checkNotNull(call);
+        HedgePolicy policy = hedging.get(call.getEndpoint());
+        long delayMillis = hedging.delayMillis(call.getEndpoint(), policy);
+        if (delayMillis < 0) {
+            try {
+                return crawler.get(url, headers, parameters, call);
+            } finally {
+                hedging.record(call, policy);
+            }
+        }
+        hedging.getBudget().deposit();
+        Attempt attempt = race(new Request(url, headers, parameters), call, policy, delayMillis);
+        hedging.record(attempt.call, policy);
+        return complete(call, attempt);
+    }
+
+    private Attempt race(Request request, Call call, HedgePolicy policy, long delayMillis) throws IOException {
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Attempt>> futures = new ArrayList<>(2);
+        Attempt primary = new Attempt(request, call.sibling());
+        futures.add(completion.submit(primary));
+        try {
+            Future<Attempt> done = completion.poll(delayMillis, TimeUnit.MILLISECONDS);
+            if (done == null && !primary.call.hasResponded() && tryHedge(policy)) {
+                futures.add(completion.submit(new Attempt(request, call.sibling())));
+                metricsRegistry.getEndpoint(call.getEndpoint()).recordHedge();
+            }
+            Attempt attempt = null;
+            for (int pending = futures.size(); pending > 0; pending--) {
+                attempt = result(done != null ? done : completion.take());
+                done = null;
+                if (attempt.failure == null) {
+                    break;
+                }
+            }
+            if (attempt.failure == null && attempt != primary) {
+                metricsRegistry.getEndpoint(call.getEndpoint()).recordHedgeWon();
+            }
+            return attempt;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("hedged request interrupted");
+        } finally {
+            for (Future<Attempt> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private boolean tryHedge(HedgePolicy policy) {
+        return hedging.hasRateLimitRoom(policy, clock.currentTimeMillis()) && hedging.getBudget().tryWithdraw();
+    }
+
+    private static Attempt result(Future<Attempt> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private String complete(Call call, Attempt attempt) throws IOException {
+        Call source = attempt.call;
+        if (source.getStatusCode() > 0) {
+            call.headersReceived(source.getStatusCode(), source.getResponseHeaders());
+        }
+        if (attempt.failure != null) {
+            throw attempt.failure;
+        }
+        call.bodyComplete(source.getResponseBytes());
+        return attempt.body;
+    }
+
+    private static class Request {
+
+        private final String url;
+        private final Map<String, String> headers;
+        private final Map<String, String> parameters;
+
+        Request(String url, Map<String, String> headers, Map<String, String> parameters) {
+            this.url = url;
+            this.headers = headers;
+            this.parameters = parameters;
+        }
+
+    }
+
+    private class Attempt implements Callable<Attempt> {
+
+        private final Request request;
+        private final Call call;
+
+        private String body;
+        private IOException failure;
+
+        Attempt(Request request, Call call) {
+            this.request = request;
+            this.call = call;
+        }
+
+        @Override
+        public Attempt call() {
+            try {
+                body = crawler.get(request.url, request.headers, request.parameters, call);
+            } catch (IOException e) {
+                failure = e;
+            }
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Puts the {@link Hedging} of an {@link Api} in front of the crawlers of another factory. The hedged calls are sent
+ * by {@link Threads#newCachedExecutor(String)}.
+ *
+ * @author Michael Lieshoff
+ */
+class HedgingCrawlerFactory extends CrawlerFactory {
+
+    private final CrawlerFactory crawlerFactory;
+    private final Hedging hedging;
+    private final MetricsRegistry metricsRegistry;
+    private final Clock clock;
+    private final ExecutorService executor = Threads.newCachedExecutor("jcrapi-hedge");
+
+    private volatile HedgingCrawler hedgingCrawler;
+
+    HedgingCrawlerFactory(CrawlerFactory crawlerFactory, Hedging hedging, MetricsRegistry metricsRegistry,
+                          Clock clock) {
+        Preconditions.checkNotNull(crawlerFactory, "crawlerFactory");
+        Preconditions.checkNotNull(hedging, "hedging");
+        Preconditions.checkNotNull(metricsRegistry, "metricsRegistry");
+        Preconditions.checkNotNull(clock, "clock");
+        this.crawlerFactory = crawlerFactory;
+        this.hedging = hedging;
+        this.metricsRegistry = metricsRegistry;
+        this.clock = clock;
+    }
+
+    @Override
+    Crawler createCrawler() {
+        Crawler crawler = crawlerFactory.createCrawler();
+        HedgingCrawler hedgingCrawler = this.hedgingCrawler;
+        // the wrapped crawler only changes with the concurrency limiter
+        if (hedgingCrawler == null || hedgingCrawler.getCrawler() != crawler) {
+            hedgingCrawler = new HedgingCrawler(crawler, hedging, metricsRegistry, executor, clock);
+            this.hedgingCrawler = hedgingCrawler;
+        }
+        return hedgingCrawler;
+    }
+
+    @Override
+    HttpClientFactory getHttpClientFactory() {
+        return crawlerFactory.getHttpClientFactory();
+    }
+
+    /**
+     * Stops sending hedged calls and closes the wrapped factory.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        crawlerFactory.close();
+    }
+
+}
@@ -16,16 +16,133 @@
  */
 package jcrapi;
 
+import com.google.common.base.Preconditions;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.Closeable;
 
 /**
+ * Creates the http client shared by the crawlers of an {@link Api}, its pooled connections are kept alive between
+ * calls until the factory is closed. Connecting and waiting for data are bounded by timeouts, a call with a deadline
+ * lowers them to the time it has left.
+ *
  * @author Michael Lieshoff
  */
-class HttpClientFactory {
+class HttpClientFactory implements Closeable {
+
+    static final String CALL = "jcrapi.call";
+
+    static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 30000;
+    static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+    private final int connectTimeoutMillis;
+    private final int socketTimeoutMillis;
+    private final int maxConnections;
+
+    private volatile DefaultHttpClient client;
+    private boolean closed;
+
+    HttpClientFactory() {
+        this(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_SOCKET_TIMEOUT_MILLIS);
+    }
+
+    HttpClientFactory(int connectTimeoutMillis, int socketTimeoutMillis) {
+        this(connectTimeoutMillis, socketTimeoutMillis, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    HttpClientFactory(int connectTimeoutMillis, int socketTimeoutMillis, int maxConnections) {
+        Preconditions.checkArgument(connectTimeoutMillis > 0, "connectTimeoutMillis");
+        Preconditions.checkArgument(socketTimeoutMillis > 0, "socketTimeoutMillis");
+        Preconditions.checkArgument(maxConnections > 0, "maxConnections");
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.socketTimeoutMillis = socketTimeoutMillis;
+        this.maxConnections = maxConnections;
+    }
 
+    /**
+     * The shared client, created on first use.
+     */
     HttpClient create() {
-        return new DefaultHttpClient();
+        DefaultHttpClient client = this.client;
+        if (client == null) {
+            synchronized (this) {
+                Preconditions.checkState(!closed, "closed");
+                client = this.client;
+                if (client == null) {
+                    client = createClient();
+                    this.client = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private DefaultHttpClient createClient() {
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        // all calls go to the one host of the api
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        setTimeouts(client.getParams(), Long.MAX_VALUE);
+        // retries are up to the retry policy of the client, which knows the deadline and the budget
+        client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+        client.addRequestInterceptor(new HttpRequestInterceptor() {
+            @Override
+            public void process(HttpRequest request, HttpContext context) {
+                // request interceptors run once the connection is established
+                Object call = context.getAttribute(CALL);
+                if (call instanceof Call) {
+                    ((Call) call).connectionAcquired();
+                }
+            }
+        });
+        return client;
+    }
+
+    /**
+     * Sets the connect and socket timeouts, lowered to the given milliseconds left until a deadline.
+     */
+    void setTimeouts(HttpParams params, long remainingMillis) {
+        HttpConnectionParams.setConnectionTimeout(params, (int) Math.max(1, Math.min(connectTimeoutMillis,
+                remainingMillis)));
+        HttpConnectionParams.setSoTimeout(params, (int) Math.max(1, Math.min(socketTimeoutMillis, remainingMillis)));
+    }
+
+    /**
+     * Closes the pooled connections, the factory cannot create a client afterwards.
+     */
+    @Override
+    public void close() {
+        DefaultHttpClient client;
+        synchronized (this) {
+            closed = true;
+            client = this.client;
+            this.client = null;
+        }
+        if (client != null) {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    int getMaxConnections() {
+        return maxConnections;
     }
 
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+
+/**
+ * Crawler which takes a permit of the {@link ConcurrencyLimiter} of its factory around every request of the
+ * wrapped crawler. Throttled, server failed and unanswered requests count as dropped, requests cancelled by their
+ * caller, like the slower request of a hedged call, give back their permit without a sample.
+ *
+ * @author Michael Lieshoff
+ */
+class LimitingCrawler extends Crawler {
+
+    private final Crawler crawler;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Clock clock;
+
+    LimitingCrawler(Crawler crawler, ConcurrencyLimiter concurrencyLimiter, Clock clock) {
+        Preconditions.checkNotNull(crawler, "crawler");
+        Preconditions.checkNotNull(concurrencyLimiter, "concurrencyLimiter");
+        Preconditions.checkNotNull(clock, "clock");
+        this.crawler = crawler;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clock = clock;
+    }
+
+    Crawler getCrawler() {
+        return crawler;
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    @Override
+    String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+            throws IOException {
+        Preconditions.checkNotNull(call);
+        concurrencyLimiter.acquire(clock);
+        long startedAt = clock.nanoTime();
+        boolean dropped = true;
+        boolean cancelled = false;
+        try {
+            String result = crawler.get(url, headers, parameters, call);
+            dropped = false;
+            return result;
+        } catch (IOException e) {
+            cancelled = isCancelled(e);
+            int statusCode = call.getStatusCode();
+            dropped = statusCode == 0 || statusCode == 429 || statusCode >= 500;
+            throw e;
+        } finally {
+            if (cancelled) {
+                concurrencyLimiter.release();
+            } else {
+                concurrencyLimiter.release(clock.nanoTime() - startedAt, dropped);
+            }
+        }
+    }
+
+    /**
+     * Timeouts are subclasses of {@link InterruptedIOException}, only an interrupt of the calling thread cancels.
+     */
+    private static boolean isCancelled(IOException e) {
+        return Thread.currentThread().isInterrupted() || e.getClass() == InterruptedIOException.class;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Puts the {@link ConcurrencyLimiter} set on an {@link Api} in front of the crawlers of another factory, crawlers
+ * are passed through unchanged while no limiter is set. The limiting crawler is built once per limiter.
+ *
+ * @author Michael Lieshoff
+ */
+class LimitingCrawlerFactory extends CrawlerFactory {
+
+    private final CrawlerFactory crawlerFactory;
+    private final Clock clock;
+
+    private volatile LimitingCrawler limitingCrawler;
+
+    LimitingCrawlerFactory(CrawlerFactory crawlerFactory, Clock clock) {
+        Preconditions.checkNotNull(crawlerFactory, "crawlerFactory");
+        Preconditions.checkNotNull(clock, "clock");
+        this.crawlerFactory = crawlerFactory;
+        this.clock = clock;
+    }
+
+    @Override
+    Crawler createCrawler() {
+        Crawler crawler = crawlerFactory.createCrawler();
+        LimitingCrawler limitingCrawler = this.limitingCrawler;
+        if (limitingCrawler == null) {
+            return crawler;
+        }
+        if (limitingCrawler.getCrawler() != crawler) {
+            limitingCrawler = new LimitingCrawler(crawler, limitingCrawler.getConcurrencyLimiter(), clock);
+        }
+        return limitingCrawler;
+    }
+
+    @Override
+    HttpClientFactory getHttpClientFactory() {
+        return crawlerFactory.getHttpClientFactory();
+    }
+
+    @Override
+    public void close() {
+        crawlerFactory.close();
+    }
+
+    ConcurrencyLimiter getConcurrencyLimiter() {
+        LimitingCrawler limitingCrawler = this.limitingCrawler;
+        return limitingCrawler != null ? limitingCrawler.getConcurrencyLimiter() : null;
+    }
+
+    void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        limitingCrawler = concurrencyLimiter != null
+                ? new LimitingCrawler(crawlerFactory.createCrawler(), concurrencyLimiter, clock)
+                : null;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the {@link EndpointMetrics} of every {@link ApiEndpoint} template. The metrics can be pulled directly or
+ * exported as MXBeans named {@code jcrapi:type=EndpointMetrics,name=<name>,endpoint=<template>}.
+ *
+ * @author Michael Lieshoff
+ */
+public class MetricsRegistry {
+
+    static final String DOMAIN = "jcrapi";
+
+    private final Map<String, EndpointMetrics> endpoints;
+
+    private final List<ObjectName> registered = new ArrayList<>();
+    private MBeanServer mBeanServer;
+
+    public MetricsRegistry() {
+        Map<String, EndpointMetrics> map = new LinkedHashMap<>();
+        for (ApiEndpoint<?, ?> endpoint : ApiEndpoint.values()) {
+            map.put(endpoint.getTemplate(), new EndpointMetrics(endpoint.getTemplate()));
+        }
+        endpoints = ImmutableMap.copyOf(map);
+    }
+
+    public EndpointMetrics getEndpoint(ApiEndpoint<?, ?> endpoint) {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        return endpoints.get(endpoint.getTemplate());
+    }
+
+    public EndpointMetrics getEndpoint(String template) {
+        return endpoints.get(template);
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return endpoints;
+    }
+
+    public void registerMBeans(String name) throws JMException {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer(), name);
+    }
+
+    public synchronized void registerMBeans(MBeanServer mBeanServer, String name) throws JMException {
+        Preconditions.checkNotNull(mBeanServer, "mBeanServer");
+        Preconditions.checkNotNull(name, "name");
+        Preconditions.checkState(registered.isEmpty(), "already registered");
+        this.mBeanServer = mBeanServer;
+        try {
+            for (EndpointMetrics metrics : endpoints.values()) {
+                ObjectName objectName = createObjectName(name, metrics.getTemplate());
+                mBeanServer.registerMBean(metrics, objectName);
+                registered.add(objectName);
+            }
+        } catch (JMException e) {
+            unregisterMBeans();
+            throw e;
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        for (ObjectName objectName : registered) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already gone
+            }
+        }
+        registered.clear();
+    }
+
+    static ObjectName createObjectName(String name, String template) throws JMException {
+        return new ObjectName(DOMAIN + ":type=EndpointMetrics,name=" + ObjectName.quote(name) + ",endpoint="
+                + ObjectName.quote(template));
+    }
+
+}
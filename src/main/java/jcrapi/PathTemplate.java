@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import jcrapi.request.UrlEncoding;
+
+import java.util.Collection;
+
+/**
+ * Endpoint template compiled into its static parts around at most one <code>{placeholder}</code>. Expanding a template
+ * allocates one buffer of the exact size, values are encoded as path segments and a list of values is joined by ','.
+ *
+ * @author Michael Lieshoff
+ */
+final class PathTemplate {
+
+    private final String template;
+    private final String prefix;
+    private final String suffix;
+    private final boolean placeholder;
+
+    private PathTemplate(String template, String prefix, String suffix, boolean placeholder) {
+        this.template = template;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.placeholder = placeholder;
+    }
+
+    static PathTemplate compile(String template) {
+        Preconditions.checkNotNull(template, "template");
+        int start = template.indexOf('{');
+        if (start < 0) {
+            return new PathTemplate(template, template, "", false);
+        }
+        int end = template.indexOf('}', start);
+        Preconditions.checkArgument(end > start, "template");
+        Preconditions.checkArgument(template.indexOf('{', end) < 0, "template");
+        return new PathTemplate(template, template.substring(0, start), template.substring(end + 1), true);
+    }
+
+    String expand() {
+        Preconditions.checkState(!placeholder, template);
+        return prefix;
+    }
+
+    String expand(String value) {
+        Preconditions.checkState(placeholder, template);
+        Preconditions.checkNotNull(value, "value");
+        String segment = UrlEncoding.encodePathSegment(value);
+        if (suffix.isEmpty()) {
+            return prefix.concat(segment);
+        }
+        return new StringBuilder(prefix.length() + segment.length() + suffix.length())
+                .append(prefix).append(segment).append(suffix).toString();
+    }
+
+    String expand(Collection<String> values) {
+        Preconditions.checkState(placeholder, template);
+        Preconditions.checkNotNull(values, "values");
+        int length = prefix.length() + suffix.length() + values.size();
+        for (String value : values) {
+            length += value != null ? value.length() : 0;
+        }
+        StringBuilder s = new StringBuilder(length + 8);
+        s.append(prefix);
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                s.append(',');
+            }
+            first = false;
+            if (value != null) {
+                UrlEncoding.appendPathSegment(s, value);
+            }
+        }
+        return s.append(suffix).toString();
+    }
+
+    /**
+     * The static template with an optional last segment appended, used for the location of top lists.
+     */
+    String expandOptional(String segment) {
+        Preconditions.checkState(!placeholder, template);
+        if (segment == null || segment.trim().isEmpty()) {
+            return prefix;
+        }
+        StringBuilder s = new StringBuilder(prefix.length() + segment.length() + 9);
+        s.append(prefix).append('/');
+        UrlEncoding.appendPathSegment(s, segment);
+        return s.toString();
+    }
+
+    /**
+     * True if the path is the static template, or the template with one more segment if an optional segment is
+     * allowed.
+     */
+    boolean matches(String path, boolean optionalSegment) {
+        if (placeholder || !path.startsWith(prefix)) {
+            return false;
+        }
+        if (path.length() == prefix.length()) {
+            return true;
+        }
+        return optionalSegment && path.charAt(prefix.length()) == '/' && path.length() > prefix.length() + 1
+                && path.indexOf('/', prefix.length() + 1) < 0;
+    }
+
+    /**
+     * The still encoded value of the placeholder if the path matches the template, null otherwise.
+     */
+    String extract(String path) {
+        if (!placeholder || path.length() <= prefix.length() + suffix.length() || !path.startsWith(prefix)
+                || !path.endsWith(suffix)) {
+            return null;
+        }
+        String value = path.substring(prefix.length(), path.length() - suffix.length());
+        return value.indexOf('/') < 0 ? value : null;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import jcrapi.request.Request;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Splits api calls into three stages: a small pool of I/O workers fetches the raw json, a pool sized to the cores
+ * parses it and a third stage delivers the results to the {@link PipelineSink}s. The queues between the stages are
+ * bounded, so a slow stage throttles the ones in front of it down to {@link #submit}.
+ *
+ * @author Michael Lieshoff
+ */
+public class Pipeline implements Closeable {
+
+    private final Client client;
+
+    private final PipelineStage fetchStage;
+    private final PipelineStage parseStage;
+    private final PipelineStage sinkStage;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+    private long pending;
+
+    Pipeline(Client client, int fetchThreads, int parseThreads, int sinkThreads, int queueCapacity) {
+        Preconditions.checkNotNull(client, "client");
+        this.client = client;
+        Clock clock = client.getClock();
+        fetchStage = new PipelineStage("fetch", fetchThreads, queueCapacity, clock);
+        parseStage = new PipelineStage("parse", parseThreads, queueCapacity, clock);
+        sinkStage = new PipelineStage("sink", sinkThreads, queueCapacity, clock);
+    }
+
+    public <R extends Request, T> void submit(final ApiEndpoint<R, T> endpoint, final R request,
+                                              final PipelineSink<? super R, ? super T> sink)
+            throws InterruptedException {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        Preconditions.checkNotNull(sink, "sink");
+        lock.lock();
+        try {
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            fetchStage.submit(new Runnable() {
+                @Override
+                public void run() {
+                    fetch(endpoint, request, sink);
+                }
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            done();
+            throw e;
+        }
+    }
+
+    private <R extends Request, T> void fetch(final ApiEndpoint<R, T> endpoint, final R request,
+                                              final PipelineSink<? super R, ? super T> sink) {
+        final Call call;
+        try {
+            call = client.fetchCall(endpoint, request);
+        } catch (IOException e) {
+            deliverError(request, sink, new ApiException(e));
+            return;
+        } catch (RuntimeException e) {
+            deliverError(request, sink, e instanceof ApiException ? (ApiException) e : new ApiException(e));
+            return;
+        }
+        handOver(parseStage, new Runnable() {
+            @Override
+            public void run() {
+                parse(endpoint, request, call, sink);
+            }
+        });
+    }
+
+    private <R extends Request, T> void parse(ApiEndpoint<R, T> endpoint, final R request, Call call,
+                                              final PipelineSink<? super R, ? super T> sink) {
+        final T result;
+        try {
+            result = client.parse(endpoint, call, request);
+        } catch (RuntimeException e) {
+            deliverError(request, sink, new ApiException(e));
+            return;
+        }
+        handOver(sinkStage, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sink.onResult(request, result);
+                } finally {
+                    done();
+                }
+            }
+        });
+    }
+
+    private <R extends Request> void deliverError(final R request, final PipelineSink<? super R, ?> sink,
+                                                  final ApiException e) {
+        handOver(sinkStage, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sink.onError(request, e);
+                } finally {
+                    done();
+                }
+            }
+        });
+    }
+
+    private void handOver(PipelineStage stage, Runnable task) {
+        try {
+            stage.submit(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done();
+        }
+    }
+
+    private void done() {
+        lock.lock();
+        try {
+            pending--;
+            if (pending == 0) {
+                idle.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every submitted call was delivered to its sink.
+     */
+    public void awaitIdle() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending > 0) {
+                idle.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PipelineStage getFetchStage() {
+        return fetchStage;
+    }
+
+    public PipelineStage getParseStage() {
+        return parseStage;
+    }
+
+    public PipelineStage getSinkStage() {
+        return sinkStage;
+    }
+
+    /**
+     * Delivers all submitted calls and stops the stage threads.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitIdle();
+            fetchStage.close();
+            parseStage.close();
+            sinkStage.close();
+            fetchStage.awaitTermination();
+            parseStage.awaitTermination();
+            sinkStage.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    public static PipelineBuilder builder(Api api) {
+        return new PipelineBuilder(api);
+    }
+
+    public static class PipelineBuilder {
+
+        private final Api api;
+
+        private int fetchThreads = 4;
+        private int parseThreads = Runtime.getRuntime().availableProcessors();
+        private int sinkThreads = 1;
+        private int queueCapacity = 1000;
+
+        public PipelineBuilder(Api api) {
+            this.api = api;
+        }
+
+        public PipelineBuilder fetchThreads(int fetchThreads) {
+            this.fetchThreads = fetchThreads;
+            return this;
+        }
+
+        public PipelineBuilder parseThreads(int parseThreads) {
+            this.parseThreads = parseThreads;
+            return this;
+        }
+
+        public PipelineBuilder sinkThreads(int sinkThreads) {
+            this.sinkThreads = sinkThreads;
+            return this;
+        }
+
+        public PipelineBuilder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Pipeline build() {
+            Preconditions.checkNotNull(api, "api");
+            return new Pipeline(api.createClient(), fetchThreads, parseThreads, sinkThreads, queueCapacity);
+        }
+
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One stage of a {@link Pipeline}: a bounded queue drained by a fixed number of worker threads. Submitting to a full
+ * stage blocks, which propagates backpressure to the previous stage.
+ *
+ * @author Michael Lieshoff
+ */
+public class PipelineStage {
+
+    private final String name;
+    private final int threads;
+    private final int capacity;
+    private final BlockingQueue<Runnable> queue;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final Clock clock;
+    private final long startedAt;
+
+    private volatile boolean closed;
+
+    PipelineStage(String name, int threads, int capacity) {
+        this(name, threads, capacity, Clock.system());
+    }
+
+    PipelineStage(String name, int threads, int capacity, Clock clock) {
+        Preconditions.checkNotNull(name, "name");
+        Preconditions.checkArgument(threads > 0, "threads must be > 0");
+        Preconditions.checkArgument(capacity > 0, "capacity must be > 0");
+        Preconditions.checkNotNull(clock, "clock");
+        this.name = name;
+        this.threads = threads;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.startedAt = clock.nanoTime();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = Threads.newThread("jcrapi-pipeline-" + name + "-" + i, new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    void submit(Runnable task) throws InterruptedException {
+        Preconditions.checkState(!closed, "stage " + name + " is closed");
+        queue.put(task);
+    }
+
+    private void work() {
+        while (true) {
+            Runnable task;
+            try {
+                task = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            active.incrementAndGet();
+            long start = clock.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+            } finally {
+                busyNanos.addAndGet(clock.nanoTime() - start);
+                processed.incrementAndGet();
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    void awaitTermination() throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * Fill level of the queue between 0 and 1.
+     */
+    public double getOccupancy() {
+        return (double) queue.size() / capacity;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Processed tasks per second since the stage was started.
+     */
+    public double getThroughput() {
+        long elapsed = clock.nanoTime() - startedAt;
+        return elapsed > 0 ? processed.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+    }
+
+    /**
+     * Share of the worker time spent running tasks, between 0 and 1.
+     */
+    public double getUtilization() {
+        long elapsed = clock.nanoTime() - startedAt;
+        return elapsed > 0 ? Math.min(1.0, busyNanos.get() / ((double) elapsed * threads)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineStage{name=" + name + ", threads=" + threads + ", queued=" + getQueued() + "/" + capacity
+                + ", active=" + getActive() + ", processed=" + getProcessed() + ", failed=" + getFailed() + "}";
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Tells a {@link QuotaPlanner} which data is still fresh, so it is not requested again.
+ *
+ * @author Michael Lieshoff
+ */
+public interface PlanCache {
+
+    /**
+     * True if the data is cached. The key is the normalized tag for the tag endpoints which can be packed into one
+     * call (profiles, clans, player battles and chests) and the path of the request for all other endpoints.
+     */
+    boolean contains(ApiEndpoint<?, ?> endpoint, String key);
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Snapshot of the execution of a {@link QuotaPlan}.
+ *
+ * @author Michael Lieshoff
+ */
+public final class PlanProgress {
+
+    private final int calls;
+    private final int done;
+    private final int failed;
+    private final long cost;
+    private final long doneCost;
+    private final long elapsedMillis;
+    private final long countedRequests;
+
+    PlanProgress(int calls, int done, int failed, long cost, long doneCost, long elapsedMillis,
+                 long countedRequests) {
+        this.calls = calls;
+        this.done = done;
+        this.failed = failed;
+        this.cost = cost;
+        this.doneCost = doneCost;
+        this.elapsedMillis = elapsedMillis;
+        this.countedRequests = countedRequests;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    /**
+     * Finished calls, including the failed ones.
+     */
+    public int getDone() {
+        return done;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    public long getDoneCost() {
+        return doneCost;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Remaining time extrapolated from the quota spent so far, -1 before the first call finished.
+     */
+    public long getEstimatedRemainingMillis() {
+        if (doneCost == 0) {
+            return done == calls ? 0 : -1;
+        }
+        return (long) Math.ceil((double) elapsedMillis * (cost - doneCost) / doneCost);
+    }
+
+    public boolean isFinished() {
+        return done == calls;
+    }
+
+    /**
+     * Requests the server counted for the key while the plan ran, taken from the auth stats before and after a
+     * calibrated execution and -1 otherwise. Compared with {@link #getCost()} it calibrates the endpoint costs.
+     */
+    public long getCountedRequests() {
+        return countedRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "PlanProgress{" +
+                "calls=" + calls +
+                ", done=" + done +
+                ", failed=" + failed +
+                ", cost=" + cost +
+                ", doneCost=" + doneCost +
+                ", elapsedMillis=" + elapsedMillis +
+                ", countedRequests=" + countedRequests +
+                '}';
+    }
+
+}
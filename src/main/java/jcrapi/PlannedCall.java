@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import jcrapi.request.Request;
+
+import java.util.List;
+
+/**
+ * One call of a {@link QuotaPlan}: the endpoint and request to send, the tags it addresses and the quota it costs.
+ *
+ * @author Michael Lieshoff
+ */
+public final class PlannedCall<R extends Request, T> {
+
+    private final ApiEndpoint<R, T> endpoint;
+    private final R request;
+    private final List<String> tags;
+    private final int cost;
+
+    PlannedCall(ApiEndpoint<R, T> endpoint, R request, List<String> tags, int cost) {
+        this.endpoint = endpoint;
+        this.request = request;
+        this.tags = tags;
+        this.cost = cost;
+    }
+
+    public ApiEndpoint<R, T> getEndpoint() {
+        return endpoint;
+    }
+
+    public R getRequest() {
+        return request;
+    }
+
+    /**
+     * Normalized tags packed into the call in the order of the result, empty for calls sent as intended.
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "PlannedCall{" +
+                "endpoint=" + endpoint +
+                ", tags=" + tags +
+                ", cost=" + cost +
+                '}';
+    }
+
+}
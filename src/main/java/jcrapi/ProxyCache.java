@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the successful responses of an {@link ApiProxy}. Entries expire a fixed time after they were
+ * stored, the least recently used ones are evicted first.
+ *
+ * @author Michael Lieshoff
+ */
+class ProxyCache {
+
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+
+    ProxyCache(final int maxEntries, long ttlMillis, Clock clock) {
+        Preconditions.checkArgument(maxEntries > 0, "maxEntries must be > 0");
+        Preconditions.checkArgument(ttlMillis >= 0, "ttlMillis must be >= 0");
+        Preconditions.checkNotNull(clock, "clock");
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.body;
+    }
+
+    synchronized void put(String key, String body) {
+        if (ttlMillis > 0 && body != null) {
+            entries.put(key, new Entry(body, clock.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+
+        private final String body;
+        private final long expiresAt;
+
+        private Entry(String body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
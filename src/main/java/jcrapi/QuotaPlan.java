@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.util.List;
+
+/**
+ * Optimised set of calls for a batch of intended requests, built by a {@link QuotaPlanner}. Tells what the batch
+ * costs before it is run and how much packing, coalescing and the cache saved.
+ *
+ * @author Michael Lieshoff
+ */
+public final class QuotaPlan {
+
+    private final List<PlannedCall<?, ?>> calls;
+    private final int intents;
+    private final int coalesced;
+    private final int cacheHits;
+    private final long unplannedCost;
+    private final long cost;
+    private final double requestsPerSecond;
+    private final long estimatedMillis;
+
+    QuotaPlan(List<PlannedCall<?, ?>> calls, int intents, int coalesced, int cacheHits, long unplannedCost,
+              long cost, double requestsPerSecond, long estimatedMillis) {
+        this.calls = calls;
+        this.intents = intents;
+        this.coalesced = coalesced;
+        this.cacheHits = cacheHits;
+        this.unplannedCost = unplannedCost;
+        this.cost = cost;
+        this.requestsPerSecond = requestsPerSecond;
+        this.estimatedMillis = estimatedMillis;
+    }
+
+    public List<PlannedCall<?, ?>> getCalls() {
+        return calls;
+    }
+
+    /**
+     * Number of intended requests the plan was built from.
+     */
+    public int getIntents() {
+        return intents;
+    }
+
+    /**
+     * Duplicate requests and tags merged into one.
+     */
+    public int getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Requests and tags left out because the {@link PlanCache} holds them.
+     */
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Quota the intended requests would have cost if sent as given.
+     */
+    public long getUnplannedCost() {
+        return unplannedCost;
+    }
+
+    public long getCost() {
+        return cost;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Wall-clock time the plan needs at the rate limit of the key, or longer if the measured latencies of the
+     * endpoints do not allow that rate with the planner's parallelism.
+     */
+    public long getEstimatedMillis() {
+        return estimatedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "QuotaPlan{" +
+                "calls=" + calls.size() +
+                ", intents=" + intents +
+                ", coalesced=" + coalesced +
+                ", cacheHits=" + cacheHits +
+                ", unplannedCost=" + unplannedCost +
+                ", cost=" + cost +
+                ", requestsPerSecond=" + requestsPerSecond +
+                ", estimatedMillis=" + estimatedMillis +
+                '}';
+    }
+
+}
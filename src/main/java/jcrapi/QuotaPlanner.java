@@ -0,0 +1,446 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import jcrapi.model.AuthStats;
+import jcrapi.request.AuthStatsRequest;
+import jcrapi.request.ClanRequest;
+import jcrapi.request.ClansRequest;
+import jcrapi.request.LimitedRequest;
+import jcrapi.request.PaginatedRequest;
+import jcrapi.request.PlayerBattlesRequest;
+import jcrapi.request.PlayerChestsRequest;
+import jcrapi.request.ProfileRequest;
+import jcrapi.request.ProfilesRequest;
+import jcrapi.request.Request;
+import jcrapi.request.Tags;
+import org.apache.commons.lang.math.NumberUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans and runs batch jobs against the quota of a developer key. {@link #plan} turns the intended requests into a
+ * {@link QuotaPlan}: tags of the profile, clan, player battles and chests requests are normalized and packed into
+ * multi-tag calls of at most {@code maxTagsPerCall} tags, duplicate requests and tags are coalesced and data held
+ * by the {@link PlanCache} is left out. Every call costs its endpoint's call cost plus a tag cost per tag, the
+ * estimated duration follows from the rate limit of the key. {@link #execute} runs a plan with a number of workers
+ * and reports the progress after every call; a calibrated run also asks the auth stats for the requests the server
+ * counted.
+ *
+ * @author Michael Lieshoff
+ */
+public class QuotaPlanner {
+
+    public static final int DEFAULT_MAX_TAGS_PER_CALL = 5;
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 5;
+
+    private static final Map<ApiEndpoint<?, ?>, ApiEndpoint<?, ?>> PACKED_ENDPOINTS =
+            ImmutableMap.<ApiEndpoint<?, ?>, ApiEndpoint<?, ?>>builder()
+                    .put(ApiEndpoint.PROFILE, ApiEndpoint.PROFILES)
+                    .put(ApiEndpoint.PROFILES, ApiEndpoint.PROFILES)
+                    .put(ApiEndpoint.CLAN, ApiEndpoint.CLANS)
+                    .put(ApiEndpoint.CLANS, ApiEndpoint.CLANS)
+                    .put(ApiEndpoint.PLAYER_BATTLES, ApiEndpoint.PLAYER_BATTLES)
+                    .put(ApiEndpoint.PLAYER_CHESTS, ApiEndpoint.PLAYER_CHESTS)
+                    .build();
+
+    private static final Map<Class<?>, ApiEndpoint<?, ?>> ENDPOINTS = createEndpoints();
+
+    private final Api api;
+    private final int maxTagsPerCall;
+    private final int parallelism;
+    private final Map<ApiEndpoint<?, ?>, Integer> callCosts;
+    private final Map<ApiEndpoint<?, ?>, Integer> tagCosts;
+    private final PlanCache cache;
+    private final double requestsPerSecond;
+    private final boolean calibrate;
+    private final Clock clock;
+
+    private QuotaPlanner(Api api, int maxTagsPerCall, int parallelism, Map<ApiEndpoint<?, ?>, Integer> callCosts,
+                         Map<ApiEndpoint<?, ?>, Integer> tagCosts, PlanCache cache, double requestsPerSecond,
+                         boolean calibrate, Clock clock) {
+        Preconditions.checkNotNull(api, "api");
+        Preconditions.checkArgument(maxTagsPerCall > 0, "maxTagsPerCall must be > 0");
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
+        Preconditions.checkArgument(requestsPerSecond >= 0, "requestsPerSecond must be >= 0");
+        Preconditions.checkNotNull(clock, "clock");
+        this.api = api;
+        this.maxTagsPerCall = maxTagsPerCall;
+        this.parallelism = parallelism;
+        this.callCosts = ImmutableMap.copyOf(callCosts);
+        this.tagCosts = ImmutableMap.copyOf(tagCosts);
+        this.cache = cache;
+        this.requestsPerSecond = requestsPerSecond;
+        this.calibrate = calibrate;
+        this.clock = clock;
+    }
+
+    private static Map<Class<?>, ApiEndpoint<?, ?>> createEndpoints() {
+        Map<Class<?>, ApiEndpoint<?, ?>> map = new HashMap<>();
+        for (ApiEndpoint<?, ?> endpoint : ApiEndpoint.values()) {
+            if (endpoint.getRequestType() != Request.class) {
+                map.put(endpoint.getRequestType(), endpoint);
+            }
+        }
+        return ImmutableMap.copyOf(map);
+    }
+
+    /**
+     * Plans the intended requests, the endpoint of each request is told by its type.
+     */
+    public QuotaPlan plan(Collection<? extends Request> requests) {
+        Preconditions.checkNotNull(requests, "requests");
+        Map<String, TagGroup> groups = new LinkedHashMap<>();
+        Map<String, PlannedCall<?, ?>> calls = new LinkedHashMap<>();
+        int coalesced = 0;
+        int cacheHits = 0;
+        long unplannedCost = 0;
+        for (Request request : requests) {
+            Preconditions.checkNotNull(request, "request");
+            ApiEndpoint<Request, ?> endpoint = endpointOf(request);
+            String query = request.getQueryParameters().getQueryString() + '|' + request.getTimeoutMillis();
+            ApiEndpoint<?, ?> packedEndpoint = PACKED_ENDPOINTS.get(endpoint);
+            if (packedEndpoint != null) {
+                Collection<String> tags = tagsOf(request);
+                unplannedCost += cost(endpoint, tags.size());
+                String key = packedEndpoint.getTemplate() + '?' + query;
+                TagGroup group = groups.get(key);
+                if (group == null) {
+                    group = new TagGroup(packedEndpoint, request);
+                    groups.put(key, group);
+                }
+                for (String tag : tags) {
+                    String normalized = Tags.normalize(tag);
+                    if (cache != null && cache.contains(endpoint, normalized)) {
+                        cacheHits++;
+                    } else if (!group.tags.add(normalized)) {
+                        coalesced++;
+                    }
+                }
+                continue;
+            }
+            String path = endpoint.path(request, TagValidation.NORMALIZE);
+            unplannedCost += cost(endpoint, endpoint.tagCount(path));
+            if (cache != null && cache.contains(endpoint, path)) {
+                cacheHits++;
+            } else if (calls.containsKey(path + '?' + query)) {
+                coalesced++;
+            } else {
+                calls.put(path + '?' + query, createCall(endpoint, request, Collections.<String>emptyList(),
+                        cost(endpoint, endpoint.tagCount(path))));
+            }
+        }
+        List<PlannedCall<?, ?>> planned = new ArrayList<>();
+        for (TagGroup group : groups.values()) {
+            List<String> tags = new ArrayList<>(group.tags);
+            for (int i = 0; i < tags.size(); i += maxTagsPerCall) {
+                List<String> packed = ImmutableList.copyOf(tags.subList(i, Math.min(tags.size(), i + maxTagsPerCall)));
+                planned.add(createCall(group.endpoint, pack(group.endpoint, group.request, packed), packed,
+                        cost(group.endpoint, packed.size())));
+            }
+        }
+        planned.addAll(calls.values());
+        long cost = 0;
+        double latencyMillis = 0;
+        for (PlannedCall<?, ?> call : planned) {
+            cost += call.getCost();
+            latencyMillis += api.getMetrics().getEndpoint(call.getEndpoint()).getLatencyMeanMillis();
+        }
+        double rate = getRequestsPerSecond();
+        long estimatedMillis = Math.max((long) Math.ceil(cost * 1000 / rate),
+                (long) Math.ceil(latencyMillis / parallelism));
+        return new QuotaPlan(ImmutableList.copyOf(planned), requests.size(), coalesced, cacheHits, unplannedCost,
+                cost, rate, estimatedMillis);
+    }
+
+    /**
+     * Runs the calls of the plan and returns the final progress. The sink is called from the worker threads.
+     */
+    public PlanProgress execute(QuotaPlan plan, final PlanSink sink) throws InterruptedException {
+        Preconditions.checkNotNull(plan, "plan");
+        Preconditions.checkNotNull(sink, "sink");
+        long countedBefore = calibrate ? countRequests() : -1;
+        final List<PlannedCall<?, ?>> calls = plan.getCalls();
+        final ProgressTracker tracker = new ProgressTracker(calls.size(), plan.getCost(), clock.currentTimeMillis());
+        if (!calls.isEmpty()) {
+            final AtomicInteger next = new AtomicInteger();
+            int threads = Math.min(parallelism, calls.size());
+            ExecutorService workers = Threads.newExecutor("jcrapi-quota-planner", threads);
+            try {
+                for (int i = 0; i < threads; i++) {
+                    workers.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int index = next.getAndIncrement(); index < calls.size()
+                                    && !Thread.currentThread().isInterrupted(); index = next.getAndIncrement()) {
+                                execute(calls.get(index), tracker, sink);
+                            }
+                        }
+                    });
+                }
+                workers.shutdown();
+                while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // wait for the workers to drain
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+        long countedAfter = calibrate ? countRequests() : -1;
+        return tracker.snapshot(clock.currentTimeMillis(),
+                countedBefore >= 0 && countedAfter >= 0 ? countedAfter - countedBefore : -1);
+    }
+
+    private <R extends Request, T> void execute(PlannedCall<R, T> call, ProgressTracker tracker, PlanSink sink) {
+        boolean failed = false;
+        try {
+            sink.onResult(call, api.getResult(call.getEndpoint(), call.getRequest()).getValue());
+        } catch (RuntimeException e) {
+            failed = true;
+            sink.onError(call, e instanceof ApiException ? (ApiException) e : new ApiException(e));
+        } finally {
+            sink.onProgress(tracker.record(call.getCost(), failed, clock.currentTimeMillis()));
+        }
+    }
+
+    private long countRequests() {
+        AuthStats authStats;
+        try {
+            authStats = api.getAuthStats(AuthStatsRequest.builder().build());
+        } catch (RuntimeException e) {
+            return -1;
+        }
+        if (authStats == null || authStats.getRequestCount() == null) {
+            return -1;
+        }
+        long count = 0;
+        for (String value : authStats.getRequestCount().values()) {
+            count += NumberUtils.toLong(value, 0);
+        }
+        return count;
+    }
+
+    /**
+     * Requests per second the plans are estimated with, the configured rate or the limit last reported for the key.
+     */
+    public double getRequestsPerSecond() {
+        if (requestsPerSecond > 0) {
+            return requestsPerSecond;
+        }
+        Optional<RateLimitSnapshot> rateLimit = api.getRateLimit();
+        if (rateLimit.isPresent() && rateLimit.get().getLimit() > 0) {
+            return rateLimit.get().getLimit();
+        }
+        return DEFAULT_REQUESTS_PER_SECOND;
+    }
+
+    int cost(ApiEndpoint<?, ?> endpoint, int tags) {
+        Integer callCost = callCosts.get(endpoint);
+        Integer tagCost = tagCosts.get(endpoint);
+        return (callCost != null ? callCost : 1) + (tagCost != null ? tagCost * tags : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ApiEndpoint<Request, ?> endpointOf(Request request) {
+        ApiEndpoint<?, ?> endpoint = ENDPOINTS.get(request.getClass());
+        Preconditions.checkArgument(endpoint != null, "no endpoint for %s", request.getClass().getName());
+        return (ApiEndpoint<Request, ?>) endpoint;
+    }
+
+    private static Collection<String> tagsOf(Request request) {
+        if (request instanceof ProfileRequest) {
+            return Collections.singletonList(((ProfileRequest) request).getTag());
+        } else if (request instanceof ClanRequest) {
+            return Collections.singletonList(((ClanRequest) request).getTag());
+        } else if (request instanceof ProfilesRequest) {
+            return ((ProfilesRequest) request).getTags();
+        } else if (request instanceof ClansRequest) {
+            return ((ClansRequest) request).getTags();
+        } else if (request instanceof PlayerBattlesRequest) {
+            return ((PlayerBattlesRequest) request).getTags();
+        }
+        return ((PlayerChestsRequest) request).getTags();
+    }
+
+    /**
+     * Multi-tag request for the tags with the parameters of the request the group was started with.
+     */
+    private static Request pack(ApiEndpoint<?, ?> endpoint, Request request, List<String> tags) {
+        int limit = request instanceof LimitedRequest ? ((LimitedRequest) request).getLimit() : 0;
+        int max = request instanceof PaginatedRequest ? ((PaginatedRequest) request).getMax() : 0;
+        int page = request instanceof PaginatedRequest ? ((PaginatedRequest) request).getPage() : 0;
+        if (endpoint == ApiEndpoint.PROFILES) {
+            return ProfilesRequest.builder(tags).limit(limit).max(max).page(page).keys(request.getKeys())
+                    .excludes(request.getExcludes()).timeoutMillis(request.getTimeoutMillis()).build();
+        } else if (endpoint == ApiEndpoint.CLANS) {
+            return ClansRequest.builder(tags).limit(limit).max(max).page(page).keys(request.getKeys())
+                    .excludes(request.getExcludes()).timeoutMillis(request.getTimeoutMillis()).build();
+        } else if (endpoint == ApiEndpoint.PLAYER_BATTLES) {
+            return PlayerBattlesRequest.builder(tags).limit(limit).max(max).page(page).keys(request.getKeys())
+                    .excludes(request.getExcludes()).timeoutMillis(request.getTimeoutMillis()).build();
+        }
+        return PlayerChestsRequest.builder(tags).limit(limit).max(max).page(page).keys(request.getKeys())
+                .excludes(request.getExcludes()).timeoutMillis(request.getTimeoutMillis()).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PlannedCall<?, ?> createCall(ApiEndpoint<?, ?> endpoint, Request request, List<String> tags,
+                                                int cost) {
+        return new PlannedCall<>((ApiEndpoint<Request, Object>) endpoint, request, tags, cost);
+    }
+
+    public static QuotaPlannerBuilder builder(Api api) {
+        return new QuotaPlannerBuilder(api);
+    }
+
+    private static class TagGroup {
+
+        private final ApiEndpoint<?, ?> endpoint;
+        private final Request request;
+        private final Set<String> tags = new LinkedHashSet<>();
+
+        private TagGroup(ApiEndpoint<?, ?> endpoint, Request request) {
+            this.endpoint = endpoint;
+            this.request = request;
+        }
+
+    }
+
+    private static class ProgressTracker {
+
+        private final int calls;
+        private final long cost;
+        private final long startedAt;
+
+        private int done;
+        private int failed;
+        private long doneCost;
+
+        private ProgressTracker(int calls, long cost, long startedAt) {
+            this.calls = calls;
+            this.cost = cost;
+            this.startedAt = startedAt;
+        }
+
+        synchronized PlanProgress record(int callCost, boolean failed, long now) {
+            done++;
+            doneCost += callCost;
+            if (failed) {
+                this.failed++;
+            }
+            return snapshot(now, -1);
+        }
+
+        synchronized PlanProgress snapshot(long now, long countedRequests) {
+            return new PlanProgress(calls, done, failed, cost, doneCost, now - startedAt, countedRequests);
+        }
+
+    }
+
+    public static class QuotaPlannerBuilder {
+
+        private final Api api;
+        private final Map<ApiEndpoint<?, ?>, Integer> callCosts = new HashMap<>();
+        private final Map<ApiEndpoint<?, ?>, Integer> tagCosts = new HashMap<>();
+
+        private int maxTagsPerCall = DEFAULT_MAX_TAGS_PER_CALL;
+        private int parallelism = 4;
+        private PlanCache cache;
+        private double requestsPerSecond;
+        private boolean calibrate;
+        private Clock clock = Clock.system();
+
+        public QuotaPlannerBuilder(Api api) {
+            this.api = api;
+        }
+
+        public QuotaPlannerBuilder maxTagsPerCall(int maxTagsPerCall) {
+            this.maxTagsPerCall = maxTagsPerCall;
+            return this;
+        }
+
+        public QuotaPlannerBuilder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Quota one call of the endpoint costs, 1 by default.
+         */
+        public QuotaPlannerBuilder callCost(ApiEndpoint<?, ?> endpoint, int callCost) {
+            Preconditions.checkNotNull(endpoint, "endpoint");
+            Preconditions.checkArgument(callCost >= 0, "callCost must be >= 0");
+            callCosts.put(endpoint, callCost);
+            return this;
+        }
+
+        /**
+         * Quota every tag of a call of the endpoint costs on top of the call cost, 0 by default.
+         */
+        public QuotaPlannerBuilder tagCost(ApiEndpoint<?, ?> endpoint, int tagCost) {
+            Preconditions.checkNotNull(endpoint, "endpoint");
+            Preconditions.checkArgument(tagCost >= 0, "tagCost must be >= 0");
+            tagCosts.put(endpoint, tagCost);
+            return this;
+        }
+
+        public QuotaPlannerBuilder cache(PlanCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Rate to estimate with, 0 takes the limit last reported for the key.
+         */
+        public QuotaPlannerBuilder requestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        public QuotaPlannerBuilder calibrate(boolean calibrate) {
+            this.calibrate = calibrate;
+            return this;
+        }
+
+        QuotaPlannerBuilder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public QuotaPlanner build() {
+            return new QuotaPlanner(api, maxTagsPerCall, parallelism, callCosts, tagCosts, cache, requestsPerSecond,
+                    calibrate, clock);
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Immutable rate limit of a developer key as announced by the <code>x-ratelimit-*</code> headers of a response. The
+ * headers are parsed once, values the server did not send are -1, an unknown reset is 0.
+ *
+ * @author Michael Lieshoff
+ */
+public final class RateLimitSnapshot {
+
+    private final int limit;
+    private final int remaining;
+    private final long reset;
+
+    public RateLimitSnapshot(int limit, int remaining, long reset) {
+        this.limit = limit;
+        this.remaining = remaining;
+        this.reset = reset;
+    }
+
+    /**
+     * Snapshot of the rate limit headers, or null if the response has none.
+     */
+    static RateLimitSnapshot parse(Map<String, String> responseHeaders) {
+        int limit = (int) parse(responseHeaders.get(Response.X_RATELIMIT_LIMIT));
+        int remaining = (int) parse(responseHeaders.get(Response.X_RATELIMIT_REMAINING));
+        long reset = parse(responseHeaders.get(Response.X_RATELIMIT_RESET));
+        if (limit < 0 && remaining < 0 && reset < 0) {
+            return null;
+        }
+        return new RateLimitSnapshot(limit, remaining, Math.max(reset, 0));
+    }
+
+    private static long parse(String value) {
+        String s = StringUtils.trimToNull(value);
+        if (s == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Combines this snapshot with the one of a later response. Responses of concurrent calls arrive in any order, so
+     * an update of an older window is ignored and within the same window the lowest remaining count wins.
+     */
+    RateLimitSnapshot merge(RateLimitSnapshot update) {
+        if (reset == 0 || update.reset == 0 || update.reset > reset) {
+            return update;
+        }
+        if (update.reset < reset) {
+            return this;
+        }
+        int mergedLimit = update.limit >= 0 ? update.limit : limit;
+        int mergedRemaining = remaining < 0 || update.remaining >= 0 && update.remaining < remaining
+                ? update.remaining
+                : remaining;
+        if (mergedLimit == limit && mergedRemaining == remaining) {
+            return this;
+        }
+        return new RateLimitSnapshot(mergedLimit, mergedRemaining, reset);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+
+    public long getReset() {
+        return reset;
+    }
+
+    /**
+     * True if no request is left before the reset.
+     */
+    public boolean isExhausted(long now) {
+        return remaining == 0 && now < reset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RateLimitSnapshot that = (RateLimitSnapshot) o;
+
+        return limit == that.limit && remaining == that.remaining && reset == that.reset;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = limit;
+        result = 31 * result + remaining;
+        result = 31 * result + (int) (reset ^ (reset >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitSnapshot{" +
+                "limit=" + limit +
+                ", remaining=" + remaining +
+                ", reset=" + reset +
+                '}';
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * One recorded response of a {@link Recording}. The body is null for error responses.
+ *
+ * @author Michael Lieshoff
+ */
+public final class RecordedResponse {
+
+    private final int statusCode;
+    private final Map<String, String> headers;
+    private final String body;
+
+    public RecordedResponse(int statusCode, Map<String, String> headers, String body) {
+        Preconditions.checkNotNull(headers, "headers");
+        this.statusCode = statusCode;
+        this.headers = ImmutableMap.copyOf(headers);
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RecordedResponse that = (RecordedResponse) o;
+
+        if (statusCode != that.statusCode) return false;
+        if (!headers.equals(that.headers)) return false;
+        return body != null ? body.equals(that.body) : that.body == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = statusCode;
+        result = 31 * result + headers.hashCode();
+        result = 31 * result + (body != null ? body.hashCode() : 0);
+        return result;
+    }
+
+}
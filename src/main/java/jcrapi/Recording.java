@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.collections.MapUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Responses captured by {@link Api#recording(String, String, AuthMode, Recording)}, keyed by the endpoint path and
+ * the sorted query parameters, so a recording can be replayed against any base url. Several responses for the same
+ * key are replayed in turn.
+ *
+ * @author Michael Lieshoff
+ */
+public class Recording {
+
+    private static final int MAGIC = 0x4a435252;
+    private static final int VERSION = 1;
+
+    private final ConcurrentMap<String, List<RecordedResponse>> responses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    static String createKey(String path, Map<String, String> parameters) {
+        if (MapUtils.isEmpty(parameters)) {
+            return path;
+        }
+        StringBuilder s = new StringBuilder(path);
+        char separator = '?';
+        for (Map.Entry<String, String> entry : new TreeMap<>(parameters).entrySet()) {
+            s.append(separator).append(entry.getKey()).append('=').append(entry.getValue());
+            separator = '&';
+        }
+        return s.toString();
+    }
+
+    public void add(String key, RecordedResponse response) {
+        Preconditions.checkNotNull(key, "key");
+        Preconditions.checkNotNull(response, "response");
+        List<RecordedResponse> list = responses.get(key);
+        if (list == null) {
+            List<RecordedResponse> created = new CopyOnWriteArrayList<>();
+            list = responses.putIfAbsent(key, created);
+            if (list == null) {
+                list = created;
+            }
+        }
+        list.add(response);
+    }
+
+    /**
+     * Next response for the key, cycling through all responses recorded for it, or null if there is none.
+     */
+    RecordedResponse next(String key) {
+        List<RecordedResponse> list = responses.get(key);
+        if (list == null || list.isEmpty()) {
+            return null;
+        }
+        AtomicInteger cursor = cursors.get(key);
+        if (cursor == null) {
+            cursors.putIfAbsent(key, new AtomicInteger());
+            cursor = cursors.get(key);
+        }
+        return list.get((cursor.getAndIncrement() & Integer.MAX_VALUE) % list.size());
+    }
+
+    /**
+     * Most recent successful response for the key, or null if there is none.
+     */
+    RecordedResponse latest(String key) {
+        List<RecordedResponse> list = responses.get(key);
+        if (list != null) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                RecordedResponse response = list.get(i);
+                if (response.getStatusCode() == 200) {
+                    return response;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Set<String> getKeys() {
+        return responses.keySet();
+    }
+
+    public List<RecordedResponse> getResponses(String key) {
+        List<RecordedResponse> list = responses.get(key);
+        return list == null ? ImmutableList.<RecordedResponse>of() : ImmutableList.copyOf(list);
+    }
+
+    public int size() {
+        int size = 0;
+        for (List<RecordedResponse> list : responses.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+
+    public void writeTo(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file");
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, List<RecordedResponse>> snapshot = new HashMap<>(responses);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, List<RecordedResponse>> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                List<RecordedResponse> list = new ArrayList<>(entry.getValue());
+                out.writeInt(list.size());
+                for (RecordedResponse response : list) {
+                    out.writeShort(response.getStatusCode());
+                    out.writeShort(response.getHeaders().size());
+                    for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                        out.writeUTF(header.getKey());
+                        out.writeUTF(header.getValue());
+                    }
+                    writeBody(out, response.getBody());
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeBody(DataOutputStream out, String body) throws IOException {
+        if (body == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = body.getBytes(Charsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static Recording readFrom(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file");
+        Recording recording = new Recording();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a recording: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported recording version " + version + ": " + file);
+            }
+            int keys = in.readInt();
+            for (int i = 0; i < keys; i++) {
+                String key = in.readUTF();
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    int statusCode = in.readUnsignedShort();
+                    int headerCount = in.readUnsignedShort();
+                    Map<String, String> headers = new HashMap<>();
+                    for (int k = 0; k < headerCount; k++) {
+                        headers.put(in.readUTF(), in.readUTF());
+                    }
+                    recording.add(key, new RecordedResponse(statusCode, headers, readBody(in)));
+                }
+            }
+        }
+        return recording;
+    }
+
+    private static String readBody(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Crawler which stores every response it receives in a {@link Recording}.
+ *
+ * @author Michael Lieshoff
+ */
+class RecordingCrawler extends Crawler {
+
+    private final Recording recording;
+
+    RecordingCrawler(HttpClientFactory httpClientFactory, Recording recording) {
+        super(httpClientFactory);
+        Preconditions.checkNotNull(recording, "recording");
+        this.recording = recording;
+    }
+
+    @Override
+    String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+            throws IOException {
+        String key = Recording.createKey(call.getPath() != null ? call.getPath() : url, parameters);
+        String body;
+        try {
+            body = super.get(url, headers, parameters, call);
+        } catch (IOException e) {
+            if (call.getStatusCode() > 0) {
+                recording.add(key, new RecordedResponse(call.getStatusCode(), call.getResponseHeaders(), null));
+            }
+            throw e;
+        }
+        recording.add(key, new RecordedResponse(call.getStatusCode(), call.getResponseHeaders(), body));
+        return body;
+    }
+
+}
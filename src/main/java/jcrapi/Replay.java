@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+
+/**
+ * Settings for serving a {@link Recording} with {@link Api#replaying(String, String, AuthMode, Replay)}. Without
+ * latency the recording is served as fast as it can be read. With a rate limit the replay sends its own rate limit
+ * headers and answers 429 once a window is used up, like the api does. Latency and rate limit windows follow the
+ * given {@link Clock}, with a {@link VirtualClock} hours of throttled crawling replay in seconds.
+ *
+ * @author Michael Lieshoff
+ */
+public class Replay {
+
+    private final Recording recording;
+    private final long latencyMillis;
+    private final int rateLimit;
+    private final long rateLimitWindowMillis;
+    private final Clock clock;
+
+    private long windowStart;
+    private int windowCount;
+
+    private Replay(ReplayBuilder builder) {
+        recording = builder.recording;
+        latencyMillis = builder.latencyMillis;
+        rateLimit = builder.rateLimit;
+        rateLimitWindowMillis = builder.rateLimitWindowMillis;
+        clock = builder.clock;
+    }
+
+    public static ReplayBuilder builder(Recording recording) {
+        return new ReplayBuilder(recording);
+    }
+
+    /**
+     * Counts a request against the simulated rate limit and puts the rate limit headers into the given map.
+     */
+    synchronized boolean acquire(long now, Map<String, String> headers) {
+        if (rateLimit <= 0) {
+            return true;
+        }
+        if (now - windowStart >= rateLimitWindowMillis) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        boolean acquired = windowCount < rateLimit;
+        if (acquired) {
+            windowCount++;
+        }
+        headers.put(Response.X_RATELIMIT_LIMIT, String.valueOf(rateLimit));
+        headers.put(Response.X_RATELIMIT_REMAINING, String.valueOf(rateLimit - windowCount));
+        headers.put(Response.X_RATELIMIT_RESET, String.valueOf(windowStart + rateLimitWindowMillis));
+        return acquired;
+    }
+
+    public Recording getRecording() {
+        return recording;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    public long getRateLimitWindowMillis() {
+        return rateLimitWindowMillis;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public static class ReplayBuilder {
+
+        private final Recording recording;
+        private long latencyMillis;
+        private int rateLimit;
+        private long rateLimitWindowMillis = 1000;
+        private Clock clock = Clock.system();
+
+        ReplayBuilder(Recording recording) {
+            this.recording = recording;
+        }
+
+        public ReplayBuilder latencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        /**
+         * Requests per window before answering 429, 0 to replay the recorded headers unchanged.
+         */
+        public ReplayBuilder rateLimit(int rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        public ReplayBuilder rateLimitWindowMillis(long rateLimitWindowMillis) {
+            this.rateLimitWindowMillis = rateLimitWindowMillis;
+            return this;
+        }
+
+        public ReplayBuilder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Replay build() {
+            Preconditions.checkNotNull(recording, "recording");
+            Preconditions.checkArgument(latencyMillis >= 0, "latencyMillis");
+            Preconditions.checkArgument(rateLimit >= 0, "rateLimit");
+            Preconditions.checkArgument(rateLimitWindowMillis > 0, "rateLimitWindowMillis");
+            Preconditions.checkNotNull(clock, "clock");
+            return new Replay(this);
+        }
+
+    }
+
+}
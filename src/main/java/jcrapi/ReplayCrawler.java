@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Crawler which serves the responses of a {@link Replay} instead of calling the api.
+ *
+ * @author Michael Lieshoff
+ */
+class ReplayCrawler extends Crawler {
+
+    private final Replay replay;
+
+    ReplayCrawler(Replay replay) {
+        Preconditions.checkNotNull(replay, "replay");
+        this.replay = replay;
+    }
+
+    @Override
+    String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+            throws IOException {
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(call);
+        sleep(replay.getLatencyMillis());
+        call.connectionAcquired();
+        RecordedResponse recorded = replay.getRecording().next(
+                Recording.createKey(call.getPath() != null ? call.getPath() : url, parameters));
+        int statusCode = recorded != null ? recorded.getStatusCode() : 404;
+        Map<String, String> responseHeaders = new HashMap<>();
+        if (recorded != null) {
+            responseHeaders.putAll(recorded.getHeaders());
+        }
+        if (!replay.acquire(replay.getClock().currentTimeMillis(), responseHeaders)) {
+            statusCode = 429;
+        }
+        call.headersReceived(statusCode, responseHeaders);
+        if (statusCode != 200) {
+            throw new IOException("crapi: " + statusCode);
+        }
+        String body = recorded.getBody();
+        call.bodyComplete(body != null ? body.getBytes(Charsets.UTF_8).length : 0);
+        return body;
+    }
+
+    private void sleep(long millis) throws InterruptedIOException {
+        try {
+            replay.getClock().sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("replay interrupted");
+        }
+    }
+
+}
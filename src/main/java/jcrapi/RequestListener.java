@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Receives the phases of every api call made through an {@link Api}. Each callback gets an immutable snapshot of the
+ * call at that point, so listeners can keep it or hand it to other threads. Callbacks run on the calling thread and
+ * should return quickly.
+ *
+ * @author Michael Lieshoff
+ */
+public interface RequestListener {
+
+    void onRequestStart(CallMetadata call);
+
+    void onConnectionAcquired(CallMetadata call);
+
+    void onHeadersReceived(CallMetadata call);
+
+    void onBodyComplete(CallMetadata call);
+
+    void onParseComplete(CallMetadata call);
+
+    void onRequestFailed(CallMetadata call, Exception exception);
+
+    /**
+     * Called before waiting for the rate limit reset given in the response of the failed attempt.
+     */
+    void onThrottled(CallMetadata call);
+
+    /**
+     * Called with the failed attempt before it is sent again.
+     */
+    void onRetry(CallMetadata call);
+
+}
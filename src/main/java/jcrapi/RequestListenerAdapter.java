@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+/**
+ * Empty implementation of {@link RequestListener}.
+ *
+ * @author Michael Lieshoff
+ */
+public class RequestListenerAdapter implements RequestListener {
+
+    @Override
+    public void onRequestStart(CallMetadata call) {
+    }
+
+    @Override
+    public void onConnectionAcquired(CallMetadata call) {
+    }
+
+    @Override
+    public void onHeadersReceived(CallMetadata call) {
+    }
+
+    @Override
+    public void onBodyComplete(CallMetadata call) {
+    }
+
+    @Override
+    public void onParseComplete(CallMetadata call) {
+    }
+
+    @Override
+    public void onRequestFailed(CallMetadata call, Exception exception) {
+    }
+
+    @Override
+    public void onThrottled(CallMetadata call) {
+    }
+
+    @Override
+    public void onRetry(CallMetadata call) {
+    }
+
+}
@@ -36,6 +36,12 @@ public class Response {
     
     private String raw;
 
+    private int statusCode;
+    private long responseBytes;
+    private long connectNanos;
+    private long firstByteNanos;
+    private long bodyReadNanos;
+
     public String getRaw() {
         return raw;
     }
@@ -44,6 +50,52 @@ public class Response {
         this.raw = raw;
     }
 
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * Time spent to open the connection, 0 if unknown.
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    void setConnectNanos(long connectNanos) {
+        this.connectNanos = connectNanos;
+    }
+
+    /**
+     * Time from the connection to the response headers.
+     */
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    void setFirstByteNanos(long firstByteNanos) {
+        this.firstByteNanos = firstByteNanos;
+    }
+
+    public long getBodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    void setBodyReadNanos(long bodyReadNanos) {
+        this.bodyReadNanos = bodyReadNanos;
+    }
+
     public Map<String, String> getResponseHeaders() {
         return responseHeaders;
     }
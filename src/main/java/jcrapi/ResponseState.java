@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Strings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Response state shared by all threads of an {@link Api}: the rate limit of every developer key and the last
+ * response. Both are replaced atomically, readers never see a rate limit put together from different responses. The
+ * last response is only built from its call when it is asked for.
+ *
+ * @author Michael Lieshoff
+ */
+class ResponseState {
+
+    private final ConcurrentMap<String, AtomicReference<RateLimitSnapshot>> rateLimits = new ConcurrentHashMap<>();
+    private final AtomicReference<LastCall> lastCall = new AtomicReference<>();
+
+    /**
+     * Records an answered attempt of a call made with the developer key.
+     */
+    void record(String developerKey, Call call, boolean failed) {
+        if (call.getStatusCode() == 0) {
+            return;
+        }
+        RateLimitSnapshot rateLimit = call.getRateLimit();
+        if (rateLimit != null) {
+            update(getReference(developerKey), rateLimit);
+        }
+        lastCall.set(new LastCall(call, failed));
+    }
+
+    private AtomicReference<RateLimitSnapshot> getReference(String developerKey) {
+        String key = Strings.nullToEmpty(developerKey);
+        AtomicReference<RateLimitSnapshot> reference = rateLimits.get(key);
+        if (reference == null) {
+            rateLimits.putIfAbsent(key, new AtomicReference<RateLimitSnapshot>());
+            reference = rateLimits.get(key);
+        }
+        return reference;
+    }
+
+    /**
+     * Latest rate limit of the developer key, null if no response announced one yet.
+     */
+    RateLimitSnapshot getRateLimit(String developerKey) {
+        AtomicReference<RateLimitSnapshot> reference = rateLimits.get(Strings.nullToEmpty(developerKey));
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Latest rate limits of all developer keys.
+     */
+    List<RateLimitSnapshot> getRateLimits() {
+        List<RateLimitSnapshot> snapshots = new ArrayList<>(rateLimits.size());
+        for (AtomicReference<RateLimitSnapshot> reference : rateLimits.values()) {
+            RateLimitSnapshot snapshot = reference.get();
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    Response getLastResponse() {
+        LastCall last = lastCall.get();
+        return last != null ? last.getResponse() : new Response();
+    }
+
+    /**
+     * Merges the snapshot into the reference without locking.
+     */
+    static RateLimitSnapshot update(AtomicReference<RateLimitSnapshot> reference, RateLimitSnapshot rateLimit) {
+        while (true) {
+            RateLimitSnapshot current = reference.get();
+            RateLimitSnapshot merged = current != null ? current.merge(rateLimit) : rateLimit;
+            if (merged == current || reference.compareAndSet(current, merged)) {
+                return merged;
+            }
+        }
+    }
+
+    private static class LastCall {
+
+        private final Call call;
+        private final boolean failed;
+
+        private volatile Response response;
+
+        LastCall(Call call, boolean failed) {
+            this.call = call;
+            this.failed = failed;
+        }
+
+        Response getResponse() {
+            Response response = this.response;
+            if (response == null) {
+                // racing readers build equal responses, either one may win
+                response = createResponse();
+                this.response = response;
+            }
+            return response;
+        }
+
+        private Response createResponse() {
+            Response response = new Response();
+            response.setRaw(failed ? "ERROR" : call.getBody());
+            response.getResponseHeaders().putAll(call.getResponseHeaders());
+            response.setStatusCode(call.getStatusCode());
+            response.setResponseBytes(call.getResponseBytes());
+            response.setConnectNanos(call.getConnectNanos());
+            response.setFirstByteNanos(call.getFirstByteNanos());
+            response.setBodyReadNanos(call.getBodyReadNanos());
+            return response;
+        }
+
+    }
+
+}
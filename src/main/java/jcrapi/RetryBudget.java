@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries of transient failures across all calls of an {@link Api}, so retries cannot multiply the load
+ * on a failing service. Every call deposits <code>ratio</code> tokens, every retry takes one; the balance starts
+ * and is capped at <code>reserve</code> tokens. Waits for the rate limit are not counted. The same kind of budget
+ * bounds hedged requests, see {@link Api#setHedgeBudget(RetryBudget)}.
+ *
+ * @author Michael Lieshoff
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final int reserve;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private double balance;
+
+    public RetryBudget() {
+        this(0.1, 10);
+    }
+
+    public RetryBudget(double ratio, int reserve) {
+        Preconditions.checkArgument(ratio >= 0, "ratio");
+        Preconditions.checkArgument(reserve >= 0, "reserve");
+        this.ratio = ratio;
+        this.reserve = reserve;
+        this.balance = reserve;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(reserve, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (balance >= 1) {
+            balance--;
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    public double getRatio() {
+        return ratio;
+    }
+
+    public int getReserve() {
+        return reserve;
+    }
+
+    /**
+     * Number of retries refused because the budget was used up.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+}
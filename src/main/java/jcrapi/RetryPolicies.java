@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retry policies of an {@link Api}: a default, overrides per endpoint and the shared {@link RetryBudget}.
+ *
+ * @author Michael Lieshoff
+ */
+class RetryPolicies {
+
+    private final Map<ApiEndpoint<?, ?>, RetryPolicy> policies = new ConcurrentHashMap<>();
+
+    private volatile RetryPolicy defaultPolicy = RetryPolicy.DEFAULT;
+    private volatile RetryBudget budget = new RetryBudget();
+
+    RetryPolicy get(ApiEndpoint<?, ?> endpoint) {
+        RetryPolicy policy = endpoint != null ? policies.get(endpoint) : null;
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    void setDefault(RetryPolicy policy) {
+        Preconditions.checkNotNull(policy, "policy");
+        defaultPolicy = policy;
+    }
+
+    void set(ApiEndpoint<?, ?> endpoint, RetryPolicy policy) {
+        Preconditions.checkNotNull(endpoint, "endpoint");
+        if (policy != null) {
+            policies.put(endpoint, policy);
+        } else {
+            policies.remove(endpoint);
+        }
+    }
+
+    RetryBudget getBudget() {
+        return budget;
+    }
+
+    void setBudget(RetryBudget budget) {
+        Preconditions.checkNotNull(budget, "budget");
+        this.budget = budget;
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Decides whether and when a failed call is tried again. Failures are classified by status code: an exhausted
+ * rate limit waits for the reset or <code>Retry-After</code>, transient failures back off exponentially with
+ * decorrelated jitter, everything else fails immediately. All retries of a call end at the deadline.
+ *
+ * @author Michael Lieshoff
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = builder().build();
+
+    private final int maxAttempts;
+    private final int maxRateLimitAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long deadlineMillis;
+    private final Set<Integer> retryStatuses;
+    private final boolean retryConnectionFailures;
+
+    private RetryPolicy(RetryPolicyBuilder builder) {
+        maxAttempts = builder.maxAttempts;
+        maxRateLimitAttempts = builder.maxRateLimitAttempts;
+        baseDelayMillis = builder.baseDelayMillis;
+        maxDelayMillis = builder.maxDelayMillis;
+        deadlineMillis = builder.deadlineMillis;
+        retryStatuses = ImmutableSet.copyOf(builder.retryStatuses);
+        retryConnectionFailures = builder.retryConnectionFailures;
+    }
+
+    public static RetryPolicyBuilder builder() {
+        return new RetryPolicyBuilder();
+    }
+
+    public FailureClass classify(CallMetadata call, IOException failure) {
+        Preconditions.checkNotNull(call, "call");
+        Preconditions.checkNotNull(failure, "failure");
+        int statusCode = call.getStatusCode() > 0
+                ? call.getStatusCode()
+                : ApiException.parseCode(failure.getMessage());
+        if (statusCode == 429 || (call.getRateRemaining().isPresent() && call.getRateRemaining().get() <= 0)) {
+            return FailureClass.RATE_LIMITED;
+        }
+        if (statusCode > 0) {
+            return retryStatuses.contains(statusCode) ? FailureClass.RETRYABLE : FailureClass.FATAL;
+        }
+        if (failure instanceof SocketTimeoutException || failure instanceof ConnectTimeoutException) {
+            return retryConnectionFailures ? FailureClass.RETRYABLE : FailureClass.FATAL;
+        }
+        if (failure instanceof InterruptedIOException) {
+            return FailureClass.FATAL;
+        }
+        return retryConnectionFailures ? FailureClass.RETRYABLE : FailureClass.FATAL;
+    }
+
+    /**
+     * Maximum number of attempts for the given class of failure, 0 for fatal failures.
+     */
+    public int getMaxAttempts(FailureClass failureClass) {
+        switch (failureClass) {
+            case RETRYABLE:
+                return maxAttempts;
+            case RATE_LIMITED:
+                return maxRateLimitAttempts;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Next backoff with decorrelated jitter: uniformly between the base delay and three times the previous delay,
+     * capped at the maximum delay.
+     */
+    long nextDelayMillis(long previousDelayMillis, Random random) {
+        long upper = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis * 3));
+        if (upper <= baseDelayMillis) {
+            return upper;
+        }
+        return baseDelayMillis + (long) (random.nextDouble() * (upper - baseDelayMillis + 1));
+    }
+
+    /**
+     * Time in epoch millis at which the call should be tried again. A rate limit reset is precise to the milli and
+     * wins over <code>Retry-After</code>, which otherwise extends the backoff.
+     */
+    long retryAt(FailureClass failureClass, CallMetadata call, long now, long delayMillis) {
+        if (failureClass == FailureClass.RATE_LIMITED && call.getRateReset().isPresent()) {
+            return call.getRateReset().get();
+        }
+        Optional<Long> retryAfter = getRetryAfter(call, now);
+        return retryAfter.isPresent() ? Math.max(now + delayMillis, retryAfter.get()) : now + delayMillis;
+    }
+
+    /**
+     * Parses the <code>Retry-After</code> header given as seconds or as http date into epoch millis.
+     */
+    static Optional<Long> getRetryAfter(CallMetadata call, long now) {
+        String value = call.getResponseHeaders().get(HttpHeaders.RETRY_AFTER.toLowerCase());
+        if (value == null) {
+            return Optional.absent();
+        }
+        value = value.trim();
+        try {
+            return Optional.of(now + Math.max(0, Long.parseLong(value)) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Optional.of(date.getTime()) : Optional.<Long>absent();
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public int getMaxRateLimitAttempts() {
+        return maxRateLimitAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public Set<Integer> getRetryStatuses() {
+        return retryStatuses;
+    }
+
+    public boolean isRetryConnectionFailures() {
+        return retryConnectionFailures;
+    }
+
+    public static class RetryPolicyBuilder {
+
+        private int maxAttempts = 3;
+        private int maxRateLimitAttempts = 10;
+        private long baseDelayMillis = 100;
+        private long maxDelayMillis = 5000;
+        private long deadlineMillis;
+        private Set<Integer> retryStatuses = ImmutableSet.of(502, 503, 504);
+        private boolean retryConnectionFailures = true;
+
+        RetryPolicyBuilder() {
+        }
+
+        /**
+         * Attempts including the first one for transient failures, 1 disables those retries.
+         */
+        public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Attempts including the first one while the rate limit is used up.
+         */
+        public RetryPolicyBuilder maxRateLimitAttempts(int maxRateLimitAttempts) {
+            this.maxRateLimitAttempts = maxRateLimitAttempts;
+            return this;
+        }
+
+        public RetryPolicyBuilder baseDelayMillis(long baseDelayMillis) {
+            this.baseDelayMillis = baseDelayMillis;
+            return this;
+        }
+
+        public RetryPolicyBuilder maxDelayMillis(long maxDelayMillis) {
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * Total time for all attempts of a call, a retry that would start later is not made. 0 for no deadline.
+         */
+        public RetryPolicyBuilder deadlineMillis(long deadlineMillis) {
+            this.deadlineMillis = deadlineMillis;
+            return this;
+        }
+
+        public RetryPolicyBuilder retryStatuses(Set<Integer> retryStatuses) {
+            this.retryStatuses = retryStatuses;
+            return this;
+        }
+
+        public RetryPolicyBuilder retryConnectionFailures(boolean retryConnectionFailures) {
+            this.retryConnectionFailures = retryConnectionFailures;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            Preconditions.checkArgument(maxAttempts > 0, "maxAttempts");
+            Preconditions.checkArgument(maxRateLimitAttempts > 0, "maxRateLimitAttempts");
+            Preconditions.checkArgument(baseDelayMillis >= 0, "baseDelayMillis");
+            Preconditions.checkArgument(maxDelayMillis >= baseDelayMillis, "maxDelayMillis");
+            Preconditions.checkArgument(deadlineMillis >= 0, "deadlineMillis");
+            Preconditions.checkNotNull(retryStatuses, "retryStatuses");
+            return new RetryPolicy(this);
+        }
+
+    }
+
+}
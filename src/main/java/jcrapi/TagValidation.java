@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import jcrapi.request.Tags;
+
+import java.util.Collection;
+
+/**
+ * How the tags of a request are treated before its path is built, see {@link Tags}.
+ *
+ * @author Michael Lieshoff
+ */
+public enum TagValidation {
+
+    /**
+     * Tags are sent as given.
+     */
+    OFF,
+
+    /**
+     * Tags are normalized and duplicates removed, tags outside the alphabet are still sent.
+     */
+    NORMALIZE,
+
+    /**
+     * Tags are normalized and duplicates removed, a request with a tag outside the alphabet is rejected with an
+     * {@link IllegalArgumentException} before it is sent.
+     */
+    STRICT;
+
+    String apply(String tag) {
+        switch (this) {
+            case NORMALIZE:
+                return Tags.normalize(tag);
+            case STRICT:
+                return Tags.check(tag);
+            default:
+                return tag;
+        }
+    }
+
+    Collection<String> apply(Collection<String> tags) {
+        switch (this) {
+            case NORMALIZE:
+                return Tags.normalize(tags);
+            case STRICT:
+                return Tags.check(tags);
+            default:
+                return tags;
+        }
+    }
+
+}
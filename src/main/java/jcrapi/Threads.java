@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads of the fan-out helpers like the {@link Pipeline}, the hedged requests and the graph crawler. They are
+ * daemon platform threads; from Java 21 on the multi-release jar runs them on virtual threads instead once the
+ * system property <code>jcrapi.virtualThreads</code> is <code>true</code>. The blocking paths of a call do not hold
+ * monitors, so virtual threads waiting for the api or the rate limit do not pin their carriers.
+ *
+ * @author Michael Lieshoff
+ */
+public final class Threads {
+
+    public static final String VIRTUAL_THREADS = "jcrapi.virtualThreads";
+
+    private Threads() {
+    }
+
+    /**
+     * True if this runtime can run the helpers on virtual threads.
+     */
+    public static boolean isVirtualSupported() {
+        return false;
+    }
+
+    /**
+     * True if the helpers run on virtual threads.
+     */
+    public static boolean isVirtual() {
+        return isVirtualSupported() && Boolean.getBoolean(VIRTUAL_THREADS);
+    }
+
+    /**
+     * Unstarted daemon thread.
+     */
+    public static Thread newThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Executor with the given number of threads, or a virtual thread per task.
+     */
+    public static ExecutorService newExecutor(String name, int threads) {
+        return Executors.newFixedThreadPool(threads, createThreadFactory(name));
+    }
+
+    /**
+     * Executor creating threads on demand and ending them after a minute without work, or a virtual thread per task.
+     * Good for fanning out blocking api calls.
+     */
+    public static ExecutorService newCachedExecutor(String name) {
+        return Executors.newCachedThreadPool(createThreadFactory(name));
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        return new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name + "-%d").build();
+    }
+
+}
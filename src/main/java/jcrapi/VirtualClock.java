@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock whose time only moves when someone sleeps or waits on it or it is advanced explicitly; sleeping returns
+ * immediately after moving the time forward. Waits of several threads add up instead of overlapping, so it is
+ * meant for simulations driven by one thread at a time.
+ *
+ * @author Michael Lieshoff
+ */
+public class VirtualClock extends Clock {
+
+    private final AtomicLong nanos;
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(long startMillis) {
+        Preconditions.checkArgument(startMillis >= 0, "startMillis");
+        nanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(startMillis));
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos.get();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (millis > 0) {
+            advance(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void await(Object monitor, long millis) throws InterruptedException {
+        if (millis == 0) {
+            monitor.wait();
+        } else {
+            sleep(millis);
+        }
+    }
+
+    public void advance(long duration, TimeUnit unit) {
+        Preconditions.checkArgument(duration >= 0, "duration");
+        Preconditions.checkNotNull(unit, "unit");
+        nanos.addAndGet(unit.toNanos(duration));
+    }
+
+}
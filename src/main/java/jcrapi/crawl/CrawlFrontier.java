@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import com.google.common.base.Preconditions;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded, de-duplicated priority frontier of a crawl. Tags that were already crawled or are already queued are
+ * not added twice; re-discovering a queued tag with a higher score raises its priority. When the frontier is full
+ * the lowest scored tag is dropped.
+ *
+ * @author Michael Lieshoff
+ */
+public class CrawlFrontier {
+
+    private static final Comparator<CrawlNode> BY_SCORE = new Comparator<CrawlNode>() {
+        @Override
+        public int compare(CrawlNode o1, CrawlNode o2) {
+            int result = Double.compare(o2.getScore(), o1.getScore());
+            return result != 0 ? result : o1.getTag().compareTo(o2.getTag());
+        }
+    };
+
+    private final int capacity;
+
+    private final Map<CrawlNodeType, TreeSet<CrawlNode>> queues = new EnumMap<>(CrawlNodeType.class);
+    private final Map<CrawlNodeType, Map<String, CrawlNode>> queued = new EnumMap<>(CrawlNodeType.class);
+    private final Map<CrawlNodeType, TagSet> visited = new EnumMap<>(CrawlNodeType.class);
+
+    private long dropped;
+
+    public CrawlFrontier(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be > 0");
+        this.capacity = capacity;
+        for (CrawlNodeType type : CrawlNodeType.values()) {
+            queues.put(type, new TreeSet<>(BY_SCORE));
+            queued.put(type, new HashMap<String, CrawlNode>());
+            visited.put(type, new TagSet());
+        }
+    }
+
+    public synchronized boolean offer(CrawlNode node) {
+        Preconditions.checkNotNull(node, "node");
+        CrawlNodeType type = node.getType();
+        if (visited.get(type).contains(node.getTag())) {
+            return false;
+        }
+        return enqueue(node);
+    }
+
+    private boolean enqueue(CrawlNode node) {
+        CrawlNodeType type = node.getType();
+        CrawlNode existing = queued.get(type).get(node.getTag());
+        if (existing != null) {
+            if (node.getScore() > existing.getScore()) {
+                queues.get(type).remove(existing);
+                queues.get(type).add(node);
+                queued.get(type).put(node.getTag(), node);
+            }
+            return false;
+        }
+        if (size() >= capacity) {
+            CrawlNode lowest = lowest();
+            if (lowest == null || node.getScore() <= lowest.getScore()) {
+                dropped++;
+                return false;
+            }
+            queues.get(lowest.getType()).remove(lowest);
+            queued.get(lowest.getType()).remove(lowest.getTag());
+            dropped++;
+        }
+        queues.get(type).add(node);
+        queued.get(type).put(node.getTag(), node);
+        return true;
+    }
+
+    private CrawlNode lowest() {
+        CrawlNode lowest = null;
+        for (TreeSet<CrawlNode> queue : queues.values()) {
+            if (!queue.isEmpty() && (lowest == null || BY_SCORE.compare(queue.last(), lowest) > 0)) {
+                lowest = queue.last();
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Removes up to max of the highest scored nodes of the given type and marks them as visited.
+     */
+    public synchronized List<CrawlNode> poll(CrawlNodeType type, int max) {
+        Preconditions.checkNotNull(type, "type");
+        Preconditions.checkArgument(max > 0, "max must be > 0");
+        List<CrawlNode> nodes = new ArrayList<>(max);
+        TreeSet<CrawlNode> queue = queues.get(type);
+        while (nodes.size() < max && !queue.isEmpty()) {
+            CrawlNode node = queue.pollFirst();
+            queued.get(type).remove(node.getTag());
+            visited.get(type).add(node.getTag());
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Removes up to max nodes of the type whose best node has the highest score.
+     */
+    public synchronized List<CrawlNode> poll(int max) {
+        CrawlNodeType best = null;
+        for (Map.Entry<CrawlNodeType, TreeSet<CrawlNode>> entry : queues.entrySet()) {
+            TreeSet<CrawlNode> queue = entry.getValue();
+            if (!queue.isEmpty() && (best == null || BY_SCORE.compare(queue.first(), queues.get(best).first()) < 0)) {
+                best = entry.getKey();
+            }
+        }
+        if (best == null) {
+            return new ArrayList<>();
+        }
+        return poll(best, max);
+    }
+
+    public synchronized boolean isVisited(CrawlNodeType type, String tag) {
+        return visited.get(type).contains(tag);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (TreeSet<CrawlNode> queue : queues.values()) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public synchronized int size(CrawlNodeType type) {
+        return queues.get(type).size();
+    }
+
+    public synchronized int visited(CrawlNodeType type) {
+        return visited.get(type).size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        writeTo(out, Collections.<CrawlNode>emptyList());
+    }
+
+    /**
+     * Writes the frontier with the given polled but not yet crawled nodes queued again, so they are crawled after
+     * a restore although they are already marked as visited.
+     */
+    synchronized void writeTo(DataOutput out, Collection<CrawlNode> pending) throws IOException {
+        for (CrawlNodeType type : CrawlNodeType.values()) {
+            visited.get(type).writeTo(out);
+        }
+        out.writeInt(size() + pending.size());
+        for (TreeSet<CrawlNode> queue : queues.values()) {
+            for (CrawlNode node : queue) {
+                writeNode(out, node);
+            }
+        }
+        for (CrawlNode node : pending) {
+            writeNode(out, node);
+        }
+        out.writeLong(dropped);
+    }
+
+    private static void writeNode(DataOutput out, CrawlNode node) throws IOException {
+        out.writeByte(node.getType().ordinal());
+        out.writeUTF(node.getTag());
+        out.writeDouble(node.getScore());
+    }
+
+    synchronized void readFrom(DataInput in) throws IOException {
+        for (CrawlNodeType type : CrawlNodeType.values()) {
+            visited.get(type).readFrom(in);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            CrawlNodeType type = CrawlNodeType.values()[in.readByte()];
+            enqueue(new CrawlNode(type, in.readUTF(), in.readDouble()));
+        }
+        dropped += in.readLong();
+    }
+
+}
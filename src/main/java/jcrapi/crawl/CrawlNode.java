@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class CrawlNode {
+
+    private final CrawlNodeType type;
+    private final String tag;
+    private final double score;
+
+    public CrawlNode(CrawlNodeType type, String tag, double score) {
+        Preconditions.checkNotNull(type, "type");
+        Preconditions.checkNotNull(tag, "tag");
+        Preconditions.checkArgument(tag.length() > 0, "tag");
+        this.type = type;
+        this.tag = tag;
+        this.score = score;
+    }
+
+    public CrawlNodeType getType() {
+        return type;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        CrawlNode crawlNode = (CrawlNode) o;
+
+        if (Double.compare(crawlNode.score, score) != 0) return false;
+        if (type != crawlNode.type) return false;
+        return tag.equals(crawlNode.tag);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + tag.hashCode();
+        long temp = Double.doubleToLongBits(score);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlNode{type=" + type + ", tag=" + tag + ", score=" + score + "}";
+    }
+
+}
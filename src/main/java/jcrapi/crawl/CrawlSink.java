@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import jcrapi.ApiException;
+import jcrapi.model.Battle;
+import jcrapi.model.Clan;
+
+import java.util.List;
+
+/**
+ * Receives the entities a {@link GraphCrawler} discovers. Sinks are called from the crawler's worker threads.
+ *
+ * @author Michael Lieshoff
+ */
+public interface CrawlSink {
+
+    void onClan(Clan clan);
+
+    void onBattles(String playerTag, List<Battle> battles);
+
+    void onDiscovered(CrawlNode node);
+
+    /**
+     * Called for a batch that failed, exceptions other than {@link ApiException} are wrapped as its cause.
+     */
+    void onError(CrawlNodeType type, List<String> tags, ApiException e);
+
+}
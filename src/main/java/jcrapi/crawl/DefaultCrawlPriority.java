@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks tags by trophies and penalizes every hour since the tag was last seen in a battle or member list with a
+ * fixed number of trophies.
+ *
+ * @author Michael Lieshoff
+ */
+public class DefaultCrawlPriority implements CrawlPriority {
+
+    private static final double HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final double trophiesPerHour;
+
+    public DefaultCrawlPriority() {
+        this(100);
+    }
+
+    public DefaultCrawlPriority(double trophiesPerHour) {
+        Preconditions.checkArgument(trophiesPerHour >= 0, "trophiesPerHour must be >= 0");
+        this.trophiesPerHour = trophiesPerHour;
+    }
+
+    @Override
+    public double score(CrawlNodeType type, long lastSeenAt, int trophies, long now) {
+        double age = Math.max(0, now - lastSeenAt) / HOUR;
+        return trophies - age * trophiesPerHour;
+    }
+
+}
@@ -0,0 +1,435 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import com.google.common.base.Preconditions;
+import jcrapi.Api;
+import jcrapi.ApiException;
+import jcrapi.Clock;
+import jcrapi.Threads;
+import jcrapi.model.Battle;
+import jcrapi.model.Clan;
+import jcrapi.model.Member;
+import jcrapi.model.Team;
+import jcrapi.request.PlayerBattlesRequest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Crawls the graph clans &rarr; members &rarr; battles &rarr; opponents and their clans. Tags are taken from a
+ * {@link CrawlFrontier} in batches and fetched with the multi-tag endpoints by a configurable number of workers;
+ * every discovered entity is streamed to the registered {@link CrawlSink}s. The frontier and the visited tags can be
+ * checkpointed to a file and restored after a restart; batches in flight at checkpoint time are written back into
+ * the frontier, so they are crawled again after a restore.
+ *
+ * @author Michael Lieshoff
+ */
+public class GraphCrawler {
+
+    private static final int CHECKPOINT_MAGIC = 0x4a435243;
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private final Api api;
+    private final CrawlFrontier frontier;
+    private final CrawlPriority priority;
+    private final int parallelism;
+    private final int batchSize;
+    private final File checkpointFile;
+    private final int checkpointInterval;
+    private final Clock clock;
+
+    private final List<CrawlSink> sinks = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong batchesSinceCheckpoint = new AtomicLong();
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Set<List<CrawlNode>> inFlight = Collections.newSetFromMap(
+            new IdentityHashMap<List<CrawlNode>, Boolean>());
+    private volatile boolean stopped;
+
+    private GraphCrawler(Api api, CrawlFrontier frontier, CrawlPriority priority, int parallelism, int batchSize,
+                         File checkpointFile, int checkpointInterval, Clock clock) {
+        Preconditions.checkNotNull(api, "api");
+        Preconditions.checkNotNull(priority, "priority");
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be > 0");
+        Preconditions.checkArgument(batchSize > 0, "batchSize must be > 0");
+        Preconditions.checkArgument(checkpointInterval >= 0, "checkpointInterval must be >= 0");
+        Preconditions.checkNotNull(clock, "clock");
+        this.api = api;
+        this.frontier = frontier;
+        this.priority = priority;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+        this.clock = clock;
+    }
+
+    public void addSink(CrawlSink sink) {
+        Preconditions.checkNotNull(sink, "sink");
+        sinks.add(sink);
+    }
+
+    public void removeSink(CrawlSink sink) {
+        sinks.remove(sink);
+    }
+
+    public boolean seedClan(String tag) {
+        return frontier.offer(new CrawlNode(CrawlNodeType.CLAN, tag, Double.MAX_VALUE));
+    }
+
+    public boolean seedPlayer(String tag) {
+        return frontier.offer(new CrawlNode(CrawlNodeType.PLAYER, tag, Double.MAX_VALUE));
+    }
+
+    /**
+     * Crawls until the frontier is exhausted, the given number of requests was sent or {@link #stop()} was called.
+     * Returns the number of requests sent by this run.
+     */
+    public long run(long maxRequests) throws InterruptedException {
+        Preconditions.checkArgument(maxRequests > 0, "maxRequests must be > 0");
+        stopped = false;
+        final long limit = requests.get() + maxRequests;
+        long before = requests.get();
+        ExecutorService workers = Threads.newExecutor("jcrapi-graph-crawler", parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        work(limit);
+                    }
+                });
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // wait for the workers to drain
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        if (checkpointFile != null) {
+            checkpointQuietly();
+        }
+        return requests.get() - before;
+    }
+
+    public void stop() {
+        stopped = true;
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work(long limit) {
+        while (true) {
+            List<CrawlNode> batch;
+            lock.lock();
+            try {
+                while (true) {
+                    if (stopped || requests.get() >= limit) {
+                        return;
+                    }
+                    batch = frontier.poll(batchSize);
+                    if (!batch.isEmpty()) {
+                        inFlight.add(batch);
+                        requests.incrementAndGet();
+                        break;
+                    }
+                    if (inFlight.isEmpty()) {
+                        changed.signalAll();
+                        return;
+                    }
+                    try {
+                        changed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                process(batch);
+            } finally {
+                lock.lock();
+                try {
+                    inFlight.remove(batch);
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (checkpointFile != null && checkpointInterval > 0) {
+                long batches = batchesSinceCheckpoint.incrementAndGet();
+                if (batches >= checkpointInterval && batchesSinceCheckpoint.compareAndSet(batches, 0)) {
+                    checkpointQuietly();
+                }
+            }
+        }
+    }
+
+    void process(List<CrawlNode> batch) {
+        CrawlNodeType type = batch.get(0).getType();
+        List<String> tags = new ArrayList<>(batch.size());
+        for (CrawlNode node : batch) {
+            tags.add(node.getTag());
+        }
+        try {
+            if (type == CrawlNodeType.CLAN) {
+                processClans(api.getClans(tags));
+            } else {
+                processBattles(tags, api.getPlayerBattles(PlayerBattlesRequest.builder(tags).build()));
+            }
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            ApiException error = e instanceof ApiException ? (ApiException) e : new ApiException(e);
+            for (CrawlSink sink : sinks) {
+                sink.onError(type, tags, error);
+            }
+        }
+    }
+
+    private void processClans(List<Clan> clans) {
+        if (clans == null) {
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        for (Clan clan : clans) {
+            for (CrawlSink sink : sinks) {
+                sink.onClan(clan);
+            }
+            if (clan.getMembers() != null) {
+                for (Member member : clan.getMembers()) {
+                    discover(CrawlNodeType.PLAYER, member.getTag(), now, member.getTrophies(), now);
+                }
+            }
+        }
+    }
+
+    private void processBattles(List<String> tags, List<List<Battle>> listOfBattles) {
+        if (listOfBattles == null) {
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        for (int i = 0; i < listOfBattles.size() && i < tags.size(); i++) {
+            List<Battle> battles = listOfBattles.get(i);
+            for (CrawlSink sink : sinks) {
+                sink.onBattles(tags.get(i), battles);
+            }
+            if (battles == null) {
+                continue;
+            }
+            for (Battle battle : battles) {
+                long seenAt = TimeUnit.SECONDS.toMillis(battle.getUtcTime());
+                discoverTeams(battle.getTeam(), seenAt, now);
+                discoverTeams(battle.getOpponent(), seenAt, now);
+            }
+        }
+    }
+
+    private void discoverTeams(List<Team> teams, long seenAt, long now) {
+        if (teams == null) {
+            return;
+        }
+        for (Team team : teams) {
+            discover(CrawlNodeType.PLAYER, team.getTag(), seenAt, team.getStartTrophies(), now);
+            if (team.getClan() != null) {
+                discover(CrawlNodeType.CLAN, team.getClan().getTag(), seenAt, team.getStartTrophies(), now);
+            }
+        }
+    }
+
+    private void discover(CrawlNodeType type, String tag, long seenAt, int trophies, long now) {
+        if (tag == null || tag.isEmpty()) {
+            return;
+        }
+        CrawlNode node = new CrawlNode(type, tag, priority.score(type, seenAt, trophies, now));
+        if (frontier.offer(node)) {
+            for (CrawlSink sink : sinks) {
+                sink.onDiscovered(node);
+            }
+        }
+    }
+
+    /**
+     * Writes the frontier, the visited tags and the batches in flight to the given file. Workers cannot take new
+     * batches while the checkpoint is written, so only one checkpoint is written at a time.
+     */
+    public void checkpoint(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file");
+        File tmp = new File(file.getPath() + ".tmp");
+        lock.lock();
+        try {
+            List<CrawlNode> pending = new ArrayList<>();
+            for (List<CrawlNode> batch : inFlight) {
+                pending.addAll(batch);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(tmp))))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(requests.get());
+                frontier.writeTo(out, pending);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint(checkpointFile);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Restores the frontier and the visited tags from the configured checkpoint file, if it exists.
+     */
+    public boolean restore() throws IOException {
+        Preconditions.checkState(checkpointFile != null, "no checkpoint file configured");
+        if (!checkpointFile.exists()) {
+            return false;
+        }
+        restore(checkpointFile);
+        return true;
+    }
+
+    public void restore(File file) throws IOException {
+        Preconditions.checkNotNull(file, "file");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("not a crawl checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version != CHECKPOINT_VERSION) {
+                throw new IOException("unsupported crawl checkpoint version " + version + ": " + file);
+            }
+            requests.addAndGet(in.readLong());
+            frontier.readFrom(in);
+        }
+    }
+
+    public CrawlFrontier getFrontier() {
+        return frontier;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public static GraphCrawlerBuilder builder(Api api) {
+        return new GraphCrawlerBuilder(api);
+    }
+
+    public static class GraphCrawlerBuilder {
+
+        private final Api api;
+
+        private CrawlPriority priority = new DefaultCrawlPriority();
+        private int frontierCapacity = 1000000;
+        private int parallelism = 4;
+        private int batchSize = 5;
+        private File checkpointFile;
+        private int checkpointInterval = 1000;
+        private Clock clock = Clock.system();
+
+        public GraphCrawlerBuilder(Api api) {
+            this.api = api;
+        }
+
+        public GraphCrawlerBuilder priority(CrawlPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public GraphCrawlerBuilder frontierCapacity(int frontierCapacity) {
+            this.frontierCapacity = frontierCapacity;
+            return this;
+        }
+
+        public GraphCrawlerBuilder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public GraphCrawlerBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public GraphCrawlerBuilder checkpointFile(File checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        public GraphCrawlerBuilder checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        public GraphCrawlerBuilder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public GraphCrawler build() {
+            return new GraphCrawler(api, new CrawlFrontier(frontierCapacity), priority, parallelism, batchSize,
+                    checkpointFile, checkpointInterval, clock);
+        }
+
+    }
+
+}
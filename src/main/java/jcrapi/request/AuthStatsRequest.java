@@ -7,8 +7,8 @@ import java.util.List;
  */
 public class AuthStatsRequest extends Request {
 
-    private AuthStatsRequest(List<String> excludes, List<String> includes) {
-        super(excludes, includes);
+    private AuthStatsRequest(List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(excludes, includes, timeoutMillis);
     }
 
     public static AuthStatsRequestBuilder builder() {
@@ -19,7 +19,7 @@ public class AuthStatsRequest extends Request {
 
         @Override
         public AuthStatsRequest build() {
-            return new AuthStatsRequest(excludes, keys);
+            return new AuthStatsRequest(excludes, keys, timeoutMillis);
         }
 
         @Override
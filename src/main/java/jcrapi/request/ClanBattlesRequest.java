@@ -11,8 +11,8 @@ public class ClanBattlesRequest extends LimitedRequest {
 
     private final String tag;
 
-    private ClanBattlesRequest(String tag, int limit, int max, int page, List<String> excludes, List<String> includes) {
-        super(limit, max, page, excludes, includes);
+    private ClanBattlesRequest(String tag, int limit, int max, int page, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(limit, max, page, excludes, includes, timeoutMillis);
         Preconditions.checkNotNull(tag, "tag");
         Preconditions.checkArgument(tag.length() > 0, "tag");
         this.tag = tag;
@@ -36,7 +36,7 @@ public class ClanBattlesRequest extends LimitedRequest {
 
         @Override
         public ClanBattlesRequest build() {
-            return new ClanBattlesRequest(tag, limit, max, page, excludes, keys);
+            return new ClanBattlesRequest(tag, limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -14,8 +14,8 @@ public class ClanHistoryRequest extends LimitedRequest {
 
     private final Integer days;
 
-    private ClanHistoryRequest(String tag, Integer days, int limit, int max, int page, List<String> excludes, List<String> includes) {
-        super(limit, max, page, excludes, includes);
+    private ClanHistoryRequest(String tag, Integer days, int limit, int max, int page, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(limit, max, page, excludes, includes, timeoutMillis);
         Preconditions.checkNotNull(tag, "tag");
         Preconditions.checkArgument(tag.length() > 0, "tag");
         if (days != null) {
@@ -34,12 +34,11 @@ public class ClanHistoryRequest extends LimitedRequest {
     }
 
     @Override
-    public Map<String, String> getQueryParameters() {
-        Map<String, String>  parameters = super.getQueryParameters();
+    void addQueryParameters(Map<String, String> parameters) {
+        super.addQueryParameters(parameters);
         if (days != null) {
             parameters.put("days", days.toString());
         }
-        return parameters;
     }
 
     public static ClanHistoryRequestBuilder builder(String tag) {
@@ -63,7 +62,7 @@ public class ClanHistoryRequest extends LimitedRequest {
 
         @Override
         public ClanHistoryRequest build() {
-            return new ClanHistoryRequest(tag, days, limit, max, page, excludes, keys);
+            return new ClanHistoryRequest(tag, days, limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -20,8 +20,8 @@ public class ClanSearchRequest extends LimitedRequest {
     private final Integer maxMembers;
 
     private ClanSearchRequest(String locationId, String name, Integer score, Integer minMembers, Integer maxMembers,
-                              int limit, int max, int page, List<String> excludes, List<String> keys) {
-        super(limit, max, page, excludes, keys);
+                              int limit, int max, int page, List<String> excludes, List<String> keys, long timeoutMillis) {
+        super(limit, max, page, excludes, keys, timeoutMillis);
         Preconditions.checkArgument(
                 !(StringUtils.isBlank(name)
                         && score == null
@@ -55,8 +55,8 @@ public class ClanSearchRequest extends LimitedRequest {
     }
 
     @Override
-    public Map<String, String> getQueryParameters() {
-        Map<String, String> parameters = super.getQueryParameters();
+    void addQueryParameters(Map<String, String> parameters) {
+        super.addQueryParameters(parameters);
         if (StringUtils.isNotBlank(locationId)) {
             parameters.put("locationId", locationId);
         }
@@ -72,7 +72,6 @@ public class ClanSearchRequest extends LimitedRequest {
         if (maxMembers != null) {
             parameters.put("maxMembers", maxMembers.toString());
         }
-        return parameters;
     }
 
     public static ClanSearchRequestBuilder builder() {
@@ -115,7 +114,7 @@ public class ClanSearchRequest extends LimitedRequest {
 
         @Override
         public ClanSearchRequest build() {
-            return new ClanSearchRequest(locationId, name, score, minMembers, maxMembers, limit, max, page, excludes, keys);
+            return new ClanSearchRequest(locationId, name, score, minMembers, maxMembers, limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
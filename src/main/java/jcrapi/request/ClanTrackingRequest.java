@@ -11,8 +11,8 @@ public class ClanTrackingRequest extends Request {
 
     private final String tag;
 
-    private ClanTrackingRequest(String tag, List<String> excludes, List<String> includes) {
-        super(excludes, includes);
+    private ClanTrackingRequest(String tag, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(excludes, includes, timeoutMillis);
         Preconditions.checkNotNull(tag, "tag");
         Preconditions.checkArgument(tag.length() > 0, "tag");
         this.tag = tag;
@@ -36,7 +36,7 @@ public class ClanTrackingRequest extends Request {
 
         @Override
         public ClanTrackingRequest build() {
-            return new ClanTrackingRequest(tag, excludes, keys);
+            return new ClanTrackingRequest(tag, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -11,8 +11,8 @@ public class ClanWarLogRequest extends Request {
 
     private final String tag;
 
-    private ClanWarLogRequest(String tag, List<String> excludes, List<String> includes) {
-        super(excludes, includes);
+    private ClanWarLogRequest(String tag, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(excludes, includes, timeoutMillis);
         Preconditions.checkNotNull(tag, "tag");
         Preconditions.checkArgument(tag.length() > 0, "tag");
         this.tag = tag;
@@ -36,7 +36,7 @@ public class ClanWarLogRequest extends Request {
 
         @Override
         public ClanWarLogRequest build() {
-            return new ClanWarLogRequest(tag, excludes, keys);
+            return new ClanWarLogRequest(tag, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -11,8 +11,8 @@ public class ClanWarRequest extends Request {
 
     private final String tag;
 
-    private ClanWarRequest(String tag, List<String> excludes, List<String> includes) {
-        super(excludes, includes);
+    private ClanWarRequest(String tag, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(excludes, includes, timeoutMillis);
         Preconditions.checkNotNull(tag, "tag");
         Preconditions.checkArgument(tag.length() > 0, "tag");
         this.tag = tag;
@@ -36,7 +36,7 @@ public class ClanWarRequest extends Request {
 
         @Override
         public ClanWarRequest build() {
-            return new ClanWarRequest(tag, excludes, keys);
+            return new ClanWarRequest(tag, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -12,8 +12,8 @@ public abstract class LimitedRequest extends PaginatedRequest {
 
     private final int limit;
 
-    LimitedRequest(int limit, int max, int page, List<String> excludes, List<String> keys) {
-        super(max, page, excludes, keys);
+    LimitedRequest(int limit, int max, int page, List<String> excludes, List<String> keys, long timeoutMillis) {
+        super(max, page, excludes, keys, timeoutMillis);
         Preconditions.checkArgument(limit >= 0, "limit must be > 0");
         this.limit = limit;
     }
@@ -22,12 +22,12 @@ public abstract class LimitedRequest extends PaginatedRequest {
         return limit;
     }
 
-    public Map<String, String> getQueryParameters() {
-        Map<String, String> map = super.getQueryParameters();
+    @Override
+    void addQueryParameters(Map<String, String> parameters) {
+        super.addQueryParameters(parameters);
         if (limit > 0) {
-            map.put("limit", String.valueOf(limit));
+            parameters.put("limit", String.valueOf(limit));
         }
-        return map;
     }
 
     static abstract class LimitedRequestBuilder<R extends LimitedRequest, B> extends PaginatedRequestBuilder<R, B> {
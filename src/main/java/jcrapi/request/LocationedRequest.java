@@ -9,8 +9,8 @@ public abstract class LocationedRequest extends LimitedRequest {
 
     private final String locationKey;
 
-    LocationedRequest(String locationKey, int limit, int max, int page, List<String> excludes, List<String> keys) {
-        super(limit, max, page, excludes, keys);
+    LocationedRequest(String locationKey, int limit, int max, int page, List<String> excludes, List<String> keys, long timeoutMillis) {
+        super(limit, max, page, excludes, keys, timeoutMillis);
         this.locationKey = locationKey;
     }
 
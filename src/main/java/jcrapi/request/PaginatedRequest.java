@@ -13,8 +13,8 @@ public abstract class PaginatedRequest extends Request {
     private final int max;
     private final int page;
 
-    PaginatedRequest(int max, int page, List<String> excludes, List<String> keys) {
-        super(excludes, keys);
+    PaginatedRequest(int max, int page, List<String> excludes, List<String> keys, long timeoutMillis) {
+        super(excludes, keys, timeoutMillis);
         Preconditions.checkArgument(max >= 0, "max must be >= 0");
         Preconditions.checkArgument(page >= 0, "page must be >= 0");
         this.max = max;
@@ -29,15 +29,15 @@ public abstract class PaginatedRequest extends Request {
         return page;
     }
 
-    public Map<String, String> getQueryParameters() {
-        Map<String, String> map = super.getQueryParameters();
+    @Override
+    void addQueryParameters(Map<String, String> parameters) {
+        super.addQueryParameters(parameters);
         if (max > 0) {
-            map.put("max", String.valueOf(max));
+            parameters.put("max", String.valueOf(max));
         }
         if (page > 0) {
-            map.put("page", String.valueOf(page));
+            parameters.put("page", String.valueOf(page));
         }
-        return map;
     }
 
     static abstract class PaginatedRequestBuilder<R extends PaginatedRequest, B> extends RequestBuilder<R, B> {
@@ -7,8 +7,8 @@ import java.util.List;
  */
 public class PopularPlayersRequest extends LimitedRequest {
 
-    private PopularPlayersRequest(int limit, int max, int page, List<String> excludes, List<String> includes) {
-        super(limit, max, page, excludes, includes);
+    private PopularPlayersRequest(int limit, int max, int page, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(limit, max, page, excludes, includes, timeoutMillis);
     }
 
     public static PopularPlayersRequestBuilder builder() {
@@ -19,7 +19,7 @@ public class PopularPlayersRequest extends LimitedRequest {
 
         @Override
         public PopularPlayersRequest build() {
-            return new PopularPlayersRequest(limit, max, page, excludes, keys);
+            return new PopularPlayersRequest(limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
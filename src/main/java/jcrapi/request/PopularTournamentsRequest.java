@@ -7,8 +7,8 @@ import java.util.List;
  */
 public class PopularTournamentsRequest extends LimitedRequest {
 
-    private PopularTournamentsRequest(int limit, int max, int page, List<String> excludes, List<String> includes) {
-        super(limit, max, page, excludes, includes);
+    private PopularTournamentsRequest(int limit, int max, int page, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(limit, max, page, excludes, includes, timeoutMillis);
     }
 
     public static PopularTournamentsRequestBuilder builder() {
@@ -19,7 +19,7 @@ public class PopularTournamentsRequest extends LimitedRequest {
 
         @Override
         public PopularTournamentsRequest build() {
-            return new PopularTournamentsRequest(limit, max, page, excludes, keys);
+            return new PopularTournamentsRequest(limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -0,0 +1,58 @@
+package jcrapi.request;
+
+import com.google.common.collect.ForwardingMap;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unmodifiable query parameters of a {@link Request} in insertion order, together with their query string which is
+ * encoded once when the parameters are built.
+ *
+ * @author Michael Lieshoff
+ */
+public final class QueryParameters extends ForwardingMap<String, String> {
+
+    private final Map<String, String> parameters;
+    private final String queryString;
+
+    QueryParameters(LinkedHashMap<String, String> parameters) {
+        this.parameters = Collections.unmodifiableMap(parameters);
+        StringBuilder s = new StringBuilder();
+        append(s, parameters);
+        queryString = s.toString();
+    }
+
+    @Override
+    protected Map<String, String> delegate() {
+        return parameters;
+    }
+
+    /**
+     * Encoded query string without the leading '?', empty if there are no parameters.
+     */
+    public String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * Appends the encoded parameters joined by '&amp;' to the buffer, a blank value is sent as empty value.
+     */
+    public static void append(StringBuilder s, Map<String, String> parameters) {
+        boolean first = true;
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (!first) {
+                s.append('&');
+            }
+            first = false;
+            UrlEncoding.appendQueryComponent(s, entry.getKey());
+            s.append('=');
+            if (StringUtils.isNotBlank(entry.getValue())) {
+                UrlEncoding.appendQueryComponent(s, entry.getValue());
+            }
+        }
+    }
+
+}
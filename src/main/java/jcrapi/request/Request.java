@@ -1,5 +1,6 @@
 package jcrapi.request;
 
+import com.google.common.base.Preconditions;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 
@@ -15,14 +16,19 @@ public abstract class Request {
 
     private final List<String> excludes = new ArrayList<>();
     private final List<String> keys = new ArrayList<>();
+    private final long timeoutMillis;
 
-    Request(List<String> excludes, List<String> keys) {
+    private volatile QueryParameters queryParameters;
+
+    Request(List<String> excludes, List<String> keys, long timeoutMillis) {
+        Preconditions.checkArgument(timeoutMillis >= 0, "timeoutMillis must be >= 0");
         if (CollectionUtils.isNotEmpty(excludes)) {
             this.excludes.addAll(excludes);
         }
         if (CollectionUtils.isNotEmpty(keys)) {
             this.keys.addAll(keys);
         }
+        this.timeoutMillis = timeoutMillis;
     }
 
     public List<String> getExcludes() {
@@ -33,21 +39,41 @@ public abstract class Request {
         return keys;
     }
 
-    public Map<String, String> getQueryParameters() {
-        Map<String, String>  map = new LinkedHashMap<>();
+    /**
+     * Deadline for the whole call in milliseconds, 0 for the timeout of the api.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Query parameters of the request, built and encoded once on first use.
+     */
+    public QueryParameters getQueryParameters() {
+        QueryParameters parameters = queryParameters;
+        if (parameters == null) {
+            LinkedHashMap<String, String> map = new LinkedHashMap<>();
+            addQueryParameters(map);
+            parameters = new QueryParameters(map);
+            queryParameters = parameters;
+        }
+        return parameters;
+    }
+
+    void addQueryParameters(Map<String, String> parameters) {
         if (CollectionUtils.isNotEmpty(keys)) {
-            map.put("keys", StringUtils.join(keys, ','));
+            parameters.put("keys", StringUtils.join(keys, ','));
         }
         if (CollectionUtils.isNotEmpty(excludes)) {
-            map.put("excludes", StringUtils.join(excludes, ','));
+            parameters.put("excludes", StringUtils.join(excludes, ','));
         }
-        return map;
     }
 
     static abstract class RequestBuilder<R extends Request, B> {
 
         List<String> excludes;
         List<String> keys;
+        long timeoutMillis;
 
         public B excludes(List<String> excludes) {
             this.excludes = excludes;
@@ -59,6 +85,11 @@ public abstract class Request {
             return getThis();
         }
 
+        public B timeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return getThis();
+        }
+
         public abstract R build();
 
         public abstract B getThis();
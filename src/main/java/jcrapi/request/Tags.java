@@ -0,0 +1,136 @@
+package jcrapi.request;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Codec for player, clan and tournament tags. Tags are normalized to the form the server expects (no leading '#',
+ * upper case, 'O' read as '0') and are valid when all characters belong to the game's tag alphabet.
+ * <p>
+ * Tags also map to 64 bit ids: characters of the alphabet are packed as bijective base-15 digits, so up to 16
+ * characters fit into a positive long which {@link #fromId(long)} turns back into the tag. Tags outside the alphabet
+ * fall back to a 64 bit FNV-1a hash with the sign bit set.
+ *
+ * @author Michael Lieshoff
+ */
+public final class Tags {
+
+    public static final String ALPHABET = "0289PYLQGRJCUV";
+    public static final int MIN_LENGTH = 3;
+    public static final int MAX_LENGTH = 16;
+
+    private static final int BASE = ALPHABET.length() + 1;
+
+    private Tags() {
+    }
+
+    public static String normalize(String tag) {
+        Preconditions.checkNotNull(tag, "tag");
+        String s = tag.trim();
+        if (s.startsWith("#")) {
+            s = s.substring(1);
+        }
+        return s.toUpperCase(Locale.ENGLISH).replace('O', '0');
+    }
+
+    /**
+     * Normalized tags in their first order, duplicates removed.
+     */
+    public static List<String> normalize(Collection<String> tags) {
+        Preconditions.checkNotNull(tags, "tags");
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            normalized.add(normalize(tag));
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    public static boolean isValid(String tag) {
+        return tag != null && isNormalizedValid(normalize(tag));
+    }
+
+    /**
+     * The normalized tag, throws an {@link IllegalArgumentException} if it is not valid.
+     */
+    public static String check(String tag) {
+        String normalized = normalize(tag);
+        Preconditions.checkArgument(isNormalizedValid(normalized), "invalid tag: %s", tag);
+        return normalized;
+    }
+
+    /**
+     * Normalized tags in their first order, duplicates removed. Throws an {@link IllegalArgumentException} if one of
+     * the tags is not valid.
+     */
+    public static List<String> check(Collection<String> tags) {
+        List<String> normalized = normalize(tags);
+        for (String tag : normalized) {
+            Preconditions.checkArgument(isNormalizedValid(tag), "invalid tag: %s", tag);
+        }
+        return normalized;
+    }
+
+    public static long toId(String tag) {
+        String normalized = normalize(tag);
+        if (normalized.length() > MAX_LENGTH) {
+            return hash(normalized);
+        }
+        long id = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            int digit = ALPHABET.indexOf(normalized.charAt(i));
+            if (digit < 0) {
+                return hash(normalized);
+            }
+            id = id * BASE + digit + 1;
+        }
+        return id;
+    }
+
+    /**
+     * The normalized tag of a packed id, <code>null</code> for hashed ids and ids not created by {@link #toId}.
+     */
+    public static String fromId(long id) {
+        if (id <= 0) {
+            return null;
+        }
+        char[] chars = new char[MAX_LENGTH];
+        int index = chars.length;
+        while (id > 0) {
+            int digit = (int) (id % BASE);
+            if (digit == 0) {
+                return null;
+            }
+            chars[--index] = ALPHABET.charAt(digit - 1);
+            id /= BASE;
+        }
+        return new String(chars, index, chars.length - index);
+    }
+
+    private static boolean isNormalizedValid(String tag) {
+        if (tag.length() < MIN_LENGTH || tag.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (ALPHABET.indexOf(tag.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String tag) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < tag.length(); i++) {
+            h ^= tag.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h | Long.MIN_VALUE;
+    }
+
+}
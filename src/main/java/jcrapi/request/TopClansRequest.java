@@ -7,8 +7,8 @@ import java.util.List;
  */
 public class TopClansRequest extends LocationedRequest {
 
-    private TopClansRequest(String locationKey, int limit, int max, int page, List<String> excludes, List<String> includes) {
-        super(locationKey, limit, max, page, excludes, includes);
+    private TopClansRequest(String locationKey, int limit, int max, int page, List<String> excludes, List<String> includes, long timeoutMillis) {
+        super(locationKey, limit, max, page, excludes, includes, timeoutMillis);
     }
 
     public static TopClansRequestBuilder builder() {
@@ -19,7 +19,7 @@ public class TopClansRequest extends LocationedRequest {
 
         @Override
         public TopClansRequest build() {
-            return new TopClansRequest(locationKey, limit, max, page, excludes, keys);
+            return new TopClansRequest(locationKey, limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
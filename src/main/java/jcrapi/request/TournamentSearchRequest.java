@@ -12,8 +12,8 @@ public class TournamentSearchRequest extends LimitedRequest {
 
     private final String name;
 
-    private TournamentSearchRequest(String name, int limit, int max, int page, List<String> excludes, List<String> keys) {
-        super(limit, max, page, excludes, keys);
+    private TournamentSearchRequest(String name, int limit, int max, int page, List<String> excludes, List<String> keys, long timeoutMillis) {
+        super(limit, max, page, excludes, keys, timeoutMillis);
         Preconditions.checkNotNull(name, "name");
         Preconditions.checkArgument(name.length() > 0, "name");
         this.name = name;
@@ -24,10 +24,9 @@ public class TournamentSearchRequest extends LimitedRequest {
     }
 
     @Override
-    public Map<String, String> getQueryParameters() {
-        Map<String, String> parameters = super.getQueryParameters();
+    void addQueryParameters(Map<String, String> parameters) {
+        super.addQueryParameters(parameters);
         parameters.put("name", name);
-        return parameters;
     }
 
     public static TournamentSearchRequestBuilder builder(String name) {
@@ -44,7 +43,7 @@ public class TournamentSearchRequest extends LimitedRequest {
 
         @Override
         public TournamentSearchRequest build() {
-            return new TournamentSearchRequest(name, limit, max, page, excludes, keys);
+            return new TournamentSearchRequest(name, limit, max, page, excludes, keys, timeoutMillis);
         }
 
         @Override
@@ -0,0 +1,98 @@
+package jcrapi.request;
+
+/**
+ * Percent encoding of path segments and query components straight into a caller's buffer, without the intermediate
+ * strings and charset lookups of {@link java.net.URLEncoder}. Query components are encoded like
+ * <code>URLEncoder.encode(value, "UTF-8")</code>, path segments keep the unreserved characters of RFC 3986.
+ *
+ * @author Michael Lieshoff
+ */
+public final class UrlEncoding {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private UrlEncoding() {
+    }
+
+    /**
+     * The path segment encoded, the value itself if nothing has to be encoded.
+     */
+    public static String encodePathSegment(String value) {
+        if (isPathSafe(value)) {
+            return value;
+        }
+        StringBuilder s = new StringBuilder(value.length() + 8);
+        appendPathSegment(s, value);
+        return s.toString();
+    }
+
+    public static void appendPathSegment(StringBuilder s, CharSequence value) {
+        append(s, value, false);
+    }
+
+    public static void appendQueryComponent(StringBuilder s, CharSequence value) {
+        append(s, value, true);
+    }
+
+    private static boolean isPathSafe(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i), false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void append(StringBuilder s, CharSequence value, boolean query) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c, query)) {
+                s.append(c);
+            } else if (c == ' ' && query) {
+                s.append('+');
+            } else if (c < 0x80) {
+                appendByte(s, c);
+            } else if (c < 0x800) {
+                appendByte(s, 0xc0 | c >> 6);
+                appendByte(s, 0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(s, 0xf0 | codePoint >> 18);
+                appendByte(s, 0x80 | codePoint >> 12 & 0x3f);
+                appendByte(s, 0x80 | codePoint >> 6 & 0x3f);
+                appendByte(s, 0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates have no utf-8 form, the encoder of the jdk writes '?' as well
+                appendByte(s, '?');
+            } else {
+                appendByte(s, 0xe0 | c >> 12);
+                appendByte(s, 0x80 | c >> 6 & 0x3f);
+                appendByte(s, 0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    private static boolean isUnreserved(char c, boolean query) {
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9') {
+            return true;
+        }
+        switch (c) {
+            case '-':
+            case '.':
+            case '_':
+                return true;
+            case '*':
+                return query;
+            case '~':
+                return !query;
+            default:
+                return false;
+        }
+    }
+
+    private static void appendByte(StringBuilder s, int b) {
+        s.append('%').append(HEX[b >> 4 & 0xf]).append(HEX[b & 0xf]);
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Weighted max-min fair division of a request rate across {@link PollingJob}s. Jobs demanding less than their
+ * weighted share get their full demand, the rest is split by priority, so low-priority jobs are slowed down first.
+ *
+ * @author Michael Lieshoff
+ */
+class FairShare {
+
+    private FairShare() {
+    }
+
+    static void allocate(Collection<PollingJob> jobs, double requestsPerSecond) {
+        List<PollingJob> unsatisfied = new ArrayList<>(jobs);
+        double capacity = requestsPerSecond;
+        boolean changed = true;
+        while (changed && !unsatisfied.isEmpty()) {
+            changed = false;
+            double share = capacity / totalPriority(unsatisfied);
+            for (int i = unsatisfied.size() - 1; i >= 0; i--) {
+                PollingJob job = unsatisfied.get(i);
+                double demand = job.getCost() * 1000.0 / job.getTargetInterval();
+                if (demand <= share * job.getPriority()) {
+                    job.setAllocatedInterval(job.getTargetInterval());
+                    capacity -= demand;
+                    unsatisfied.remove(i);
+                    changed = true;
+                }
+            }
+        }
+        if (!unsatisfied.isEmpty()) {
+            double share = Math.max(0, capacity) / totalPriority(unsatisfied);
+            for (PollingJob job : unsatisfied) {
+                double rate = share * job.getPriority();
+                job.setAllocatedInterval(rate > 0
+                        ? (long) Math.ceil(job.getCost() * 1000.0 / rate)
+                        : Long.MAX_VALUE);
+            }
+        }
+    }
+
+    private static long totalPriority(List<PollingJob> jobs) {
+        long total = 0;
+        for (PollingJob job : jobs) {
+            total += job.getPriority();
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A polling workload registered at a {@link PollingScheduler}. Besides its configuration the job reports the
+ * interval the scheduler currently grants it and the refresh lag it actually achieves. The cost is the number of
+ * api requests one run of the task sends, every run takes that many permits of the {@link RateBudget}.
+ *
+ * @author Michael Lieshoff
+ */
+public class PollingJob {
+
+    private final String name;
+    private final int priority;
+    private final long targetInterval;
+    private final int cost;
+    private final Runnable task;
+
+    private volatile long allocatedInterval;
+
+    long nextRunAt;
+    double virtualFinish;
+    boolean running;
+
+    private long lastRunAt;
+    private long runs;
+    private long failures;
+    private long lastLag;
+    private long maxLag;
+    private long totalLag;
+
+    PollingJob(String name, int priority, long targetInterval, int cost, Runnable task, long now) {
+        Preconditions.checkNotNull(name, "name");
+        Preconditions.checkArgument(priority > 0, "priority must be > 0");
+        Preconditions.checkArgument(targetInterval > 0, "targetInterval must be > 0");
+        Preconditions.checkArgument(cost > 0, "cost must be > 0");
+        Preconditions.checkNotNull(task, "task");
+        this.name = name;
+        this.priority = priority;
+        this.targetInterval = targetInterval;
+        this.cost = cost;
+        this.task = task;
+        this.allocatedInterval = targetInterval;
+        this.nextRunAt = now;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getTargetInterval() {
+        return targetInterval;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public long getAllocatedInterval() {
+        return allocatedInterval;
+    }
+
+    void setAllocatedInterval(long allocatedInterval) {
+        this.allocatedInterval = allocatedInterval;
+    }
+
+    Runnable getTask() {
+        return task;
+    }
+
+    synchronized void recordRun(long startedAt, boolean failed) {
+        if (lastRunAt > 0) {
+            long lag = Math.max(0, startedAt - (lastRunAt + targetInterval));
+            lastLag = lag;
+            maxLag = Math.max(maxLag, lag);
+            totalLag += lag;
+        }
+        lastRunAt = startedAt;
+        runs++;
+        if (failed) {
+            failures++;
+        }
+    }
+
+    public synchronized long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Milliseconds the last run started later than its target interval allowed.
+     */
+    public synchronized long getLastLag() {
+        return lastLag;
+    }
+
+    public synchronized long getMaxLag() {
+        return maxLag;
+    }
+
+    public synchronized long getAverageLag() {
+        return runs > 1 ? totalLag / (runs - 1) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PollingJob{name=" + name + ", priority=" + priority + ", targetInterval=" + targetInterval
+                + ", cost=" + cost + ", allocatedInterval=" + allocatedInterval + "}";
+    }
+
+}
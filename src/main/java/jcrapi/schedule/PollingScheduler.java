@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import jcrapi.Api;
+import jcrapi.Clock;
+import jcrapi.Threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs several polling workloads through one developer key. Every {@link PollingJob} has a priority and a target
+ * refresh interval; the live {@link RateBudget} is divided across the jobs with {@link FairShare} and due jobs are
+ * dispatched in weighted fair queuing order, so under a shrinking budget low-priority jobs degrade first.
+ *
+ * @author Michael Lieshoff
+ */
+public class PollingScheduler {
+
+    private final Api api;
+    private final RateBudget rateBudget;
+    private final Executor executor;
+    private final Clock clock;
+
+    private final List<PollingJob> jobs = new ArrayList<>();
+
+    private double virtualTime;
+    private double allocatedRequestsPerSecond = -1;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public PollingScheduler(RateBudget rateBudget) {
+        this(null, rateBudget, MoreExecutors.directExecutor());
+    }
+
+    public PollingScheduler(Api api, RateBudget rateBudget) {
+        this(api, rateBudget, MoreExecutors.directExecutor());
+    }
+
+    public PollingScheduler(Api api, RateBudget rateBudget, Executor executor) {
+        this(api, rateBudget, executor, Clock.system());
+    }
+
+    public PollingScheduler(Api api, RateBudget rateBudget, Executor executor, Clock clock) {
+        Preconditions.checkNotNull(rateBudget, "rateBudget");
+        Preconditions.checkNotNull(executor, "executor");
+        Preconditions.checkNotNull(clock, "clock");
+        this.api = api;
+        this.rateBudget = rateBudget;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public PollingJob register(String name, int priority, long targetInterval, Runnable task) {
+        return register(name, priority, targetInterval, 1, task);
+    }
+
+    /**
+     * Registers a job whose task sends the given number of api requests per run.
+     */
+    public PollingJob register(String name, int priority, long targetInterval, int cost, Runnable task) {
+        PollingJob job = new PollingJob(name, priority, targetInterval, cost, task, clock.currentTimeMillis());
+        synchronized (jobs) {
+            job.virtualFinish = virtualTime;
+            jobs.add(job);
+            allocatedRequestsPerSecond = -1;
+            jobs.notifyAll();
+        }
+        return job;
+    }
+
+    public void unregister(PollingJob job) {
+        synchronized (jobs) {
+            if (jobs.remove(job)) {
+                allocatedRequestsPerSecond = -1;
+            }
+        }
+    }
+
+    public List<PollingJob> getJobs() {
+        synchronized (jobs) {
+            return ImmutableList.copyOf(jobs);
+        }
+    }
+
+    public RateBudget getRateBudget() {
+        return rateBudget;
+    }
+
+    /**
+     * Dispatches all jobs that are due at the given time as long as the budget grants permits and returns the time
+     * the scheduler should be asked again.
+     */
+    public long runDue(long now) {
+        while (true) {
+            final PollingJob job;
+            double previousVirtualTime;
+            double previousVirtualFinish;
+            synchronized (jobs) {
+                reallocate();
+                job = nextDueJob(now);
+                if (job == null) {
+                    return nextRunAt();
+                }
+                if (!rateBudget.tryAcquire(now, job.getCost())) {
+                    return Math.max(now + 1, rateBudget.nextPermitAt(now, job.getCost()));
+                }
+                previousVirtualTime = virtualTime;
+                previousVirtualFinish = job.virtualFinish;
+                double start = Math.max(virtualTime, job.virtualFinish);
+                job.virtualFinish = start + 1.0 / job.getPriority();
+                virtualTime = start;
+                job.running = true;
+            }
+            final long startedAt = now;
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        execute(job, startedAt);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the job stays due and gets its permits back, so it runs once the executor accepts work again
+                synchronized (jobs) {
+                    job.running = false;
+                    job.nextRunAt = now;
+                    job.virtualFinish = previousVirtualFinish;
+                    virtualTime = previousVirtualTime;
+                }
+                rateBudget.release(job.getCost());
+                return now + 1;
+            }
+        }
+    }
+
+    private void execute(PollingJob job, long startedAt) {
+        boolean failed = false;
+        try {
+            job.getTask().run();
+        } catch (RuntimeException e) {
+            failed = true;
+        } finally {
+            if (api != null) {
+                rateBudget.update(api.getRateLimit().orNull());
+            }
+            job.recordRun(startedAt, failed);
+            synchronized (jobs) {
+                job.running = false;
+                job.nextRunAt = saturatedAdd(startedAt, job.getAllocatedInterval());
+                jobs.notifyAll();
+            }
+        }
+    }
+
+    private void reallocate() {
+        double requestsPerSecond = rateBudget.getRequestsPerSecond();
+        if (requestsPerSecond != allocatedRequestsPerSecond) {
+            FairShare.allocate(jobs, requestsPerSecond);
+            allocatedRequestsPerSecond = requestsPerSecond;
+            for (PollingJob job : jobs) {
+                // starved jobs are parked until a new allocation grants them a rate again
+                if (!job.running && job.nextRunAt == Long.MAX_VALUE && job.getAllocatedInterval() != Long.MAX_VALUE) {
+                    job.nextRunAt = saturatedAdd(job.getLastRunAt(), job.getAllocatedInterval());
+                }
+            }
+        }
+    }
+
+    private static long saturatedAdd(long time, long interval) {
+        return interval >= Long.MAX_VALUE - time ? Long.MAX_VALUE : time + interval;
+    }
+
+    private PollingJob nextDueJob(long now) {
+        PollingJob next = null;
+        for (PollingJob job : jobs) {
+            if (!job.running && job.nextRunAt <= now) {
+                if (next == null || finishTag(job) < finishTag(next)) {
+                    next = job;
+                }
+            }
+        }
+        return next;
+    }
+
+    private double finishTag(PollingJob job) {
+        return Math.max(virtualTime, job.virtualFinish) + 1.0 / job.getPriority();
+    }
+
+    private long nextRunAt() {
+        long next = Long.MAX_VALUE;
+        for (PollingJob job : jobs) {
+            if (!job.running) {
+                next = Math.min(next, job.nextRunAt);
+            }
+        }
+        return next;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = Threads.newThread("jcrapi-polling-scheduler", new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        });
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        while (running) {
+            long now = clock.currentTimeMillis();
+            long next = runDue(now);
+            synchronized (jobs) {
+                long pending = nextRunAt();
+                if (pending > now) {
+                    next = Math.min(next, pending);
+                } else if (next == Long.MAX_VALUE) {
+                    continue;
+                }
+                long wait = next - clock.currentTimeMillis();
+                if (running && wait > 0) {
+                    try {
+                        clock.await(jobs, next == Long.MAX_VALUE ? 0 : wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+}
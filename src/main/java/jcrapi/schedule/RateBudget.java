@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import jcrapi.RateLimitSnapshot;
+import jcrapi.Response;
+
+/**
+ * Live view of the request budget of one developer key, fed by the {@code x-ratelimit-*} headers of the responses.
+ * Permits are handed out as a token bucket refilled with {@code limit} tokens per window; while the server reports
+ * no remaining requests no permit is handed out until the announced reset.
+ *
+ * @author Michael Lieshoff
+ */
+public class RateBudget {
+
+    private final long windowMillis;
+
+    private int limit;
+    private int remaining = -1;
+    private long resetAt;
+
+    private double tokens;
+    private long refilledAt;
+    private boolean refilled;
+
+    public RateBudget(int initialLimit) {
+        this(initialLimit, 1000);
+    }
+
+    public RateBudget(int initialLimit, long windowMillis) {
+        Preconditions.checkArgument(initialLimit > 0, "initialLimit must be > 0");
+        Preconditions.checkArgument(windowMillis > 0, "windowMillis must be > 0");
+        this.limit = initialLimit;
+        this.windowMillis = windowMillis;
+        this.tokens = initialLimit;
+    }
+
+    public synchronized void update(Response response) {
+        if (response == null) {
+            return;
+        }
+        Optional<Integer> limit = response.getRateLimit();
+        Optional<Integer> remaining = response.getRateRemaining();
+        Optional<Long> reset = response.getRateReset();
+        update(limit.isPresent() ? limit.get() : this.limit, remaining.isPresent() ? remaining.get() : -1,
+                reset.isPresent() ? reset.get() : 0);
+    }
+
+    public synchronized void update(RateLimitSnapshot rateLimit) {
+        if (rateLimit == null) {
+            return;
+        }
+        update(rateLimit.getLimit() > 0 ? rateLimit.getLimit() : this.limit, rateLimit.getRemaining(),
+                rateLimit.getReset());
+    }
+
+    public synchronized void update(int limit, int remaining, long resetAt) {
+        if (limit > 0) {
+            this.limit = limit;
+            tokens = Math.min(tokens, limit);
+        }
+        this.remaining = remaining;
+        this.resetAt = resetAt;
+        if (remaining >= 0) {
+            tokens = Math.min(tokens, remaining);
+        }
+    }
+
+    public synchronized boolean tryAcquire(long now) {
+        return tryAcquire(now, 1);
+    }
+
+    /**
+     * Takes the given number of permits at once, at most the limit of a window is required to be available.
+     */
+    public synchronized boolean tryAcquire(long now, int permits) {
+        Preconditions.checkArgument(permits > 0, "permits must be > 0");
+        refill(now);
+        if (remaining == 0 && now < resetAt) {
+            return false;
+        }
+        if (tokens >= Math.min(permits, limit)) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives back permits taken for work that was not done.
+     */
+    public synchronized void release(int permits) {
+        tokens = Math.min(limit, tokens + permits);
+    }
+
+    public synchronized long nextPermitAt(long now) {
+        return nextPermitAt(now, 1);
+    }
+
+    public synchronized long nextPermitAt(long now, int permits) {
+        refill(now);
+        if (remaining == 0 && now < resetAt) {
+            return resetAt;
+        }
+        double required = Math.min(permits, limit);
+        if (tokens >= required) {
+            return now;
+        }
+        return now + (long) Math.ceil((required - tokens) * windowMillis / limit);
+    }
+
+    private void refill(long now) {
+        if (!refilled) {
+            refilledAt = now;
+            refilled = true;
+            return;
+        }
+        if (now > refilledAt) {
+            tokens = Math.min(limit, tokens + (double) (now - refilledAt) * limit / windowMillis);
+            refilledAt = now;
+        }
+        if (remaining == 0 && now >= resetAt) {
+            remaining = -1;
+        }
+    }
+
+    public synchronized double getRequestsPerSecond() {
+        return limit * 1000.0 / windowMillis;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    public synchronized long getResetAt() {
+        return resetAt;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Describes a single change of a clan member between two snapshots. {@link #getPrevious()} is null for joins,
+ * {@link #getCurrent()} is null for leaves.
+ *
+ * @author Michael Lieshoff
+ */
+public class ClanChangeEvent {
+
+    private final ClanChangeType type;
+    private final String clanTag;
+    private final MemberSnapshot previous;
+    private final MemberSnapshot current;
+
+    public ClanChangeEvent(ClanChangeType type, String clanTag, MemberSnapshot previous, MemberSnapshot current) {
+        Preconditions.checkNotNull(type, "type");
+        Preconditions.checkNotNull(clanTag, "clanTag");
+        Preconditions.checkArgument(previous != null || current != null, "previous or current must be set");
+        this.type = type;
+        this.clanTag = clanTag;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public ClanChangeType getType() {
+        return type;
+    }
+
+    public String getClanTag() {
+        return clanTag;
+    }
+
+    public String getMemberTag() {
+        return current != null ? current.getTag() : previous.getTag();
+    }
+
+    public MemberSnapshot getPrevious() {
+        return previous;
+    }
+
+    public MemberSnapshot getCurrent() {
+        return current;
+    }
+
+    public int getTrophiesDelta() {
+        return delta(previous == null ? 0 : previous.getTrophies(), current == null ? 0 : current.getTrophies());
+    }
+
+    public int getDonationsDelta() {
+        return delta(previous == null ? 0 : previous.getDonations(), current == null ? 0 : current.getDonations());
+    }
+
+    public int getDonationsReceivedDelta() {
+        return delta(previous == null ? 0 : previous.getDonationsReceived(),
+                current == null ? 0 : current.getDonationsReceived());
+    }
+
+    public int getRankDelta() {
+        return delta(previous == null ? 0 : previous.getRank(), current == null ? 0 : current.getRank());
+    }
+
+    private static int delta(int before, int after) {
+        return after - before;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ClanChangeEvent that = (ClanChangeEvent) o;
+
+        if (type != that.type) return false;
+        if (!clanTag.equals(that.clanTag)) return false;
+        if (previous != null ? !previous.equals(that.previous) : that.previous != null) return false;
+        return current != null ? current.equals(that.current) : that.current == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + clanTag.hashCode();
+        result = 31 * result + (previous != null ? previous.hashCode() : 0);
+        result = 31 * result + (current != null ? current.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ClanChangeEvent{type=" + type + ", clanTag=" + clanTag + ", previous=" + previous + ", current="
+                + current + "}";
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import jcrapi.Clock;
+import jcrapi.model.Clan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the last {@link ClanSnapshot} per clan and emits {@link ClanChangeEvent}s for every polled {@link Clan}.
+ * Members are matched by tag, so a diff costs linear time in the member count. The first snapshot of a clan is
+ * only recorded and produces no events.
+ *
+ * @author Michael Lieshoff
+ */
+public class ClanDiffer {
+
+    private final Clock clock;
+
+    private final ConcurrentMap<String, ClanSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final List<ClanChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ClanDiffer() {
+        this(Clock.system());
+    }
+
+    public ClanDiffer(Clock clock) {
+        Preconditions.checkNotNull(clock, "clock");
+        this.clock = clock;
+    }
+
+    public void addListener(ClanChangeListener listener) {
+        Preconditions.checkNotNull(listener, "listener");
+        listeners.add(listener);
+    }
+
+    public void removeListener(ClanChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public List<ClanChangeEvent> update(Clan clan) {
+        Preconditions.checkNotNull(clan, "clan");
+        Preconditions.checkNotNull(clan.getTag(), "clan.tag");
+        ClanSnapshot current = ClanSnapshot.of(clan, clock.currentTimeMillis());
+        ClanSnapshot previous = snapshots.put(current.getTag(), current);
+        if (previous == null) {
+            return Collections.emptyList();
+        }
+        List<ClanChangeEvent> events = diff(previous, current);
+        for (ClanChangeEvent event : events) {
+            for (ClanChangeListener listener : listeners) {
+                listener.onChange(event);
+            }
+        }
+        return events;
+    }
+
+    public ClanSnapshot getSnapshot(String clanTag) {
+        return snapshots.get(clanTag);
+    }
+
+    public void forget(String clanTag) {
+        snapshots.remove(clanTag);
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    static List<ClanChangeEvent> diff(ClanSnapshot previous, ClanSnapshot current) {
+        Preconditions.checkNotNull(previous, "previous");
+        Preconditions.checkNotNull(current, "current");
+        String clanTag = current.getTag();
+        Map<String, MemberSnapshot> before = previous.getMembers();
+        Map<String, MemberSnapshot> after = current.getMembers();
+        List<ClanChangeEvent> events = new ArrayList<>();
+        for (MemberSnapshot now : after.values()) {
+            MemberSnapshot then = before.get(now.getTag());
+            if (then == null) {
+                events.add(new ClanChangeEvent(ClanChangeType.JOINED, clanTag, null, now));
+                continue;
+            }
+            if (!Objects.equal(then.getRole(), now.getRole())) {
+                events.add(new ClanChangeEvent(ClanChangeType.ROLE_CHANGED, clanTag, then, now));
+            }
+            if (then.getTrophies() != now.getTrophies()) {
+                events.add(new ClanChangeEvent(ClanChangeType.TROPHIES_CHANGED, clanTag, then, now));
+            }
+            if (then.getDonations() != now.getDonations()
+                    || then.getDonationsReceived() != now.getDonationsReceived()) {
+                events.add(new ClanChangeEvent(ClanChangeType.DONATIONS_CHANGED, clanTag, then, now));
+            }
+            if (then.getRank() != now.getRank()) {
+                events.add(new ClanChangeEvent(ClanChangeType.RANK_CHANGED, clanTag, then, now));
+            }
+        }
+        for (MemberSnapshot then : before.values()) {
+            if (!after.containsKey(then.getTag())) {
+                events.add(new ClanChangeEvent(ClanChangeType.LEFT, clanTag, then, null));
+            }
+        }
+        return events;
+    }
+
+}
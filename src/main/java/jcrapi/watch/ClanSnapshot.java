@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import jcrapi.model.Clan;
+import jcrapi.model.Member;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact, immutable view of a clan's member list keyed by member tag.
+ *
+ * @author Michael Lieshoff
+ */
+public class ClanSnapshot {
+
+    private final String tag;
+    private final long createdAt;
+    private final Map<String, MemberSnapshot> members;
+
+    ClanSnapshot(String tag, long createdAt, Map<String, MemberSnapshot> members) {
+        Preconditions.checkNotNull(tag, "tag");
+        Preconditions.checkNotNull(members, "members");
+        this.tag = tag;
+        this.createdAt = createdAt;
+        this.members = ImmutableMap.copyOf(members);
+    }
+
+    public static ClanSnapshot of(Clan clan, long createdAt) {
+        Preconditions.checkNotNull(clan, "clan");
+        Map<String, MemberSnapshot> members = new LinkedHashMap<>();
+        if (clan.getMembers() != null) {
+            for (Member member : clan.getMembers()) {
+                if (member != null && member.getTag() != null) {
+                    members.put(member.getTag(), MemberSnapshot.of(member));
+                }
+            }
+        }
+        return new ClanSnapshot(clan.getTag(), createdAt, members);
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Map<String, MemberSnapshot> getMembers() {
+        return members;
+    }
+
+    public MemberSnapshot getMember(String memberTag) {
+        return members.get(memberTag);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+}
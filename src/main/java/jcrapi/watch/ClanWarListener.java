@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import jcrapi.ApiException;
+import jcrapi.model.ClanWarParticipant;
+import jcrapi.model.ClanWarStanding;
+
+/**
+ * Receives the changes detected by a {@link ClanWarWatcher}. For participants and standings that are new in the
+ * current war the previous value is null. Failed polls are reported to {@link #onError}, exceptions other than
+ * {@link ApiException} wrapped as its cause.
+ *
+ * @author Michael Lieshoff
+ */
+public interface ClanWarListener {
+
+    void onStateChanged(String clanTag, String previousState, String currentState);
+
+    void onParticipantChanged(String clanTag, ClanWarParticipant previous, ClanWarParticipant current);
+
+    void onStandingChanged(String clanTag, ClanWarStanding previous, ClanWarStanding current);
+
+    void onError(String clanTag, ApiException e);
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Preconditions;
+import jcrapi.model.ClanWar;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a clan war should be polled next. Clans not in war are polled rarely, clans in collection or war day
+ * are polled more often the closer the phase end gets, and once more shortly after the end to capture the final
+ * standings.
+ *
+ * @author Michael Lieshoff
+ */
+public class ClanWarPollPolicy {
+
+    public static final String NOT_IN_WAR = "notInWar";
+    public static final String COLLECTION_DAY = "collectionDay";
+    public static final String WAR_DAY = "warDay";
+
+    private final long quietInterval;
+    private final long minInterval;
+    private final long maxInterval;
+    private final long settleDelay;
+
+    public ClanWarPollPolicy() {
+        this(TimeUnit.MINUTES.toMillis(30), TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(15),
+                TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public ClanWarPollPolicy(long quietInterval, long minInterval, long maxInterval, long settleDelay) {
+        Preconditions.checkArgument(minInterval > 0, "minInterval must be > 0");
+        Preconditions.checkArgument(maxInterval >= minInterval, "maxInterval must be >= minInterval");
+        Preconditions.checkArgument(quietInterval >= minInterval, "quietInterval must be >= minInterval");
+        Preconditions.checkArgument(settleDelay >= 0, "settleDelay must be >= 0");
+        this.quietInterval = quietInterval;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.settleDelay = settleDelay;
+    }
+
+    public long nextPollAt(ClanWar clanWar, long now) {
+        long end = getPhaseEnd(clanWar);
+        if (end <= 0) {
+            return now + quietInterval;
+        }
+        long remaining = end - now;
+        if (remaining <= 0) {
+            return now + minInterval;
+        }
+        long delay = Math.max(minInterval, Math.min(maxInterval, remaining / 4));
+        if (delay >= remaining) {
+            return end + settleDelay;
+        }
+        return now + delay;
+    }
+
+    public long nextPollAfterErrorAt(long now) {
+        return now + minInterval;
+    }
+
+    static long getPhaseEnd(ClanWar clanWar) {
+        if (clanWar == null || clanWar.getState() == null) {
+            return 0;
+        }
+        if (COLLECTION_DAY.equals(clanWar.getState())) {
+            return TimeUnit.SECONDS.toMillis(clanWar.getCollectionEndTime());
+        }
+        if (WAR_DAY.equals(clanWar.getState())) {
+            return TimeUnit.SECONDS.toMillis(clanWar.getWarEndTime());
+        }
+        return 0;
+    }
+
+    public long getQuietInterval() {
+        return quietInterval;
+    }
+
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+
+    public long getSettleDelay() {
+        return settleDelay;
+    }
+
+}
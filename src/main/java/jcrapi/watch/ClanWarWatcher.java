@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import jcrapi.Api;
+import jcrapi.ApiException;
+import jcrapi.Clock;
+import jcrapi.Threads;
+import jcrapi.model.ClanWar;
+import jcrapi.model.ClanWarParticipant;
+import jcrapi.model.ClanWarStanding;
+import jcrapi.request.ClanWarRequest;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Polls {@link Api#getClanWar(ClanWarRequest)} for a set of clans. Every clan has one entry in a time-ordered
+ * schedule; after each poll the entry is rescheduled by the {@link ClanWarPollPolicy}, so quiet clans cost little
+ * quota while clans close to the end of collection or war day are polled often. Changes between two polls of a
+ * clan are reported to the registered {@link ClanWarListener}s.
+ *
+ * @author Michael Lieshoff
+ */
+public class ClanWarWatcher {
+
+    private final Api api;
+    private final ClanWarPollPolicy pollPolicy;
+    private final Clock clock;
+
+    private final PriorityQueue<ScheduledPoll> schedule = new PriorityQueue<>();
+    private final Map<String, ScheduledPoll> scheduled = new HashMap<>();
+    private final Map<String, ClanWar> lastWars = new ConcurrentHashMap<>();
+
+    private final List<ClanWarListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public ClanWarWatcher(Api api) {
+        this(api, new ClanWarPollPolicy());
+    }
+
+    public ClanWarWatcher(Api api, ClanWarPollPolicy pollPolicy) {
+        this(api, pollPolicy, Clock.system());
+    }
+
+    public ClanWarWatcher(Api api, ClanWarPollPolicy pollPolicy, Clock clock) {
+        Preconditions.checkNotNull(api, "api");
+        Preconditions.checkNotNull(pollPolicy, "pollPolicy");
+        Preconditions.checkNotNull(clock, "clock");
+        this.api = api;
+        this.pollPolicy = pollPolicy;
+        this.clock = clock;
+    }
+
+    public void addListener(ClanWarListener listener) {
+        Preconditions.checkNotNull(listener, "listener");
+        listeners.add(listener);
+    }
+
+    public void removeListener(ClanWarListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void watch(Collection<String> clanTags) {
+        Preconditions.checkNotNull(clanTags, "clanTags");
+        for (String clanTag : clanTags) {
+            watch(clanTag);
+        }
+    }
+
+    public void watch(String clanTag) {
+        Preconditions.checkNotNull(clanTag, "clanTag");
+        Preconditions.checkArgument(clanTag.length() > 0, "clanTag");
+        synchronized (schedule) {
+            if (!scheduled.containsKey(clanTag)) {
+                ScheduledPoll poll = new ScheduledPoll(clanTag, clock.currentTimeMillis());
+                scheduled.put(clanTag, poll);
+                schedule.add(poll);
+                schedule.notifyAll();
+            }
+        }
+    }
+
+    public void unwatch(String clanTag) {
+        synchronized (schedule) {
+            ScheduledPoll poll = scheduled.remove(clanTag);
+            if (poll != null) {
+                schedule.remove(poll);
+            }
+            lastWars.remove(clanTag);
+        }
+    }
+
+    public int size() {
+        synchronized (schedule) {
+            return scheduled.size();
+        }
+    }
+
+    public long getNextPollAt(String clanTag) {
+        synchronized (schedule) {
+            ScheduledPoll poll = scheduled.get(clanTag);
+            return poll == null ? -1 : poll.dueAt;
+        }
+    }
+
+    public ClanWar getLastWar(String clanTag) {
+        return lastWars.get(clanTag);
+    }
+
+    /**
+     * Polls every clan that is due at the given time and returns the time the next clan is due, or
+     * {@link Long#MAX_VALUE} if nothing is watched.
+     */
+    public long pollDue(long now) {
+        while (true) {
+            ScheduledPoll poll;
+            synchronized (schedule) {
+                poll = schedule.peek();
+                if (poll == null || poll.dueAt > now) {
+                    return poll == null ? Long.MAX_VALUE : poll.dueAt;
+                }
+                schedule.poll();
+            }
+            long nextPollAt = poll(poll, now);
+            synchronized (schedule) {
+                if (scheduled.get(poll.clanTag) == poll) {
+                    poll.dueAt = nextPollAt;
+                    schedule.add(poll);
+                }
+            }
+        }
+    }
+
+    private long poll(ScheduledPoll poll, long now) {
+        String clanTag = poll.clanTag;
+        try {
+            ClanWar current = api.getClanWar(ClanWarRequest.builder(clanTag).build());
+            if (current != null) {
+                ClanWar previous;
+                synchronized (schedule) {
+                    // the clan may have been unwatched while the poll ran
+                    if (scheduled.get(clanTag) != poll) {
+                        return Long.MAX_VALUE;
+                    }
+                    previous = lastWars.put(clanTag, current);
+                }
+                if (previous != null) {
+                    diff(clanTag, previous, current);
+                }
+            }
+            return pollPolicy.nextPollAt(current, now);
+        } catch (RuntimeException e) {
+            fireError(clanTag, e instanceof ApiException ? (ApiException) e : new ApiException(e));
+            return pollPolicy.nextPollAfterErrorAt(now);
+        }
+    }
+
+    void diff(String clanTag, ClanWar previous, ClanWar current) {
+        if (!Objects.equal(previous.getState(), current.getState())) {
+            fireStateChanged(clanTag, previous.getState(), current.getState());
+        }
+        if (current.getParticipants() != null) {
+            Map<String, ClanWarParticipant> before = new HashMap<>();
+            if (previous.getParticipants() != null) {
+                for (ClanWarParticipant participant : previous.getParticipants()) {
+                    before.put(participant.getTag(), participant);
+                }
+            }
+            for (ClanWarParticipant participant : current.getParticipants()) {
+                ClanWarParticipant then = before.get(participant.getTag());
+                if (then == null || isChanged(then, participant)) {
+                    fireParticipantChanged(clanTag, then, participant);
+                }
+            }
+        }
+        if (current.getStandings() != null) {
+            Map<String, ClanWarStanding> before = new HashMap<>();
+            if (previous.getStandings() != null) {
+                for (ClanWarStanding standing : previous.getStandings()) {
+                    before.put(standing.getTag(), standing);
+                }
+            }
+            for (ClanWarStanding standing : current.getStandings()) {
+                ClanWarStanding then = before.get(standing.getTag());
+                if (then == null || isChanged(then, standing)) {
+                    fireStandingChanged(clanTag, then, standing);
+                }
+            }
+        }
+    }
+
+    // a failing listener is skipped, so it neither stops the poll loop nor the delivery to the other listeners
+
+    private void fireStateChanged(String clanTag, String previousState, String currentState) {
+        for (ClanWarListener listener : listeners) {
+            try {
+                listener.onStateChanged(clanTag, previousState, currentState);
+            } catch (RuntimeException e) {
+                // ignored
+            }
+        }
+    }
+
+    private void fireParticipantChanged(String clanTag, ClanWarParticipant previous, ClanWarParticipant current) {
+        for (ClanWarListener listener : listeners) {
+            try {
+                listener.onParticipantChanged(clanTag, previous, current);
+            } catch (RuntimeException e) {
+                // ignored
+            }
+        }
+    }
+
+    private void fireStandingChanged(String clanTag, ClanWarStanding previous, ClanWarStanding current) {
+        for (ClanWarListener listener : listeners) {
+            try {
+                listener.onStandingChanged(clanTag, previous, current);
+            } catch (RuntimeException e) {
+                // ignored
+            }
+        }
+    }
+
+    private void fireError(String clanTag, ApiException error) {
+        for (ClanWarListener listener : listeners) {
+            try {
+                listener.onError(clanTag, error);
+            } catch (RuntimeException e) {
+                // ignored
+            }
+        }
+    }
+
+    private static boolean isChanged(ClanWarParticipant previous, ClanWarParticipant current) {
+        return previous.getCardsEarned() != current.getCardsEarned()
+                || previous.getBattlesPlayed() != current.getBattlesPlayed()
+                || previous.getWins() != current.getWins();
+    }
+
+    private static boolean isChanged(ClanWarStanding previous, ClanWarStanding current) {
+        return previous.getParticipants() != current.getParticipants()
+                || previous.getBattlesPlayed() != current.getBattlesPlayed()
+                || previous.getWins() != current.getWins()
+                || previous.getCrowns() != current.getCrowns()
+                || previous.getWarTrophies() != current.getWarTrophies();
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = Threads.newThread("jcrapi-clan-war-watcher", new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        });
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            synchronized (schedule) {
+                schedule.notifyAll();
+            }
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        while (running) {
+            long nextPollAt = pollDue(clock.currentTimeMillis());
+            synchronized (schedule) {
+                long wait = nextPollAt - clock.currentTimeMillis();
+                if (running && wait > 0 && (schedule.isEmpty() || schedule.peek().dueAt == nextPollAt)) {
+                    try {
+                        clock.await(schedule, nextPollAt == Long.MAX_VALUE ? 0 : wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class ScheduledPoll implements Comparable<ScheduledPoll> {
+
+        private final String clanTag;
+        private long dueAt;
+
+        private ScheduledPoll(String clanTag, long dueAt) {
+            this.clanTag = clanTag;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public int compareTo(ScheduledPoll o) {
+            return dueAt < o.dueAt ? -1 : (dueAt == o.dueAt ? 0 : 1);
+        }
+
+    }
+
+}
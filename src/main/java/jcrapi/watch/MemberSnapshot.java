@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import com.google.common.base.Preconditions;
+import jcrapi.model.Member;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class MemberSnapshot {
+
+    private final String tag;
+    private final String name;
+    private final String role;
+    private final int rank;
+    private final int trophies;
+    private final int donations;
+    private final int donationsReceived;
+
+    public MemberSnapshot(String tag, String name, String role, int rank, int trophies, int donations,
+                          int donationsReceived) {
+        Preconditions.checkNotNull(tag, "tag");
+        this.tag = tag;
+        this.name = name;
+        this.role = role;
+        this.rank = rank;
+        this.trophies = trophies;
+        this.donations = donations;
+        this.donationsReceived = donationsReceived;
+    }
+
+    public static MemberSnapshot of(Member member) {
+        Preconditions.checkNotNull(member, "member");
+        return new MemberSnapshot(member.getTag(), member.getName(), member.getRole(), member.getRank(),
+                member.getTrophies(), member.getDonations(), member.getDonationsReceived());
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTrophies() {
+        return trophies;
+    }
+
+    public int getDonations() {
+        return donations;
+    }
+
+    public int getDonationsReceived() {
+        return donationsReceived;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        MemberSnapshot that = (MemberSnapshot) o;
+
+        if (rank != that.rank) return false;
+        if (trophies != that.trophies) return false;
+        if (donations != that.donations) return false;
+        if (donationsReceived != that.donationsReceived) return false;
+        if (!tag.equals(that.tag)) return false;
+        if (name != null ? !name.equals(that.name) : that.name != null) return false;
+        return role != null ? role.equals(that.role) : that.role == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tag.hashCode();
+        result = 31 * result + (name != null ? name.hashCode() : 0);
+        result = 31 * result + (role != null ? role.hashCode() : 0);
+        result = 31 * result + rank;
+        result = 31 * result + trophies;
+        result = 31 * result + donations;
+        result = 31 * result + donationsReceived;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberSnapshot{tag=" + tag + ", name=" + name + ", role=" + role + ", rank=" + rank
+                + ", trophies=" + trophies + ", donations=" + donations + ", donationsReceived="
+                + donationsReceived + "}";
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java 21 version of the threads of the fan-out helpers, running them on virtual threads once the system property
+ * <code>jcrapi.virtualThreads</code> is <code>true</code>.
+ *
+ * @author Michael Lieshoff
+ */
+public final class Threads {
+
+    public static final String VIRTUAL_THREADS = "jcrapi.virtualThreads";
+
+    private Threads() {
+    }
+
+    public static boolean isVirtualSupported() {
+        return true;
+    }
+
+    public static boolean isVirtual() {
+        return Boolean.getBoolean(VIRTUAL_THREADS);
+    }
+
+    public static Thread newThread(String name, Runnable runnable) {
+        if (isVirtual()) {
+            return Thread.ofVirtual().name(name).unstarted(runnable);
+        }
+        return Thread.ofPlatform().name(name).daemon(true).unstarted(runnable);
+    }
+
+    public static ExecutorService newExecutor(String name, int threads) {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(threads, createThreadFactory(name));
+    }
+
+    public static ExecutorService newCachedExecutor(String name) {
+        if (isVirtual()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newCachedThreadPool(createThreadFactory(name));
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        return new ThreadFactoryBuilder().setDaemon(true).setNameFormat(name + "-%d").build();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import jcrapi.model.Profile;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class JfrEventsTest {
+
+    private final JfrEvents unitUnderTest = new JfrEvents();
+
+    @Test
+    public void shouldBeUsedWhenAvailable() {
+        assertTrue(FlightEvents.getInstance() instanceof JfrEvents);
+    }
+
+    @Test
+    public void shouldNotBeginWithoutRecording() {
+        assertNull(unitUnderTest.beginRequest());
+        assertNull(unitUnderTest.beginParse());
+        assertNull(unitUnderTest.beginRateLimitWait());
+    }
+
+    @Test
+    public void shouldRecordEvents() throws IOException {
+        Call call = new Call(ApiEndpoint.PROFILES, "player/a,b", "lala/player/a,b",
+                Collections.<RequestListener>emptyList()).retry();
+        call.headersReceived(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "7"));
+        call.bodyComplete(42);
+        CallMetadata metadata = call.getMetadata();
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("jcrapi.Request");
+            recording.enable("jcrapi.Parse");
+            recording.enable("jcrapi.RateLimitWait");
+            recording.start();
+            unitUnderTest.commitRequest(unitUnderTest.beginRequest(), metadata, false);
+            unitUnderTest.commitParse(unitUnderTest.beginParse(), ApiEndpoint.PROFILES,
+                    Arrays.asList(new Profile(), new Profile()));
+            unitUnderTest.commitRateLimitWait(unitUnderTest.beginRateLimitWait(), metadata);
+            recording.stop();
+            File file = File.createTempFile("jcrapi", ".jfr");
+            file.deleteOnExit();
+            recording.dump(file.toPath());
+            events = RecordingFile.readAllEvents(file.toPath());
+        }
+        assertEquals(3, events.size());
+        for (RecordedEvent event : events) {
+            assertEquals("player/{tags}", event.getString("endpoint"));
+            switch (event.getEventType().getName()) {
+                case "jcrapi.Request":
+                    assertEquals(2, event.getInt("tags"));
+                    assertEquals(2, event.getInt("attempt"));
+                    assertEquals(200, event.getInt("statusCode"));
+                    assertEquals(42, event.getLong("bytes"));
+                    assertEquals(7, event.getInt("rateLimitRemaining"));
+                    break;
+                case "jcrapi.Parse":
+                    assertEquals(2, event.getInt("elements"));
+                    break;
+                default:
+                    assertEquals("jcrapi.RateLimitWait", event.getEventType().getName());
+            }
+        }
+    }
+
+}
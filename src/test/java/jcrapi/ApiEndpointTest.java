@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.gson.Gson;
+import jcrapi.model.Battle;
+import jcrapi.request.ClanWarRequest;
+import jcrapi.request.PlayerBattlesRequest;
+import jcrapi.request.PlayerChestsRequest;
+import jcrapi.request.ProfilesRequest;
+import jcrapi.request.TopPlayersRequest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ApiEndpointTest {
+
+    @Test
+    public void shouldHaveUniqueTemplates() {
+        Set<String> templates = new HashSet<>();
+        for (ApiEndpoint<?, ?> endpoint : ApiEndpoint.values()) {
+            templates.add(endpoint.getTemplate());
+        }
+        assertEquals(ApiEndpoint.values().size(), templates.size());
+    }
+
+    @Test
+    public void shouldBuildPaths() {
+        assertEquals("version", ApiEndpoint.VERSION.path(null));
+        assertEquals("clan/ABC/war", ApiEndpoint.CLAN_WAR.path(ClanWarRequest.builder("ABC").build()));
+        assertEquals("player/A,B", ApiEndpoint.PROFILES.path(ProfilesRequest.builder(Arrays.asList("A", "B")).build()));
+        assertEquals("top/players", ApiEndpoint.TOP_PLAYERS.path(TopPlayersRequest.builder().build()));
+        assertEquals("top/players/EU", ApiEndpoint.TOP_PLAYERS.path(TopPlayersRequest.builder().locationKey("EU")
+                .build()));
+        assertEquals("player/A,B/battles", ApiEndpoint.PLAYER_BATTLES.path(
+                PlayerBattlesRequest.builder(Arrays.asList("A", "B")).build()));
+    }
+
+    @Test
+    public void shouldBuildPathsWithNormalizedTags() {
+        assertEquals("clan/2PP/war", ApiEndpoint.CLAN_WAR.path(ClanWarRequest.builder("#2pp").build(),
+                TagValidation.NORMALIZE));
+        assertEquals("player/8L9L9GL,2PP/battles", ApiEndpoint.PLAYER_BATTLES.path(
+                PlayerBattlesRequest.builder(Arrays.asList("#8l9l9gl", "2PP", "#2pp")).build(), TagValidation.STRICT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildPathBecauseInvalidTag() {
+        ApiEndpoint.CLAN_WAR.path(ClanWarRequest.builder("abc").build(), TagValidation.STRICT);
+    }
+
+    @Test
+    public void shouldParseSinglePlayerBattlesOfDuplicateTags() {
+        List<List<Battle>> battles = ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), " [ ]",
+                PlayerBattlesRequest.builder(Arrays.asList("2PP", "#2pp")).build());
+        assertEquals(1, battles.size());
+        assertEquals(0, battles.get(0).size());
+    }
+
+    @Test
+    public void shouldParseEmptyMultiPlayerBattles() {
+        assertEquals(0, ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), " [ ]",
+                PlayerBattlesRequest.builder(Arrays.asList("2PP", "8L9L9GL")).build()).size());
+    }
+
+    @Test
+    public void shouldParseSingleProfileOfDuplicateTags() {
+        assertEquals(1, ApiEndpoint.PROFILES.parse(new Gson(), "{}",
+                ProfilesRequest.builder(Arrays.asList("2PP", "#2pp")).build()).size());
+    }
+
+    @Test
+    public void shouldParseSinglePlayerBattles() {
+        List<List<Battle>> battles = ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), "[{},{}]",
+                PlayerBattlesRequest.builder(Arrays.asList("A")).build());
+        assertEquals(1, battles.size());
+        assertEquals(2, battles.get(0).size());
+    }
+
+    @Test
+    public void shouldParseMultiPlayerBattles() {
+        List<List<Battle>> battles = ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), "[[{}],[{},{}]]",
+                PlayerBattlesRequest.builder(Arrays.asList("A", "B")).build());
+        assertEquals(2, battles.size());
+        assertEquals(2, battles.get(1).size());
+    }
+
+    @Test
+    public void shouldReturnRawVersion() {
+        assertEquals("1.0", ApiEndpoint.VERSION.parse(new Gson(), "1.0", null));
+    }
+
+    @Test
+    public void shouldFindEndpointForPath() {
+        assertEquals(ApiEndpoint.VERSION, ApiEndpoint.forPath("version"));
+        assertEquals(ApiEndpoint.PROFILE, ApiEndpoint.forPath("player/2PP"));
+        assertEquals(ApiEndpoint.PROFILES, ApiEndpoint.forPath("player/2PP,8L9L9GL"));
+        assertEquals(ApiEndpoint.PLAYER_BATTLES, ApiEndpoint.forPath("player/2PP/battles"));
+        assertEquals(ApiEndpoint.CLAN_SEARCH, ApiEndpoint.forPath("clan/search"));
+        assertEquals(ApiEndpoint.CLAN, ApiEndpoint.forPath("clan/2PP"));
+        assertEquals(ApiEndpoint.TOP_PLAYERS, ApiEndpoint.forPath("top/players/EU"));
+        assertEquals(ApiEndpoint.OPEN_TOURNAMENTS, ApiEndpoint.forPath("tournaments/open"));
+        assertEquals(ApiEndpoint.TOURNAMENTS, ApiEndpoint.forPath("tournaments/2PP"));
+        assertNull(ApiEndpoint.forPath("popular/clans/EU"));
+        assertNull(ApiEndpoint.forPath("lala"));
+    }
+
+    @Test
+    public void shouldFindEndpointForEveryBuiltPath() {
+        assertEquals(ApiEndpoint.CLAN_WAR, ApiEndpoint.forPath(ApiEndpoint.CLAN_WAR.path(
+                ClanWarRequest.builder("2PP").build())));
+        assertEquals(ApiEndpoint.PLAYER_CHESTS, ApiEndpoint.forPath(ApiEndpoint.PLAYER_CHESTS.path(
+                PlayerChestsRequest.builder(Arrays.asList("2PP", "8L9L9GL")).build())));
+    }
+
+    @Test
+    public void shouldGetTagsOfPath() {
+        assertEquals(Arrays.asList("2PP", "8L9L9GL"), ApiEndpoint.PROFILES.tags("player/2PP,8L9L9GL"));
+        assertEquals(0, ApiEndpoint.VERSION.tags("version").size());
+    }
+
+    @Test
+    public void shouldCountTags() {
+        assertEquals(0, ApiEndpoint.TOP_PLAYERS.tagCount("top/players"));
+        assertEquals(1, ApiEndpoint.PROFILE.tagCount("player/abc"));
+        assertEquals(3, ApiEndpoint.PROFILES.tagCount("player/a,b,c"));
+        assertEquals(2, ApiEndpoint.PLAYER_BATTLES.tagCount("player/a,b/battles"));
+        assertEquals(1, ApiEndpoint.CLAN_WAR.tagCount("clan/abc/war"));
+    }
+
+}
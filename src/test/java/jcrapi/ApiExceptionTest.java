@@ -19,6 +19,9 @@ package jcrapi;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Michael Lieshoff
@@ -35,4 +38,18 @@ public class ApiExceptionTest {
         assertEquals(402, new ApiException(new IllegalStateException("crapi: 402")).getCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldGetCircuitState() {
+        ApiException apiException = new ApiException(new CircuitOpenException("version@host", CircuitState.OPEN, 1));
+        assertEquals(CircuitState.OPEN, apiException.getCircuitState());
+        assertEquals(-1, apiException.getCode());
+        assertNull(new ApiException(new IllegalStateException("crapi: 503")).getCircuitState());
+    }
+
+    @Test
+    public void shouldTellDeadlineExceeded() {
+        assertTrue(new ApiException(new DeadlineExceededException(100)).isDeadlineExceeded());
+        assertFalse(new ApiException(new IllegalStateException("crapi: 503")).isDeadlineExceeded());
+    }
+
+}
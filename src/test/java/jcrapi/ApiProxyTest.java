@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import jcrapi.model.Profile;
+import jcrapi.request.ProfileRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalMatchers.or;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ApiProxyTest {
+
+    private final VirtualClock clock = new VirtualClock();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private Crawler crawler;
+    private Api api;
+    private ApiProxy unitUnderTest;
+
+    @Before
+    public void setUp() {
+        crawler = Mockito.mock(Crawler.class);
+        CrawlerFactory crawlerFactory = Mockito.mock(CrawlerFactory.class);
+        when(crawlerFactory.createCrawler()).thenReturn(crawler);
+        api = new Api("lala/", "abc", new ClientFactory(crawlerFactory), AuthMode.NORMAL);
+    }
+
+    @After
+    public void tearDown() {
+        if (unitUnderTest != null) {
+            unitUnderTest.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullApi() {
+        ApiProxy.builder(null).build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failGetPortBecauseNotStarted() {
+        ApiProxy.builder(api).build().getPort();
+    }
+
+    @Test
+    public void shouldParseQuery() {
+        assertEquals(null, ApiProxy.parseQuery(null));
+        Map<String, String> parameters = ApiProxy.parseQuery("keys=name%2Ctag&name=a+b&empty");
+        assertEquals("name,tag", parameters.get("keys"));
+        assertEquals("a b", parameters.get("name"));
+        assertEquals("", parameters.get("empty"));
+    }
+
+    @Test
+    public void shouldServeFromCache() throws IOException {
+        when(crawler.get(eq("lala/version"), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenReturn("1.0");
+        unitUnderTest = createProxy(0);
+        assertEquals("1.0", unitUnderTest.get(ApiEndpoint.VERSION, "version", null).getBody());
+        assertEquals("1.0", unitUnderTest.get(ApiEndpoint.VERSION, "version", null).getBody());
+        clock.advance(1, TimeUnit.MINUTES);
+        assertEquals("1.0", unitUnderTest.get(ApiEndpoint.VERSION, "version", null).getBody());
+        verify(crawler, times(2)).get(anyString(), any(Map.class), any(Map.class), any(Call.class));
+        assertEquals(3, unitUnderTest.getRequests());
+        assertEquals(1, unitUnderTest.getCacheHits());
+        assertEquals(2, unitUnderTest.getUpstreamCalls());
+    }
+
+    @Test
+    public void shouldPassUpstreamStatus() throws IOException {
+        when(crawler.get(eq("lala/clan/2PP/war"), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenThrow(new IOException("crapi: 404"));
+        unitUnderTest = createProxy(0);
+        RecordedResponse response = unitUnderTest.get(ApiEndpoint.CLAN_WAR, "clan/2PP/war", null);
+        assertEquals(404, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"status\":404"));
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentRequests() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(crawler.get(eq("lala/version"), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws Throwable {
+                        release.await();
+                        return "1.0";
+                    }
+                });
+        unitUnderTest = createProxy(0);
+        Future<RecordedResponse> first = executor.submit(get(ApiEndpoint.VERSION, "version"));
+        Future<RecordedResponse> second = executor.submit(get(ApiEndpoint.VERSION, "version"));
+        for (int i = 0; i < 5000 && unitUnderTest.getCoalesced() == 0; i++) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        assertEquals("1.0", first.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals("1.0", second.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, unitUnderTest.getUpstreamCalls());
+    }
+
+    @Test
+    public void shouldBatchSingleTags() throws Exception {
+        when(crawler.get(or(eq("lala/player/2PP,8L9L9GL"), eq("lala/player/8L9L9GL,2PP")), any(Map.class),
+                (Map<String, String>) isNull(), any(Call.class)))
+                .thenReturn("[{\"tag\":\"8L9L9GL\"},{\"tag\":\"2PP\"}]");
+        unitUnderTest = createProxy(5000);
+        Future<RecordedResponse> first = executor.submit(get(ApiEndpoint.PROFILE, "player/2PP"));
+        Future<RecordedResponse> second = executor.submit(get(ApiEndpoint.PROFILE, "player/8L9L9GL"));
+        assertEquals("{\"tag\":\"2PP\"}", first.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals("{\"tag\":\"8L9L9GL\"}", second.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, unitUnderTest.getUpstreamCalls());
+        assertEquals(2, unitUnderTest.getBatched());
+    }
+
+    @Test
+    public void shouldFetchTagsMissingInBatchOneByOne() throws Exception {
+        when(crawler.get(or(eq("lala/player/2PP,8L9L9GL"), eq("lala/player/8L9L9GL,2PP")), any(Map.class),
+                (Map<String, String>) isNull(), any(Call.class))).thenReturn("[{\"tag\":\"2PP\"}]");
+        when(crawler.get(eq("lala/player/8L9L9GL"), any(Map.class), (Map<String, String>) isNull(),
+                any(Call.class))).thenThrow(new IOException("crapi: 404"));
+        unitUnderTest = createProxy(5000);
+        Future<RecordedResponse> first = executor.submit(get(ApiEndpoint.PROFILE, "player/2PP"));
+        Future<RecordedResponse> second = executor.submit(get(ApiEndpoint.PROFILE, "player/8L9L9GL"));
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(404, second.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(2, unitUnderTest.getUpstreamCalls());
+    }
+
+    @Test
+    public void shouldFetchTagsOneByOneWhenBatchAnswerIsEmpty() throws Exception {
+        when(crawler.get(eq("lala/player/2PP"), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenReturn("{\"tag\":\"2PP\"}");
+        when(crawler.get(eq("lala/player/8L9L9GL"), any(Map.class), (Map<String, String>) isNull(),
+                any(Call.class))).thenReturn("{\"tag\":\"8L9L9GL\"}");
+        unitUnderTest = createProxy(5000);
+        Future<RecordedResponse> first = executor.submit(get(ApiEndpoint.PROFILE, "player/2PP"));
+        Future<RecordedResponse> second = executor.submit(get(ApiEndpoint.PROFILE, "player/8L9L9GL"));
+        assertEquals("{\"tag\":\"2PP\"}", first.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals("{\"tag\":\"8L9L9GL\"}", second.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(3, unitUnderTest.getUpstreamCalls());
+    }
+
+    @Test
+    public void shouldServeApiOverHttp() throws IOException {
+        when(crawler.get(eq("lala/player/2PP"), any(Map.class), eq(Collections.singletonMap("keys", "name,tag")),
+                any(Call.class))).thenReturn("{\"tag\":\"2PP\",\"name\":\"lala\"}");
+        unitUnderTest = ApiProxy.builder(api).port(0).batchWindowMillis(0).build();
+        unitUnderTest.start();
+        try (Api service = new Api(unitUnderTest.getUrl(), "other")) {
+            Profile profile = service.getProfile(ProfileRequest.builder("2PP")
+                    .keys(Arrays.asList("name", "tag")).build());
+            assertEquals("lala", profile.getName());
+        }
+    }
+
+    @Test
+    public void shouldAnswerUnknownPathWithNotFound() throws IOException {
+        unitUnderTest = ApiProxy.builder(api).port(0).build();
+        unitUnderTest.start();
+        HttpURLConnection connection = (HttpURLConnection) new URL(unitUnderTest.getUrl() + "lala").openConnection();
+        assertEquals(404, connection.getResponseCode());
+        connection.disconnect();
+    }
+
+    @Test
+    public void shouldAnswerMalformedEncodingWithBadRequest() throws IOException {
+        unitUnderTest = ApiProxy.builder(api).port(0).build();
+        unitUnderTest.start();
+        HttpURLConnection connection = (HttpURLConnection) new URL(unitUnderTest.getUrl() + "version?keys=%zz")
+                .openConnection();
+        assertEquals(400, connection.getResponseCode());
+        connection.disconnect();
+    }
+
+    @Test
+    public void shouldAnswerRuntimeFailuresWithBadGateway() throws IOException {
+        when(crawler.get(eq("lala/clan/2PP/war"), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenThrow(new IllegalStateException("lala"));
+        unitUnderTest = createProxy(0);
+        RecordedResponse response = unitUnderTest.get(ApiEndpoint.CLAN_WAR, "clan/2PP/war", null);
+        assertEquals(502, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"status\":502"));
+    }
+
+    private ApiProxy createProxy(long batchWindowMillis) {
+        return ApiProxy.builder(api).port(0).batchWindowMillis(batchWindowMillis).maxTagsPerCall(2).clock(clock)
+                .build();
+    }
+
+    private Callable<RecordedResponse> get(final ApiEndpoint<?, ?> endpoint, final String path) {
+        return new Callable<RecordedResponse>() {
+            @Override
+            public RecordedResponse call() {
+                return unitUnderTest.get(endpoint, path, null);
+            }
+        };
+    }
+
+}
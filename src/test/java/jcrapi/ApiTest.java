@@ -73,6 +73,8 @@ import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -80,13 +82,14 @@ import static org.mockito.Mockito.when;
  */
 public class ApiTest {
 
+    private ClientFactory clientFactory;
     private Client client;
 
     private Api api;
 
     @Before
     public void setUp() {
-        ClientFactory clientFactory = Mockito.mock(ClientFactory.class);
+        clientFactory = Mockito.mock(ClientFactory.class);
         client = Mockito.mock(Client.class);
         when(clientFactory.createClient("lala", "abc", AuthMode.NORMAL)).thenReturn(client);
         api = new Api("lala", "abc", clientFactory, AuthMode.NORMAL);
@@ -1196,4 +1199,30 @@ public class ApiTest {
         assertEquals(response, api.getLastResponse());
     }
 
+    @Test
+    public void shouldCreateClientOnce() throws IOException {
+        api.getVersion();
+        api.getVersion();
+        verify(clientFactory, times(1)).createClient("lala", "abc", AuthMode.NORMAL);
+        verify(client, times(2)).getVersion();
+    }
+
+    @Test
+    public void shouldSetTagValidation() {
+        api.setTagValidation(TagValidation.STRICT);
+        verify(clientFactory).setTagValidation(TagValidation.STRICT);
+    }
+
+    @Test
+    public void shouldClose() {
+        api.close();
+        verify(clientFactory).close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failGetVersionBecauseClosed() {
+        api.close();
+        api.getVersion();
+    }
+
 }
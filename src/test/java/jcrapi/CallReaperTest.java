@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class CallReaperTest {
+
+    private final CallReaper unitUnderTest = new CallReaper(60000, Clock.system());
+    private final HttpUriRequest request = Mockito.mock(HttpUriRequest.class);
+    private final VirtualClock clock = new VirtualClock(1000);
+
+    private SimulatedApiServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        Thread.interrupted();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldAbortRequestAfterDeadline() {
+        Call call = createCall();
+        call.setTimeoutMillis(100);
+        CallReaper.Registration registration = unitUnderTest.register(call, request);
+        unitUnderTest.reap();
+        verify(request, never()).abort();
+        clock.advance(100, TimeUnit.MILLISECONDS);
+        unitUnderTest.reap();
+        verify(request).abort();
+        assertTrue(registration.isExpired());
+        assertFalse(registration.isCancelled());
+        assertEquals(0, unitUnderTest.size());
+    }
+
+    private Call createCall() {
+        return new Call(ApiEndpoint.VERSION, "version", "lala/version", Collections.<RequestListener>emptyList(),
+                clock);
+    }
+
+    @Test
+    public void shouldAbortRequestOfInterruptedCaller() {
+        CallReaper.Registration registration = unitUnderTest.register(createCall(), request);
+        Thread.currentThread().interrupt();
+        unitUnderTest.reap();
+        verify(request).abort();
+        assertTrue(registration.isCancelled());
+        assertFalse(registration.isExpired());
+    }
+
+    @Test
+    public void shouldNotAbortClosedRegistration() {
+        Call call = createCall();
+        call.setTimeoutMillis(100);
+        CallReaper.Registration registration = unitUnderTest.register(call, request);
+        registration.close();
+        clock.advance(1, TimeUnit.SECONDS);
+        unitUnderTest.reap();
+        verify(request, never()).abort();
+        assertEquals(0, unitUnderTest.size());
+    }
+
+    @Test(timeout = 10000)
+    public void shouldAbortSlowResponseAfterTimeout() throws Exception {
+        server = SimulatedApiServer.builder().latencyMillis(2000).build();
+        server.start();
+        Api api = new Api(server.getUrl(), "key");
+        api.setTimeoutMillis(200);
+        long startedAt = System.nanoTime();
+        try {
+            api.getTopPlayers();
+            fail();
+        } catch (ApiException e) {
+            assertTrue(e.isDeadlineExceeded());
+        }
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(1500));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldAbortSlowBodyAfterTimeout() throws Exception {
+        server = SimulatedApiServer.builder().payloadBytes(20000).slowBodyRate(1).bodyChunkBytes(100)
+                .bodyChunkDelayMillis(20).build();
+        server.start();
+        Api api = new Api(server.getUrl(), "key");
+        api.setTimeoutMillis(300);
+        long startedAt = System.nanoTime();
+        try {
+            api.getTopPlayers();
+            fail();
+        } catch (ApiException e) {
+            assertTrue(e.isDeadlineExceeded());
+        }
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(2000));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldAbortCallOfInterruptedCaller() throws Exception {
+        server = SimulatedApiServer.builder().latencyMillis(2000).build();
+        server.start();
+        final Api api = new Api(server.getUrl(), "key");
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread caller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    api.getTopPlayers();
+                } catch (ApiException e) {
+                    failure.set(e);
+                }
+            }
+        });
+        long startedAt = System.nanoTime();
+        caller.start();
+        Thread.sleep(200);
+        caller.interrupt();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.MILLISECONDS.toNanos(1500));
+        assertTrue(failure.get().getCause() instanceof InterruptedIOException);
+        assertFalse(((ApiException) failure.get()).isDeadlineExceeded());
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class CircuitBreakerTest {
+
+    private final VirtualClock clock = new VirtualClock(1000);
+
+    private final CircuitBreaker unitUnderTest = new CircuitBreaker("version@host", CircuitBreakerPolicy.builder()
+            .windowSize(10).minimumCalls(4).failureRateThreshold(0.5).slowCallMillis(1000).slowCallRateThreshold(0.75)
+            .openMillis(5000).halfOpenCalls(2).build(), clock);
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullName() {
+        new CircuitBreaker(null, CircuitBreakerPolicy.DEFAULT, clock);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildPolicyBecauseMinimumCallsAboveWindow() {
+        CircuitBreakerPolicy.builder().windowSize(10).minimumCalls(11).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildPolicyBecauseFailureRateAboveOne() {
+        CircuitBreakerPolicy.builder().failureRateThreshold(1.5).build();
+    }
+
+    @Test
+    public void shouldStayClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(unitUnderTest.tryAcquire());
+            unitUnderTest.record(true, 0);
+        }
+        assertEquals(CircuitState.CLOSED, unitUnderTest.getState());
+        assertEquals(1.0, unitUnderTest.getFailureRate(), 0.0001);
+    }
+
+    @Test
+    public void shouldOpenAtFailureRate() {
+        record(false, false, true, true);
+        assertEquals(CircuitState.OPEN, unitUnderTest.getState());
+        assertEquals(6000, unitUnderTest.getOpenUntil());
+        assertFalse(unitUnderTest.tryAcquire());
+        assertEquals(1, unitUnderTest.getRejected());
+        assertEquals(1, unitUnderTest.getOpened());
+    }
+
+    private void record(boolean... failures) {
+        for (boolean failure : failures) {
+            assertTrue(unitUnderTest.tryAcquire());
+            unitUnderTest.record(failure, 0);
+        }
+    }
+
+    @Test
+    public void shouldRollWindow() {
+        record(true, false, false, false, false, false, false, false, false, false);
+        assertEquals(0.1, unitUnderTest.getFailureRate(), 0.0001);
+        record(false, false, false);
+        assertEquals(0.0, unitUnderTest.getFailureRate(), 0.0001);
+        assertEquals(CircuitState.CLOSED, unitUnderTest.getState());
+    }
+
+    @Test
+    public void shouldOpenAtSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            unitUnderTest.tryAcquire();
+            unitUnderTest.record(false, TimeUnit.SECONDS.toNanos(2));
+        }
+        assertEquals(1.0, unitUnderTest.getSlowCallRate(), 0.0001);
+        assertEquals(CircuitState.OPEN, unitUnderTest.getState());
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulProbes() {
+        record(true, true, true, true);
+        clock.advance(5, TimeUnit.SECONDS);
+        assertTrue(unitUnderTest.tryAcquire());
+        assertEquals(CircuitState.HALF_OPEN, unitUnderTest.getState());
+        assertTrue(unitUnderTest.tryAcquire());
+        assertFalse(unitUnderTest.tryAcquire());
+        unitUnderTest.record(false, 0);
+        unitUnderTest.record(false, 0);
+        assertEquals(CircuitState.CLOSED, unitUnderTest.getState());
+        assertEquals(0.0, unitUnderTest.getFailureRate(), 0.0001);
+    }
+
+    @Test
+    public void shouldReopenAfterFailedProbe() {
+        record(true, true, true, true);
+        clock.advance(5, TimeUnit.SECONDS);
+        assertTrue(unitUnderTest.tryAcquire());
+        unitUnderTest.record(true, 0);
+        assertEquals(CircuitState.OPEN, unitUnderTest.getState());
+        assertEquals(11000, unitUnderTest.getOpenUntil());
+        assertFalse(unitUnderTest.tryAcquire());
+        assertEquals(2, unitUnderTest.getOpened());
+    }
+
+    @Test
+    public void shouldReleaseProbe() {
+        record(true, true, true, true);
+        clock.advance(5, TimeUnit.SECONDS);
+        assertTrue(unitUnderTest.tryAcquire());
+        assertTrue(unitUnderTest.tryAcquire());
+        unitUnderTest.release();
+        assertTrue(unitUnderTest.tryAcquire());
+        assertFalse(unitUnderTest.tryAcquire());
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class CircuitBreakersTest {
+
+    private final CircuitBreakers unitUnderTest = new CircuitBreakers(new VirtualClock());
+
+    @Test
+    public void shouldKeepBreakerPerEndpointAndHost() {
+        CircuitBreaker circuitBreaker = unitUnderTest.get(ApiEndpoint.PROFILE, "http://api.cr-api.com/");
+        assertEquals("player/{tag}@api.cr-api.com", circuitBreaker.getName());
+        assertSame(circuitBreaker, unitUnderTest.get(ApiEndpoint.PROFILE, "http://api.cr-api.com/"));
+        assertNotSame(circuitBreaker, unitUnderTest.get(ApiEndpoint.PROFILE, "http://localhost:8080/"));
+        assertNotSame(circuitBreaker, unitUnderTest.get(ApiEndpoint.CLAN, "http://api.cr-api.com/"));
+        assertEquals(3, unitUnderTest.getAll().size());
+    }
+
+    @Test
+    public void shouldUseUrlAsHostWhenNoUrl() {
+        assertEquals("lala/", CircuitBreakers.getHost("lala/"));
+    }
+
+    @Test
+    public void shouldNotCreateBreakerWhenDisabled() {
+        unitUnderTest.setPolicy(CircuitBreakerPolicy.DISABLED);
+        assertNull(unitUnderTest.get(ApiEndpoint.PROFILE, "http://api.cr-api.com/"));
+    }
+
+    @Test
+    public void shouldResetBreakersOnNewPolicy() {
+        unitUnderTest.get(ApiEndpoint.PROFILE, "http://api.cr-api.com/");
+        CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder().minimumCalls(5).build();
+        unitUnderTest.setPolicy(policy);
+        assertEquals(0, unitUnderTest.getAll().size());
+        assertSame(policy, unitUnderTest.get(ApiEndpoint.PROFILE, "http://api.cr-api.com/").getPolicy());
+    }
+
+}
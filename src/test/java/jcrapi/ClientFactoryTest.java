@@ -18,6 +18,11 @@ package jcrapi;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author Michael Lieshoff
  */
@@ -38,4 +43,42 @@ public class ClientFactoryTest {
         new ClientFactory().createClient(null, "abc", null);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldApplyTimeoutToClientsAlreadyCreated() {
+        ClientFactory unitUnderTest = new ClientFactory();
+        Client client = unitUnderTest.createClient("lala/", "abc", AuthMode.NORMAL);
+        unitUnderTest.setTimeoutMillis(1500);
+        assertEquals(1500, client.getTimeoutMillis());
+        assertEquals(1500, unitUnderTest.createClient("lala/", "abc", AuthMode.NORMAL).getTimeoutMillis());
+        unitUnderTest.close();
+    }
+
+    @Test
+    public void shouldApplyTagValidationToClientsAlreadyCreated() {
+        ClientFactory unitUnderTest = new ClientFactory();
+        Client client = unitUnderTest.createClient("lala/", "abc", AuthMode.NORMAL);
+        unitUnderTest.setTagValidation(TagValidation.STRICT);
+        assertEquals(TagValidation.STRICT, client.getTagValidation());
+        unitUnderTest.close();
+    }
+
+    @Test
+    public void shouldShareCrawlerUntilLimiterChanges() {
+        ClientFactory unitUnderTest = new ClientFactory();
+        CrawlerFactory crawlerFactory = unitUnderTest.getCrawlerFactory();
+        Crawler crawler = crawlerFactory.createCrawler();
+        assertSame(crawler, crawlerFactory.createCrawler());
+        crawlerFactory = new HedgingCrawlerFactory(unitUnderTest.getCrawlerFactory(),
+                new Hedging(new ResponseState()), new MetricsRegistry(), Clock.system());
+        Crawler hedgingCrawler = crawlerFactory.createCrawler();
+        assertSame(hedgingCrawler, crawlerFactory.createCrawler());
+        unitUnderTest.getCrawlerFactory().setConcurrencyLimiter(ConcurrencyLimiter.builder().build());
+        Crawler limitedCrawler = crawlerFactory.createCrawler();
+        assertNotSame(hedgingCrawler, limitedCrawler);
+        assertTrue(((HedgingCrawler) limitedCrawler).getCrawler() instanceof LimitingCrawler);
+        assertSame(limitedCrawler, crawlerFactory.createCrawler());
+        crawlerFactory.close();
+        unitUnderTest.close();
+    }
+
+}
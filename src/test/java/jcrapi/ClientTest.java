@@ -42,16 +42,30 @@ import org.apache.commons.lang.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -82,7 +96,7 @@ public class ClientTest {
 
     @Test(expected = NullPointerException.class)
     public void failCreateBecauseNullCrawlerFactory() {
-        new Client("abc", "abc", AuthMode.NORMAL, null);
+        new Client("abc", "abc", AuthMode.NORMAL, (CrawlerFactory) null);
     }
 
     @Test(expected = NullPointerException.class)
@@ -92,10 +106,412 @@ public class ClientTest {
 
     @Test
     public void shouldGetVersion() throws IOException {
-        when(crawler.get("lala/version", createHeaders(), null)).thenReturn("1.0");
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class))).thenReturn("1.0");
         assertEquals("1.0", createClient().getVersion());
     }
 
+    @Test
+    public void shouldRecordEndpointMetrics() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        Client client = createClient();
+        client.getVersion();
+        EndpointMetrics metrics = client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION);
+        assertEquals(1, metrics.getCalls());
+        assertEquals(0, metrics.getErrors());
+        assertEquals(3, metrics.getResponseBytes());
+        assertEquals(1, metrics.getParse().getCount());
+        assertEquals(ImmutableMap.of(200, 1L), metrics.getStatusCodes());
+    }
+
+    private Answer<String> respond(final int statusCode, final Map<String, String> headers, final String body) {
+        return new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                Call call = (Call) invocation.getArguments()[3];
+                call.connectionAcquired();
+                call.headersReceived(statusCode, headers);
+                if (statusCode != 200) {
+                    throw new IOException("crapi: " + statusCode);
+                }
+                call.bodyComplete(body.length());
+                return body;
+            }
+        };
+    }
+
+    @Test
+    public void shouldRecordEndpointErrors() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(404, Collections.<String, String>emptyMap(), null));
+        Client client = createClient();
+        try {
+            client.getVersion();
+        } catch (IOException e) {
+            // expected
+        }
+        EndpointMetrics metrics = client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION);
+        assertEquals(1, metrics.getCalls());
+        assertEquals(1, metrics.getErrors());
+        assertEquals(0, metrics.getRetries());
+        assertEquals(ImmutableMap.of(404, 1L), metrics.getStatusCodes());
+    }
+
+    @Test
+    public void shouldNotifyRequestListeners() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "5"), "1.0"));
+        List<String> events = new ArrayList<>();
+        List<CallMetadata> calls = new ArrayList<>();
+        createClient(createRecordingListener(events, calls)).getVersion();
+        assertEquals(Arrays.asList("start", "connected", "headers", "body", "parsed"), events);
+        CallMetadata call = calls.get(calls.size() - 1);
+        assertEquals(ApiEndpoint.VERSION, call.getEndpoint());
+        assertEquals("version", call.getPath());
+        assertEquals("lala/version", call.getUrl());
+        assertEquals(1, call.getAttempt());
+        assertEquals(200, call.getStatusCode());
+        assertEquals(3, call.getResponseBytes());
+        assertEquals(5, call.getRateRemaining().get().intValue());
+        assertEquals(0, calls.get(0).getStatusCode());
+    }
+
+    @Test
+    public void shouldNotifyRequestListenersAboutThrottlingAndRetries() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(429, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "0",
+                        Response.X_RATELIMIT_RESET, "0"), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        List<String> events = new ArrayList<>();
+        List<CallMetadata> calls = new ArrayList<>();
+        Client client = createClient(createRecordingListener(events, calls));
+        assertEquals("1.0", client.getVersion());
+        assertEquals(Arrays.asList("start", "connected", "headers", "failed", "throttled", "retry", "start",
+                "connected", "headers", "body", "parsed"), events);
+        assertEquals(calls.get(0).getCallId(), calls.get(calls.size() - 1).getCallId());
+        assertEquals(2, calls.get(calls.size() - 1).getAttempt());
+        assertEquals(1, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getRetries());
+        assertEquals(1, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getRateLimitWaits());
+    }
+
+    @Test
+    public void shouldWaitForRateLimitResetOnClock() throws IOException {
+        VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(429, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "0",
+                        Response.X_RATELIMIT_RESET, "3601000"), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        Client client = new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).clock(clock).build());
+        assertEquals("1.0", client.getVersion());
+        assertEquals(3601000, clock.currentTimeMillis());
+        assertEquals(3600000, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION)
+                .getRateLimitWaitMillis());
+    }
+
+    @Test
+    public void failWaitForRateLimitResetBecauseDeadlineIsEarlier() throws IOException {
+        VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(429, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "0",
+                        Response.X_RATELIMIT_RESET, "3601000"), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        Client client = new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).clock(clock).build());
+        client.setTimeoutMillis(60000);
+        try {
+            client.getVersion();
+            fail();
+        } catch (DeadlineExceededException e) {
+            assertEquals(60000, e.getTimeoutMillis());
+            assertEquals("crapi: 429", e.getCause().getMessage());
+        }
+        assertEquals(1000, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldPreferTimeoutOfRequest() throws IOException {
+        final VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/player/abc"), eq(createHeaders()), any(Map.class), any(Call.class)))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws Throwable {
+                        Call call = (Call) invocation.getArguments()[3];
+                        assertEquals(1500, call.getTimeoutMillis());
+                        assertEquals(2500, call.getDeadline());
+                        clock.advance(2, TimeUnit.SECONDS);
+                        throw new SocketTimeoutException();
+                    }
+                });
+        Client client = new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).clock(clock).build());
+        client.setTimeoutMillis(60000);
+        try {
+            client.getProfile(ProfileRequest.builder("abc").timeoutMillis(1500).build());
+            fail();
+        } catch (DeadlineExceededException e) {
+            assertEquals(1500, e.getTimeoutMillis());
+        }
+        verify(crawler, times(1)).get(anyString(), any(Map.class), any(Map.class), any(Call.class));
+    }
+
+    @Test
+    public void shouldRetryTransientFailuresWithBackoff() throws IOException {
+        VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null))
+                .thenAnswer(respond(502, Collections.<String, String>emptyMap(), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        RetryPolicies retryPolicies = new RetryPolicies();
+        Client client = createClient(clock, retryPolicies);
+        assertEquals("1.0", client.getVersion());
+        assertTrue(clock.currentTimeMillis() >= 1200);
+        assertEquals(2, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getRetries());
+        assertEquals(0, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getRateLimitWaits());
+        assertEquals(8, retryPolicies.getBudget().getBalance(), 0.0001);
+    }
+
+    private Client createClient(Clock clock, RetryPolicies retryPolicies) {
+        return new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).clock(clock).retryPolicies(retryPolicies).build());
+    }
+
+    @Test
+    public void shouldNotRetryFatalFailures() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(404, Collections.<String, String>emptyMap(), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        Client client = createClient(new VirtualClock(), new RetryPolicies());
+        try {
+            client.getVersion();
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 404", e.getMessage());
+        }
+        assertEquals(0, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getRetries());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null));
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.set(ApiEndpoint.VERSION, RetryPolicy.builder().maxAttempts(4).build());
+        Client client = createClient(new VirtualClock(), retryPolicies);
+        try {
+            client.getVersion();
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 503", e.getMessage());
+        }
+        assertEquals(4, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getCalls());
+    }
+
+    @Test
+    public void shouldStopRetryingWhenBudgetIsUsedUp() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null));
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.setBudget(new RetryBudget(0, 1));
+        Client client = createClient(new VirtualClock(), retryPolicies);
+        for (int i = 0; i < 3; i++) {
+            try {
+                client.getVersion();
+                fail();
+            } catch (IOException e) {
+                assertEquals("crapi: 503", e.getMessage());
+            }
+        }
+        assertEquals(4, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getCalls());
+        assertEquals(3, retryPolicies.getBudget().getRejected());
+    }
+
+    @Test
+    public void shouldStopRetryingAtDeadline() throws IOException {
+        VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(429, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "0",
+                        Response.X_RATELIMIT_RESET, "61000"), null));
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.setDefault(RetryPolicy.builder().deadlineMillis(30000).build());
+        Client client = createClient(clock, retryPolicies);
+        try {
+            client.getVersion();
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 429", e.getMessage());
+        }
+        assertEquals(1000, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldHonourRetryAfter() throws IOException {
+        VirtualClock clock = new VirtualClock(1000);
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, ImmutableMap.of("retry-after", "120"), null))
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        Client client = createClient(clock, new RetryPolicies());
+        assertEquals("1.0", client.getVersion());
+        assertEquals(121000, clock.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldFailFastWhileCircuitIsOpen() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null));
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.setDefault(RetryPolicy.builder().maxAttempts(1).build());
+        CircuitBreakers circuitBreakers = new CircuitBreakers(new VirtualClock());
+        circuitBreakers.setPolicy(CircuitBreakerPolicy.builder().windowSize(4).minimumCalls(4).build());
+        Client client = createClient(retryPolicies, circuitBreakers);
+        for (int i = 0; i < 4; i++) {
+            try {
+                client.getVersion();
+                fail();
+            } catch (IOException e) {
+                assertEquals("crapi: 503", e.getMessage());
+            }
+        }
+        try {
+            client.getVersion();
+            fail();
+        } catch (CircuitOpenException e) {
+            assertEquals(CircuitState.OPEN, e.getState());
+            assertEquals("version@lala/", e.getCircuitBreaker());
+        }
+        assertEquals(4, client.getMetricsRegistry().getEndpoint(ApiEndpoint.VERSION).getCalls());
+    }
+
+    private Client createClient(RetryPolicies retryPolicies, CircuitBreakers circuitBreakers) {
+        return new Client("lala/", "abc", AuthMode.NORMAL, ClientSettings.builder(crawlerFactory)
+                .clock(new VirtualClock()).retryPolicies(retryPolicies).circuitBreakers(circuitBreakers).build());
+    }
+
+    @Test
+    public void shouldNotCountFatalFailuresForCircuit() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(404, Collections.<String, String>emptyMap(), null));
+        CircuitBreakers circuitBreakers = new CircuitBreakers(new VirtualClock());
+        circuitBreakers.setPolicy(CircuitBreakerPolicy.builder().windowSize(4).minimumCalls(4).build());
+        Client client = createClient(new RetryPolicies(), circuitBreakers);
+        for (int i = 0; i < 6; i++) {
+            try {
+                client.getVersion();
+                fail();
+            } catch (IOException e) {
+                assertEquals("crapi: 404", e.getMessage());
+            }
+        }
+        assertEquals(CircuitState.CLOSED, circuitBreakers.getAll().get(0).getState());
+    }
+
+    @Test
+    public void shouldReleaseHalfOpenPermitOnRuntimeException() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null))
+                .thenThrow(new IllegalStateException())
+                .thenAnswer(respond(200, Collections.<String, String>emptyMap(), "1.0"));
+        VirtualClock clock = new VirtualClock();
+        CircuitBreakers circuitBreakers = new CircuitBreakers(clock);
+        circuitBreakers.setPolicy(CircuitBreakerPolicy.builder().windowSize(1).minimumCalls(1).openMillis(1000)
+                .halfOpenCalls(1).build());
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.setDefault(RetryPolicy.builder().maxAttempts(1).build());
+        Client client = createClient(retryPolicies, circuitBreakers);
+        try {
+            client.getVersion();
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 503", e.getMessage());
+        }
+        clock.advance(1, TimeUnit.SECONDS);
+        try {
+            client.getVersion();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(CircuitState.HALF_OPEN, circuitBreakers.getAll().get(0).getState());
+        }
+        assertEquals("1.0", client.getVersion());
+        assertEquals(CircuitState.CLOSED, circuitBreakers.getAll().get(0).getState());
+    }
+
+    @Test
+    public void shouldFallBackToRecordingWhileCircuitIsOpen() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(503, Collections.<String, String>emptyMap(), null));
+        Recording recording = new Recording();
+        recording.add("version", new RecordedResponse(200, Collections.<String, String>emptyMap(), "0.9"));
+        recording.add("version", new RecordedResponse(503, Collections.<String, String>emptyMap(), null));
+        CircuitBreakers circuitBreakers = new CircuitBreakers(new VirtualClock());
+        circuitBreakers.setPolicy(CircuitBreakerPolicy.builder().windowSize(1).minimumCalls(1).build());
+        circuitBreakers.setFallback(recording);
+        RetryPolicies retryPolicies = new RetryPolicies();
+        retryPolicies.setDefault(RetryPolicy.builder().maxAttempts(1).build());
+        Client client = createClient(retryPolicies, circuitBreakers);
+        try {
+            client.getVersion();
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 503", e.getMessage());
+        }
+        assertEquals("0.9", client.getVersion());
+    }
+
+    private RequestListener createRecordingListener(final List<String> events, final List<CallMetadata> calls) {
+        return new RequestListener() {
+            @Override
+            public void onRequestStart(CallMetadata call) {
+                record("start", call);
+            }
+
+            @Override
+            public void onConnectionAcquired(CallMetadata call) {
+                record("connected", call);
+            }
+
+            @Override
+            public void onHeadersReceived(CallMetadata call) {
+                record("headers", call);
+            }
+
+            @Override
+            public void onBodyComplete(CallMetadata call) {
+                record("body", call);
+            }
+
+            @Override
+            public void onParseComplete(CallMetadata call) {
+                record("parsed", call);
+            }
+
+            @Override
+            public void onRequestFailed(CallMetadata call, Exception exception) {
+                record("failed", call);
+            }
+
+            @Override
+            public void onThrottled(CallMetadata call) {
+                record("throttled", call);
+            }
+
+            @Override
+            public void onRetry(CallMetadata call) {
+                record("retry", call);
+            }
+
+            private void record(String event, CallMetadata call) {
+                events.add(event);
+                calls.add(call);
+            }
+        };
+    }
+
+    private Client createClient(RequestListener requestListener) {
+        return new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).requestListeners(Collections.singletonList(requestListener))
+                        .build());
+    }
+
     private Map<String,String> createHeaders() {
         return ImmutableMap.<String, String>builder().put("auth", "abc").build();
     }
@@ -116,7 +532,7 @@ public class ClientTest {
 
     @Test
     public void shouldGetProfile() throws IOException {
-        when(crawler.get("lala/player/xyz", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("{}");
+        when(crawler.get(eq("lala/player/xyz"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getProfile("xyz"));
     }
 
@@ -131,8 +547,8 @@ public class ClientTest {
                         .keys(Arrays.asList("a", "b"))
                         .excludes(Arrays.asList("x", "y"))
                         .build();
-        when(crawler.get("lala/player/xyz", createHeaders(),
-                profileRequest.getQueryParameters())).thenReturn("{}");
+        when(crawler.get(eq("lala/player/xyz"), eq(createHeaders()),
+                eq(profileRequest.getQueryParameters()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getProfile(profileRequest));
     }
 
@@ -149,8 +565,8 @@ public class ClientTest {
     @Test
     public void shouldGetProfiles() throws IOException {
         List<String> tags = createTags();
-        when(crawler.get("lala/player/" + StringUtils.join(tags, ','), createHeaders(),
-                Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/player/" + StringUtils.join(tags, ',')), eq(createHeaders()),
+                eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getProfiles(tags));
     }
 
@@ -173,32 +589,32 @@ public class ClientTest {
                 .keys(Arrays.asList("a", "b"))
                 .excludes(Arrays.asList("x", "y"))
                 .build();
-        when(crawler.get("lala/player/xyz,def", createHeaders(), profilesRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/player/xyz,def"), eq(createHeaders()), eq(profilesRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getProfiles(profilesRequest));
     }
 
     @Test
     public void shouldGetTopClans() throws IOException {
-        when(crawler.get("lala/top/clans", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/clans"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopClans((String) null));
     }
 
     @Test
     public void shouldGetTopClansWithLocation() throws IOException {
-        when(crawler.get("lala/top/clans/EU", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/clans/EU"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopClans("EU"));
     }
 
     @Test
     public void shouldGetTopClansFromRequest() throws IOException {
-        when(crawler.get("lala/top/clans", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/clans"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopClans(TopClansRequest.builder().build()));
     }
 
     @Test
     public void shouldGetTopClansWithLocationFromRequest() throws IOException {
         TopClansRequest topClansRequest = TopClansRequest.builder().locationKey("EU").build();
-        when(crawler.get("lala/top/clans/EU", createHeaders(), topClansRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/clans/EU"), eq(createHeaders()), eq(topClansRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopClans(topClansRequest));
     }
 
@@ -214,7 +630,7 @@ public class ClientTest {
 
     @Test
     public void shouldGetClan() throws IOException {
-        when(crawler.get("lala/clan/xyz", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("{}");
+        when(crawler.get(eq("lala/clan/xyz"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getClan("xyz"));
     }
 
@@ -231,7 +647,7 @@ public class ClientTest {
     @Test
     public void shouldGetClans() throws IOException {
         List<String> tags = createTags();
-        when(crawler.get("lala/clan/" + StringUtils.join(tags, ','), createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/" + StringUtils.join(tags, ',')), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClans(tags));
     }
 
@@ -248,7 +664,7 @@ public class ClientTest {
     @Test
     public void shouldGetClansFromRequest() throws IOException {
         List<String> tags = createTags();
-        when(crawler.get("lala/clan/" + StringUtils.join(tags, ','), createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/" + StringUtils.join(tags, ',')), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClans(ClansRequest.builder(tags).build()));
     }
 
@@ -256,7 +672,7 @@ public class ClientTest {
     public void shouldGetClanSearch() throws IOException {
         ClanSearch clanSearch = new ClanSearch();
         clanSearch.setScore(50);
-        when(crawler.get("lala/clan/search", createHeaders(), ImmutableMap.<String, String>builder().put("score", "50").build())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(ImmutableMap.<String, String>builder().put("score", "50").build()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(clanSearch));
     }
 
@@ -272,12 +688,12 @@ public class ClientTest {
         clanSearch.setScore(2000);
         clanSearch.setMinMembers(20);
         clanSearch.setMaxMembers(50);
-        when(crawler.get("lala/clan/search", createHeaders(), ImmutableMap.<String, String>builder()
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(ImmutableMap.<String, String>builder()
                 .put("name", "abc")
                 .put("score", "2000")
                 .put("minMembers", "20")
                 .put("maxMembers", "50")
-                .build())).thenReturn("[{}]");
+                .build()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(clanSearch));
     }
 
@@ -288,18 +704,18 @@ public class ClientTest {
         clanSearch.setScore(2000);
         clanSearch.setMinMembers(20);
         clanSearch.setMaxMembers(50);
-        when(crawler.get("lala/clan/search", createHeaders(), ImmutableMap.<String, String>builder()
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(ImmutableMap.<String, String>builder()
                 .put("name", "reddit+alpha")
                 .put("score", "2000")
                 .put("minMembers", "20")
                 .put("maxMembers", "50")
-                .build())).thenReturn("[{}]");
+                .build()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(clanSearch));
     }
 
     @Test
     public void shouldGetClanSearchFromRequest() throws IOException {
-        when(crawler.get("lala/clan/search", createHeaders(), ImmutableMap.<String, String>builder().put("score", "50").build())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(ImmutableMap.<String, String>builder().put("score", "50").build()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(ClanSearchRequest.builder().score(50).build()));
     }
 
@@ -311,7 +727,7 @@ public class ClientTest {
                 .minMembers(20)
                 .maxMembers(50)
                 .build();
-        when(crawler.get("lala/clan/search", createHeaders(), clanSearchRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(clanSearchRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(clanSearchRequest));
     }
@@ -324,117 +740,117 @@ public class ClientTest {
                 .minMembers(20)
                 .maxMembers(50)
                 .build();
-        when(crawler.get("lala/clan/search", createHeaders(), clanSearchRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/search"), eq(createHeaders()), eq(clanSearchRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanSearch(clanSearchRequest));
     }
 
     @Test
     public void shouldGetTopPlayers() throws IOException {
-        when(crawler.get("lala/top/players", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/players"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopPlayers((String) null));
     }
 
     @Test
     public void shouldGetTopPlayersWithLocation() throws IOException {
-        when(crawler.get("lala/top/players/EU", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/top/players/EU"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTopPlayers("EU"));
     }
 
     @Test
     public void shouldGetTournaments() throws IOException {
-        when(crawler.get("lala/tournaments/abc", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("{}");
+        when(crawler.get(eq("lala/tournaments/abc"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getTournaments("abc"));
     }
 
     @Test
     public void shouldGetEndpoint() throws IOException {
-        when(crawler.get("lala/endpoints", createHeaders(), null)).thenReturn("[]");
+        when(crawler.get(eq("lala/endpoints"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class))).thenReturn("[]");
         assertNotNull(createClient().getEndpoints());
     }
 
     @Test
     public void shouldGetPopularClans() throws IOException {
-        when(crawler.get("lala/popular/clans", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/clans"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularClans());
     }
 
     @Test
     public void shouldGetPopularClansFromRequest() throws IOException {
         PopularClansRequest popularClansRequest = PopularClansRequest.builder().build();
-        when(crawler.get("lala/popular/clans", createHeaders(), popularClansRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/clans"), eq(createHeaders()), eq(popularClansRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularClans(popularClansRequest));
     }
 
     @Test
     public void shouldGetPopularPlayers() throws IOException {
-        when(crawler.get("lala/popular/players", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/players"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularPlayers());
     }
 
     @Test
     public void shouldGetPopularPlayersFromRequest() throws IOException {
         PopularPlayersRequest popularPlayersRequest = PopularPlayersRequest.builder().build();
-        when(crawler.get("lala/popular/players", createHeaders(), popularPlayersRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/players"), eq(createHeaders()), eq(popularPlayersRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularPlayers(popularPlayersRequest));
     }
 
     @Test
     public void shouldGetPopularTournaments() throws IOException {
-        when(crawler.get("lala/popular/tournaments", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/tournaments"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularTournaments());
     }
 
     @Test
     public void shouldGetPopularTournamentsFromRequest() throws IOException {
         PopularTournamentsRequest popularTournamentsRequest = PopularTournamentsRequest.builder().build();
-        when(crawler.get("lala/popular/tournaments", createHeaders(), popularTournamentsRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/popular/tournaments"), eq(createHeaders()), eq(popularTournamentsRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPopularTournaments(popularTournamentsRequest));
     }
 
     @Test
     public void shouldGetClanBattles() throws IOException {
-        when(crawler.get("lala/clan/xyz/battles", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/xyz/battles"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanBattles("xyz"));
     }
 
     @Test
     public void shouldGetClanBattlesFromRequest() throws IOException {
         ClanBattlesRequest clanBattlesRequest = ClanBattlesRequest.builder("xyz").build();
-        when(crawler.get("lala/clan/xyz/battles", createHeaders(), clanBattlesRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/clan/xyz/battles"), eq(createHeaders()), eq(clanBattlesRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getClanBattles(clanBattlesRequest));
     }
 
     @Test
     public void shouldGetClanHistory() throws IOException {
-        when(crawler.get("lala/clan/xyz/history", createHeaders(), Collections.<String, String>emptyMap())).thenReturn("{}");
+        when(crawler.get(eq("lala/clan/xyz/history"), eq(createHeaders()), eq(Collections.<String, String>emptyMap()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getClanHistory("xyz"));
     }
 
     @Test
     public void shouldGetClanHistoryFromRequest() throws IOException {
         ClanHistoryRequest clanHistoryRequest = ClanHistoryRequest.builder("xyz").build();
-        when(crawler.get("lala/clan/xyz/history", createHeaders(), clanHistoryRequest.getQueryParameters())).thenReturn("{}");
+        when(crawler.get(eq("lala/clan/xyz/history"), eq(createHeaders()), eq(clanHistoryRequest.getQueryParameters()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getClanHistory(clanHistoryRequest));
     }
 
     @Test
     public void shouldGetOpenTournaments() throws IOException {
         OpenTournamentsRequest openTournamentsRequest = OpenTournamentsRequest.builder().build();
-        when(crawler.get("lala/tournaments/open", createHeaders(), openTournamentsRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/tournaments/open"), eq(createHeaders()), eq(openTournamentsRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getOpenTournaments(openTournamentsRequest));
     }
 
     @Test
     public void shouldGetKnownTournaments() throws IOException {
         KnownTournamentsRequest knownTournamentsRequest = KnownTournamentsRequest.builder().build();
-        when(crawler.get("lala/tournaments/known", createHeaders(), knownTournamentsRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/tournaments/known"), eq(createHeaders()), eq(knownTournamentsRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getKnownTournaments(knownTournamentsRequest));
     }
 
     @Test
     public void shouldGetTournamentSearch() throws IOException {
         TournamentSearchRequest tournamentSearchRequest = TournamentSearchRequest.builder("abc").build();
-        when(crawler.get("lala/tournaments/search", createHeaders(), tournamentSearchRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/tournaments/search"), eq(createHeaders()), eq(tournamentSearchRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getTournamentSearch(tournamentSearchRequest));
     }
 
@@ -442,8 +858,8 @@ public class ClientTest {
     public void shouldGetPlayerBattles() throws IOException {
         List<String> tags = createTags().subList(0, 1);
         PlayerBattlesRequest playerBattlesRequest = PlayerBattlesRequest.builder(tags).build();
-        when(crawler.get("lala/player/" + StringUtils.join(tags, ',') + "/battles", createHeaders(),
-                playerBattlesRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/player/" + StringUtils.join(tags, ',') + "/battles"), eq(createHeaders()),
+                eq(playerBattlesRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPlayerBattles(playerBattlesRequest));
     }
 
@@ -451,17 +867,39 @@ public class ClientTest {
     public void shouldGetMultiPlayerBattles() throws IOException {
         List<String> tags = createTags();
         PlayerBattlesRequest playerBattlesRequest = PlayerBattlesRequest.builder(tags).build();
-        when(crawler.get("lala/player/" + StringUtils.join(tags, ',') + "/battles", createHeaders(),
-                playerBattlesRequest.getQueryParameters())).thenReturn("[[{}]]");
+        when(crawler.get(eq("lala/player/" + StringUtils.join(tags, ',') + "/battles"), eq(createHeaders()),
+                eq(playerBattlesRequest.getQueryParameters()), any(Call.class))).thenReturn("[[{}]]");
         assertNotNull(createClient().getPlayerBattles(playerBattlesRequest));
     }
 
+    @Test
+    public void shouldGetPlayerChestsOfDuplicateTags() throws IOException {
+        PlayerChestsRequest playerChestsRequest = PlayerChestsRequest.builder(Arrays.asList("#2pp", "2PP")).build();
+        when(crawler.get(eq("lala/player/2PP/chests"), eq(createHeaders()),
+                eq(playerChestsRequest.getQueryParameters()), any(Call.class))).thenReturn("{}");
+        Client client = createClient();
+        client.setTagValidation(TagValidation.NORMALIZE);
+        assertEquals(1, client.getPlayerChests(playerChestsRequest).size());
+    }
+
+    @Test
+    public void failGetProfileBecauseInvalidTag() throws IOException {
+        Client client = createClient();
+        client.setTagValidation(TagValidation.STRICT);
+        try {
+            client.getProfile(ProfileRequest.builder("#8L9L9GX").build());
+            fail();
+        } catch (IllegalArgumentException e) {
+            verify(crawler, times(0)).get(anyString(), any(Map.class), any(Map.class), any(Call.class));
+        }
+    }
+
     @Test
     public void shouldGetPlayerChests() throws IOException {
         List<String> tags = createTags().subList(0, 1);
         PlayerChestsRequest playerChestsRequest = PlayerChestsRequest.builder(tags).build();
-        when(crawler.get("lala/player/" + StringUtils.join(tags, ',') + "/chests", createHeaders(),
-                playerChestsRequest.getQueryParameters())).thenReturn("{}");
+        when(crawler.get(eq("lala/player/" + StringUtils.join(tags, ',') + "/chests"), eq(createHeaders()),
+                eq(playerChestsRequest.getQueryParameters()), any(Call.class))).thenReturn("{}");
         assertNotNull(createClient().getPlayerChests(playerChestsRequest));
     }
 
@@ -469,15 +907,15 @@ public class ClientTest {
     public void shouldGetMultiPlayerChests() throws IOException {
         List<String> tags = createTags();
         PlayerChestsRequest playerChestsRequest = PlayerChestsRequest.builder(tags).build();
-        when(crawler.get("lala/player/" + StringUtils.join(tags, ',') + "/chests", createHeaders(),
-                playerChestsRequest.getQueryParameters())).thenReturn("[{}]");
+        when(crawler.get(eq("lala/player/" + StringUtils.join(tags, ',') + "/chests"), eq(createHeaders()),
+                eq(playerChestsRequest.getQueryParameters()), any(Call.class))).thenReturn("[{}]");
         assertNotNull(createClient().getPlayerChests(playerChestsRequest));
     }
 
     @Test
     public void shouldGetPopularDecks() throws IOException {
         PopularDecksRequest popularDecksRequest = PopularDecksRequest.builder().build();
-        when(crawler.get("lala/popular/decks", createHeaders(), popularDecksRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/popular/decks"), eq(createHeaders()), eq(popularDecksRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("[{}]");
         assertNotNull(createClient().getPopularDecks(popularDecksRequest));
     }
@@ -485,7 +923,7 @@ public class ClientTest {
     @Test
     public void shouldGetClanTracking() throws IOException {
         ClanTrackingRequest clanTrackingRequest = ClanTrackingRequest.builder("abc").build();
-        when(crawler.get("lala/clan/abc/tracking", createHeaders(), clanTrackingRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/clan/abc/tracking"), eq(createHeaders()), eq(clanTrackingRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("{}");
         assertNotNull(createClient().getClanTracking(clanTrackingRequest));
     }
@@ -493,7 +931,7 @@ public class ClientTest {
     @Test
     public void shouldGetClanWarLog() throws IOException {
         ClanWarLogRequest clanWarLogRequest = ClanWarLogRequest.builder("abc").build();
-        when(crawler.get("lala/clan/abc/warlog", createHeaders(), clanWarLogRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/clan/abc/warlog"), eq(createHeaders()), eq(clanWarLogRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("[{}]");
         assertNotNull(createClient().getClanWarLog(clanWarLogRequest));
     }
@@ -501,7 +939,7 @@ public class ClientTest {
     @Test
     public void shouldGetClanWar() throws IOException {
         ClanWarRequest clanWarRequest = ClanWarRequest.builder("abc").build();
-        when(crawler.get("lala/clan/abc/war", createHeaders(), clanWarRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/clan/abc/war"), eq(createHeaders()), eq(clanWarRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("{}");
         assertNotNull(createClient().getClanWar(clanWarRequest));
     }
@@ -509,16 +947,49 @@ public class ClientTest {
     @Test
     public void shouldGetAuthStats() throws IOException {
         AuthStatsRequest authStatsRequest = AuthStatsRequest.builder().build();
-        when(crawler.get("lala/auth/stats", createHeaders(), authStatsRequest.getQueryParameters()))
+        when(crawler.get(eq("lala/auth/stats"), eq(createHeaders()), eq(authStatsRequest.getQueryParameters()), any(Call.class)))
                 .thenReturn("{}");
         assertNotNull(createClient().getAuthStats(authStatsRequest));
     }
 
     @Test
     public void shouldGetLastResponse() throws IOException {
-        Response response = new Response();
-        when(crawler.getLastResponse()).thenReturn(response);
-        assertEquals(response, createClient().getLastResponse());
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "5"), "1.0"));
+        ResponseState responseState = new ResponseState();
+        createClient(responseState).getVersion();
+        Response response = createClient(responseState).getLastResponse();
+        assertEquals("1.0", response.getRaw());
+        assertEquals(200, response.getStatusCode());
+        assertEquals(5, response.getRateRemaining().get().intValue());
+        assertSame(response, responseState.getLastResponse());
+    }
+
+    @Test
+    public void shouldShareRateLimitOfDeveloperKey() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(200, ImmutableMap.of(Response.X_RATELIMIT_LIMIT, "10",
+                        Response.X_RATELIMIT_REMAINING, "4", Response.X_RATELIMIT_RESET, "1000"), "1.0"));
+        ResponseState responseState = new ResponseState();
+        assertNull(createClient(responseState).getRateLimit());
+        createClient(responseState).getVersion();
+        assertEquals(new RateLimitSnapshot(10, 4, 1000), createClient(responseState).getRateLimit());
+        assertNull(responseState.getRateLimit("other"));
+    }
+
+    @Test
+    public void shouldGetResultWithMetadata() throws IOException {
+        when(crawler.get(eq("lala/version"), eq(createHeaders()), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(respond(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "5"), "1.0"));
+        ApiResult<String> result = createClient().getResult(ApiEndpoint.VERSION, null);
+        assertEquals("1.0", result.getValue());
+        assertEquals(200, result.getMetadata().getStatusCode());
+        assertEquals(5, result.getMetadata().getRateRemaining().get().intValue());
+    }
+
+    private Client createClient(ResponseState responseState) {
+        return new Client("lala/", "abc", AuthMode.NORMAL,
+                ClientSettings.builder(crawlerFactory).responseState(responseState).build());
     }
 
-}
\ No newline at end of file
+}
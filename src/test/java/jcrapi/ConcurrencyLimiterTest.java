@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseInitialLimitAboveMaxLimit() {
+        ConcurrencyLimiter.builder().initialLimit(20).maxLimit(10).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseBackoffRatioNotBelowOne() {
+        ConcurrencyLimiter.builder().backoffRatio(1).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseRttToleranceBelowOne() {
+        ConcurrencyLimiter.builder().rttTolerance(0.5).build();
+    }
+
+    @Test
+    public void shouldIncreaseLimitWhileUsed() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(2).build();
+        for (int i = 0; i < 20; i++) {
+            unitUnderTest.acquire(Clock.system());
+            unitUnderTest.acquire(Clock.system());
+            unitUnderTest.release(RTT, false);
+            unitUnderTest.release(RTT, false);
+        }
+        assertEquals(4, unitUnderTest.getLimit());
+        assertEquals(0, unitUnderTest.getInFlight());
+        assertEquals(100, unitUnderTest.getBaselineRttMillis(), 0.001);
+    }
+
+    @Test
+    public void shouldNotIncreaseLimitWhenIdle() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(10).build();
+        for (int i = 0; i < 100; i++) {
+            unitUnderTest.acquire(Clock.system());
+            unitUnderTest.release(RTT, false);
+        }
+        assertEquals(10, unitUnderTest.getLimit());
+    }
+
+    @Test
+    public void shouldDecreaseLimitWhenDropped() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(10).minLimit(2)
+                .backoffRatio(0.5).build();
+        unitUnderTest.acquire(Clock.system());
+        unitUnderTest.release(RTT, true);
+        assertEquals(5, unitUnderTest.getLimit());
+        for (int i = 0; i < 5; i++) {
+            unitUnderTest.acquire(Clock.system());
+            unitUnderTest.release(RTT, true);
+        }
+        assertEquals(2, unitUnderTest.getLimit());
+        assertEquals(6, unitUnderTest.getDecreases());
+    }
+
+    @Test
+    public void shouldDecreaseLimitWhenSlow() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(10).rttTolerance(2).build();
+        unitUnderTest.acquire(Clock.system());
+        unitUnderTest.release(RTT, false);
+        unitUnderTest.acquire(Clock.system());
+        unitUnderTest.release(RTT * 3, false);
+        assertEquals(9, unitUnderTest.getLimit());
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(1).maxQueue(0).build();
+        unitUnderTest.acquire(Clock.system());
+        try {
+            unitUnderTest.acquire(Clock.system());
+            fail();
+        } catch (ConcurrencyLimitExceededException e) {
+            assertEquals(1, e.getLimit());
+            assertEquals(0, e.getQueued());
+        }
+        assertEquals(1, unitUnderTest.getRejected());
+    }
+
+    @Test
+    public void shouldRejectAfterQueueTimeout() throws IOException {
+        ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(1).queueTimeoutMillis(20)
+                .build();
+        unitUnderTest.acquire(Clock.system());
+        try {
+            unitUnderTest.acquire(Clock.system());
+            fail();
+        } catch (ConcurrencyLimitExceededException e) {
+            assertEquals(1, unitUnderTest.getRejected());
+        }
+        assertEquals(0, unitUnderTest.getQueued());
+    }
+
+    @Test
+    public void shouldQueueUntilPermitIsReleased() throws Exception {
+        final ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(1).build();
+        unitUnderTest.acquire(Clock.system());
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    unitUnderTest.acquire(Clock.system());
+                    acquired.countDown();
+                } catch (IOException e) {
+                    failed.set(true);
+                }
+            }
+        });
+        thread.start();
+        for (int i = 0; i < 100 && unitUnderTest.getQueued() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, unitUnderTest.getQueued());
+        assertFalse(acquired.await(20, TimeUnit.MILLISECONDS));
+        unitUnderTest.release(RTT, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+        assertFalse(failed.get());
+        assertEquals(1, unitUnderTest.getInFlight());
+        assertEquals(2, unitUnderTest.getQueueWait().getCount());
+    }
+
+    @Test
+    public void shouldHandPermitsOutInArrivalOrder() throws Exception {
+        final ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(1).maxLimit(1).build();
+        unitUnderTest.acquire(Clock.system());
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        Thread first = createWaiter(unitUnderTest, "first", order);
+        first.start();
+        awaitQueued(unitUnderTest, 1);
+        Thread second = createWaiter(unitUnderTest, "second", order);
+        second.start();
+        awaitQueued(unitUnderTest, 2);
+        unitUnderTest.release(RTT, false);
+        first.join(5000);
+        assertEquals(Arrays.asList("first"), order);
+        assertEquals(1, unitUnderTest.getQueued());
+        unitUnderTest.release(RTT, false);
+        second.join(5000);
+        assertEquals(Arrays.asList("first", "second"), order);
+    }
+
+    private Thread createWaiter(final ConcurrencyLimiter concurrencyLimiter, final String name,
+                                final List<String> order) {
+        return new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    concurrencyLimiter.acquire(Clock.system());
+                    order.add(name);
+                } catch (IOException e) {
+                    order.add(name + ":" + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void awaitQueued(ConcurrencyLimiter concurrencyLimiter, int queued) throws InterruptedException {
+        for (int i = 0; i < 500 && concurrencyLimiter.getQueued() < queued; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(queued, concurrencyLimiter.getQueued());
+    }
+
+    @Test
+    public void shouldFindConcurrencyOfSimulatedServer() throws Exception {
+        SimulatedApiServer server = SimulatedApiServer.builder().maxConcurrency(4).latencyMillis(20)
+                .payloadBytes(1000).build();
+        server.start();
+        try {
+            final Api api = new Api(server.getUrl(), "key");
+            api.setRetryPolicy(RetryPolicy.builder().maxAttempts(1).build());
+            ConcurrencyLimiter unitUnderTest = ConcurrencyLimiter.builder().initialLimit(16).build();
+            api.setConcurrencyLimiter(unitUnderTest);
+            Thread[] threads = new Thread[16];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 20; j++) {
+                            try {
+                                api.getTopPlayers();
+                            } catch (ApiException e) {
+                                // overloaded
+                            }
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(server.getOverloaded() > 0);
+            assertTrue(String.valueOf(unitUnderTest.getLimit()), unitUnderTest.getLimit() <= 8);
+            assertEquals(0, unitUnderTest.getInFlight());
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ package jcrapi;
 import org.junit.Test;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Michael Lieshoff
@@ -35,4 +36,10 @@ public class CrawlerFactoryTest {
         assertNotNull(new CrawlerFactory(new HttpClientFactory()).createCrawler());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldShareCrawler() {
+        CrawlerFactory unitUnderTest = new CrawlerFactory(new HttpClientFactory());
+        assertSame(unitUnderTest.createCrawler(), unitUnderTest.createCrawler());
+    }
+
+}
@@ -24,19 +24,22 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -85,10 +88,25 @@ public class CrawlerTest {
         when(httpClientFactory.create()).thenReturn(httpClient);
         HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
         httpResponse.setEntity(new StringEntity(expectedResult));
-        when(httpClient.execute((HttpUriRequest) anyObject())).thenReturn(httpResponse);
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject())).thenReturn(httpResponse);
         assertEquals(expectedResult, new Crawler(httpClientFactory).get("the-url", createHeaders()));
     }
 
+    @Test
+    public void shouldReportCallPhases() throws IOException {
+        when(httpClientFactory.create()).thenReturn(httpClient);
+        HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
+        httpResponse.setEntity(new StringEntity("break-out-prison"));
+        httpResponse.addHeader("X-RateLimit-Remaining", "3");
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject())).thenReturn(httpResponse);
+        Call call = Call.detached("the-url");
+        new Crawler(httpClientFactory).get("the-url", createHeaders(), null, call);
+        CallMetadata metadata = call.getMetadata();
+        assertEquals(200, metadata.getStatusCode());
+        assertEquals(16, metadata.getResponseBytes());
+        assertEquals(3, metadata.getRateRemaining().get().intValue());
+    }
+
     @Test
     public void shouldGetErrorStatus() throws IOException {
         String expectedResult = "break-out-prison";
@@ -96,7 +114,7 @@ public class CrawlerTest {
         HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
         httpResponse.setEntity(new StringEntity(expectedResult));
         httpResponse.setStatusCode(400);
-        when(httpClient.execute((HttpUriRequest) anyObject())).thenReturn(httpResponse);
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject())).thenReturn(httpResponse);
         try {
             new Crawler(httpClientFactory).get("the-url", createHeaders(), null);
         } catch (IOException e) {
@@ -110,11 +128,26 @@ public class CrawlerTest {
         when(httpClientFactory.create()).thenReturn(httpClient);
         HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
         httpResponse.setEntity(new StringEntity(expectedResult));
-        when(httpClient.execute(argThat(getMatcher()))).thenReturn(httpResponse);
+        when(httpClient.execute(argThat(getMatcher()), (HttpContext) anyObject())).thenReturn(httpResponse);
         assertEquals(expectedResult, new Crawler(httpClientFactory).get("the-url", createHeaders(),
                 ImmutableMap.<String, String>builder().put("param", "a+b").put("key", "abc").build()));
     }
 
+    @Test
+    public void shouldSendBlankParameterWithoutValue() throws IOException {
+        when(httpClientFactory.create()).thenReturn(httpClient);
+        HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
+        httpResponse.setEntity(new StringEntity("break-out-prison"));
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject())).thenReturn(httpResponse);
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("name", null);
+        parameters.put("key", "a b");
+        new Crawler(httpClientFactory).get("the-url", createHeaders(), parameters);
+        ArgumentCaptor<HttpUriRequest> captor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(captor.capture(), (HttpContext) anyObject());
+        assertEquals("name=&key=a+b", captor.getValue().getURI().getRawQuery());
+    }
+
     private ArgumentMatcher<HttpUriRequest> getMatcher() {
         return new ArgumentMatcher<HttpUriRequest>() {
             @Override
@@ -128,20 +161,4 @@ public class CrawlerTest {
         };
     }
 
-    @Ignore
-    public void shouldGetLastResponse() throws IOException {
-        String expectedResult = "break-out-prison";
-        when(httpClientFactory.create()).thenReturn(httpClient);
-        HttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 100, 1), 200, ""));
-        httpResponse.setEntity(new StringEntity(expectedResult));
-        httpResponse.addHeader("hello", "world");
-        when(httpClient.execute(argThat(getMatcher()))).thenReturn(httpResponse);
-        Response response = new Response();
-        response.setRaw(expectedResult);
-        response.getResponseHeaders().put("hello", "world");
-        assertEquals(expectedResult, new Crawler(httpClientFactory).get("the-url", createHeaders(),
-                ImmutableMap.<String, String>builder().put("param", "a+b").put("key", "abc").build()));
-        assertEquals(response, new Crawler(httpClientFactory).getLastResponse());
-    }
-
-}
\ No newline at end of file
+}
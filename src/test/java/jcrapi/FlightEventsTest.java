@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class FlightEventsTest {
+
+    private final FlightEvents unitUnderTest = new FlightEvents();
+
+    @Test
+    public void shouldHaveInstance() {
+        assertNotNull(FlightEvents.getInstance());
+    }
+
+    @Test
+    public void shouldDoNothing() {
+        assertNull(unitUnderTest.beginRequest());
+        assertNull(unitUnderTest.beginParse());
+        assertNull(unitUnderTest.beginRateLimitWait());
+        CallMetadata call = Call.detached("lala").getMetadata();
+        unitUnderTest.commitRequest(null, call, false);
+        unitUnderTest.commitParse(null, ApiEndpoint.PROFILE, null);
+        unitUnderTest.commitRateLimitWait(null, call);
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class HedgingCrawlerTest {
+
+    private final StubCrawler crawler = new StubCrawler();
+    private final ResponseState responseState = new ResponseState();
+    private final Hedging hedging = new Hedging(responseState);
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final HedgingCrawler unitUnderTest = new HedgingCrawler(crawler, hedging, metricsRegistry, executor,
+            Clock.system());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseWindowSmallerThanMinSamples() {
+        HedgePolicy.builder().minSamples(10).windowSize(5).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseMaxDelayBelowMinDelay() {
+        HedgePolicy.builder().minDelayMillis(10).maxDelayMillis(5).build();
+    }
+
+    @Test
+    public void shouldClampDelayToPolicy() {
+        HedgePolicy policy = HedgePolicy.builder().minSamples(2).minDelayMillis(5).maxDelayMillis(50).build();
+        LatencyHistogram latency = new LatencyHistogram();
+        latency.record(1000000);
+        assertEquals(-1, policy.delayMillis(latency));
+        latency.record(1000000);
+        assertEquals(5, policy.delayMillis(latency));
+        latency.record(200000000);
+        assertEquals(50, policy.delayMillis(latency));
+    }
+
+    @Test
+    public void shouldPassThroughWhenDisabled() throws IOException {
+        respond(0, 1000);
+        assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, createCall()));
+        assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, createCall()));
+        assertEquals(2, crawler.requests.get());
+        assertEquals(0, getMetrics().getHedges());
+    }
+
+    private void respond(long firstDelayMillis, int rateLimitRemaining) {
+        crawler.firstDelayMillis = firstDelayMillis;
+        crawler.rateLimitRemaining = rateLimitRemaining;
+    }
+
+    private Map<String, String> createHeaders() {
+        return ImmutableMap.of("auth", "abc");
+    }
+
+    private Call createCall() {
+        return new Call(ApiEndpoint.VERSION, "version", "lala/version", Collections.<RequestListener>emptyList());
+    }
+
+    private EndpointMetrics getMetrics() {
+        return metricsRegistry.getEndpoint(ApiEndpoint.VERSION);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldAnswerWithHedgeWhenFirstResponseIsLate() throws IOException {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(20).build());
+        respond(3000, 1000);
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        Call call = createCall();
+        long startedAt = System.nanoTime();
+        assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, call));
+        assertTrue(System.nanoTime() - startedAt < 2000000000L);
+        assertEquals(200, call.getStatusCode());
+        assertEquals(2, call.getResponseBytes());
+        assertEquals(3, crawler.requests.get());
+        assertEquals(1, getMetrics().getHedges());
+        assertEquals(1, getMetrics().getHedgesWon());
+    }
+
+    @Test
+    public void shouldNotHedgeFastResponses() throws IOException {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(1000).build());
+        respond(0, 1000);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, createCall()));
+        }
+        assertEquals(10, crawler.requests.get());
+        assertEquals(0, getMetrics().getHedges());
+    }
+
+    @Test
+    public void shouldNotHedgeWithoutBudget() throws IOException {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(20).build());
+        hedging.setBudget(new RetryBudget(0, 0));
+        respond(200, 1000);
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        assertEquals(2, crawler.requests.get());
+        assertEquals(1, hedging.getBudget().getRejected());
+    }
+
+    @Test
+    public void shouldNotHedgeWhenRateLimitIsUsedUp() throws IOException {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(20).minRateLimitRemaining(5).build());
+        respond(200, 5);
+        Call call = createCall();
+        unitUnderTest.get("lala/version", createHeaders(), null, call);
+        responseState.record("abc", call, false);
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        assertEquals(2, crawler.requests.get());
+        assertEquals(0, getMetrics().getHedges());
+    }
+
+    @Test
+    public void shouldFailWhenAllRequestsFail() throws IOException {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(20).build());
+        respond(0, 1000);
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        crawler.firstDelayMillis = 50;
+        crawler.statusCode = 503;
+        Call call = createCall();
+        try {
+            unitUnderTest.get("lala/version", createHeaders(), null, call);
+            fail();
+        } catch (IOException e) {
+            assertEquals("crapi: 503", e.getMessage());
+        }
+        assertEquals(503, call.getStatusCode());
+        assertEquals(1, getMetrics().getHedges());
+        assertEquals(0, getMetrics().getHedgesWon());
+    }
+
+    @Test(timeout = 5000)
+    public void shouldNotCutConcurrencyLimitForCancelledRequest() throws Exception {
+        hedging.setDefault(HedgePolicy.builder().minSamples(1).minDelayMillis(20).build());
+        respond(3000, 1000);
+        ConcurrencyLimiter concurrencyLimiter = ConcurrencyLimiter.builder().initialLimit(10).build();
+        HedgingCrawler unitUnderTest = new HedgingCrawler(new LimitingCrawler(crawler, concurrencyLimiter,
+                new VirtualClock()), hedging, metricsRegistry, executor, Clock.system());
+        unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+        assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, createCall()));
+        assertEquals(1, getMetrics().getHedgesWon());
+        while (concurrencyLimiter.getInFlight() > 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, concurrencyLimiter.getDecreases());
+        assertEquals(10, concurrencyLimiter.getLimit());
+    }
+
+    private static class StubCrawler extends Crawler {
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private volatile long firstDelayMillis;
+        private volatile int rateLimitRemaining;
+        private volatile int statusCode = 200;
+
+        @Override
+        String get(String url, Map<String, String> headers, Map<String, String> parameters, Call call)
+                throws IOException {
+            if (requests.incrementAndGet() == 2) {
+                try {
+                    Thread.sleep(firstDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            call.headersReceived(statusCode, ImmutableMap.of(Response.X_RATELIMIT_REMAINING,
+                    String.valueOf(rateLimitRemaining), Response.X_RATELIMIT_RESET,
+                    String.valueOf(System.currentTimeMillis() + 60000)));
+            if (statusCode != 200) {
+                throw new IOException("crapi: " + statusCode);
+            }
+            call.bodyComplete(2);
+            return "{}";
+        }
+
+    }
+
+}
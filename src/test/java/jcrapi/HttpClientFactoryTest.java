@@ -16,9 +16,17 @@
  */
 package jcrapi;
 
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Michael Lieshoff
@@ -30,4 +38,51 @@ public class HttpClientFactoryTest {
         assertNotNull(new HttpClientFactory().create());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldSetTimeouts() {
+        HttpParams params = new HttpClientFactory(1000, 2000).create().getParams();
+        assertEquals(1000, HttpConnectionParams.getConnectionTimeout(params));
+        assertEquals(2000, HttpConnectionParams.getSoTimeout(params));
+    }
+
+    @Test
+    public void shouldNotRetryRequests() {
+        DefaultHttpRequestRetryHandler retryHandler = (DefaultHttpRequestRetryHandler)
+                ((DefaultHttpClient) new HttpClientFactory().create()).getHttpRequestRetryHandler();
+        assertEquals(0, retryHandler.getRetryCount());
+        assertFalse(retryHandler.isRequestSentRetryEnabled());
+    }
+
+    @Test
+    public void shouldLowerTimeoutsToDeadline() {
+        HttpParams params = new BasicHttpParams();
+        new HttpClientFactory(1000, 2000).setTimeouts(params, 1500);
+        assertEquals(1000, HttpConnectionParams.getConnectionTimeout(params));
+        assertEquals(1500, HttpConnectionParams.getSoTimeout(params));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoSocketTimeout() {
+        new HttpClientFactory(1000, 0);
+    }
+
+    @Test
+    public void shouldShareClient() {
+        HttpClientFactory unitUnderTest = new HttpClientFactory();
+        assertSame(unitUnderTest.create(), unitUnderTest.create());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failCreateBecauseClosed() {
+        HttpClientFactory unitUnderTest = new HttpClientFactory();
+        unitUnderTest.create();
+        unitUnderTest.close();
+        unitUnderTest.create();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoConnections() {
+        new HttpClientFactory(1000, 2000, 0);
+    }
+
+}
@@ -16,6 +16,8 @@
  */
 package jcrapi;
 
+import org.mortbay.jetty.AbstractConnector;
+import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.servlet.Context;
 import org.mortbay.jetty.servlet.ServletHolder;
@@ -42,6 +44,26 @@ public class JettyServer {
         _context.addServlet(new ServletHolder(servlet), pathSpec);
     }
 
+    public void setStatsOn(boolean statsOn) {
+        for (Connector connector : _server.getConnectors()) {
+            if (connector instanceof AbstractConnector) {
+                ((AbstractConnector) connector).setStatsOn(statsOn);
+            }
+        }
+    }
+
+    public int getConnections() {
+        int connections = 0;
+        for (Connector connector : _server.getConnectors()) {
+            if (connector instanceof AbstractConnector) {
+                AbstractConnector abstractConnector = (AbstractConnector) connector;
+                // pooled connections are still open when the run ends
+                connections += abstractConnector.getConnections() + abstractConnector.getConnectionsOpen();
+            }
+        }
+        return connections;
+    }
+
     public void start() throws Exception {
         if (_server != null) {
             _server.start();
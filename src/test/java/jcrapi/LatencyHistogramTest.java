@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram unitUnderTest = new LatencyHistogram();
+
+    @Test
+    public void shouldBeEmpty() {
+        assertEquals(0, unitUnderTest.getCount());
+        assertEquals(0, unitUnderTest.getPercentileMillis(99), 0);
+        assertEquals(0, unitUnderTest.getMeanMillis(), 0);
+    }
+
+    @Test
+    public void shouldIgnoreNegativeValues() {
+        unitUnderTest.record(-1);
+        assertEquals(0, unitUnderTest.getCount());
+    }
+
+    @Test
+    public void shouldRecordCountSumAndMax() {
+        unitUnderTest.record(TimeUnit.MILLISECONDS.toNanos(2));
+        unitUnderTest.record(TimeUnit.MILLISECONDS.toNanos(4));
+        assertEquals(2, unitUnderTest.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(6), unitUnderTest.getSumNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(4), unitUnderTest.getMaxNanos());
+        assertEquals(3, unitUnderTest.getMeanMillis(), 0.001);
+    }
+
+    @Test
+    public void shouldComputePercentilesWithinBucketPrecision() {
+        for (int i = 1; i <= 1000; i++) {
+            unitUnderTest.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertWithin(500, unitUnderTest.getPercentileMillis(50));
+        assertWithin(990, unitUnderTest.getPercentileMillis(99));
+        assertWithin(1000, unitUnderTest.getPercentileMillis(100));
+    }
+
+    private void assertWithin(double expected, double actual) {
+        assertTrue(expected + " vs " + actual, actual >= expected && actual <= expected * 1.125);
+    }
+
+    @Test
+    public void shouldMapBucketsContinuously() {
+        for (long micros = 0; micros < 100000; micros++) {
+            int index = LatencyHistogram.index(micros);
+            assertTrue(micros < LatencyHistogram.upperBoundMicros(index));
+            assertTrue(index == 0 || micros >= LatencyHistogram.upperBoundMicros(index - 1));
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class LimitingCrawlerTest {
+
+    private final Crawler crawler = Mockito.mock(Crawler.class);
+
+    private final ConcurrencyLimiter concurrencyLimiter = ConcurrencyLimiter.builder().initialLimit(10)
+            .backoffRatio(0.5).build();
+
+    private final LimitingCrawler unitUnderTest = new LimitingCrawler(crawler, concurrencyLimiter,
+            Clock.system());
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullLimiter() {
+        new LimitingCrawler(crawler, null, Clock.system());
+    }
+
+    @Test
+    public void shouldReleasePermitAfterSuccess() throws IOException {
+        when(crawler.get(anyString(), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenReturn("{}");
+        assertEquals("{}", unitUnderTest.get("lala/version", createHeaders(), null, createCall()));
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(10, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void shouldMeasureRoundTripWithClock() throws IOException {
+        final VirtualClock clock = new VirtualClock();
+        when(crawler.get(anyString(), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws Throwable {
+                        clock.advance(100, TimeUnit.MILLISECONDS);
+                        return "{}";
+                    }
+                });
+        new LimitingCrawler(crawler, concurrencyLimiter, clock).get("lala/version", createHeaders(), null,
+                createCall());
+        assertEquals(100.0, concurrencyLimiter.getBaselineRttMillis(), 0.0);
+    }
+
+    private Map<String, String> createHeaders() {
+        return ImmutableMap.of("auth", "abc");
+    }
+
+    private Call createCall() {
+        return new Call(ApiEndpoint.VERSION, "version", "lala/version", Collections.<RequestListener>emptyList());
+    }
+
+    @Test
+    public void shouldDropThrottledRequests() throws IOException {
+        respond(429);
+        assertEquals(5, concurrencyLimiter.getLimit());
+    }
+
+    private void respond(final int statusCode) throws IOException {
+        when(crawler.get(anyString(), any(Map.class), (Map<String, String>) isNull(), any(Call.class)))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) throws Throwable {
+                        Call call = (Call) invocation.getArguments()[3];
+                        if (statusCode > 0) {
+                            call.headersReceived(statusCode, Collections.<String, String>emptyMap());
+                        }
+                        throw new IOException("crapi: " + statusCode);
+                    }
+                });
+        try {
+            unitUnderTest.get("lala/version", createHeaders(), null, createCall());
+            fail();
+        } catch (IOException e) {
+            assertEquals(0, concurrencyLimiter.getInFlight());
+        }
+    }
+
+    @Test
+    public void shouldDropFailedRequests() throws IOException {
+        respond(503);
+        assertEquals(5, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void shouldDropUnansweredRequests() throws IOException {
+        respond(0);
+        assertEquals(5, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    public void shouldNotDropClientErrors() throws IOException {
+        respond(404);
+        assertEquals(10, concurrencyLimiter.getLimit());
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs concurrent callers through the full {@link Api}, {@link Client} and {@link Crawler} stack against an embedded
+ * Jetty serving {@link TestLoadServlet}, and reports throughput, latency percentiles, connections opened on the server,
+ * threads used by the process and bytes allocated by the callers per call.
+ *
+ * <pre>
+ * LoadReport report = LoadHarness.builder().callers(16).callsPerCaller(500).latencyMillis(5).build().run();
+ * </pre>
+ *
+ * @author Michael Lieshoff
+ */
+public class LoadHarness {
+
+    private static final String CONTEXT = "/load";
+
+    private final int port;
+    private final int callers;
+    private final int callsPerCaller;
+    private final int payloadBytes;
+    private final long latencyMillis;
+    private final int rateLimit;
+
+    private LoadHarness(LoadHarnessBuilder builder) {
+        port = builder.port;
+        callers = builder.callers;
+        callsPerCaller = builder.callsPerCaller;
+        payloadBytes = builder.payloadBytes;
+        latencyMillis = builder.latencyMillis;
+        rateLimit = builder.rateLimit;
+    }
+
+    public static LoadHarnessBuilder builder() {
+        return new LoadHarnessBuilder();
+    }
+
+    public LoadReport run() throws Exception {
+        TestLoadServlet servlet = new TestLoadServlet(payloadBytes, latencyMillis, rateLimit);
+        JettyServer jettyServer = new JettyServer(port, CONTEXT);
+        jettyServer.addServlet("/top/players", servlet);
+        jettyServer.start();
+        try {
+            return run(jettyServer, servlet);
+        } finally {
+            jettyServer.stop();
+        }
+    }
+
+    private LoadReport run(JettyServer jettyServer, TestLoadServlet servlet) throws Exception {
+        final Api api = new Api(String.format("http://localhost:%d%s/", port, CONTEXT), IntegrationTest.AUTH);
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong allocatedBytes = new AtomicLong();
+        final CountDownLatch startGate = new CountDownLatch(1);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        startGate.await();
+                        long allocatedBefore = getAllocatedBytes();
+                        for (int j = 0; j < callsPerCaller; j++) {
+                            long startedAt = System.nanoTime();
+                            try {
+                                api.getTopPlayers();
+                            } catch (ApiException e) {
+                                errors.incrementAndGet();
+                            }
+                            latency.record(System.nanoTime() - startedAt);
+                        }
+                        allocatedBytes.addAndGet(getAllocatedBytes() - allocatedBefore);
+                        return null;
+                    }
+                }));
+            }
+            int threadsBefore = threads.getThreadCount();
+            long threadsStartedBefore = threads.getTotalStartedThreadCount();
+            threads.resetPeakThreadCount();
+            jettyServer.setStatsOn(true);
+            long startedAt = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+            return new LoadReport(latency.getCount(), errors.get(), elapsedNanos, latency,
+                    jettyServer.getConnections(), threads.getPeakThreadCount() - threadsBefore,
+                    threads.getTotalStartedThreadCount() - threadsStartedBefore, servlet.getRequests(),
+                    servlet.getThrottled(), servlet.getPayloadBytes(),
+                    api.getMetrics().getEndpoint(ApiEndpoint.TOP_PLAYERS).getConnectP99Millis(),
+                    allocatedBytes.get());
+        } finally {
+            api.close();
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, 0 if the jvm does not tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadReport report = builder()
+                .port(Integer.getInteger("port", 50001))
+                .callers(Integer.getInteger("callers", 8))
+                .callsPerCaller(Integer.getInteger("calls", 200))
+                .payloadBytes(Integer.getInteger("payloadBytes", 10000))
+                .latencyMillis(Long.getLong("latencyMillis", 0L))
+                .rateLimit(Integer.getInteger("rateLimit", 0))
+                .build()
+                .run();
+        System.out.println(report);
+    }
+
+    public static class LoadHarnessBuilder {
+
+        private int port = 50001;
+        private int callers = 4;
+        private int callsPerCaller = 100;
+        private int payloadBytes = 10000;
+        private long latencyMillis;
+        private int rateLimit;
+
+        public LoadHarnessBuilder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public LoadHarnessBuilder callers(int callers) {
+            this.callers = callers;
+            return this;
+        }
+
+        public LoadHarnessBuilder callsPerCaller(int callsPerCaller) {
+            this.callsPerCaller = callsPerCaller;
+            return this;
+        }
+
+        public LoadHarnessBuilder payloadBytes(int payloadBytes) {
+            this.payloadBytes = payloadBytes;
+            return this;
+        }
+
+        public LoadHarnessBuilder latencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        /**
+         * Requests per second the server accepts before answering 429, 0 for no rate limit headers.
+         */
+        public LoadHarnessBuilder rateLimit(int rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        public LoadHarness build() {
+            Preconditions.checkArgument(callers > 0, "callers");
+            Preconditions.checkArgument(callsPerCaller > 0, "callsPerCaller");
+            Preconditions.checkArgument(payloadBytes > 0, "payloadBytes");
+            Preconditions.checkArgument(latencyMillis >= 0, "latencyMillis");
+            Preconditions.checkArgument(rateLimit >= 0, "rateLimit");
+            return new LoadHarness(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class LoadHarnessTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseNoCallers() {
+        LoadHarness.builder().callers(0).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseNegativeLatency() {
+        LoadHarness.builder().latencyMillis(-1).build();
+    }
+
+    @Test
+    public void shouldCreatePayloadOfRequestedSize() throws Exception {
+        assertTrue(TestLoadServlet.createPayload(50000).length >= 50000);
+        assertTrue(TestLoadServlet.createPayload(1).length > 1);
+    }
+
+    @Test
+    public void shouldRunAllCalls() throws Exception {
+        LoadReport report = LoadHarness.builder().callers(4).callsPerCaller(25).payloadBytes(5000).build().run();
+        assertEquals(100, report.getCalls());
+        assertEquals(0, report.getErrors());
+        assertEquals(100, report.getServerRequests());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getLatencyP99Millis() >= report.getLatencyP50Millis());
+        // guards against leaking connections: never more than one per call
+        assertTrue(report.toString(), report.getConnectionsOpened() > 0);
+        assertTrue(report.toString(), report.getConnectionsOpened() <= report.getCalls());
+        // pooled connections are reused by the callers
+        assertTrue(report.toString(), report.getConnectionsOpened() <= 4);
+        // leaked keep-alive connections each pin a server thread
+        assertTrue(report.toString(), report.getThreadsUsed() < 4 + 32);
+    }
+
+    @Test
+    public void shouldRetryThrottledCalls() throws Exception {
+        LoadReport report = LoadHarness.builder().callers(2).callsPerCaller(10).rateLimit(10).build().run();
+        assertEquals(20, report.getCalls());
+        assertEquals(0, report.getErrors());
+        assertEquals(20 + report.getServerThrottled(), report.getServerRequests());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link LoadHarness} run.
+ *
+ * @author Michael Lieshoff
+ */
+public class LoadReport {
+
+    private final long calls;
+    private final long errors;
+    private final long elapsedNanos;
+    private final LatencyHistogram latency;
+    private final int connectionsOpened;
+    private final int threadsUsed;
+    private final long threadsStarted;
+    private final long serverRequests;
+    private final long serverThrottled;
+    private final int payloadBytes;
+    private final double connectP99Millis;
+    private final long allocatedBytes;
+
+    LoadReport(long calls, long errors, long elapsedNanos, LatencyHistogram latency, int connectionsOpened,
+               int threadsUsed, long threadsStarted, long serverRequests, long serverThrottled, int payloadBytes,
+               double connectP99Millis, long allocatedBytes) {
+        this.calls = calls;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.connectionsOpened = connectionsOpened;
+        this.threadsUsed = threadsUsed;
+        this.threadsStarted = threadsStarted;
+        this.serverRequests = serverRequests;
+        this.serverThrottled = serverThrottled;
+        this.payloadBytes = payloadBytes;
+        this.connectP99Millis = connectP99Millis;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos > 0 ? calls * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    public double getLatencyP50Millis() {
+        return latency.getPercentileMillis(50);
+    }
+
+    public double getLatencyP99Millis() {
+        return latency.getPercentileMillis(99);
+    }
+
+    public double getLatencyMaxMillis() {
+        return latency.getMaxNanos() / 1e6;
+    }
+
+    /**
+     * Connections accepted by the server during the run.
+     */
+    public int getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Peak number of live threads above the count before the run, callers included.
+     */
+    public int getThreadsUsed() {
+        return threadsUsed;
+    }
+
+    public long getThreadsStarted() {
+        return threadsStarted;
+    }
+
+    public long getServerRequests() {
+        return serverRequests;
+    }
+
+    public long getServerThrottled() {
+        return serverThrottled;
+    }
+
+    public int getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    public double getConnectP99Millis() {
+        return connectP99Millis;
+    }
+
+    /**
+     * Bytes allocated by the caller threads per call, the response payload and its parsing included. 0 if the jvm
+     * does not tell.
+     */
+    public long getAllocatedBytesPerCall() {
+        return calls > 0 ? allocatedBytes / calls : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d errors=%d elapsed=%dms throughput=%.1f/s p50=%.2fms p99=%.2fms max=%.2fms "
+                        + "connectP99=%.2fms connections=%d threadsUsed=%d threadsStarted=%d serverRequests=%d "
+                        + "serverThrottled=%d payload=%dB allocated=%dB/call",
+                calls, errors, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(), getLatencyP50Millis(),
+                getLatencyP99Millis(), getLatencyMaxMillis(), connectP99Millis, connectionsOpened, threadsUsed,
+                threadsStarted, serverRequests, serverThrottled, payloadBytes, getAllocatedBytesPerCall());
+    }
+
+}
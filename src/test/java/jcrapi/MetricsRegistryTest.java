@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry unitUnderTest = new MetricsRegistry();
+
+    @Test
+    public void shouldHoldMetricsForEveryEndpoint() {
+        assertEquals(ApiEndpoint.values().size(), unitUnderTest.getEndpoints().size());
+        for (ApiEndpoint<?, ?> endpoint : ApiEndpoint.values()) {
+            assertNotNull(unitUnderTest.getEndpoint(endpoint));
+        }
+    }
+
+    @Test
+    public void shouldGetByTemplate() {
+        assertSame(unitUnderTest.getEndpoint(ApiEndpoint.PROFILE), unitUnderTest.getEndpoint("player/{tag}"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failGetEndpointBecauseNullEndpoint() {
+        unitUnderTest.getEndpoint((ApiEndpoint<?, ?>) null);
+    }
+
+    @Test
+    public void shouldRegisterAndUnregisterMBeans() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        unitUnderTest.getEndpoint(ApiEndpoint.PROFILE).recordCall(1000000, false);
+        unitUnderTest.registerMBeans(mBeanServer, "test");
+        ObjectName objectName = MetricsRegistry.createObjectName("test", "player/{tag}");
+        assertTrue(mBeanServer.isRegistered(objectName));
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "Calls"));
+        unitUnderTest.unregisterMBeans();
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failRegisterMBeansBecauseAlreadyRegistered() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        unitUnderTest.registerMBeans(mBeanServer, "test");
+        unitUnderTest.registerMBeans(mBeanServer, "test");
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class PathTemplateTest {
+
+    @Test
+    public void shouldExpandTag() {
+        assertEquals("clan/abc/battles", PathTemplate.compile("clan/{tag}/battles").expand("abc"));
+        assertEquals("clan/%23abc", PathTemplate.compile("clan/{tag}").expand("#abc"));
+    }
+
+    @Test
+    public void shouldExpandTags() {
+        assertEquals("player/a,b%23/chests", PathTemplate.compile("player/{tags}/chests").expand(Arrays.asList("a",
+                "b#")));
+    }
+
+    @Test
+    public void shouldExpandOptionalSegment() {
+        PathTemplate unitUnderTest = PathTemplate.compile("top/clans");
+        assertEquals("top/clans", unitUnderTest.expandOptional(null));
+        assertEquals("top/clans/EU", unitUnderTest.expandOptional("EU"));
+    }
+
+    @Test
+    public void shouldMatchStaticPath() {
+        PathTemplate unitUnderTest = PathTemplate.compile("top/clans");
+        assertTrue(unitUnderTest.matches("top/clans", false));
+        assertFalse(unitUnderTest.matches("top/clans/EU", false));
+        assertTrue(unitUnderTest.matches("top/clans/EU", true));
+        assertFalse(unitUnderTest.matches("top/clans/EU/x", true));
+        assertFalse(unitUnderTest.matches("top/clansx", true));
+    }
+
+    @Test
+    public void shouldExtractPlaceholder() {
+        PathTemplate unitUnderTest = PathTemplate.compile("clan/{tag}/battles");
+        assertEquals("2PP", unitUnderTest.extract("clan/2PP/battles"));
+        assertNull(unitUnderTest.extract("clan//battles"));
+        assertNull(unitUnderTest.extract("clan/2PP/x/battles"));
+        assertNull(unitUnderTest.extract("clan/2PP"));
+        assertNull(PathTemplate.compile("top/clans").extract("top/clans"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failExpandBecauseNoPlaceholder() {
+        PathTemplate.compile("top/clans").expand("abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCompileBecauseTwoPlaceholders() {
+        PathTemplate.compile("clan/{tag}/{other}");
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class PipelineStageTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseZeroThreads() {
+        new PipelineStage("test", 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseZeroCapacity() {
+        new PipelineStage("test", 1, 0);
+    }
+
+    @Test
+    public void shouldProcessAndCount() throws InterruptedException {
+        PipelineStage unitUnderTest = new PipelineStage("test", 2, 10);
+        final CountDownLatch latch = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            unitUnderTest.submit(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                    if (latch.getCount() == 0) {
+                        throw new IllegalStateException();
+                    }
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        unitUnderTest.close();
+        unitUnderTest.awaitTermination();
+        assertEquals(3, unitUnderTest.getProcessed());
+        assertEquals(1, unitUnderTest.getFailed());
+        assertEquals(0, unitUnderTest.getQueued());
+        assertTrue(unitUnderTest.getThroughput() > 0);
+    }
+
+    @Test
+    public void shouldApplyBackpressure() throws InterruptedException {
+        final PipelineStage unitUnderTest = new PipelineStage("test", 1, 1);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        unitUnderTest.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        unitUnderTest.submit(createNoop());
+        assertEquals(1.0, unitUnderTest.getOccupancy(), 0.0);
+        final CountDownLatch submitted = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    unitUnderTest.submit(createNoop());
+                    submitted.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+        assertTrue(!submitted.await(200, TimeUnit.MILLISECONDS));
+        blocker.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        unitUnderTest.close();
+    }
+
+    @Test
+    public void shouldMeasureThroughputOnClock() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        PipelineStage unitUnderTest = new PipelineStage("test", 1, 10, clock);
+        unitUnderTest.submit(createNoop());
+        unitUnderTest.submit(createNoop());
+        unitUnderTest.close();
+        unitUnderTest.awaitTermination();
+        clock.advance(2, TimeUnit.SECONDS);
+        assertEquals(1.0, unitUnderTest.getThroughput(), 0.0);
+        assertEquals(0.0, unitUnderTest.getUtilization(), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failSubmitBecauseClosed() throws InterruptedException {
+        PipelineStage unitUnderTest = new PipelineStage("test", 1, 1);
+        unitUnderTest.close();
+        unitUnderTest.submit(createNoop());
+    }
+
+    private Runnable createNoop() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import jcrapi.model.Profile;
+import jcrapi.request.ProfileRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class PipelineTest {
+
+    private Crawler crawler;
+
+    private Pipeline unitUnderTest;
+
+    private final List<String> results = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        CrawlerFactory crawlerFactory = Mockito.mock(CrawlerFactory.class);
+        crawler = Mockito.mock(Crawler.class);
+        when(crawlerFactory.createCrawler()).thenReturn(crawler);
+        unitUnderTest = new Pipeline(new Client("lala/", "abc", AuthMode.NORMAL, crawlerFactory), 2, 2, 1, 10);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failBuildBecauseNullApi() {
+        Pipeline.builder(null).build();
+    }
+
+    @Test
+    public void shouldFetchParseAndDeliver() throws Exception {
+        when(crawler.get(eq("lala/player/ABC"), eq(createHeaders()), 
+                eq(Collections.<String, String>emptyMap()), any(Call.class)))
+                .thenReturn("{\"tag\":\"ABC\"}");
+        when(crawler.get(eq("lala/player/DEF"), eq(createHeaders()), 
+                eq(Collections.<String, String>emptyMap()), any(Call.class)))
+                .thenReturn("{\"tag\":\"DEF\"}");
+        unitUnderTest.submit(ApiEndpoint.PROFILE, ProfileRequest.builder("ABC").build(), createSink());
+        unitUnderTest.submit(ApiEndpoint.PROFILE, ProfileRequest.builder("DEF").build(), createSink());
+        unitUnderTest.close();
+        assertEquals(2, results.size());
+        assertEquals(true, results.contains("ok:ABC"));
+        assertEquals(true, results.contains("ok:DEF"));
+        assertEquals(0, unitUnderTest.getPending());
+        assertEquals(2, unitUnderTest.getFetchStage().getProcessed());
+        assertEquals(2, unitUnderTest.getParseStage().getProcessed());
+        assertEquals(2, unitUnderTest.getSinkStage().getProcessed());
+    }
+
+    @Test
+    public void shouldDeliverFetchErrors() throws Exception {
+        when(crawler.get(eq("lala/player/ABC"), eq(createHeaders()), 
+                eq(Collections.<String, String>emptyMap()), any(Call.class)))
+                .thenThrow(new IOException("crapi: 404"));
+        unitUnderTest.submit(ApiEndpoint.PROFILE, ProfileRequest.builder("ABC").build(), createSink());
+        unitUnderTest.close();
+        assertEquals(Collections.singletonList("error:ABC:404"), results);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldDeliverRuntimeFetchErrors() throws Exception {
+        when(crawler.get(eq("lala/player/ABC"), eq(createHeaders()),
+                eq(Collections.<String, String>emptyMap()), any(Call.class)))
+                .thenThrow(new IllegalStateException("closed"));
+        unitUnderTest.submit(ApiEndpoint.PROFILE, ProfileRequest.builder("ABC").build(), createSink());
+        unitUnderTest.close();
+        assertEquals(Collections.singletonList("error:ABC:-1"), results);
+        assertEquals(0, unitUnderTest.getPending());
+    }
+
+    @Test
+    public void shouldDeliverParseErrors() throws Exception {
+        when(crawler.get(eq("lala/player/ABC"), eq(createHeaders()), 
+                eq(Collections.<String, String>emptyMap()), any(Call.class)))
+                .thenReturn("{");
+        unitUnderTest.submit(ApiEndpoint.PROFILE, ProfileRequest.builder("ABC").build(), createSink());
+        unitUnderTest.close();
+        assertEquals(Collections.singletonList("error:ABC:-1"), results);
+    }
+
+    private PipelineSink<ProfileRequest, Profile> createSink() {
+        return new PipelineSink<ProfileRequest, Profile>() {
+            @Override
+            public void onResult(ProfileRequest request, Profile result) {
+                results.add("ok:" + result.getTag());
+            }
+
+            @Override
+            public void onError(ProfileRequest request, ApiException e) {
+                results.add("error:" + request.getTag() + ":" + e.getCode());
+            }
+        };
+    }
+
+    private Map<String, String> createHeaders() {
+        return ImmutableMap.<String, String>builder().put("auth", "abc").build();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ProxyCacheTest {
+
+    private final VirtualClock clock = new VirtualClock();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoEntries() {
+        new ProxyCache(0, 1000, clock);
+    }
+
+    @Test
+    public void shouldGetUntilExpired() {
+        ProxyCache unitUnderTest = new ProxyCache(10, 1000, clock);
+        unitUnderTest.put("version", "1.0");
+        clock.advance(999, TimeUnit.MILLISECONDS);
+        assertEquals("1.0", unitUnderTest.get("version"));
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        assertNull(unitUnderTest.get("version"));
+        assertEquals(0, unitUnderTest.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        ProxyCache unitUnderTest = new ProxyCache(2, 1000, clock);
+        unitUnderTest.put("a", "1");
+        unitUnderTest.put("b", "2");
+        unitUnderTest.get("a");
+        unitUnderTest.put("c", "3");
+        assertEquals("1", unitUnderTest.get("a"));
+        assertNull(unitUnderTest.get("b"));
+        assertEquals("3", unitUnderTest.get("c"));
+    }
+
+    @Test
+    public void shouldNotCacheWithoutTtl() {
+        ProxyCache unitUnderTest = new ProxyCache(10, 0, clock);
+        unitUnderTest.put("version", "1.0");
+        assertNull(unitUnderTest.get("version"));
+    }
+
+}
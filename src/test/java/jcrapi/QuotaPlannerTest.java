@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import jcrapi.model.AuthStats;
+import jcrapi.model.ClanWar;
+import jcrapi.model.Profile;
+import jcrapi.request.AuthStatsRequest;
+import jcrapi.request.ClanWarRequest;
+import jcrapi.request.PlayerBattlesRequest;
+import jcrapi.request.ProfileRequest;
+import jcrapi.request.ProfilesRequest;
+import jcrapi.request.Request;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class QuotaPlannerTest {
+
+    private Api api;
+
+    @Before
+    public void setUp() {
+        api = Mockito.mock(Api.class);
+        when(api.getMetrics()).thenReturn(new MetricsRegistry());
+        when(api.getRateLimit()).thenReturn(Optional.<RateLimitSnapshot>absent());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullApi() {
+        QuotaPlanner.builder(null).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoTagsPerCall() {
+        QuotaPlanner.builder(api).maxTagsPerCall(0).build();
+    }
+
+    @Test
+    public void shouldPackTags() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).maxTagsPerCall(2).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(profile("#2pp"), profile("8L9L9GL"),
+                ProfilesRequest.builder(Arrays.asList("2PP", "QQ0")).build(), profile("#rr")));
+        assertEquals(2, plan.getCalls().size());
+        assertEquals(ApiEndpoint.PROFILES, plan.getCalls().get(0).getEndpoint());
+        assertEquals(Arrays.asList("2PP", "8L9L9GL"), plan.getCalls().get(0).getTags());
+        assertEquals(Arrays.asList("QQ0", "RR"), plan.getCalls().get(1).getTags());
+        assertEquals(Arrays.asList("QQ0", "RR"),
+                ((ProfilesRequest) plan.getCalls().get(1).getRequest()).getTags());
+        assertEquals(4, plan.getIntents());
+        assertEquals(1, plan.getCoalesced());
+        assertEquals(4, plan.getUnplannedCost());
+        assertEquals(2, plan.getCost());
+    }
+
+    @Test
+    public void shouldKeepParametersOfPackedTags() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(
+                PlayerBattlesRequest.builder(Arrays.asList("2PP")).max(3).build(),
+                PlayerBattlesRequest.builder(Arrays.asList("8L9L9GL")).max(3).build(),
+                PlayerBattlesRequest.builder(Arrays.asList("QQ0")).build()));
+        assertEquals(2, plan.getCalls().size());
+        PlayerBattlesRequest request = (PlayerBattlesRequest) plan.getCalls().get(0).getRequest();
+        assertEquals(Arrays.asList("2PP", "8L9L9GL"), request.getTags());
+        assertEquals(3, request.getMax());
+        assertEquals(Arrays.asList("QQ0"), plan.getCalls().get(1).getTags());
+    }
+
+    @Test
+    public void shouldParseAnswersOfPackedBattlesByTags() {
+        QuotaPlan plan = QuotaPlanner.builder(api).build().plan(Arrays.asList(
+                PlayerBattlesRequest.builder(Arrays.asList("2PP")).build(),
+                PlayerBattlesRequest.builder(Arrays.asList("#2pp", "8L9L9GL")).build(),
+                PlayerBattlesRequest.builder(Arrays.asList("QQ0")).max(3).build()));
+        PlayerBattlesRequest packed = (PlayerBattlesRequest) plan.getCalls().get(0).getRequest();
+        PlayerBattlesRequest single = (PlayerBattlesRequest) plan.getCalls().get(1).getRequest();
+        assertEquals(0, ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), "[]", packed).size());
+        assertEquals(1, ApiEndpoint.PLAYER_BATTLES.parse(new Gson(), "[]", single).size());
+    }
+
+    @Test
+    public void shouldCoalesceRequests() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(ClanWarRequest.builder("#2pp").build(),
+                ClanWarRequest.builder("2PP").build(), ClanWarRequest.builder("2PP").keys(Arrays.asList("state"))
+                        .build()));
+        assertEquals(2, plan.getCalls().size());
+        assertEquals(ApiEndpoint.CLAN_WAR, plan.getCalls().get(0).getEndpoint());
+        assertEquals(1, plan.getCoalesced());
+    }
+
+    @Test
+    public void shouldSkipCachedData() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).cache(new PlanCache() {
+            @Override
+            public boolean contains(ApiEndpoint<?, ?> endpoint, String key) {
+                return key.equals("2PP") || key.equals("clan/2PP/war");
+            }
+        }).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(profile("#2pp"), profile("8L9L9GL"),
+                ClanWarRequest.builder("2PP").build()));
+        assertEquals(1, plan.getCalls().size());
+        assertEquals(Arrays.asList("8L9L9GL"), plan.getCalls().get(0).getTags());
+        assertEquals(2, plan.getCacheHits());
+    }
+
+    @Test
+    public void shouldCostEndpoints() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).callCost(ApiEndpoint.PROFILES, 2)
+                .tagCost(ApiEndpoint.PROFILES, 1).callCost(ApiEndpoint.CLAN_WAR, 0).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(profile("2PP"), profile("8L9L9GL"),
+                ClanWarRequest.builder("2PP").build()));
+        assertEquals(4, plan.getCost());
+        assertEquals(2, plan.getUnplannedCost());
+    }
+
+    @Test
+    public void shouldEstimateFromRateLimit() {
+        when(api.getRateLimit()).thenReturn(Optional.of(new RateLimitSnapshot(2, 2, 0)));
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).maxTagsPerCall(1).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(profile("2PP"), profile("8L9L9GL"), profile("QQ0")));
+        assertEquals(2.0, plan.getRequestsPerSecond(), 0.0);
+        assertEquals(1500, plan.getEstimatedMillis());
+    }
+
+    @Test
+    public void shouldEstimateFromRequestsPerSecond() {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).requestsPerSecond(10).maxTagsPerCall(1).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.asList(profile("2PP"), profile("8L9L9GL")));
+        assertEquals(200, plan.getEstimatedMillis());
+    }
+
+    @Test
+    public void shouldExecutePlan() throws InterruptedException {
+        List<Profile> profiles = Arrays.asList(new Profile(), new Profile());
+        when(api.getResult(eq(ApiEndpoint.PROFILES), any(ProfilesRequest.class)))
+                .thenReturn(new ApiResult<>(profiles, null));
+        when(api.getResult(eq(ApiEndpoint.CLAN_WAR), any(ClanWarRequest.class)))
+                .thenThrow(new ApiException(new IllegalStateException("crapi: 404")));
+        when(api.getAuthStats(any(AuthStatsRequest.class))).thenReturn(authStats(10), authStats(13));
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).parallelism(2).calibrate(true).build();
+        QuotaPlan plan = unitUnderTest.plan(Arrays.<Request>asList(profile("2PP"), profile("8L9L9GL"),
+                ClanWarRequest.builder("2PP").build()));
+        final List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        final List<PlanProgress> progresses = Collections.synchronizedList(new ArrayList<PlanProgress>());
+        PlanProgress progress = unitUnderTest.execute(plan, new PlanSink() {
+            @Override
+            public void onResult(PlannedCall<?, ?> call, Object result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onError(PlannedCall<?, ?> call, ApiException e) {
+                results.add(e.getCode());
+            }
+
+            @Override
+            public void onProgress(PlanProgress progress) {
+                progresses.add(progress);
+            }
+        });
+        assertEquals(2, results.size());
+        assertTrue(results.contains(profiles));
+        assertTrue(results.contains(404));
+        assertEquals(2, progresses.size());
+        assertTrue(progress.isFinished());
+        assertEquals(2, progress.getDone());
+        assertEquals(1, progress.getFailed());
+        assertEquals(0, progress.getEstimatedRemainingMillis());
+        assertEquals(3, progress.getCountedRequests());
+    }
+
+    @Test
+    public void shouldCountRuntimeExceptionsAsFailed() throws InterruptedException {
+        when(api.getResult(eq(ApiEndpoint.CLAN_WAR), any(ClanWarRequest.class)))
+                .thenThrow(new IllegalStateException("closed"));
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).build();
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final List<PlanProgress> progresses = Collections.synchronizedList(new ArrayList<PlanProgress>());
+        PlanProgress progress = unitUnderTest.execute(unitUnderTest.plan(Arrays.<Request>asList(
+                ClanWarRequest.builder("2PP").build())), new PlanSinkAdapter() {
+            @Override
+            public void onError(PlannedCall<?, ?> call, ApiException e) {
+                errors.add(e.getCause());
+            }
+
+            @Override
+            public void onProgress(PlanProgress progress) {
+                progresses.add(progress);
+            }
+        });
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalStateException);
+        assertEquals(1, progresses.size());
+        assertEquals(1, progress.getFailed());
+        assertTrue(progress.isFinished());
+    }
+
+    @Test
+    public void shouldExecuteEmptyPlan() throws InterruptedException {
+        QuotaPlanner unitUnderTest = QuotaPlanner.builder(api).build();
+        PlanProgress progress = unitUnderTest.execute(unitUnderTest.plan(Collections.<Request>emptyList()),
+                new PlanSinkAdapter() {});
+        assertTrue(progress.isFinished());
+        assertEquals(-1, progress.getCountedRequests());
+    }
+
+    private static ProfileRequest profile(String tag) {
+        return ProfileRequest.builder(tag).build();
+    }
+
+    private static AuthStats authStats(int requests) {
+        AuthStats authStats = new AuthStats();
+        authStats.setRequestCount(ImmutableMap.of("day", String.valueOf(requests)));
+        return authStats;
+    }
+
+}
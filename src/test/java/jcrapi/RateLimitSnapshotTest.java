@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RateLimitSnapshotTest {
+
+    @Test
+    public void shouldParseHeaders() {
+        assertEquals(new RateLimitSnapshot(10, 4, 1000), RateLimitSnapshot.parse(ImmutableMap.of(
+                Response.X_RATELIMIT_LIMIT, "10", Response.X_RATELIMIT_REMAINING, " 4",
+                Response.X_RATELIMIT_RESET, "1000")));
+    }
+
+    @Test
+    public void shouldParseMissingHeadersAsUnknown() {
+        assertEquals(new RateLimitSnapshot(-1, 4, 0), RateLimitSnapshot.parse(ImmutableMap.of(
+                Response.X_RATELIMIT_REMAINING, "4", Response.X_RATELIMIT_RESET, "lala")));
+    }
+
+    @Test
+    public void shouldParseNoneWithoutHeaders() {
+        assertNull(RateLimitSnapshot.parse(Collections.<String, String>emptyMap()));
+    }
+
+    @Test
+    public void shouldTakeNewerWindow() {
+        RateLimitSnapshot newer = new RateLimitSnapshot(10, 9, 2000);
+        assertSame(newer, new RateLimitSnapshot(10, 1, 1000).merge(newer));
+    }
+
+    @Test
+    public void shouldIgnoreOlderWindow() {
+        RateLimitSnapshot current = new RateLimitSnapshot(10, 9, 2000);
+        assertSame(current, current.merge(new RateLimitSnapshot(10, 1, 1000)));
+    }
+
+    @Test
+    public void shouldKeepLowestRemainingOfSameWindow() {
+        RateLimitSnapshot current = new RateLimitSnapshot(10, 3, 1000);
+        assertSame(current, current.merge(new RateLimitSnapshot(10, 5, 1000)));
+        assertEquals(new RateLimitSnapshot(10, 2, 1000), current.merge(new RateLimitSnapshot(-1, 2, 1000)));
+    }
+
+    @Test
+    public void shouldTakeLatestWithoutReset() {
+        RateLimitSnapshot latest = new RateLimitSnapshot(10, 5, 0);
+        assertSame(latest, new RateLimitSnapshot(10, 3, 0).merge(latest));
+    }
+
+    @Test
+    public void shouldTellExhausted() {
+        assertTrue(new RateLimitSnapshot(10, 0, 1000).isExhausted(999));
+        assertFalse(new RateLimitSnapshot(10, 0, 1000).isExhausted(1000));
+        assertFalse(new RateLimitSnapshot(10, 1, 1000).isExhausted(999));
+    }
+
+    @Test
+    public void shouldUpdateConcurrently() throws InterruptedException {
+        final AtomicReference<RateLimitSnapshot> reference = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int offset = i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int remaining = 1000 - offset; remaining >= 0; remaining -= 8) {
+                        ResponseState.update(reference, new RateLimitSnapshot(1000, remaining, 5000));
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(new RateLimitSnapshot(1000, 0, 5000), reference.get());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RecordingCrawlerTest {
+
+    private HttpClient httpClient;
+
+    private Recording recording;
+
+    private RecordingCrawler unitUnderTest;
+
+    @Before
+    public void setUp() {
+        HttpClientFactory httpClientFactory = Mockito.mock(HttpClientFactory.class);
+        httpClient = Mockito.mock(HttpClient.class);
+        when(httpClientFactory.create()).thenReturn(httpClient);
+        recording = new Recording();
+        unitUnderTest = new RecordingCrawler(httpClientFactory, recording);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullRecording() {
+        new RecordingCrawler(new HttpClientFactory(), null);
+    }
+
+    @Test
+    public void shouldRecordResponse() throws IOException {
+        HttpResponse httpResponse = createResponse(200);
+        httpResponse.setEntity(new StringEntity("{}"));
+        httpResponse.addHeader("X-RateLimit-Remaining", "9");
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject())).thenReturn(httpResponse);
+        assertEquals("{}", unitUnderTest.get("lala/player/ABC", createHeaders(), Collections.singletonMap("keys", "a"),
+                createCall()));
+        assertEquals(Collections.singletonList(new RecordedResponse(200,
+                ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "9"), "{}")),
+                recording.getResponses("player/ABC?keys=a"));
+    }
+
+    private HttpResponse createResponse(int statusCode) {
+        return new BasicHttpResponse(new BasicStatusLine(new ProtocolVersion("http", 1, 1), statusCode, ""));
+    }
+
+    private Map<String, String> createHeaders() {
+        return ImmutableMap.of("auth", "abc");
+    }
+
+    private Call createCall() {
+        return new Call(ApiEndpoint.PROFILE, "player/ABC", "lala/player/ABC", Collections.<RequestListener>emptyList());
+    }
+
+    @Test
+    public void shouldRecordErrorResponse() throws IOException {
+        when(httpClient.execute((HttpUriRequest) anyObject(), (HttpContext) anyObject()))
+                .thenReturn(createResponse(429));
+        try {
+            unitUnderTest.get("lala/player/ABC", createHeaders(), null, createCall());
+        } catch (IOException e) {
+            assertEquals("crapi: 429", e.getMessage());
+        }
+        assertEquals(Collections.singletonList(new RecordedResponse(429, Collections.<String, String>emptyMap(),
+                null)), recording.getResponses("player/ABC"));
+    }
+
+}
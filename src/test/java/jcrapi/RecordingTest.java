@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RecordingTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Recording unitUnderTest = new Recording();
+
+    @Test
+    public void shouldCreateKeyWithSortedParameters() {
+        assertEquals("player/ABC", Recording.createKey("player/ABC", null));
+        assertEquals("player/ABC", Recording.createKey("player/ABC", Collections.<String, String>emptyMap()));
+        assertEquals("clan/search?name=x&score=50", Recording.createKey("clan/search",
+                ImmutableMap.of("score", "50", "name", "x")));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failAddBecauseNullKey() {
+        unitUnderTest.add(null, createResponse("{}"));
+    }
+
+    private RecordedResponse createResponse(String body) {
+        return new RecordedResponse(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "5"), body);
+    }
+
+    @Test
+    public void shouldCycleThroughResponses() {
+        unitUnderTest.add("a", createResponse("1"));
+        unitUnderTest.add("a", createResponse("2"));
+        assertEquals("1", unitUnderTest.next("a").getBody());
+        assertEquals("2", unitUnderTest.next("a").getBody());
+        assertEquals("1", unitUnderTest.next("a").getBody());
+        assertNull(unitUnderTest.next("b"));
+        assertEquals(2, unitUnderTest.size());
+    }
+
+    @Test
+    public void shouldWriteAndRead() throws IOException {
+        unitUnderTest.add("player/ABC", createResponse("{\"name\":\"äöü\"}"));
+        unitUnderTest.add("player/ABC", new RecordedResponse(429, Collections.<String, String>emptyMap(), null));
+        unitUnderTest.add("clan/DEF", createResponse("{}"));
+        File file = temporaryFolder.newFile("recording.jcr");
+        unitUnderTest.writeTo(file);
+        Recording recording = Recording.readFrom(file);
+        assertEquals(unitUnderTest.getKeys(), recording.getKeys());
+        assertEquals(unitUnderTest.getResponses("player/ABC"), recording.getResponses("player/ABC"));
+        assertEquals(unitUnderTest.getResponses("clan/DEF"), recording.getResponses("clan/DEF"));
+    }
+
+    @Test(expected = IOException.class)
+    public void failReadBecauseNoRecording() throws IOException {
+        File file = temporaryFolder.newFile("other.gz");
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        Recording.readFrom(file);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import jcrapi.model.Profile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ReplayCrawlerTest {
+
+    private Recording recording;
+
+    @Before
+    public void setUp() {
+        recording = new Recording();
+        recording.add("player/ABC", new RecordedResponse(200, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "9"),
+                "{\"tag\":\"ABC\"}"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullReplay() {
+        new ReplayCrawler(null);
+    }
+
+    @Test
+    public void shouldReplay() throws IOException {
+        Call call = createCall("player/ABC");
+        assertEquals("{\"tag\":\"ABC\"}", new ReplayCrawler(Replay.builder(recording).build())
+                .get("lala/player/ABC", createHeaders(), null, call));
+        assertEquals(200, call.getStatusCode());
+        assertEquals(13, call.getResponseBytes());
+        assertEquals("9", call.getResponseHeaders().get(Response.X_RATELIMIT_REMAINING));
+    }
+
+    private Call createCall(String path) {
+        return new Call(ApiEndpoint.PROFILE, path, "lala/" + path, Collections.<RequestListener>emptyList());
+    }
+
+    private Map<String, String> createHeaders() {
+        return ImmutableMap.of("auth", "abc");
+    }
+
+    @Test
+    public void shouldAnswerNotFoundWithoutRecording() throws IOException {
+        try {
+            new ReplayCrawler(Replay.builder(recording).build()).get("lala/player/DEF", createHeaders(), null,
+                    createCall("player/DEF"));
+        } catch (IOException e) {
+            assertEquals("crapi: 404", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldSimulateRateLimit() throws IOException {
+        ReplayCrawler unitUnderTest = new ReplayCrawler(Replay.builder(recording).rateLimit(1)
+                .rateLimitWindowMillis(60000).build());
+        unitUnderTest.get("lala/player/ABC", createHeaders(), null, createCall("player/ABC"));
+        Call call = createCall("player/ABC");
+        try {
+            unitUnderTest.get("lala/player/ABC", createHeaders(), null, call);
+        } catch (IOException e) {
+            assertEquals("crapi: 429", e.getMessage());
+        }
+        assertEquals("0", call.getResponseHeaders().get(Response.X_RATELIMIT_REMAINING));
+    }
+
+    @Test
+    public void shouldReplayThroughApi() {
+        Api api = Api.replaying("http://nowhere/", "abc", AuthMode.NORMAL, Replay.builder(recording).build());
+        Profile profile = api.getProfile("ABC");
+        assertEquals("ABC", profile.getTag());
+    }
+
+    @Test
+    public void shouldSimulateHoursOfThrottlingOnVirtualClock() {
+        VirtualClock clock = new VirtualClock(TimeUnit.DAYS.toMillis(1));
+        Api api = Api.replaying("http://nowhere/", "abc", AuthMode.NORMAL, Replay.builder(recording).rateLimit(1)
+                .rateLimitWindowMillis(TimeUnit.MINUTES.toMillis(1)).latencyMillis(200).clock(clock).build());
+        long startedAt = System.currentTimeMillis();
+        for (int i = 0; i < 120; i++) {
+            assertEquals("ABC", api.getProfile("ABC").getTag());
+        }
+        assertTrue(clock.currentTimeMillis() - TimeUnit.DAYS.toMillis(1) >= TimeUnit.MINUTES.toMillis(119));
+        assertTrue(System.currentTimeMillis() - startedAt < TimeUnit.SECONDS.toMillis(10));
+        assertEquals(119, api.getMetrics().getEndpoint(ApiEndpoint.PROFILE).getRateLimitWaits());
+    }
+
+}
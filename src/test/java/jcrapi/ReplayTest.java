@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ReplayTest {
+
+    @Test(expected = NullPointerException.class)
+    public void failBuildBecauseNullRecording() {
+        Replay.builder(null).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseNegativeLatency() {
+        Replay.builder(new Recording()).latencyMillis(-1).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseEmptyWindow() {
+        Replay.builder(new Recording()).rateLimitWindowMillis(0).build();
+    }
+
+    @Test
+    public void shouldNotLimitByDefault() {
+        Replay replay = Replay.builder(new Recording()).build();
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(replay.acquire(1000, headers));
+        }
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void shouldLimitPerWindow() {
+        Replay replay = Replay.builder(new Recording()).rateLimit(2).rateLimitWindowMillis(100).build();
+        Map<String, String> headers = new HashMap<>();
+        assertTrue(replay.acquire(1000, headers));
+        assertEquals("1", headers.get(Response.X_RATELIMIT_REMAINING));
+        assertTrue(replay.acquire(1010, headers));
+        assertEquals("0", headers.get(Response.X_RATELIMIT_REMAINING));
+        assertFalse(replay.acquire(1020, headers));
+        assertEquals("1100", headers.get(Response.X_RATELIMIT_RESET));
+        assertEquals("2", headers.get(Response.X_RATELIMIT_LIMIT));
+        assertTrue(replay.acquire(1100, headers));
+    }
+
+}
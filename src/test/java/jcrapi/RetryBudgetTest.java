@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RetryBudgetTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNegativeRatio() {
+        new RetryBudget(-0.1, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNegativeReserve() {
+        new RetryBudget(0.1, -1);
+    }
+
+    @Test
+    public void shouldSpendReserve() {
+        RetryBudget unitUnderTest = new RetryBudget(0.5, 2);
+        assertTrue(unitUnderTest.tryWithdraw());
+        assertTrue(unitUnderTest.tryWithdraw());
+        assertFalse(unitUnderTest.tryWithdraw());
+        assertEquals(1, unitUnderTest.getRejected());
+    }
+
+    @Test
+    public void shouldRefillWithCalls() {
+        RetryBudget unitUnderTest = new RetryBudget(0.5, 2);
+        unitUnderTest.tryWithdraw();
+        unitUnderTest.tryWithdraw();
+        unitUnderTest.deposit();
+        assertFalse(unitUnderTest.tryWithdraw());
+        unitUnderTest.deposit();
+        assertTrue(unitUnderTest.tryWithdraw());
+    }
+
+    @Test
+    public void shouldCapBalanceAtReserve() {
+        RetryBudget unitUnderTest = new RetryBudget(0.5, 2);
+        for (int i = 0; i < 100; i++) {
+            unitUnderTest.deposit();
+        }
+        assertEquals(2, unitUnderTest.getBalance(), 0.0001);
+    }
+
+}
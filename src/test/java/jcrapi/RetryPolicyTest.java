@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RetryPolicyTest {
+
+    private final RetryPolicy unitUnderTest = RetryPolicy.DEFAULT;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseNoAttempts() {
+        RetryPolicy.builder().maxAttempts(0).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseMaxDelayBelowBaseDelay() {
+        RetryPolicy.builder().baseDelayMillis(100).maxDelayMillis(50).build();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failBuildBecauseNullRetryStatuses() {
+        RetryPolicy.builder().retryStatuses(null).build();
+    }
+
+    @Test
+    public void shouldClassifyByStatusCode() {
+        assertEquals(FailureClass.RATE_LIMITED, classify(429, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.RETRYABLE, classify(502, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.RETRYABLE, classify(503, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.RETRYABLE, classify(504, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.FATAL, classify(500, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.FATAL, classify(404, Collections.<String, String>emptyMap()));
+        assertEquals(FailureClass.RATE_LIMITED, classify(403, ImmutableMap.of(Response.X_RATELIMIT_REMAINING, "0")));
+    }
+
+    private FailureClass classify(int statusCode, Map<String, String> headers) {
+        return unitUnderTest.classify(createCall(statusCode, headers), new IOException("crapi: " + statusCode));
+    }
+
+    private CallMetadata createCall(int statusCode, Map<String, String> headers) {
+        Call call = new Call(ApiEndpoint.VERSION, "version", "lala/version", Collections.<RequestListener>emptyList());
+        if (statusCode > 0) {
+            call.headersReceived(statusCode, headers);
+        }
+        return call.getMetadata();
+    }
+
+    @Test
+    public void shouldClassifyByExceptionMessageWithoutHeaders() {
+        assertEquals(FailureClass.FATAL, unitUnderTest.classify(createCall(0, null), new IOException("crapi: 404")));
+        assertEquals(FailureClass.RETRYABLE, unitUnderTest.classify(createCall(0, null),
+                new IOException("crapi: 503")));
+    }
+
+    @Test
+    public void shouldClassifyConnectionFailures() {
+        CallMetadata call = createCall(0, null);
+        assertEquals(FailureClass.RETRYABLE, unitUnderTest.classify(call, new IOException("Connection reset")));
+        assertEquals(FailureClass.RETRYABLE, unitUnderTest.classify(call, new SocketTimeoutException()));
+        assertEquals(FailureClass.RETRYABLE, unitUnderTest.classify(call, new ConnectTimeoutException()));
+        assertEquals(FailureClass.FATAL, unitUnderTest.classify(call, new InterruptedIOException()));
+        assertEquals(FailureClass.FATAL, RetryPolicy.builder().retryConnectionFailures(false).build()
+                .classify(call, new SocketTimeoutException()));
+    }
+
+    @Test
+    public void shouldUseConfiguredRetryStatuses() {
+        RetryPolicy retryPolicy = RetryPolicy.builder().retryStatuses(ImmutableSet.of(500)).build();
+        assertEquals(FailureClass.RETRYABLE, retryPolicy.classify(createCall(500,
+                Collections.<String, String>emptyMap()), new IOException("crapi: 500")));
+        assertEquals(FailureClass.FATAL, retryPolicy.classify(createCall(503,
+                Collections.<String, String>emptyMap()), new IOException("crapi: 503")));
+    }
+
+    @Test
+    public void shouldLimitAttemptsPerFailureClass() {
+        RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts(4).maxRateLimitAttempts(7).build();
+        assertEquals(4, retryPolicy.getMaxAttempts(FailureClass.RETRYABLE));
+        assertEquals(7, retryPolicy.getMaxAttempts(FailureClass.RATE_LIMITED));
+        assertEquals(0, retryPolicy.getMaxAttempts(FailureClass.FATAL));
+    }
+
+    @Test
+    public void shouldBackOffWithDecorrelatedJitter() {
+        RetryPolicy retryPolicy = RetryPolicy.builder().baseDelayMillis(100).maxDelayMillis(1000).build();
+        Random random = new Random(42);
+        long delay = 0;
+        boolean capped = false;
+        for (int i = 0; i < 100; i++) {
+            long previous = delay;
+            delay = retryPolicy.nextDelayMillis(previous, random);
+            assertTrue(String.valueOf(delay), delay >= 100);
+            assertTrue(String.valueOf(delay), delay <= Math.min(1000, Math.max(100, previous * 3)));
+            capped |= delay > 900;
+        }
+        assertTrue(capped);
+        assertEquals(100, retryPolicy.nextDelayMillis(0, random));
+    }
+
+    @Test
+    public void shouldRetryRateLimitAtReset() {
+        CallMetadata call = createCall(429, ImmutableMap.of(Response.X_RATELIMIT_RESET, "5000", "retry-after", "10"));
+        assertEquals(5000, unitUnderTest.retryAt(FailureClass.RATE_LIMITED, call, 1000, 100));
+    }
+
+    @Test
+    public void shouldHonourRetryAfterSeconds() {
+        CallMetadata call = createCall(503, ImmutableMap.of("retry-after", "3"));
+        assertEquals(4000, unitUnderTest.retryAt(FailureClass.RETRYABLE, call, 1000, 100));
+        assertEquals(6000, unitUnderTest.retryAt(FailureClass.RETRYABLE, call, 1000, 5000));
+        assertEquals(4000, unitUnderTest.retryAt(FailureClass.RATE_LIMITED, call, 1000, 100));
+    }
+
+    @Test
+    public void shouldHonourRetryAfterDate() {
+        CallMetadata call = createCall(503, ImmutableMap.of("retry-after", "Thu, 01 Jan 1970 00:00:10 GMT"));
+        assertEquals(10000, unitUnderTest.retryAt(FailureClass.RETRYABLE, call, 1000, 100));
+    }
+
+    @Test
+    public void shouldIgnoreInvalidRetryAfter() {
+        CallMetadata call = createCall(503, ImmutableMap.of("retry-after", "soon"));
+        assertFalse(RetryPolicy.getRetryAfter(call, 1000).isPresent());
+        assertEquals(1100, unitUnderTest.retryAt(FailureClass.RETRYABLE, call, 1000, 100));
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHeaders;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the api which answers every path with a synthetic player list and behaves like the real
+ * service under load: a token bucket per auth header with accurate rate limit headers, a latency distribution,
+ * bursts of 429 and 5xx answers, slowly streamed bodies and 503 answers above a concurrency the server can handle. Runs embedded in tests or standalone via
+ * {@link #main(String[])}.
+ *
+ * @author Michael Lieshoff
+ */
+public class SimulatedApiServer {
+
+    private static final String CONTEXT = "/sim";
+
+    private final int port;
+    private final int payloadBytes;
+    private final int rateLimit;
+    private final double refillPerSecond;
+    private final long latencyMillis;
+    private final long latencyJitterMillis;
+    private final double throttleRate;
+    private final int throttleBurst;
+    private final long throttleMillis;
+    private final double errorRate;
+    private final int errorBurst;
+    private final int errorStatus;
+    private final double slowBodyRate;
+    private final int bodyChunkBytes;
+    private final long bodyChunkDelayMillis;
+    private final int maxConcurrency;
+    private final Random random;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong slowBodies = new AtomicLong();
+    private final AtomicLong overloaded = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger throttleBurstLeft = new AtomicInteger();
+    private final AtomicInteger errorBurstLeft = new AtomicInteger();
+
+    private TokenBucket tokenBucket;
+    private JettyServer jettyServer;
+    private byte[] payload;
+
+    private SimulatedApiServer(SimulatedApiServerBuilder builder) {
+        port = builder.port;
+        payloadBytes = builder.payloadBytes;
+        rateLimit = builder.rateLimit;
+        refillPerSecond = builder.refillPerSecond > 0 ? builder.refillPerSecond : builder.rateLimit;
+        latencyMillis = builder.latencyMillis;
+        latencyJitterMillis = builder.latencyJitterMillis;
+        throttleRate = builder.throttleRate;
+        throttleBurst = builder.throttleBurst;
+        throttleMillis = builder.throttleMillis;
+        errorRate = builder.errorRate;
+        errorBurst = builder.errorBurst;
+        errorStatus = builder.errorStatus;
+        slowBodyRate = builder.slowBodyRate;
+        bodyChunkBytes = builder.bodyChunkBytes;
+        bodyChunkDelayMillis = builder.bodyChunkDelayMillis;
+        maxConcurrency = builder.maxConcurrency;
+        random = new Random(builder.seed);
+    }
+
+    public static SimulatedApiServerBuilder builder() {
+        return new SimulatedApiServerBuilder();
+    }
+
+    public void start() throws Exception {
+        Preconditions.checkState(jettyServer == null, "started");
+        payload = TestLoadServlet.createPayload(payloadBytes);
+        tokenBucket = rateLimit > 0 ? new TokenBucket(rateLimit, refillPerSecond) : null;
+        jettyServer = new JettyServer(port, CONTEXT);
+        jettyServer.addServlet("/*", new SimulatedApiServlet());
+        jettyServer.start();
+    }
+
+    public void stop() throws Exception {
+        if (jettyServer != null) {
+            jettyServer.stop();
+            jettyServer = null;
+        }
+    }
+
+    public String getUrl() {
+        return String.format("http://localhost:%d%s/", port, CONTEXT);
+    }
+
+    public int getPayloadBytes() {
+        return payload != null ? payload.length : 0;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getSlowBodies() {
+        return slowBodies.get();
+    }
+
+    public long getOverloaded() {
+        return overloaded.get();
+    }
+
+    private boolean inBurst(AtomicInteger burstLeft, double rate, int burst) {
+        for (int left = burstLeft.get(); left > 0; left = burstLeft.get()) {
+            if (burstLeft.compareAndSet(left, left - 1)) {
+                return true;
+            }
+        }
+        if (rate > 0 && random.nextDouble() < rate) {
+            burstLeft.addAndGet(burst - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private long nextLatencyMillis() {
+        long latency = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            latency += (long) (-Math.log(1 - random.nextDouble()) * latencyJitterMillis);
+        }
+        return latency;
+    }
+
+    private static void sleep(long millis) {
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final SimulatedApiServer server = builder()
+                .port(Integer.getInteger("port", 50002))
+                .payloadBytes(Integer.getInteger("payloadBytes", 10000))
+                .rateLimit(Integer.getInteger("rateLimit", 0))
+                .refillPerSecond(Double.parseDouble(System.getProperty("refillPerSecond", "0")))
+                .latencyMillis(Long.getLong("latencyMillis", 0L))
+                .latencyJitterMillis(Long.getLong("latencyJitterMillis", 0L))
+                .throttleRate(Double.parseDouble(System.getProperty("throttleRate", "0")))
+                .throttleBurst(Integer.getInteger("throttleBurst", 1))
+                .errorRate(Double.parseDouble(System.getProperty("errorRate", "0")))
+                .errorBurst(Integer.getInteger("errorBurst", 1))
+                .errorStatus(Integer.getInteger("errorStatus", 503))
+                .slowBodyRate(Double.parseDouble(System.getProperty("slowBodyRate", "0")))
+                .bodyChunkDelayMillis(Long.getLong("bodyChunkDelayMillis", 10L))
+                .maxConcurrency(Integer.getInteger("maxConcurrency", 0))
+                .seed(Long.getLong("seed", System.nanoTime()))
+                .build();
+        server.start();
+        System.out.println("simulated api listening on " + server.getUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                System.out.printf("requests=%d throttled=%d failed=%d slowBodies=%d overloaded=%d%n",
+                        server.getRequests(), server.getThrottled(), server.getFailed(), server.getSlowBodies(),
+                        server.getOverloaded());
+            }
+        });
+    }
+
+    private class SimulatedApiServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            requests.incrementAndGet();
+            try {
+                if (maxConcurrency > 0 && active.incrementAndGet() > maxConcurrency) {
+                    overloaded.incrementAndGet();
+                    resp.setStatus(503);
+                    return;
+                }
+                serve(req, resp);
+            } finally {
+                if (maxConcurrency > 0) {
+                    active.decrementAndGet();
+                }
+            }
+        }
+
+        private void serve(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            String key = getKey(req);
+            if (key == null) {
+                resp.setStatus(403);
+                return;
+            }
+            sleep(nextLatencyMillis());
+            Map<String, String> headers = new HashMap<>();
+            long now = System.currentTimeMillis();
+            boolean acquired = tokenBucket == null || tokenBucket.acquire(key, now, headers);
+            if (acquired && inBurst(throttleBurstLeft, throttleRate, throttleBurst)) {
+                headers.put(Response.X_RATELIMIT_LIMIT, String.valueOf(Math.max(rateLimit, 1)));
+                headers.put(Response.X_RATELIMIT_REMAINING, "0");
+                headers.put(Response.X_RATELIMIT_RESET, String.valueOf(now + throttleMillis));
+                acquired = false;
+            }
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                resp.setHeader(entry.getKey(), entry.getValue());
+            }
+            if (!acquired) {
+                throttled.incrementAndGet();
+                long waitMillis = Long.parseLong(headers.get(Response.X_RATELIMIT_RESET)) - now;
+                resp.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+                resp.setStatus(429);
+                return;
+            }
+            if (inBurst(errorBurstLeft, errorRate, errorBurst)) {
+                failed.incrementAndGet();
+                resp.setStatus(errorStatus);
+                return;
+            }
+            resp.setContentType("application/json");
+            resp.setContentLength(payload.length);
+            OutputStream out = resp.getOutputStream();
+            if (slowBodyRate > 0 && random.nextDouble() < slowBodyRate) {
+                slowBodies.incrementAndGet();
+                for (int offset = 0; offset < payload.length; offset += bodyChunkBytes) {
+                    out.write(payload, offset, Math.min(bodyChunkBytes, payload.length - offset));
+                    out.flush();
+                    sleep(bodyChunkDelayMillis);
+                }
+            } else {
+                out.write(payload);
+            }
+            out.flush();
+        }
+
+        private String getKey(HttpServletRequest req) {
+            String auth = req.getHeader("auth");
+            if (StringUtils.isBlank(auth)) {
+                auth = StringUtils.removeStart(req.getHeader(HttpHeaders.AUTHORIZATION), "Bearer ");
+            }
+            return StringUtils.isNotBlank(auth) ? auth : null;
+        }
+
+    }
+
+    public static class SimulatedApiServerBuilder {
+
+        private int port = 50002;
+        private int payloadBytes = 10000;
+        private int rateLimit;
+        private double refillPerSecond;
+        private long latencyMillis;
+        private long latencyJitterMillis;
+        private double throttleRate;
+        private int throttleBurst = 1;
+        private long throttleMillis = 100;
+        private double errorRate;
+        private int errorBurst = 1;
+        private int errorStatus = 503;
+        private double slowBodyRate;
+        private int bodyChunkBytes = 1024;
+        private long bodyChunkDelayMillis = 10;
+        private int maxConcurrency;
+        private long seed = 42;
+
+        public SimulatedApiServerBuilder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder payloadBytes(int payloadBytes) {
+            this.payloadBytes = payloadBytes;
+            return this;
+        }
+
+        /**
+         * Bucket capacity per auth header, 0 for no rate limit headers.
+         */
+        public SimulatedApiServerBuilder rateLimit(int rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        /**
+         * Tokens added per second, defaults to the rate limit.
+         */
+        public SimulatedApiServerBuilder refillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder latencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        /**
+         * Mean of an exponentially distributed latency added on top of the fixed latency, gives a long tail.
+         */
+        public SimulatedApiServerBuilder latencyJitterMillis(long latencyJitterMillis) {
+            this.latencyJitterMillis = latencyJitterMillis;
+            return this;
+        }
+
+        /**
+         * Probability of a request starting a burst of 429 answers regardless of the token bucket.
+         */
+        public SimulatedApiServerBuilder throttleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder throttleBurst(int throttleBurst) {
+            this.throttleBurst = throttleBurst;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder throttleMillis(long throttleMillis) {
+            this.throttleMillis = throttleMillis;
+            return this;
+        }
+
+        /**
+         * Probability of a request starting a burst of error answers.
+         */
+        public SimulatedApiServerBuilder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder errorBurst(int errorBurst) {
+            this.errorBurst = errorBurst;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder errorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        /**
+         * Probability of a body being streamed in chunks with a delay after each chunk.
+         */
+        public SimulatedApiServerBuilder slowBodyRate(double slowBodyRate) {
+            this.slowBodyRate = slowBodyRate;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder bodyChunkBytes(int bodyChunkBytes) {
+            this.bodyChunkBytes = bodyChunkBytes;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder bodyChunkDelayMillis(long bodyChunkDelayMillis) {
+            this.bodyChunkDelayMillis = bodyChunkDelayMillis;
+            return this;
+        }
+
+        /**
+         * Requests the server handles at once, more answer 503 right away. 0 for no limit.
+         */
+        public SimulatedApiServerBuilder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public SimulatedApiServerBuilder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SimulatedApiServer build() {
+            Preconditions.checkArgument(payloadBytes > 0, "payloadBytes");
+            Preconditions.checkArgument(rateLimit >= 0, "rateLimit");
+            Preconditions.checkArgument(refillPerSecond >= 0, "refillPerSecond");
+            Preconditions.checkArgument(latencyMillis >= 0, "latencyMillis");
+            Preconditions.checkArgument(latencyJitterMillis >= 0, "latencyJitterMillis");
+            Preconditions.checkArgument(throttleRate >= 0 && throttleRate <= 1, "throttleRate");
+            Preconditions.checkArgument(throttleBurst > 0, "throttleBurst");
+            Preconditions.checkArgument(throttleMillis >= 0, "throttleMillis");
+            Preconditions.checkArgument(errorRate >= 0 && errorRate <= 1, "errorRate");
+            Preconditions.checkArgument(errorBurst > 0, "errorBurst");
+            Preconditions.checkArgument(errorStatus >= 500 && errorStatus < 600, "errorStatus");
+            Preconditions.checkArgument(slowBodyRate >= 0 && slowBodyRate <= 1, "slowBodyRate");
+            Preconditions.checkArgument(bodyChunkBytes > 0, "bodyChunkBytes");
+            Preconditions.checkArgument(bodyChunkDelayMillis >= 0, "bodyChunkDelayMillis");
+            Preconditions.checkArgument(maxConcurrency >= 0, "maxConcurrency");
+            return new SimulatedApiServer(this);
+        }
+
+    }
+
+}
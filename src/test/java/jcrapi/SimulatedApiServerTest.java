@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class SimulatedApiServerTest {
+
+    private SimulatedApiServer unitUnderTest;
+
+    @After
+    public void tearDown() throws Exception {
+        if (unitUnderTest != null) {
+            unitUnderTest.stop();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseErrorRateAboveOne() {
+        SimulatedApiServer.builder().errorRate(1.5).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseErrorStatusNoServerError() {
+        SimulatedApiServer.builder().errorStatus(404).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failBuildBecauseNegativeLatency() {
+        SimulatedApiServer.builder().latencyMillis(-1).build();
+    }
+
+    @Test
+    public void shouldRejectMissingAuth() throws Exception {
+        start(SimulatedApiServer.builder());
+        HttpURLConnection connection = (HttpURLConnection) new URL(unitUnderTest.getUrl() + "top/players")
+                .openConnection();
+        assertEquals(403, connection.getResponseCode());
+    }
+
+    private void start(SimulatedApiServer.SimulatedApiServerBuilder builder) throws Exception {
+        unitUnderTest = builder.build();
+        unitUnderTest.start();
+    }
+
+    @Test
+    public void shouldEnforceRateLimitPerKey() throws Exception {
+        start(SimulatedApiServer.builder().rateLimit(2).refillPerSecond(0.1));
+        assertEquals(200, get("a").getResponseCode());
+        HttpURLConnection connection = get("a");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("2", connection.getHeaderField(Response.X_RATELIMIT_LIMIT));
+        assertEquals("0", connection.getHeaderField(Response.X_RATELIMIT_REMAINING));
+        connection = get("a");
+        assertEquals(429, connection.getResponseCode());
+        assertTrue(Long.parseLong(connection.getHeaderField(Response.X_RATELIMIT_RESET))
+                > System.currentTimeMillis());
+        assertEquals("10", connection.getHeaderField("Retry-After"));
+        assertEquals(200, get("b").getResponseCode());
+        assertEquals(4, unitUnderTest.getRequests());
+        assertEquals(1, unitUnderTest.getThrottled());
+    }
+
+    private HttpURLConnection get(String key) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(unitUnderTest.getUrl() + "top/players")
+                .openConnection();
+        connection.setRequestProperty("auth", key);
+        connection.getResponseCode();
+        return connection;
+    }
+
+    @Test
+    public void shouldLetClientWaitForRateLimit() throws Exception {
+        start(SimulatedApiServer.builder().rateLimit(3).refillPerSecond(30).payloadBytes(2000));
+        Api api = new Api(unitUnderTest.getUrl(), "key");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(api.getTopPlayers().size() > 0);
+        }
+        assertTrue(unitUnderTest.getThrottled() > 0);
+        assertEquals(10 + unitUnderTest.getThrottled(), unitUnderTest.getRequests());
+    }
+
+    @Test
+    public void shouldInjectThrottleBursts() throws Exception {
+        start(SimulatedApiServer.builder().throttleRate(1).throttleBurst(3).throttleMillis(10));
+        assertEquals(429, get("a").getResponseCode());
+        assertEquals(429, get("a").getResponseCode());
+        assertEquals(429, get("a").getResponseCode());
+        assertEquals(3, unitUnderTest.getThrottled());
+    }
+
+    @Test
+    public void shouldInjectErrorBursts() throws Exception {
+        start(SimulatedApiServer.builder().errorRate(1).errorBurst(2).errorStatus(502));
+        Api api = new Api(unitUnderTest.getUrl(), "key");
+        api.setRetryPolicy(RetryPolicy.builder().maxAttempts(1).build());
+        try {
+            api.getTopPlayers();
+            fail();
+        } catch (ApiException e) {
+            assertEquals(502, e.getCode());
+        }
+        assertEquals(502, get("a").getResponseCode());
+        assertEquals(2, unitUnderTest.getFailed());
+    }
+
+    @Test
+    public void shouldLetClientRetryErrorBursts() throws Exception {
+        start(SimulatedApiServer.builder().errorRate(0.2).errorBurst(2).seed(7));
+        Api api = new Api(unitUnderTest.getUrl(), "key");
+        api.setRetryPolicy(RetryPolicy.builder().maxAttempts(10).baseDelayMillis(1).maxDelayMillis(5).build());
+        api.setRetryBudget(new RetryBudget(1, 100));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(api.getTopPlayers().size() > 0);
+        }
+        assertTrue(unitUnderTest.getFailed() > 0);
+        assertEquals(10 + unitUnderTest.getFailed(), unitUnderTest.getRequests());
+    }
+
+    @Test
+    public void shouldStreamSlowBodies() throws Exception {
+        start(SimulatedApiServer.builder().payloadBytes(5000).slowBodyRate(1).bodyChunkBytes(1000)
+                .bodyChunkDelayMillis(20));
+        Api api = new Api(unitUnderTest.getUrl(), "key");
+        long startedAt = System.currentTimeMillis();
+        assertTrue(api.getTopPlayers().size() > 0);
+        assertTrue(System.currentTimeMillis() - startedAt >= 80);
+        assertEquals(1, unitUnderTest.getSlowBodies());
+    }
+
+    @Test
+    public void shouldAddLatency() throws Exception {
+        start(SimulatedApiServer.builder().latencyMillis(50).latencyJitterMillis(10));
+        long startedAt = System.currentTimeMillis();
+        assertEquals(200, get("a").getResponseCode());
+        assertTrue(System.currentTimeMillis() - startedAt >= 50);
+    }
+
+}
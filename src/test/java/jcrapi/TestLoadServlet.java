@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.FileUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the top players fixture, repeated to the configured payload size, after an artificial latency. With a
+ * rate limit it sends the rate limit headers of a one second window and answers 429 once the window is used up.
+ *
+ * @author Michael Lieshoff
+ */
+public class TestLoadServlet extends TestJsonFileServlet {
+
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final byte[] payload;
+    private final long latencyMillis;
+    private final int rateLimit;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private long windowStart;
+    private int windowCount;
+
+    public TestLoadServlet(int payloadBytes, long latencyMillis, int rateLimit) throws IOException {
+        this.payload = createPayload(payloadBytes);
+        this.latencyMillis = latencyMillis;
+        this.rateLimit = rateLimit;
+    }
+
+    static byte[] createPayload(int payloadBytes) throws IOException {
+        String json = FileUtils.readFileToString(new File("src/test/java/jcrapi/topPlayers.json"));
+        JsonArray players = new JsonParser().parse(json).getAsJsonArray();
+        JsonArray array = new JsonArray();
+        int size = 2;
+        while (array.size() == 0 || size < payloadBytes) {
+            for (JsonElement player : players) {
+                array.add(player);
+                size += player.toString().length() + 1;
+                if (size >= payloadBytes) {
+                    break;
+                }
+            }
+        }
+        return array.toString().getBytes("UTF-8");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        requests.incrementAndGet();
+        if (!checkAuth(req)) {
+            resp.setStatus(503);
+            return;
+        }
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (rateLimit > 0 && !acquire(resp)) {
+            throttled.incrementAndGet();
+            resp.setStatus(429);
+            return;
+        }
+        resp.setContentType("application/json");
+        resp.setContentLength(payload.length);
+        OutputStream out = resp.getOutputStream();
+        out.write(payload);
+        out.flush();
+    }
+
+    private synchronized boolean acquire(HttpServletResponse resp) {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= WINDOW_MILLIS) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        boolean acquired = windowCount < rateLimit;
+        if (acquired) {
+            windowCount++;
+        }
+        resp.setHeader("X-RateLimit-Limit", String.valueOf(rateLimit));
+        resp.setHeader("X-RateLimit-Remaining", String.valueOf(rateLimit - windowCount));
+        resp.setHeader("X-RateLimit-Reset", String.valueOf(windowStart + WINDOW_MILLIS));
+        return acquired;
+    }
+
+    public int getPayloadBytes() {
+        return payload.length;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ThreadsTest {
+
+    @Test
+    public void shouldNotRunVirtualWithoutProperty() {
+        System.clearProperty(Threads.VIRTUAL_THREADS);
+        assertFalse(Threads.isVirtual());
+    }
+
+    @Test
+    public void shouldCreateDaemonThread() {
+        Thread thread = Threads.newThread("lala", new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        assertEquals("lala", thread.getName());
+        assertTrue(thread.isDaemon());
+        assertEquals(Thread.State.NEW, thread.getState());
+    }
+
+    @Test
+    public void shouldRunTasksOnNamedDaemonThreads() throws Exception {
+        ExecutorService executor = Threads.newExecutor("lala", 2);
+        try {
+            Thread thread = executor.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assertTrue(thread.getName().startsWith("lala-"));
+            assertTrue(thread.isDaemon());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRunManyBlockingTasksOnCachedExecutor() throws Exception {
+        ExecutorService executor = Threads.newCachedExecutor("lala");
+        try {
+            for (int i = 0; i < 100; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
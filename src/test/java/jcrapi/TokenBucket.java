@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token bucket per key as used by the simulated api server: every key starts with a full bucket of
+ * <code>capacity</code> tokens, which refills with <code>refillPerSecond</code> tokens per second.
+ *
+ * @author Michael Lieshoff
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final double refillPerMilli;
+
+    private final Map<String, State> states = new HashMap<>();
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        Preconditions.checkArgument(capacity > 0, "capacity");
+        Preconditions.checkArgument(refillPerSecond > 0, "refillPerSecond");
+        this.capacity = capacity;
+        this.refillPerMilli = refillPerSecond / 1000.0;
+    }
+
+    /**
+     * Takes a token for the key and writes the resulting limit, remaining and reset headers. The reset is the
+     * time in epoch millis at which the next token is available for an empty bucket, otherwise the time at which
+     * the bucket is full again.
+     *
+     * @return true if a token was taken, false if the key is throttled
+     */
+    public synchronized boolean acquire(String key, long now, Map<String, String> headers) {
+        State state = states.get(key);
+        if (state == null) {
+            state = new State(capacity, now);
+            states.put(key, state);
+        }
+        state.tokens = Math.min(capacity, state.tokens + (now - state.updatedAt) * refillPerMilli);
+        state.updatedAt = now;
+        boolean acquired = state.tokens >= 1;
+        if (acquired) {
+            state.tokens--;
+        }
+        long reset = state.tokens >= 1
+                ? now + (long) Math.ceil((capacity - state.tokens) / refillPerMilli)
+                : now + (long) Math.ceil((1 - state.tokens) / refillPerMilli);
+        headers.put(Response.X_RATELIMIT_LIMIT, String.valueOf(capacity));
+        headers.put(Response.X_RATELIMIT_REMAINING, String.valueOf((int) state.tokens));
+        headers.put(Response.X_RATELIMIT_RESET, String.valueOf(reset));
+        return acquired;
+    }
+
+    public synchronized int getKeys() {
+        return states.size();
+    }
+
+    private static class State {
+
+        private double tokens;
+        private long updatedAt;
+
+        private State(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class TokenBucketTest {
+
+    private final TokenBucket unitUnderTest = new TokenBucket(2, 10);
+
+    private final Map<String, String> headers = new HashMap<>();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoCapacity() {
+        new TokenBucket(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoRefill() {
+        new TokenBucket(1, 0);
+    }
+
+    @Test
+    public void shouldThrottleEmptyBucket() {
+        assertTrue(unitUnderTest.acquire("a", 1000, headers));
+        assertEquals("2", headers.get(Response.X_RATELIMIT_LIMIT));
+        assertEquals("1", headers.get(Response.X_RATELIMIT_REMAINING));
+        assertEquals("1100", headers.get(Response.X_RATELIMIT_RESET));
+        assertTrue(unitUnderTest.acquire("a", 1000, headers));
+        assertEquals("0", headers.get(Response.X_RATELIMIT_REMAINING));
+        assertEquals("1100", headers.get(Response.X_RATELIMIT_RESET));
+        assertFalse(unitUnderTest.acquire("a", 1050, headers));
+        assertEquals("0", headers.get(Response.X_RATELIMIT_REMAINING));
+        assertEquals("1100", headers.get(Response.X_RATELIMIT_RESET));
+    }
+
+    @Test
+    public void shouldRefill() {
+        unitUnderTest.acquire("a", 1000, headers);
+        unitUnderTest.acquire("a", 1000, headers);
+        assertTrue(unitUnderTest.acquire("a", 1100, headers));
+        assertFalse(unitUnderTest.acquire("a", 1100, headers));
+        assertTrue(unitUnderTest.acquire("a", 5000, headers));
+        assertEquals("1", headers.get(Response.X_RATELIMIT_REMAINING));
+    }
+
+    @Test
+    public void shouldKeepBucketPerKey() {
+        unitUnderTest.acquire("a", 1000, headers);
+        unitUnderTest.acquire("a", 1000, headers);
+        assertFalse(unitUnderTest.acquire("a", 1000, headers));
+        assertTrue(unitUnderTest.acquire("b", 1000, headers));
+        assertEquals(2, unitUnderTest.getKeys());
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class VirtualClockTest {
+
+    private final VirtualClock unitUnderTest = new VirtualClock(1000);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNegativeStart() {
+        new VirtualClock(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failAdvanceBecauseNegativeDuration() {
+        unitUnderTest.advance(-1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldAdvance() {
+        unitUnderTest.advance(1500, TimeUnit.MICROSECONDS);
+        assertEquals(1001, unitUnderTest.currentTimeMillis());
+        assertEquals(1001500000, unitUnderTest.nanoTime());
+    }
+
+    @Test
+    public void shouldSleepWithoutWaiting() throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        unitUnderTest.sleep(TimeUnit.HOURS.toMillis(5));
+        assertEquals(1000 + TimeUnit.HOURS.toMillis(5), unitUnderTest.currentTimeMillis());
+        assertTrue(System.currentTimeMillis() - startedAt < 1000);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void failSleepBecauseInterrupted() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        unitUnderTest.sleep(10);
+    }
+
+    @Test
+    public void shouldSleepUntil() {
+        assertTrue(unitUnderTest.sleepUntil(60000));
+        assertEquals(60000, unitUnderTest.currentTimeMillis());
+        assertTrue(unitUnderTest.sleepUntil(50000));
+        assertEquals(60000, unitUnderTest.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldStopSleepUntilWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        assertFalse(unitUnderTest.sleepUntil(60000));
+        assertTrue(Thread.interrupted());
+        assertEquals(1000, unitUnderTest.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldAwaitByAdvancing() throws InterruptedException {
+        Object monitor = new Object();
+        synchronized (monitor) {
+            unitUnderTest.await(monitor, 500);
+        }
+        assertEquals(1500, unitUnderTest.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldAwaitNotificationWithoutTimeout() throws InterruptedException {
+        final Object monitor = new Object();
+        final AtomicBoolean notified = new AtomicBoolean();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (monitor) {
+                    notified.set(true);
+                    monitor.notifyAll();
+                }
+            }
+        });
+        synchronized (monitor) {
+            thread.start();
+            while (!notified.get()) {
+                unitUnderTest.await(monitor, 0);
+            }
+        }
+        thread.join();
+        assertEquals(1000, unitUnderTest.currentTimeMillis());
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class CrawlFrontierTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseZeroCapacity() {
+        new CrawlFrontier(0);
+    }
+
+    @Test
+    public void shouldPollByScore() {
+        CrawlFrontier unitUnderTest = new CrawlFrontier(10);
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "Y", 3));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "L", 2));
+        List<CrawlNode> nodes = unitUnderTest.poll(CrawlNodeType.PLAYER, 2);
+        assertEquals("Y", nodes.get(0).getTag());
+        assertEquals("L", nodes.get(1).getTag());
+        assertEquals(1, unitUnderTest.size());
+    }
+
+    @Test
+    public void shouldNotOfferVisitedOrQueuedTwice() {
+        CrawlFrontier unitUnderTest = new CrawlFrontier(10);
+        assertTrue(unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1)));
+        assertFalse(unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1)));
+        unitUnderTest.poll(CrawlNodeType.PLAYER, 1);
+        assertTrue(unitUnderTest.isVisited(CrawlNodeType.PLAYER, "P"));
+        assertFalse(unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1)));
+        assertTrue(unitUnderTest.offer(new CrawlNode(CrawlNodeType.CLAN, "P", 1)));
+    }
+
+    @Test
+    public void shouldRaiseScoreOfQueuedTag() {
+        CrawlFrontier unitUnderTest = new CrawlFrontier(10);
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "Y", 2));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 5));
+        assertEquals("P", unitUnderTest.poll(CrawlNodeType.PLAYER, 1).get(0).getTag());
+        assertEquals(1, unitUnderTest.size());
+    }
+
+    @Test
+    public void shouldDropLowestWhenFull() {
+        CrawlFrontier unitUnderTest = new CrawlFrontier(2);
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.CLAN, "Y", 2));
+        assertFalse(unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "L", 0)));
+        assertTrue(unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "Q", 3)));
+        assertEquals(2, unitUnderTest.size());
+        assertEquals(2, unitUnderTest.getDropped());
+        assertEquals("Q", unitUnderTest.poll(CrawlNodeType.PLAYER, 5).get(0).getTag());
+    }
+
+    @Test
+    public void shouldPollTypeWithBestNode() {
+        CrawlFrontier unitUnderTest = new CrawlFrontier(10);
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.PLAYER, "P", 1));
+        unitUnderTest.offer(new CrawlNode(CrawlNodeType.CLAN, "Y", 2));
+        assertEquals(CrawlNodeType.CLAN, unitUnderTest.poll(5).get(0).getType());
+        assertEquals(CrawlNodeType.PLAYER, unitUnderTest.poll(5).get(0).getType());
+        assertTrue(unitUnderTest.poll(5).isEmpty());
+    }
+
+}
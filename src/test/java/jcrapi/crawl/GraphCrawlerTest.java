@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import jcrapi.Api;
+import jcrapi.ApiException;
+import jcrapi.model.Battle;
+import jcrapi.model.Clan;
+import jcrapi.model.Member;
+import jcrapi.model.Team;
+import jcrapi.model.TeamClan;
+import jcrapi.request.PlayerBattlesRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class GraphCrawlerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Api api;
+
+    private final List<String> discovered = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        api = Mockito.mock(Api.class);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullApi() {
+        GraphCrawler.builder(null).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseZeroParallelism() {
+        GraphCrawler.builder(api).parallelism(0).build();
+    }
+
+    @Test
+    public void shouldCrawlClansMembersBattlesAndOpponents() throws InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenReturn(Arrays.asList(createClan("C", "P")),
+                Collections.<Clan>emptyList());
+        when(api.getPlayerBattles(any(PlayerBattlesRequest.class))).thenReturn(
+                Arrays.asList(Arrays.asList(createBattle("Y", "Q"))), new ArrayList<List<Battle>>());
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).parallelism(2).build();
+        unitUnderTest.addSink(createSink());
+        unitUnderTest.seedClan("C");
+        assertEquals(4, unitUnderTest.run(100));
+        assertEquals(Arrays.asList("PLAYER:P", "PLAYER:Y", "CLAN:Q"), discovered);
+        assertEquals(2, unitUnderTest.getFrontier().visited(CrawlNodeType.CLAN));
+        assertEquals(2, unitUnderTest.getFrontier().visited(CrawlNodeType.PLAYER));
+        assertTrue(unitUnderTest.getFrontier().isEmpty());
+    }
+
+    @Test
+    public void shouldStopAtMaxRequests() throws InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenReturn(Arrays.asList(createClan("C", "P")));
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).parallelism(1).build();
+        unitUnderTest.seedClan("C");
+        assertEquals(1, unitUnderTest.run(1));
+        assertEquals(1, unitUnderTest.getFrontier().size());
+    }
+
+    @Test
+    public void shouldReportErrors() throws InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenThrow(new ApiException(new IOException("crapi: 500")));
+        final List<String> errors = new ArrayList<>();
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).parallelism(1).build();
+        unitUnderTest.addSink(new CrawlSinkAdapter() {
+            @Override
+            public void onError(CrawlNodeType type, List<String> tags, ApiException e) {
+                errors.addAll(tags);
+            }
+        });
+        unitUnderTest.seedClan("C");
+        unitUnderTest.run(10);
+        assertEquals(Arrays.asList("C"), errors);
+        assertEquals(1, unitUnderTest.getFailures());
+    }
+
+    @Test
+    public void shouldReportRuntimeExceptionsOfSinks() throws InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenReturn(Arrays.asList(createClan("C", "P")));
+        final List<Throwable> errors = new ArrayList<>();
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).parallelism(1).build();
+        unitUnderTest.addSink(new CrawlSinkAdapter() {
+            @Override
+            public void onClan(Clan clan) {
+                throw new IllegalStateException("sink");
+            }
+
+            @Override
+            public void onError(CrawlNodeType type, List<String> tags, ApiException e) {
+                errors.add(e.getCause());
+            }
+        });
+        unitUnderTest.seedClan("C");
+        assertEquals(1, unitUnderTest.run(1));
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof IllegalStateException);
+        assertEquals(1, unitUnderTest.getFailures());
+    }
+
+    @Test
+    public void shouldCheckpointAndRestore() throws IOException, InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenReturn(Arrays.asList(createClan("C", "P")));
+        File file = new File(temporaryFolder.getRoot(), "crawl.checkpoint");
+        GraphCrawler crawler = GraphCrawler.builder(api).parallelism(1).checkpointFile(file).build();
+        crawler.seedClan("C");
+        crawler.run(1);
+        assertTrue(file.exists());
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).checkpointFile(file).build();
+        assertTrue(unitUnderTest.restore());
+        assertEquals(1, unitUnderTest.getRequests());
+        assertTrue(unitUnderTest.getFrontier().isVisited(CrawlNodeType.CLAN, "C"));
+        assertEquals(1, unitUnderTest.getFrontier().size(CrawlNodeType.PLAYER));
+        assertFalse(unitUnderTest.seedClan("C"));
+    }
+
+    @Test
+    public void shouldCheckpointBatchesInFlight() throws IOException, InterruptedException {
+        when(api.getClans(anyListOf(String.class))).thenReturn(Arrays.asList(createClan("C", "P")));
+        final File file = new File(temporaryFolder.getRoot(), "crawl.checkpoint");
+        final GraphCrawler crawler = GraphCrawler.builder(api).parallelism(1).build();
+        crawler.addSink(new CrawlSinkAdapter() {
+            @Override
+            public void onClan(Clan clan) {
+                try {
+                    crawler.checkpoint(file);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        crawler.seedClan("C");
+        crawler.run(1);
+        GraphCrawler unitUnderTest = GraphCrawler.builder(api).checkpointFile(file).build();
+        assertTrue(unitUnderTest.restore());
+        assertEquals(1, unitUnderTest.getFrontier().size(CrawlNodeType.CLAN));
+        assertEquals(Arrays.asList(new CrawlNode(CrawlNodeType.CLAN, "C", Double.MAX_VALUE)),
+                unitUnderTest.getFrontier().poll(CrawlNodeType.CLAN, 5));
+    }
+
+    @Test
+    public void shouldNotRestoreMissingCheckpoint() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "missing");
+        assertFalse(GraphCrawler.builder(api).checkpointFile(file).build().restore());
+    }
+
+    private CrawlSink createSink() {
+        return new CrawlSinkAdapter() {
+            @Override
+            public void onDiscovered(CrawlNode node) {
+                discovered.add(node.getType() + ":" + node.getTag());
+            }
+        };
+    }
+
+    private Clan createClan(String tag, String memberTag) {
+        Member member = new Member();
+        member.setTag(memberTag);
+        member.setTrophies(4000);
+        Clan clan = new Clan();
+        clan.setTag(tag);
+        clan.setMembers(Arrays.asList(member));
+        return clan;
+    }
+
+    private Battle createBattle(String opponentTag, String opponentClanTag) {
+        TeamClan teamClan = new TeamClan();
+        teamClan.setTag(opponentClanTag);
+        Team opponent = new Team();
+        opponent.setTag(opponentTag);
+        opponent.setClan(teamClan);
+        Battle battle = new Battle();
+        battle.setUtcTime(System.currentTimeMillis() / 1000);
+        battle.setOpponent(Arrays.asList(opponent));
+        return battle;
+    }
+
+}
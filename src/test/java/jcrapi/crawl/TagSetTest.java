@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.crawl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class TagSetTest {
+
+    @Test
+    public void shouldAddAndContain() {
+        TagSet unitUnderTest = new TagSet();
+        assertTrue(unitUnderTest.add("8L9L9GL"));
+        assertFalse(unitUnderTest.add("8L9L9GL"));
+        assertTrue(unitUnderTest.contains("8L9L9GL"));
+        assertFalse(unitUnderTest.contains("9CQ2U8QJ"));
+        assertEquals(1, unitUnderTest.size());
+    }
+
+    @Test
+    public void shouldGrow() {
+        TagSet unitUnderTest = new TagSet(4);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(unitUnderTest.add(createTag(i)));
+        }
+        assertEquals(10000, unitUnderTest.size());
+    }
+
+    private String createTag(int i) {
+        StringBuilder s = new StringBuilder();
+        do {
+            s.append("0289PYLQGRJCUV".charAt(i % 14));
+            i /= 14;
+        } while (i > 0);
+        return s.toString();
+    }
+
+    @Test
+    public void shouldWriteAndRead() throws IOException {
+        TagSet tagSet = new TagSet();
+        tagSet.add("8L9L9GL");
+        tagSet.add("9CQ2U8QJ");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        tagSet.writeTo(new DataOutputStream(bytes));
+        TagSet unitUnderTest = new TagSet();
+        unitUnderTest.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(2, unitUnderTest.size());
+        assertTrue(unitUnderTest.contains("9CQ2U8QJ"));
+    }
+
+}
@@ -0,0 +1,42 @@
+package jcrapi.request;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class QueryParametersTest {
+
+    @Test
+    public void shouldBuildQueryStringOnce() {
+        ClanSearchRequest request = ClanSearchRequest.builder().name("a b&c").score(50)
+                .keys(Arrays.asList("name", "tag")).build();
+        QueryParameters parameters = request.getQueryParameters();
+        assertSame(parameters, request.getQueryParameters());
+        assertEquals("keys=name%2Ctag&name=a+b%26c&score=50", parameters.getQueryString());
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertEquals("", PopularClansRequest.builder().build().getQueryParameters().getQueryString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void failPutBecauseUnmodifiable() {
+        PopularClansRequest.builder().build().getQueryParameters().put("name", "abc");
+    }
+
+    @Test
+    public void shouldAppendBlankValueAsEmpty() {
+        StringBuilder s = new StringBuilder();
+        QueryParameters.append(s, ImmutableMap.of("a", "1", "b", " "));
+        assertEquals("a=1&b=", s.toString());
+    }
+
+}
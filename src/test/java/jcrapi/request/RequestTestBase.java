@@ -30,4 +30,16 @@ public abstract class RequestTestBase<A extends Request, B extends Request.Reque
         assertEquals("a,b", request.getQueryParameters().get("keys"));
     }
 
+    @Test
+    public void shouldBeWithTimeout() {
+        A request = getBuilder().timeoutMillis(1500).build();
+        assertEquals(1500, request.getTimeoutMillis());
+        assertEquals(0, getBuilder().build().getTimeoutMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failIfTimeoutIsNegative() {
+        getBuilder().timeoutMillis(-1).build();
+    }
+
 }
\ No newline at end of file
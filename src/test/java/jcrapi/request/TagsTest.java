@@ -0,0 +1,92 @@
+package jcrapi.request;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class TagsTest {
+
+    @Test(expected = NullPointerException.class)
+    public void failNormalizeBecauseNullTag() {
+        Tags.normalize((String) null);
+    }
+
+    @Test
+    public void shouldNormalize() {
+        assertEquals("8L9L9GL", Tags.normalize(" #8l9l9gl "));
+        assertEquals("20PP", Tags.normalize("2oPP"));
+    }
+
+    @Test
+    public void shouldNormalizeAndRemoveDuplicates() {
+        assertEquals(Arrays.asList("2PP", "8L9L9GL"), Tags.normalize(Arrays.asList("#2pp", "8L9L9GL", "2PP")));
+    }
+
+    @Test
+    public void shouldValidate() {
+        assertTrue(Tags.isValid("#8l9l9gl"));
+        assertFalse(Tags.isValid("abc"));
+        assertFalse(Tags.isValid("2P"));
+        assertFalse(Tags.isValid("22222222222222222"));
+        assertFalse(Tags.isValid(null));
+    }
+
+    @Test
+    public void shouldCheck() {
+        assertEquals("8L9L9GL", Tags.check("#8l9l9gl"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCheckBecauseInvalidTag() {
+        Tags.check("#8L9L9GX");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCheckBecauseInvalidTagInList() {
+        Tags.check(Arrays.asList("2PP", "abc"));
+    }
+
+    @Test
+    public void shouldIgnoreHashAndCase() {
+        assertEquals(Tags.toId("8L9L9GL"), Tags.toId("#8l9l9gl"));
+    }
+
+    @Test
+    public void shouldKeepLeadingZeros() {
+        assertNotEquals(Tags.toId("0P"), Tags.toId("P"));
+    }
+
+    @Test
+    public void shouldBePositiveForAlphabet() {
+        assertTrue(Tags.toId("VVVVVVVVVVVVVVVV") > 0);
+    }
+
+    @Test
+    public void shouldHashForeignTags() {
+        assertTrue(Tags.toId("ABC") < 0);
+        assertEquals(Tags.toId("ABC"), Tags.toId("ABC"));
+    }
+
+    @Test
+    public void shouldDecodeId() {
+        assertEquals("08L9L9GL", Tags.fromId(Tags.toId("#08l9l9gl")));
+        assertEquals("VVVVVVVVVVVVVVVV", Tags.fromId(Tags.toId("VVVVVVVVVVVVVVVV")));
+    }
+
+    @Test
+    public void shouldNotDecodeHashedId() {
+        assertNull(Tags.fromId(Tags.toId("ABC")));
+        assertNull(Tags.fromId(0));
+        assertNull(Tags.fromId(15));
+    }
+
+}
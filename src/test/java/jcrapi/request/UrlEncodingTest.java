@@ -0,0 +1,38 @@
+package jcrapi.request;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class UrlEncodingTest {
+
+    @Test
+    public void shouldEncodeQueryComponentLikeUrlEncoder() throws UnsupportedEncodingException {
+        for (String value : new String[]{"abc", "a+b", "a b", "#2PP", "*-._~", "äöü", "€", "😀",
+                "a&b=c", "\ud83d"}) {
+            StringBuilder s = new StringBuilder();
+            UrlEncoding.appendQueryComponent(s, value);
+            assertEquals(value, URLEncoder.encode(value, "UTF-8"), s.toString());
+        }
+    }
+
+    @Test
+    public void shouldEncodePathSegment() {
+        assertEquals("%232PP", UrlEncoding.encodePathSegment("#2PP"));
+        assertEquals("a%20b%2Cc~", UrlEncoding.encodePathSegment("a b,c~"));
+    }
+
+    @Test
+    public void shouldNotCopySafePathSegment() {
+        String tag = "2PP0GQ8";
+        assertSame(tag, UrlEncoding.encodePathSegment(tag));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class FairShareTest {
+
+    private static final Runnable TASK = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Test
+    public void shouldGrantTargetIntervalsWhenBudgetIsSufficient() {
+        PollingJob high = new PollingJob("high", 4, 1000, 1, TASK, 0);
+        PollingJob low = new PollingJob("low", 1, 1000, 1, TASK, 0);
+        FairShare.allocate(Arrays.asList(high, low), 5);
+        assertEquals(1000, high.getAllocatedInterval());
+        assertEquals(1000, low.getAllocatedInterval());
+    }
+
+    @Test
+    public void shouldDegradeLowPriorityFirst() {
+        PollingJob high = new PollingJob("high", 4, 500, 1, TASK, 0);
+        PollingJob low = new PollingJob("low", 1, 500, 1, TASK, 0);
+        FairShare.allocate(Arrays.asList(high, low), 2.5);
+        assertEquals(500, high.getAllocatedInterval());
+        assertEquals(2000, low.getAllocatedInterval());
+    }
+
+    @Test
+    public void shouldShareByPriorityWhenAllAreStarved() {
+        PollingJob high = new PollingJob("high", 3, 100, 1, TASK, 0);
+        PollingJob low = new PollingJob("low", 1, 100, 1, TASK, 0);
+        FairShare.allocate(Arrays.asList(high, low), 4);
+        assertEquals(334, high.getAllocatedInterval());
+        assertEquals(1000, low.getAllocatedInterval());
+    }
+
+    @Test
+    public void shouldScaleIntervalsByCost() {
+        PollingJob cheap = new PollingJob("cheap", 1, 1000, 1, TASK, 0);
+        PollingJob expensive = new PollingJob("expensive", 1, 1000, 5, TASK, 0);
+        FairShare.allocate(Arrays.asList(cheap, expensive), 4);
+        assertEquals(1000, cheap.getAllocatedInterval());
+        assertEquals(1667, expensive.getAllocatedInterval());
+    }
+
+}
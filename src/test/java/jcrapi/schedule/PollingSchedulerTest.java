@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.MoreExecutors;
+import jcrapi.Api;
+import jcrapi.RateLimitSnapshot;
+import jcrapi.VirtualClock;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class PollingSchedulerTest {
+
+    private final List<String> runs = new ArrayList<>();
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullBudget() {
+        new PollingScheduler(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failRegisterBecauseZeroPriority() {
+        new PollingScheduler(new RateBudget(1)).register("job", 0, 1000, createTask("job"));
+    }
+
+    @Test
+    public void shouldRunDueJobsAndReschedule() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(10));
+        PollingJob job = unitUnderTest.register("job", 1, 1000, createTask("job"));
+        long now = System.currentTimeMillis();
+        assertEquals(now + 1000, unitUnderTest.runDue(now));
+        assertEquals(1, job.getRuns());
+        assertEquals(now, job.getLastRunAt());
+    }
+
+    @Test
+    public void shouldPreferHigherPriorityWhenBudgetIsScarce() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(1));
+        unitUnderTest.register("low", 1, 1000, createTask("low"));
+        unitUnderTest.register("high", 5, 1000, createTask("high"));
+        long now = System.currentTimeMillis();
+        unitUnderTest.runDue(now);
+        assertEquals("high", runs.get(0));
+        assertEquals(1, runs.size());
+    }
+
+    @Test
+    public void shouldReportLag() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(10));
+        PollingJob job = unitUnderTest.register("job", 1, 1000, createTask("job"));
+        long now = System.currentTimeMillis();
+        unitUnderTest.runDue(now);
+        unitUnderTest.runDue(now + 1300);
+        assertEquals(300, job.getLastLag());
+        assertEquals(300, job.getMaxLag());
+        assertEquals(300, job.getAverageLag());
+    }
+
+    @Test
+    public void shouldCountFailures() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(10));
+        PollingJob job = unitUnderTest.register("job", 1, 1000, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        unitUnderTest.runDue(System.currentTimeMillis());
+        assertEquals(1, job.getFailures());
+    }
+
+    @Test
+    public void shouldUpdateBudgetFromRateLimit() {
+        Api api = Mockito.mock(Api.class);
+        when(api.getRateLimit()).thenReturn(Optional.of(new RateLimitSnapshot(1, -1, 0)));
+        PollingScheduler unitUnderTest = new PollingScheduler(api, new RateBudget(10));
+        unitUnderTest.register("a", 1, 500, createTask("a"));
+        unitUnderTest.register("b", 1, 500, createTask("b"));
+        unitUnderTest.runDue(System.currentTimeMillis());
+        assertEquals(1, unitUnderTest.getRateBudget().getLimit());
+        unitUnderTest.runDue(System.currentTimeMillis());
+        for (PollingJob job : unitUnderTest.getJobs()) {
+            assertEquals(2000, job.getAllocatedInterval());
+        }
+    }
+
+    @Test
+    public void shouldParkStarvedJobUntilReallocation() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(10));
+        final PollingJob[] job = new PollingJob[1];
+        job[0] = unitUnderTest.register("job", 1, 1000, new Runnable() {
+            @Override
+            public void run() {
+                if (runs.add("job") && runs.size() == 1) {
+                    job[0].setAllocatedInterval(Long.MAX_VALUE);
+                }
+            }
+        });
+        long now = System.currentTimeMillis();
+        assertEquals(Long.MAX_VALUE, unitUnderTest.runDue(now));
+        unitUnderTest.getRateBudget().update(20, -1, 0);
+        assertEquals(now + 2000, unitUnderTest.runDue(now + 1000));
+        assertEquals(2, runs.size());
+    }
+
+    @Test
+    public void shouldKeepJobDueWhenExecutorRejects() {
+        PollingScheduler unitUnderTest = new PollingScheduler(null, new RateBudget(1), new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        PollingJob job = unitUnderTest.register("job", 1, 1000, createTask("job"));
+        long now = System.currentTimeMillis();
+        assertEquals(now + 1, unitUnderTest.runDue(now));
+        assertEquals(0, job.getRuns());
+        assertTrue(unitUnderTest.getRateBudget().tryAcquire(now));
+    }
+
+    @Test
+    public void shouldTakePermitsByCost() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(4));
+        PollingJob job = unitUnderTest.register("job", 1, 1000, 3, createTask("job"));
+        long now = System.currentTimeMillis();
+        assertEquals(now + 1000, unitUnderTest.runDue(now));
+        assertEquals(1000, job.getAllocatedInterval());
+        assertEquals(now, unitUnderTest.getRateBudget().nextPermitAt(now, 1));
+        assertFalse(unitUnderTest.getRateBudget().tryAcquire(now, 3));
+    }
+
+    @Test
+    public void shouldUnregister() {
+        PollingScheduler unitUnderTest = new PollingScheduler(new RateBudget(10));
+        PollingJob job = unitUnderTest.register("job", 1, 1000, createTask("job"));
+        unitUnderTest.unregister(job);
+        assertEquals(Long.MAX_VALUE, unitUnderTest.runDue(System.currentTimeMillis()));
+        assertEquals(0, runs.size());
+    }
+
+    @Test
+    public void shouldRunHoursOnVirtualClock() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(TimeUnit.DAYS.toMillis(1));
+        final AtomicInteger count = new AtomicInteger();
+        PollingScheduler unitUnderTest = new PollingScheduler(null, new RateBudget(10),
+                MoreExecutors.directExecutor(), clock);
+        unitUnderTest.register("job", 1, TimeUnit.MINUTES.toMillis(1), new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        });
+        long startedAt = clock.currentTimeMillis();
+        unitUnderTest.start();
+        for (int i = 0; i < 500 && count.get() < 180; i++) {
+            Thread.sleep(10);
+        }
+        unitUnderTest.stop();
+        assertTrue(String.valueOf(count.get()), count.get() >= 180);
+        assertTrue(clock.currentTimeMillis() - startedAt >= TimeUnit.HOURS.toMillis(3) - TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private Runnable createTask(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.add(name);
+            }
+        };
+    }
+
+}
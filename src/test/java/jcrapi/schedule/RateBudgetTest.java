@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.schedule;
+
+import jcrapi.Response;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class RateBudgetTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseZeroLimit() {
+        new RateBudget(0);
+    }
+
+    @Test
+    public void shouldHandOutInitialLimit() {
+        RateBudget rateBudget = new RateBudget(2);
+        assertTrue(rateBudget.tryAcquire(1000));
+        assertTrue(rateBudget.tryAcquire(1000));
+        assertFalse(rateBudget.tryAcquire(1000));
+        assertEquals(1500, rateBudget.nextPermitAt(1000));
+    }
+
+    @Test
+    public void shouldRefill() {
+        RateBudget rateBudget = new RateBudget(2);
+        rateBudget.tryAcquire(1000);
+        rateBudget.tryAcquire(1000);
+        assertTrue(rateBudget.tryAcquire(1500));
+    }
+
+    @Test
+    public void shouldRefillFromTimeZero() {
+        RateBudget rateBudget = new RateBudget(2);
+        rateBudget.tryAcquire(0);
+        rateBudget.tryAcquire(0);
+        assertFalse(rateBudget.tryAcquire(0));
+        assertTrue(rateBudget.tryAcquire(500));
+    }
+
+    @Test
+    public void shouldTakeSeveralPermits() {
+        RateBudget rateBudget = new RateBudget(4);
+        assertTrue(rateBudget.tryAcquire(1000, 3));
+        assertFalse(rateBudget.tryAcquire(1000, 3));
+        assertEquals(1500, rateBudget.nextPermitAt(1000, 3));
+        rateBudget.release(3);
+        assertTrue(rateBudget.tryAcquire(1000, 3));
+    }
+
+    @Test
+    public void shouldBlockUntilResetWhenNothingRemains() {
+        RateBudget rateBudget = new RateBudget(10);
+        rateBudget.tryAcquire(1000);
+        rateBudget.update(10, 0, 5000);
+        assertFalse(rateBudget.tryAcquire(4000));
+        assertEquals(5000, rateBudget.nextPermitAt(4000));
+        assertTrue(rateBudget.tryAcquire(5000));
+    }
+
+    @Test
+    public void shouldUpdateFromResponse() {
+        Response response = new Response();
+        response.getResponseHeaders().put(Response.X_RATELIMIT_LIMIT, "20");
+        response.getResponseHeaders().put(Response.X_RATELIMIT_REMAINING, "7");
+        response.getResponseHeaders().put(Response.X_RATELIMIT_RESET, "123");
+        RateBudget rateBudget = new RateBudget(5);
+        rateBudget.update(response);
+        assertEquals(20, rateBudget.getLimit());
+        assertEquals(7, rateBudget.getRemaining());
+        assertEquals(123, rateBudget.getResetAt());
+        assertEquals(20.0, rateBudget.getRequestsPerSecond(), 0.0);
+    }
+
+    @Test
+    public void shouldIgnoreNullResponse() {
+        RateBudget rateBudget = new RateBudget(5);
+        rateBudget.update((Response) null);
+        assertEquals(5, rateBudget.getLimit());
+    }
+
+}
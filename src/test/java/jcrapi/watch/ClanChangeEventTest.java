@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ClanChangeEventTest {
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullType() {
+        new ClanChangeEvent(null, "CLAN", createSnapshot(1), null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullClanTag() {
+        new ClanChangeEvent(ClanChangeType.LEFT, null, createSnapshot(1), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseNoSnapshots() {
+        new ClanChangeEvent(ClanChangeType.LEFT, "CLAN", null, null);
+    }
+
+    @Test
+    public void shouldGetMemberTagFromPrevious() {
+        assertEquals("A", new ClanChangeEvent(ClanChangeType.LEFT, "CLAN", createSnapshot(1), null).getMemberTag());
+    }
+
+    @Test
+    public void shouldGetDeltas() {
+        ClanChangeEvent event = new ClanChangeEvent(ClanChangeType.TROPHIES_CHANGED, "CLAN", createSnapshot(1),
+                createSnapshot(3));
+        assertEquals(2, event.getTrophiesDelta());
+        assertEquals(2, event.getDonationsDelta());
+        assertEquals(2, event.getDonationsReceivedDelta());
+        assertEquals(2, event.getRankDelta());
+    }
+
+    private MemberSnapshot createSnapshot(int value) {
+        return new MemberSnapshot("A", "name", "member", value, value, value, value);
+    }
+
+}
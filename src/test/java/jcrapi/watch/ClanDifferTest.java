@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import jcrapi.VirtualClock;
+import jcrapi.model.Clan;
+import jcrapi.model.Member;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ClanDifferTest {
+
+    private ClanDiffer unitUnderTest;
+
+    @Before
+    public void setUp() {
+        unitUnderTest = new ClanDiffer();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failUpdateBecauseNullClan() {
+        unitUnderTest.update(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failUpdateBecauseNullClanTag() {
+        unitUnderTest.update(new Clan());
+    }
+
+    @Test
+    public void shouldRecordFirstSnapshotWithoutEvents() {
+        assertTrue(unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10))).isEmpty());
+        assertNotNull(unitUnderTest.getSnapshot("CLAN"));
+        assertEquals(1, unitUnderTest.getSnapshot("CLAN").size());
+    }
+
+    @Test
+    public void shouldTakeSnapshotTimeFromClock() {
+        unitUnderTest = new ClanDiffer(new VirtualClock(1000));
+        unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10)));
+        assertEquals(1000, unitUnderTest.getSnapshot("CLAN").getCreatedAt());
+    }
+
+    @Test
+    public void shouldEmitNothingForSameClan() {
+        unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10)));
+        assertTrue(unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10))).isEmpty());
+    }
+
+    @Test
+    public void shouldEmitJoinedAndLeft() {
+        unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10)));
+        List<ClanChangeEvent> events = unitUnderTest.update(createClan(createMember("B", "member", 1, 100, 10)));
+        assertEquals(2, events.size());
+        assertEquals(ClanChangeType.JOINED, events.get(0).getType());
+        assertEquals("B", events.get(0).getMemberTag());
+        assertNull(events.get(0).getPrevious());
+        assertEquals(ClanChangeType.LEFT, events.get(1).getType());
+        assertEquals("A", events.get(1).getMemberTag());
+        assertNull(events.get(1).getCurrent());
+    }
+
+    @Test
+    public void shouldEmitChanges() {
+        unitUnderTest.update(createClan(createMember("A", "member", 2, 100, 10)));
+        List<ClanChangeEvent> events = unitUnderTest.update(createClan(createMember("A", "elder", 1, 130, 15)));
+        assertEquals(4, events.size());
+        assertEquals(ClanChangeType.ROLE_CHANGED, events.get(0).getType());
+        assertEquals(ClanChangeType.TROPHIES_CHANGED, events.get(1).getType());
+        assertEquals(30, events.get(1).getTrophiesDelta());
+        assertEquals(ClanChangeType.DONATIONS_CHANGED, events.get(2).getType());
+        assertEquals(5, events.get(2).getDonationsDelta());
+        assertEquals(ClanChangeType.RANK_CHANGED, events.get(3).getType());
+        assertEquals(-1, events.get(3).getRankDelta());
+    }
+
+    @Test
+    public void shouldNotifyListeners() {
+        final List<ClanChangeEvent> received = new ArrayList<>();
+        unitUnderTest.addListener(new ClanChangeListener() {
+            @Override
+            public void onChange(ClanChangeEvent event) {
+                received.add(event);
+            }
+        });
+        unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10)));
+        List<ClanChangeEvent> events = unitUnderTest.update(createClan(createMember("A", "member", 1, 101, 10)));
+        assertEquals(events, received);
+    }
+
+    @Test
+    public void shouldForgetClan() {
+        unitUnderTest.update(createClan(createMember("A", "member", 1, 100, 10)));
+        unitUnderTest.forget("CLAN");
+        assertEquals(0, unitUnderTest.size());
+        assertTrue(unitUnderTest.update(createClan(createMember("B", "member", 1, 100, 10))).isEmpty());
+    }
+
+    private Clan createClan(Member... members) {
+        Clan clan = new Clan();
+        clan.setTag("CLAN");
+        clan.setMembers(new ArrayList<>(Arrays.asList(members)));
+        return clan;
+    }
+
+    private Member createMember(String tag, String role, int rank, int trophies, int donations) {
+        Member member = new Member();
+        member.setTag(tag);
+        member.setName("name-" + tag);
+        member.setRole(role);
+        member.setRank(rank);
+        member.setTrophies(trophies);
+        member.setDonations(donations);
+        return member;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import jcrapi.model.ClanWar;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ClanWarPollPolicyTest {
+
+    private static final long NOW = TimeUnit.SECONDS.toMillis(1000000);
+
+    private final ClanWarPollPolicy unitUnderTest = new ClanWarPollPolicy(30000, 1000, 10000, 500);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseMinIntervalZero() {
+        new ClanWarPollPolicy(30000, 0, 10000, 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failCreateBecauseMaxIntervalLessThanMin() {
+        new ClanWarPollPolicy(30000, 1000, 999, 500);
+    }
+
+    @Test
+    public void shouldPollQuietWhenNotInWar() {
+        assertEquals(NOW + 30000, unitUnderTest.nextPollAt(createClanWar(ClanWarPollPolicy.NOT_IN_WAR, 0, 0), NOW));
+    }
+
+    @Test
+    public void shouldPollQuietWhenNoWar() {
+        assertEquals(NOW + 30000, unitUnderTest.nextPollAt(null, NOW));
+    }
+
+    @Test
+    public void shouldPollMaxIntervalWhenEndIsFar() {
+        ClanWar clanWar = createClanWar(ClanWarPollPolicy.COLLECTION_DAY, NOW + 3600000, 0);
+        assertEquals(NOW + 10000, unitUnderTest.nextPollAt(clanWar, NOW));
+    }
+
+    @Test
+    public void shouldPollMoreOftenWhenEndApproaches() {
+        ClanWar clanWar = createClanWar(ClanWarPollPolicy.WAR_DAY, 0, NOW + 20000);
+        assertEquals(NOW + 5000, unitUnderTest.nextPollAt(clanWar, NOW));
+    }
+
+    @Test
+    public void shouldPollRightAfterEnd() {
+        ClanWar clanWar = createClanWar(ClanWarPollPolicy.WAR_DAY, 0, NOW + 1000);
+        assertEquals(NOW + 1000 + 500, unitUnderTest.nextPollAt(clanWar, NOW));
+    }
+
+    @Test
+    public void shouldPollMinIntervalWhenEndPassed() {
+        ClanWar clanWar = createClanWar(ClanWarPollPolicy.WAR_DAY, 0, NOW - 1000);
+        assertEquals(NOW + 1000, unitUnderTest.nextPollAt(clanWar, NOW));
+    }
+
+    @Test
+    public void shouldPollMinIntervalAfterError() {
+        assertEquals(NOW + 1000, unitUnderTest.nextPollAfterErrorAt(NOW));
+    }
+
+    private ClanWar createClanWar(String state, long collectionEndTime, long warEndTime) {
+        ClanWar clanWar = new ClanWar();
+        clanWar.setState(state);
+        clanWar.setCollectionEndTime(TimeUnit.MILLISECONDS.toSeconds(collectionEndTime));
+        clanWar.setWarEndTime(TimeUnit.MILLISECONDS.toSeconds(warEndTime));
+        return clanWar;
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jcrapi.watch;
+
+import jcrapi.Api;
+import jcrapi.ApiException;
+import jcrapi.model.ClanWar;
+import jcrapi.model.ClanWarParticipant;
+import jcrapi.model.ClanWarStanding;
+import jcrapi.request.ClanWarRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michael Lieshoff
+ */
+public class ClanWarWatcherTest {
+
+    private Api api;
+
+    private ClanWarWatcher unitUnderTest;
+
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        api = Mockito.mock(Api.class);
+        unitUnderTest = new ClanWarWatcher(api, new ClanWarPollPolicy(30000, 1000, 10000, 500));
+        unitUnderTest.addListener(new ClanWarListener() {
+            @Override
+            public void onStateChanged(String clanTag, String previousState, String currentState) {
+                events.add("state:" + previousState + "->" + currentState);
+            }
+
+            @Override
+            public void onParticipantChanged(String clanTag, ClanWarParticipant previous, ClanWarParticipant current) {
+                events.add("participant:" + current.getTag() + ":" + (previous == null ? "new" : previous.getWins())
+                        + "->" + current.getWins());
+            }
+
+            @Override
+            public void onStandingChanged(String clanTag, ClanWarStanding previous, ClanWarStanding current) {
+                events.add("standing:" + current.getTag() + ":" + (previous == null ? "new" : previous.getCrowns())
+                        + "->" + current.getCrowns());
+            }
+
+            @Override
+            public void onError(String clanTag, ApiException e) {
+                events.add("error:" + clanTag);
+            }
+        });
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void failCreateBecauseNullApi() {
+        new ClanWarWatcher(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failWatchBecauseEmptyTag() {
+        unitUnderTest.watch("");
+    }
+
+    @Test
+    public void shouldNotPollBeforeDue() {
+        unitUnderTest.watch("ABC");
+        unitUnderTest.pollDue(0);
+        verify(api, times(0)).getClanWar(any(ClanWarRequest.class));
+    }
+
+    @Test
+    public void shouldReturnMaxValueWhenNothingWatched() {
+        assertEquals(Long.MAX_VALUE, unitUnderTest.pollDue(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void shouldPollAndReschedule() {
+        ClanWar clanWar = createClanWar(ClanWarPollPolicy.NOT_IN_WAR, 0);
+        when(api.getClanWar(any(ClanWarRequest.class))).thenReturn(clanWar);
+        unitUnderTest.watch(Arrays.asList("ABC", "DEF"));
+        long now = System.currentTimeMillis() + 1;
+        assertEquals(now + 30000, unitUnderTest.pollDue(now));
+        verify(api, times(2)).getClanWar(any(ClanWarRequest.class));
+        assertSame(clanWar, unitUnderTest.getLastWar("ABC"));
+        assertEquals(now + 30000, unitUnderTest.getNextPollAt("DEF"));
+    }
+
+    @Test
+    public void shouldRescheduleAfterError() {
+        when(api.getClanWar(any(ClanWarRequest.class))).thenThrow(new ApiException(new IOException("crapi: 500")));
+        unitUnderTest.watch("ABC");
+        long now = System.currentTimeMillis() + 1;
+        assertEquals(now + 1000, unitUnderTest.pollDue(now));
+        assertEquals(Arrays.asList("error:ABC"), events);
+    }
+
+    @Test
+    public void shouldRescheduleAfterRuntimeException() {
+        when(api.getClanWar(any(ClanWarRequest.class))).thenThrow(new IllegalStateException("closed"));
+        unitUnderTest.watch("ABC");
+        long now = System.currentTimeMillis() + 1;
+        assertEquals(now + 1000, unitUnderTest.pollDue(now));
+        assertEquals(Arrays.asList("error:ABC"), events);
+    }
+
+    @Test
+    public void shouldDeliverToOtherListenersWhenListenerFails() {
+        ClanWarListener failing = Mockito.mock(ClanWarListener.class);
+        Mockito.doThrow(new IllegalStateException()).when(failing).onStateChanged(any(String.class),
+                any(String.class), any(String.class));
+        unitUnderTest = new ClanWarWatcher(api, new ClanWarPollPolicy(30000, 1000, 10000, 500));
+        unitUnderTest.addListener(failing);
+        final List<String> states = new ArrayList<>();
+        unitUnderTest.addListener(new ClanWarAdapter() {
+            @Override
+            public void onStateChanged(String clanTag, String previousState, String currentState) {
+                states.add(currentState);
+            }
+        });
+        when(api.getClanWar(any(ClanWarRequest.class))).thenReturn(
+                createClanWar(ClanWarPollPolicy.COLLECTION_DAY, 1), createClanWar(ClanWarPollPolicy.WAR_DAY, 1));
+        unitUnderTest.watch("ABC");
+        long now = System.currentTimeMillis() + 1;
+        unitUnderTest.pollDue(now);
+        assertEquals(now + 70000, unitUnderTest.pollDue(now + 40000));
+        verify(failing).onStateChanged("ABC", ClanWarPollPolicy.COLLECTION_DAY, ClanWarPollPolicy.WAR_DAY);
+        assertEquals(Arrays.asList(ClanWarPollPolicy.WAR_DAY), states);
+    }
+
+    @Test
+    public void shouldUnwatch() {
+        unitUnderTest.watch("ABC");
+        unitUnderTest.unwatch("ABC");
+        assertEquals(0, unitUnderTest.size());
+        assertEquals(-1, unitUnderTest.getNextPollAt("ABC"));
+        assertNull(unitUnderTest.getLastWar("ABC"));
+    }
+
+    @Test
+    public void shouldNotBringBackClanUnwatchedDuringPoll() {
+        when(api.getClanWar(any(ClanWarRequest.class))).thenAnswer(new Answer<ClanWar>() {
+            @Override
+            public ClanWar answer(InvocationOnMock invocation) {
+                unitUnderTest.unwatch("ABC");
+                return createClanWar(ClanWarPollPolicy.NOT_IN_WAR, 0);
+            }
+        });
+        unitUnderTest.watch("ABC");
+        assertEquals(Long.MAX_VALUE, unitUnderTest.pollDue(System.currentTimeMillis() + 1));
+        assertEquals(0, unitUnderTest.size());
+        assertEquals(-1, unitUnderTest.getNextPollAt("ABC"));
+        assertNull(unitUnderTest.getLastWar("ABC"));
+    }
+
+    @Test
+    public void shouldEmitDeltas() {
+        ClanWar previous = createClanWar(ClanWarPollPolicy.COLLECTION_DAY, 1);
+        ClanWar current = createClanWar(ClanWarPollPolicy.WAR_DAY, 2);
+        current.getParticipants().add(createParticipant("NEW", 0));
+        current.getStandings().add(createStanding("SAME", 1));
+        previous.getStandings().add(createStanding("SAME", 1));
+        unitUnderTest.diff("ABC", previous, current);
+        assertEquals(Arrays.asList(
+                "state:collectionDay->warDay",
+                "participant:P:1->2",
+                "participant:NEW:new->0",
+                "standing:S:1->2"), events);
+    }
+
+    private ClanWar createClanWar(String state, int value) {
+        ClanWar clanWar = new ClanWar();
+        clanWar.setState(state);
+        clanWar.setParticipants(new ArrayList<>(Arrays.asList(createParticipant("P", value))));
+        clanWar.setStandings(new ArrayList<>(Arrays.asList(createStanding("S", value))));
+        return clanWar;
+    }
+
+    private ClanWarParticipant createParticipant(String tag, int wins) {
+        ClanWarParticipant participant = new ClanWarParticipant();
+        participant.setTag(tag);
+        participant.setWins(wins);
+        return participant;
+    }
+
+    private ClanWarStanding createStanding(String tag, int crowns) {
+        ClanWarStanding standing = new ClanWarStanding();
+        standing.setTag(tag);
+        standing.setCrowns(crowns);
+        return standing;
+    }
+
+}